@@ -0,0 +1,46 @@
+#version 300 es
+// 眼穹光照（Eye-Dome Lighting）：比较每个像素与周围 8 个像素的对数线性深度，
+// 比邻居更远的像素（轮廓和凹处）变暗，背景像素保持原色
+precision highp float;
+
+uniform sampler2D uColor;
+uniform sampler2D uDepth;
+uniform vec2 uTexelSize;    // 1 / 视口大小
+uniform vec2 uDepthRange;   // 投影的近、远平面
+uniform float uStrength;
+uniform float uRadius;      // 采样半径（像素）
+
+in vec2 vTexCoord;
+out vec4 fragColor;
+
+const vec2 NEIGHBORS[8] = vec2[8](
+    vec2(1.0, 0.0), vec2(0.7071, 0.7071), vec2(0.0, 1.0), vec2(-0.7071, 0.7071),
+    vec2(-1.0, 0.0), vec2(-0.7071, -0.7071), vec2(0.0, -1.0), vec2(0.7071, -0.7071));
+
+float logDepth(vec2 uv) {
+    float depth = texture(uDepth, uv).r;
+    float near = uDepthRange.x;
+    float far = uDepthRange.y;
+    // 深度纹理 [0, 1] 还原为线性深度
+    float linear = near * far / (far - depth * (far - near));
+    return log2(linear);
+}
+
+void main() {
+    vec4 color = texture(uColor, vTexCoord);
+    if (texture(uDepth, vTexCoord).r >= 1.0) {
+        fragColor = color;
+        return;
+    }
+
+    float center = logDepth(vTexCoord);
+    float response = 0.0;
+    for (int i = 0; i < 8; i++) {
+        float neighbor = logDepth(vTexCoord + NEIGHBORS[i] * uRadius * uTexelSize);
+        response += max(0.0, center - neighbor);
+    }
+    response /= 8.0;
+
+    float shade = exp(-response * 300.0 * uStrength);
+    fragColor = vec4(color.rgb * shade, color.a);
+}
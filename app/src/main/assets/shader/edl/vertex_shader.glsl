@@ -0,0 +1,10 @@
+#version 300 es
+// 眼穹光照合成：覆盖整个屏幕的三角形，顶点由 gl_VertexID 生成，不需要顶点缓冲区
+
+out vec2 vTexCoord;
+
+void main() {
+    vec2 position = vec2(float((gl_VertexID << 1) & 2), float(gl_VertexID & 2));
+    vTexCoord = position;
+    gl_Position = vec4(position * 2.0 - 1.0, 0.0, 1.0);
+}
@@ -7,13 +7,31 @@ uniform mat4 uMVPMatrix;
 uniform mat4 uModelMatrix;
 uniform mat4 uNormalMatrix;
 
+// 量化位置还原：position = uPositionOffset + aPosition * uPositionScale
+uniform vec3 uPositionScale;
+uniform vec3 uPositionOffset;
+// 法线是否为八面体编码（只使用 aNormal.xy）
+uniform bool uOctahedralNormal;
+
 out vec3 vNormal;
 out vec3 vFragPos;
 out vec2 vTexCoord;
 
+vec3 octDecode(vec2 e) {
+    vec3 n = vec3(e, 1.0 - abs(e.x) - abs(e.y));
+    if (n.z < 0.0) {
+        vec2 s = vec2(e.x >= 0.0 ? 1.0 : -1.0, e.y >= 0.0 ? 1.0 : -1.0);
+        n.xy = (1.0 - abs(e.yx)) * s;
+    }
+    return normalize(n);
+}
+
 void main() {
-    gl_Position = uMVPMatrix * vec4(aPosition, 1.0);
-    vFragPos = vec3(uModelMatrix * vec4(aPosition, 1.0));
-    vNormal = mat3(uNormalMatrix) * aNormal;
+    vec3 position = uPositionOffset + aPosition * uPositionScale;
+    vec3 normal = uOctahedralNormal ? octDecode(aNormal.xy) : aNormal;
+
+    gl_Position = uMVPMatrix * vec4(position, 1.0);
+    vFragPos = vec3(uModelMatrix * vec4(position, 1.0));
+    vNormal = mat3(uNormalMatrix) * normal;
     vTexCoord = aTexCoord;
-}
\ No newline at end of file
+}
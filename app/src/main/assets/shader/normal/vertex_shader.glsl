@@ -1,16 +0,0 @@
-#version 300 es
-layout(location = 0) in vec3 aPosition;
-layout(location = 1) in vec4 aColor;
-
-uniform mat4 uMVPMatrix;
-
-out vec4 vColor;
-
-void main() {
-    gl_Position = uMVPMatrix * vec4(aPosition, 1.0);
-
-    // 固定点大小，性能更好
-    gl_PointSize = 2.0;
-
-    vColor = aColor;
-}
\ No newline at end of file
@@ -0,0 +1,42 @@
+#version 300 es
+// 点云着色器，各显示模式通过宏定义选择：
+// HIGH_PRECISION  使用高精度
+// ROUND           圆形点，丢弃圆形外的片段
+// EDGE_WIDTH w    圆形点边缘宽度 w 内透明度平滑过渡
+// SHADE_LIGHT     伪光照（中心亮，边缘暗）
+// SHADE_GLOW      内发光
+// 都未定义时直接输出颜色，方形点（性能最好）
+#ifdef HIGH_PRECISION
+precision highp float;
+#else
+precision mediump float;
+#endif
+
+in vec4 vColor;
+out vec4 fragColor;
+
+void main() {
+#ifdef ROUND
+    // 计算当前片段在点内的位置（从中心到边缘的距离）
+    vec2 coord = gl_PointCoord * 2.0 - 1.0;
+    float distance = length(coord);
+    if (distance > 1.0) {
+        discard;
+    }
+
+    vec3 color = vColor.rgb;
+    float alpha = vColor.a;
+#ifdef EDGE_WIDTH
+    // 平滑边缘过渡
+    alpha *= 1.0 - smoothstep(1.0 - EDGE_WIDTH, 1.0, distance);
+#endif
+#if defined(SHADE_LIGHT)
+    color *= 0.7 + 0.3 * (1.0 - distance);
+#elif defined(SHADE_GLOW)
+    color *= 0.3 + 0.7 * (1.0 - distance);
+#endif
+    fragColor = vec4(color, alpha);
+#else
+    fragColor = vColor;
+#endif
+}
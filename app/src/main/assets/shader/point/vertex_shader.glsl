@@ -0,0 +1,63 @@
+#version 300 es
+// 点云着色器，各显示模式通过宏定义选择：
+// POINT_SIZE_FIXED    固定点大小
+// POINT_SIZE_UNIFORM  点大小由 uPointSize 控制，随距离缩放
+// 都未定义时按到中心的距离决定点大小，近大远小
+// 颜色由 uColorMode 选择，切换时只需修改 uniform：
+// 0 RGB        aColor
+// 1 高度        按 uHeightRange 内的 y 映射到色带
+// 2 强度        aAttributes.x 灰度
+// 3 分类        aAttributes.y * 255 为分类编号，查调色板
+layout(location = 0) in vec3 aPosition;
+layout(location = 1) in vec4 aColor;
+layout(location = 3) in vec4 aAttributes;  // 强度、分类 / 255（归一化的无符号字节）
+
+uniform mat4 uMVPMatrix;
+uniform int uColorMode;
+uniform vec2 uHeightRange;
+// 点坐标为原始单位，模型矩阵按中心和缩放归一化到 [-1, 1]
+uniform vec3 uModelCenter;
+uniform float uModelScale;
+#ifdef POINT_SIZE_UNIFORM
+uniform float uPointSize;  // 动态点大小控制
+#endif
+
+out vec4 vColor;
+
+// 分类调色板（LAS 编号）：未分类、地面、低/中/高植被、建筑、噪声、水体等
+const vec3 CLASS_COLORS[10] = vec3[10](
+    vec3(0.6, 0.6, 0.6), vec3(0.8, 0.8, 0.8), vec3(0.63, 0.47, 0.31), vec3(0.55, 0.8, 0.35),
+    vec3(0.3, 0.7, 0.2), vec3(0.1, 0.5, 0.1), vec3(0.9, 0.4, 0.3), vec3(1.0, 0.0, 1.0),
+    vec3(0.9, 0.9, 0.3), vec3(0.2, 0.5, 0.9));
+
+vec4 colorize() {
+    if (uColorMode == 1) {
+        float t = clamp((aPosition.y - uHeightRange.x) / (uHeightRange.y - uHeightRange.x + 0.001), 0.0, 1.0);
+        return vec4(t, 0.5, 1.0 - t, 1.0);
+    } else if (uColorMode == 2) {
+        return vec4(vec3(aAttributes.x), 1.0);
+    } else if (uColorMode == 3) {
+        int classification = int(aAttributes.y * 255.0 + 0.5);
+        return vec4(CLASS_COLORS[classification % 10], 1.0);
+    }
+    return aColor;
+}
+
+void main() {
+    gl_Position = uMVPMatrix * vec4(aPosition, 1.0);
+    float distanceFromCenter = length(aPosition - uModelCenter) * uModelScale;
+
+#if defined(POINT_SIZE_FIXED)
+    // 固定点大小，性能更好
+    gl_PointSize = 2.0;
+#elif defined(POINT_SIZE_UNIFORM)
+    // 根据距离动态调整点大小，保持透视效果
+    float depth = clamp(distanceFromCenter * 0.3, 0.5, 2.0);
+    gl_PointSize = uPointSize * depth;
+#else
+    // 动态点大小：根据距离调整点大小，近大远小
+    gl_PointSize = mix(4.0, 1.5, clamp(distanceFromCenter * 0.8, 0.0, 1.0));
+#endif
+
+    vColor = colorize();
+}
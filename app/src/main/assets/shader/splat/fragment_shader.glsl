@@ -0,0 +1,47 @@
+#version 300 es
+// 面元（splat）着色器，各遍通过宏定义选择：
+// VISIBILITY  可见性遍：只写深度，深度沿视线向后偏移一个半径，使同一表面上的面元都能通过累加遍的深度测试
+// ACCUMULATE  累加遍：输出 (颜色 * 权重, 权重)，加法混合，权重从圆盘中心向边缘减小
+// 都未定义时输出不透明面元（帧缓冲不可用时单遍绘制）
+precision highp float;
+
+uniform mat4 uProjectionMatrix;
+uniform vec2 uInvProjScale;  // 1 / (P[0][0], P[1][1])，像素到视空间射线
+uniform vec2 uViewportSize;
+
+in vec4 vColor;
+flat in vec3 vCenter;
+flat in vec3 vNormal;
+flat in float vRadius;
+out vec4 fragColor;
+
+void main() {
+    // 相机位于视空间原点，求像素射线与圆盘所在平面的交点
+    vec2 ndc = gl_FragCoord.xy / uViewportSize * 2.0 - 1.0;
+    vec3 ray = vec3(ndc * uInvProjScale, -1.0);
+    float facing = dot(ray, vNormal);
+    if (abs(facing) < 1e-6) {
+        discard;
+    }
+    vec3 hit = ray * (dot(vCenter, vNormal) / facing);
+    vec3 offset = hit - vCenter;
+    float distanceSq = dot(offset, offset) / (vRadius * vRadius);
+    if (distanceSq > 1.0) {
+        discard;
+    }
+
+#ifdef VISIBILITY
+    hit += normalize(ray) * vRadius;
+#endif
+    vec4 clip = uProjectionMatrix * vec4(hit, 1.0);
+    gl_FragDepth = clip.z / clip.w * 0.5 + 0.5;
+
+#if defined(ACCUMULATE)
+    float weight = 1.0 - distanceSq;
+    fragColor = vec4(vColor.rgb * weight, weight);
+#elif defined(VISIBILITY)
+    fragColor = vec4(0.0);
+#else
+    fragColor = vec4(vColor.rgb, 1.0);
+#endif
+}
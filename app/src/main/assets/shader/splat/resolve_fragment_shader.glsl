@@ -0,0 +1,16 @@
+#version 300 es
+// 面元归一化：累加的颜色除以权重和；没有面元的像素丢弃，保留屏幕背景
+precision highp float;
+
+uniform sampler2D uAccumulation;
+
+in vec2 vTexCoord;
+out vec4 fragColor;
+
+void main() {
+    vec4 sum = texture(uAccumulation, vTexCoord);
+    if (sum.a <= 0.0) {
+        discard;
+    }
+    fragColor = vec4(sum.rgb / sum.a, 1.0);
+}
@@ -0,0 +1,53 @@
+#version 300 es
+// 面元（splat）着色器：每个点是视空间中以法线为朝向、半径为 aSplat.w 的圆盘，
+// 点精灵覆盖圆盘外接球的投影，片段着色器再把像素射线与圆盘求交
+layout(location = 0) in vec3 aPosition;
+layout(location = 1) in vec4 aColor;
+layout(location = 2) in vec4 aSplat;  // 法线 xyz，半径 w（点云坐标）
+layout(location = 3) in vec4 aAttributes;  // 强度、分类 / 255
+
+uniform mat4 uModelViewMatrix;
+uniform mat4 uProjectionMatrix;
+uniform float uViewportScale;  // 视空间长度 r 在距离 z 处为 r * uViewportScale / z 像素
+uniform int uColorMode;  // 与 shader/point/vertex_shader.glsl 相同
+uniform vec2 uHeightRange;
+
+out vec4 vColor;
+flat out vec3 vCenter;
+flat out vec3 vNormal;
+flat out float vRadius;
+
+const vec3 CLASS_COLORS[10] = vec3[10](
+    vec3(0.6, 0.6, 0.6), vec3(0.8, 0.8, 0.8), vec3(0.63, 0.47, 0.31), vec3(0.55, 0.8, 0.35),
+    vec3(0.3, 0.7, 0.2), vec3(0.1, 0.5, 0.1), vec3(0.9, 0.4, 0.3), vec3(1.0, 0.0, 1.0),
+    vec3(0.9, 0.9, 0.3), vec3(0.2, 0.5, 0.9));
+
+vec4 colorize() {
+    if (uColorMode == 1) {
+        float t = clamp((aPosition.y - uHeightRange.x) / (uHeightRange.y - uHeightRange.x + 0.001), 0.0, 1.0);
+        return vec4(t, 0.5, 1.0 - t, 1.0);
+    } else if (uColorMode == 2) {
+        return vec4(vec3(aAttributes.x), 1.0);
+    } else if (uColorMode == 3) {
+        int classification = int(aAttributes.y * 255.0 + 0.5);
+        return vec4(CLASS_COLORS[classification % 10], 1.0);
+    }
+    return aColor;
+}
+
+void main() {
+    vec4 center = uModelViewMatrix * vec4(aPosition, 1.0);
+    // 模型视图矩阵只有均匀缩放，法线直接用左上 3x3 变换
+    vec3 normal = normalize(mat3(uModelViewMatrix) * aSplat.xyz);
+    float radius = aSplat.w * length(uModelViewMatrix[0].xyz);
+
+    gl_Position = uProjectionMatrix * center;
+    gl_PointSize = 2.0 * radius * uViewportScale / max(-center.z - radius, 0.01);
+
+    // 头灯照明：正对相机的面元最亮，圆盘正反两面相同
+    vec4 color = colorize();
+    vColor = vec4(color.rgb * (0.5 + 0.5 * abs(normal.z)), color.a);
+    vCenter = center.xyz;
+    vNormal = normal;
+    vRadius = radius;
+}
@@ -0,0 +1,11 @@
+package com.example.sl;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 资源文件读取，生产环境为 context.getAssets()::open，测试中可以直接提供内容
+ */
+public interface AssetSource {
+    InputStream open(String filename) throws IOException;
+}
@@ -0,0 +1,471 @@
+package com.example.sl;
+
+import android.graphics.Bitmap;
+
+import java.nio.Buffer;
+
+/**
+ * 统计GL调用的装饰器：记录自上次 resetCounters() 以来的调用数、状态切换、绘制调用和上传字节数，
+ * 其余行为完全交给被包装的实现（GL线程）
+ */
+public class CountingGlApi implements GlApi {
+    private final GlApi delegate;
+    private int calls;
+    private int stateChanges;
+    private int drawCalls;
+    private long uploadedBytes;
+
+    public CountingGlApi(GlApi delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * 清零计数，通常在每帧开始时调用
+     */
+    public void resetCounters() {
+        calls = 0;
+        stateChanges = 0;
+        drawCalls = 0;
+        uploadedBytes = 0;
+    }
+
+    public int getCalls() {
+        return calls;
+    }
+
+    public int getStateChanges() {
+        return stateChanges;
+    }
+
+    public int getDrawCalls() {
+        return drawCalls;
+    }
+
+    public long getUploadedBytes() {
+        return uploadedBytes;
+    }
+
+    @Override
+    public void glEnable(int cap) {
+        calls++;
+        stateChanges++;
+        delegate.glEnable(cap);
+    }
+
+    @Override
+    public void glDisable(int cap) {
+        calls++;
+        stateChanges++;
+        delegate.glDisable(cap);
+    }
+
+    @Override
+    public void glBlendFunc(int sfactor, int dfactor) {
+        calls++;
+        stateChanges++;
+        delegate.glBlendFunc(sfactor, dfactor);
+    }
+
+    @Override
+    public void glDepthFunc(int func) {
+        calls++;
+        stateChanges++;
+        delegate.glDepthFunc(func);
+    }
+
+    @Override
+    public void glDepthMask(boolean flag) {
+        calls++;
+        stateChanges++;
+        delegate.glDepthMask(flag);
+    }
+
+    @Override
+    public void glColorMask(boolean red, boolean green, boolean blue, boolean alpha) {
+        calls++;
+        stateChanges++;
+        delegate.glColorMask(red, green, blue, alpha);
+    }
+
+    @Override
+    public void glCullFace(int mode) {
+        calls++;
+        stateChanges++;
+        delegate.glCullFace(mode);
+    }
+
+    @Override
+    public void glViewport(int x, int y, int width, int height) {
+        calls++;
+        stateChanges++;
+        delegate.glViewport(x, y, width, height);
+    }
+
+    @Override
+    public void glClearColor(float red, float green, float blue, float alpha) {
+        calls++;
+        delegate.glClearColor(red, green, blue, alpha);
+    }
+
+    @Override
+    public void glClear(int mask) {
+        calls++;
+        delegate.glClear(mask);
+    }
+
+    @Override
+    public int glGetError() {
+        calls++;
+        return delegate.glGetError();
+    }
+
+    @Override
+    public String glGetString(int name) {
+        calls++;
+        return delegate.glGetString(name);
+    }
+
+    @Override
+    public void glGetIntegerv(int pname, int[] params, int offset) {
+        calls++;
+        delegate.glGetIntegerv(pname, params, offset);
+    }
+
+    @Override
+    public int glCreateShader(int type) {
+        calls++;
+        return delegate.glCreateShader(type);
+    }
+
+    @Override
+    public void glShaderSource(int shader, String source) {
+        calls++;
+        delegate.glShaderSource(shader, source);
+    }
+
+    @Override
+    public void glCompileShader(int shader) {
+        calls++;
+        delegate.glCompileShader(shader);
+    }
+
+    @Override
+    public void glGetShaderiv(int shader, int pname, int[] params, int offset) {
+        calls++;
+        delegate.glGetShaderiv(shader, pname, params, offset);
+    }
+
+    @Override
+    public String glGetShaderInfoLog(int shader) {
+        calls++;
+        return delegate.glGetShaderInfoLog(shader);
+    }
+
+    @Override
+    public void glDeleteShader(int shader) {
+        calls++;
+        delegate.glDeleteShader(shader);
+    }
+
+    @Override
+    public int glCreateProgram() {
+        calls++;
+        return delegate.glCreateProgram();
+    }
+
+    @Override
+    public void glAttachShader(int program, int shader) {
+        calls++;
+        delegate.glAttachShader(program, shader);
+    }
+
+    @Override
+    public void glLinkProgram(int program) {
+        calls++;
+        delegate.glLinkProgram(program);
+    }
+
+    @Override
+    public void glGetProgramiv(int program, int pname, int[] params, int offset) {
+        calls++;
+        delegate.glGetProgramiv(program, pname, params, offset);
+    }
+
+    @Override
+    public String glGetProgramInfoLog(int program) {
+        calls++;
+        return delegate.glGetProgramInfoLog(program);
+    }
+
+    @Override
+    public void glDeleteProgram(int program) {
+        calls++;
+        delegate.glDeleteProgram(program);
+    }
+
+    @Override
+    public void glUseProgram(int program) {
+        calls++;
+        stateChanges++;
+        delegate.glUseProgram(program);
+    }
+
+    @Override
+    public void glProgramParameteri(int program, int pname, int value) {
+        calls++;
+        delegate.glProgramParameteri(program, pname, value);
+    }
+
+    @Override
+    public void glGetProgramBinary(int program, int bufSize, int[] length, int lengthOffset,
+                                   int[] binaryFormat, int binaryFormatOffset, Buffer binary) {
+        calls++;
+        delegate.glGetProgramBinary(program, bufSize, length, lengthOffset, binaryFormat, binaryFormatOffset, binary);
+    }
+
+    @Override
+    public void glProgramBinary(int program, int binaryFormat, Buffer binary, int length) {
+        calls++;
+        delegate.glProgramBinary(program, binaryFormat, binary, length);
+    }
+
+    @Override
+    public int glGetAttribLocation(int program, String name) {
+        calls++;
+        return delegate.glGetAttribLocation(program, name);
+    }
+
+    @Override
+    public int glGetUniformLocation(int program, String name) {
+        calls++;
+        return delegate.glGetUniformLocation(program, name);
+    }
+
+    @Override
+    public void glUniform1i(int location, int x) {
+        calls++;
+        delegate.glUniform1i(location, x);
+    }
+
+    @Override
+    public void glUniform1f(int location, float x) {
+        calls++;
+        delegate.glUniform1f(location, x);
+    }
+
+    @Override
+    public void glUniform2f(int location, float x, float y) {
+        calls++;
+        delegate.glUniform2f(location, x, y);
+    }
+
+    @Override
+    public void glUniform3f(int location, float x, float y, float z) {
+        calls++;
+        delegate.glUniform3f(location, x, y, z);
+    }
+
+    @Override
+    public void glUniform3fv(int location, int count, float[] v, int offset) {
+        calls++;
+        delegate.glUniform3fv(location, count, v, offset);
+    }
+
+    @Override
+    public void glUniformMatrix4fv(int location, int count, boolean transpose, float[] value, int offset) {
+        calls++;
+        delegate.glUniformMatrix4fv(location, count, transpose, value, offset);
+    }
+
+    @Override
+    public void glGenBuffers(int n, int[] buffers, int offset) {
+        calls++;
+        delegate.glGenBuffers(n, buffers, offset);
+    }
+
+    @Override
+    public void glDeleteBuffers(int n, int[] buffers, int offset) {
+        calls++;
+        delegate.glDeleteBuffers(n, buffers, offset);
+    }
+
+    @Override
+    public void glBindBuffer(int target, int buffer) {
+        calls++;
+        stateChanges++;
+        delegate.glBindBuffer(target, buffer);
+    }
+
+    @Override
+    public void glBufferData(int target, int size, Buffer data, int usage) {
+        calls++;
+        if (data != null) uploadedBytes += size;
+        delegate.glBufferData(target, size, data, usage);
+    }
+
+    @Override
+    public void glBufferSubData(int target, int offset, int size, Buffer data) {
+        calls++;
+        uploadedBytes += size;
+        delegate.glBufferSubData(target, offset, size, data);
+    }
+
+    @Override
+    public void glGenVertexArrays(int n, int[] arrays, int offset) {
+        calls++;
+        delegate.glGenVertexArrays(n, arrays, offset);
+    }
+
+    @Override
+    public void glDeleteVertexArrays(int n, int[] arrays, int offset) {
+        calls++;
+        delegate.glDeleteVertexArrays(n, arrays, offset);
+    }
+
+    @Override
+    public void glBindVertexArray(int array) {
+        calls++;
+        stateChanges++;
+        delegate.glBindVertexArray(array);
+    }
+
+    @Override
+    public void glEnableVertexAttribArray(int index) {
+        calls++;
+        delegate.glEnableVertexAttribArray(index);
+    }
+
+    @Override
+    public void glVertexAttribPointer(int index, int size, int type, boolean normalized, int stride, int offset) {
+        calls++;
+        delegate.glVertexAttribPointer(index, size, type, normalized, stride, offset);
+    }
+
+    @Override
+    public void glGenTextures(int n, int[] textures, int offset) {
+        calls++;
+        delegate.glGenTextures(n, textures, offset);
+    }
+
+    @Override
+    public void glDeleteTextures(int n, int[] textures, int offset) {
+        calls++;
+        delegate.glDeleteTextures(n, textures, offset);
+    }
+
+    @Override
+    public void glActiveTexture(int texture) {
+        calls++;
+        stateChanges++;
+        delegate.glActiveTexture(texture);
+    }
+
+    @Override
+    public void glBindTexture(int target, int texture) {
+        calls++;
+        stateChanges++;
+        delegate.glBindTexture(target, texture);
+    }
+
+    @Override
+    public void glTexParameteri(int target, int pname, int param) {
+        calls++;
+        delegate.glTexParameteri(target, pname, param);
+    }
+
+    @Override
+    public void glTexImage2D(int target, int level, int internalformat, int width, int height, int border,
+                             int format, int type, Buffer pixels) {
+        calls++;
+        // 按 RGBA8 估计
+        if (pixels != null) uploadedBytes += (long) width * height * 4;
+        delegate.glTexImage2D(target, level, internalformat, width, height, border, format, type, pixels);
+    }
+
+    @Override
+    public void glGenerateMipmap(int target) {
+        calls++;
+        delegate.glGenerateMipmap(target);
+    }
+
+    @Override
+    public void texImage2D(int target, int level, Bitmap bitmap, int border) {
+        calls++;
+        uploadedBytes += bitmap.getByteCount();
+        delegate.texImage2D(target, level, bitmap, border);
+    }
+
+    @Override
+    public void glGenFramebuffers(int n, int[] framebuffers, int offset) {
+        calls++;
+        delegate.glGenFramebuffers(n, framebuffers, offset);
+    }
+
+    @Override
+    public void glDeleteFramebuffers(int n, int[] framebuffers, int offset) {
+        calls++;
+        delegate.glDeleteFramebuffers(n, framebuffers, offset);
+    }
+
+    @Override
+    public void glBindFramebuffer(int target, int framebuffer) {
+        calls++;
+        delegate.glBindFramebuffer(target, framebuffer);
+    }
+
+    @Override
+    public void glFramebufferTexture2D(int target, int attachment, int textarget, int texture, int level) {
+        calls++;
+        delegate.glFramebufferTexture2D(target, attachment, textarget, texture, level);
+    }
+
+    @Override
+    public int glCheckFramebufferStatus(int target) {
+        calls++;
+        return delegate.glCheckFramebufferStatus(target);
+    }
+
+    @Override
+    public void glGenQueries(int n, int[] ids, int offset) {
+        calls++;
+        delegate.glGenQueries(n, ids, offset);
+    }
+
+    @Override
+    public void glDeleteQueries(int n, int[] ids, int offset) {
+        calls++;
+        delegate.glDeleteQueries(n, ids, offset);
+    }
+
+    @Override
+    public void glBeginQuery(int target, int id) {
+        calls++;
+        delegate.glBeginQuery(target, id);
+    }
+
+    @Override
+    public void glEndQuery(int target) {
+        calls++;
+        delegate.glEndQuery(target);
+    }
+
+    @Override
+    public void glGetQueryObjectuiv(int id, int pname, int[] params, int offset) {
+        calls++;
+        delegate.glGetQueryObjectuiv(id, pname, params, offset);
+    }
+
+    @Override
+    public void glDrawArrays(int mode, int first, int count) {
+        calls++;
+        drawCalls++;
+        delegate.glDrawArrays(mode, first, count);
+    }
+
+    @Override
+    public void glDrawElements(int mode, int count, int type, int offset) {
+        calls++;
+        drawCalls++;
+        delegate.glDrawElements(mode, count, type, offset);
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.sl;
+
+import java.util.Arrays;
+
+/**
+ * 按观察方向上的深度从远到近排序点（半透明混合需要），用于生成 glDrawElements 的索引
+ * 深度转换为可按无符号整数比较的 32 位键，再做 4 趟 8 位的 LSD 基数排序，所有键的某一字节相同时跳过该趟
+ * 工作数组按点数增长后复用，排序本身不分配内存；同一时刻只能在一个线程中使用
+ */
+public class DepthSorter {
+    // 相机旋转超过该角度或移动超过该距离（点云坐标）时才需要重新排序
+    public static final float DEFAULT_RESORT_DEGREES = 2.0f;
+    public static final float DEFAULT_RESORT_DISTANCE = 0.05f;
+    private static final float COS_RESORT = (float) Math.cos(Math.toRadians(DEFAULT_RESORT_DEGREES));
+
+    private int[] keys = new int[0];
+    private int[] indices = new int[0];
+    private int[] tempKeys = new int[0];
+    private int[] tempIndices = new int[0];
+    private final int[] histogram = new int[256];
+    private int count;
+    private volatile long lastSortNanos;
+
+    /**
+     * 排序 ranges 中前 rangeCount 个范围（firsts/counts，点编号）内的点，
+     * 结果见 getIndices()，第一个是最远的点；返回点数
+     */
+    public int sortBackToFront(float[] positions, int[] firsts, int[] counts, int rangeCount,
+                               float eyeX, float eyeY, float eyeZ, float dirX, float dirY, float dirZ) {
+        long start = System.nanoTime();
+        int total = 0;
+        for (int r = 0; r < rangeCount; r++) {
+            total += counts[r];
+        }
+        ensureCapacity(total);
+
+        int n = 0;
+        for (int r = 0; r < rangeCount; r++) {
+            int end = firsts[r] + counts[r];
+            for (int p = firsts[r]; p < end; p++) {
+                float depth = (positions[p * 3] - eyeX) * dirX
+                        + (positions[p * 3 + 1] - eyeY) * dirY
+                        + (positions[p * 3 + 2] - eyeZ) * dirZ;
+                // 取反后升序即为深度降序
+                keys[n] = ~sortableBits(depth);
+                indices[n++] = p;
+            }
+        }
+        count = n;
+        radixSort(n);
+        lastSortNanos = System.nanoTime() - start;
+        return n;
+    }
+
+    /**
+     * 浮点数的位模式变换为按无符号比较时与数值顺序一致的整数
+     */
+    static int sortableBits(float value) {
+        int bits = Float.floatToIntBits(value);
+        return bits < 0 ? ~bits : bits ^ 0x80000000;
+    }
+
+    private void radixSort(int n) {
+        int[] srcKeys = keys, srcIndices = indices;
+        int[] dstKeys = tempKeys, dstIndices = tempIndices;
+        for (int shift = 0; shift < 32; shift += 8) {
+            Arrays.fill(histogram, 0);
+            for (int i = 0; i < n; i++) {
+                histogram[(srcKeys[i] >>> shift) & 0xFF]++;
+            }
+            // 所有键在这一字节上相同，顺序不变
+            if (n == 0 || histogram[(srcKeys[0] >>> shift) & 0xFF] == n) continue;
+
+            int sum = 0;
+            for (int b = 0; b < 256; b++) {
+                int c = histogram[b];
+                histogram[b] = sum;
+                sum += c;
+            }
+            for (int i = 0; i < n; i++) {
+                int slot = histogram[(srcKeys[i] >>> shift) & 0xFF]++;
+                dstKeys[slot] = srcKeys[i];
+                dstIndices[slot] = srcIndices[i];
+            }
+            int[] swap = srcKeys;
+            srcKeys = dstKeys;
+            dstKeys = swap;
+            swap = srcIndices;
+            srcIndices = dstIndices;
+            dstIndices = swap;
+        }
+        keys = srcKeys;
+        indices = srcIndices;
+        tempKeys = dstKeys;
+        tempIndices = dstIndices;
+    }
+
+    private void ensureCapacity(int n) {
+        if (keys.length < n) {
+            keys = new int[n];
+            indices = new int[n];
+            tempKeys = new int[n];
+            tempIndices = new int[n];
+        }
+    }
+
+    /**
+     * 排序后的点编号，前 getCount() 个有效；数组在下一次排序时复用
+     */
+    public int[] getIndices() {
+        return indices;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public long getLastSortNanos() {
+        return lastSortNanos;
+    }
+
+    /**
+     * 上次排序的相机与当前相机相差是否超过阈值（方向为单位向量）
+     */
+    public static boolean cameraMoved(float[] sortedEye, float[] sortedDir, float eyeX, float eyeY, float eyeZ,
+                                      float dirX, float dirY, float dirZ) {
+        float dx = eyeX - sortedEye[0], dy = eyeY - sortedEye[1], dz = eyeZ - sortedEye[2];
+        if (dx * dx + dy * dy + dz * dz > DEFAULT_RESORT_DISTANCE * DEFAULT_RESORT_DISTANCE) return true;
+        float cos = dirX * sortedDir[0] + dirY * sortedDir[1] + dirZ * sortedDir[2];
+        return cos < COS_RESORT;
+    }
+}
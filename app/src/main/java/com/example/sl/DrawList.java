@@ -0,0 +1,77 @@
+package com.example.sl;
+
+/**
+ * 绘制范围列表 - 同一缓冲区上的若干 [first, first + count) 区间，按顺序添加，
+ * 与上一个区间首尾相接时合并，渲染时每个区间对应一次 glDrawArrays/glDrawElements
+ * 数组预先分配并在帧之间复用，容量足够时 reset/add 不分配内存
+ */
+public class DrawList {
+    private int[] firsts;
+    private int[] counts;
+    private int size;
+    private long total;
+
+    public DrawList() {
+        this(64);
+    }
+
+    public DrawList(int capacity) {
+        firsts = new int[Math.max(1, capacity)];
+        counts = new int[Math.max(1, capacity)];
+    }
+
+    /**
+     * 保证至少能容纳 capacity 个不相接的区间，在数据变化时调用，避免帧内扩容
+     */
+    public void ensureCapacity(int capacity) {
+        if (firsts.length >= capacity) return;
+        int[] newFirsts = new int[capacity];
+        int[] newCounts = new int[capacity];
+        System.arraycopy(firsts, 0, newFirsts, 0, size);
+        System.arraycopy(counts, 0, newCounts, 0, size);
+        firsts = newFirsts;
+        counts = newCounts;
+    }
+
+    public void reset() {
+        size = 0;
+        total = 0;
+    }
+
+    /**
+     * 添加一个区间，空区间被忽略
+     */
+    public void add(int first, int count) {
+        if (count <= 0) return;
+        total += count;
+        if (size > 0 && firsts[size - 1] + counts[size - 1] == first) {
+            counts[size - 1] += count;
+            return;
+        }
+        if (size == firsts.length) {
+            ensureCapacity(size * 2);
+        }
+        firsts[size] = first;
+        counts[size] = count;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getFirst(int i) {
+        return firsts[i];
+    }
+
+    public int getCount(int i) {
+        return counts[i];
+    }
+
+    /**
+     * 所有区间的元素总数
+     */
+    public long getTotalCount() {
+        return total;
+    }
+}
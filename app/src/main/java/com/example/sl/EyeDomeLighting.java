@@ -0,0 +1,208 @@
+package com.example.sl;
+
+import android.opengl.GLES30;
+import android.util.Log;
+
+/**
+ * 眼穹光照（Eye-Dome Lighting）后处理：点先绘制到带深度纹理的帧缓冲，
+ * 再用一个全屏三角形按每个像素与周围像素的对数深度差变暗，不需要法线，开销只与像素数有关（GL线程）
+ * 帧缓冲不完整时自动关闭，直接绘制到屏幕
+ */
+public class EyeDomeLighting {
+    private static final String TAG = "EyeDomeLighting";
+
+    public static final float DEFAULT_STRENGTH = 1.0f;
+    public static final float DEFAULT_RADIUS = 1.4f;
+
+    private final GlApi gl;
+    private final int[] ids = new int[1];
+    private int program;
+    private int colorTextureHandle;
+    private int depthTextureHandle;
+    private int texelSizeHandle;
+    private int depthRangeHandle;
+    private int strengthHandle;
+    private int radiusHandle;
+    private int vao;
+
+    private int framebuffer;
+    private int colorTexture;
+    private int depthTexture;
+    private int width;
+    private int height;
+    private float near = 1;
+    private float far = 100;
+    private float strength = DEFAULT_STRENGTH;
+    private float radius = DEFAULT_RADIUS;
+    private boolean enabled;
+
+    public EyeDomeLighting(GlApi gl) {
+        this.gl = gl;
+    }
+
+    /**
+     * GL上下文创建后调用：旧上下文中的对象已随上下文失效，重新创建程序和空的顶点数组
+     */
+    public void onContextCreated(ShaderProgramManager programs) {
+        framebuffer = 0;
+        colorTexture = 0;
+        depthTexture = 0;
+        width = 0;
+        height = 0;
+        enabled = false;
+        program = programs.getProgram("shader/edl/vertex_shader.glsl", "shader/edl/fragment_shader.glsl");
+        if (program == 0) {
+            Log.e(TAG, "Failed to create EDL program, drawing without EDL");
+            return;
+        }
+        colorTextureHandle = gl.glGetUniformLocation(program, "uColor");
+        depthTextureHandle = gl.glGetUniformLocation(program, "uDepth");
+        texelSizeHandle = gl.glGetUniformLocation(program, "uTexelSize");
+        depthRangeHandle = gl.glGetUniformLocation(program, "uDepthRange");
+        strengthHandle = gl.glGetUniformLocation(program, "uStrength");
+        radiusHandle = gl.glGetUniformLocation(program, "uRadius");
+        // 全屏三角形的顶点由 gl_VertexID 生成，顶点数组不绑定任何缓冲区
+        gl.glGenVertexArrays(1, ids, 0);
+        vao = ids[0];
+    }
+
+    /**
+     * 透视投影的近、远平面，用于把深度纹理还原为线性深度
+     */
+    public void setDepthRange(float near, float far) {
+        this.near = near;
+        this.far = far;
+    }
+
+    public void setStrength(float strength) {
+        this.strength = strength;
+    }
+
+    /**
+     * 采样邻域半径（像素）
+     */
+    public void setRadius(float radius) {
+        this.radius = radius;
+    }
+
+    /**
+     * 按视口大小（重新）创建颜色和深度纹理
+     */
+    public void resize(int width, int height) {
+        if (program == 0 || width <= 0 || height <= 0) return;
+        if (width == this.width && height == this.height && enabled) return;
+        deleteTargets();
+        this.width = width;
+        this.height = height;
+
+        colorTexture = createTexture(GLES30.GL_RGBA8, GLES30.GL_RGBA, GLES30.GL_UNSIGNED_BYTE);
+        depthTexture = createTexture(GLES30.GL_DEPTH_COMPONENT24, GLES30.GL_DEPTH_COMPONENT, GLES30.GL_UNSIGNED_INT);
+        gl.glBindTexture(GLES30.GL_TEXTURE_2D, 0);
+
+        gl.glGenFramebuffers(1, ids, 0);
+        framebuffer = ids[0];
+        gl.glBindFramebuffer(GLES30.GL_FRAMEBUFFER, framebuffer);
+        gl.glFramebufferTexture2D(GLES30.GL_FRAMEBUFFER, GLES30.GL_COLOR_ATTACHMENT0, GLES30.GL_TEXTURE_2D, colorTexture, 0);
+        gl.glFramebufferTexture2D(GLES30.GL_FRAMEBUFFER, GLES30.GL_DEPTH_ATTACHMENT, GLES30.GL_TEXTURE_2D, depthTexture, 0);
+        int status = gl.glCheckFramebufferStatus(GLES30.GL_FRAMEBUFFER);
+        gl.glBindFramebuffer(GLES30.GL_FRAMEBUFFER, 0);
+
+        enabled = status == GLES30.GL_FRAMEBUFFER_COMPLETE;
+        if (!enabled) {
+            Log.e(TAG, "EDL framebuffer incomplete: 0x" + Integer.toHexString(status) + ", drawing without EDL");
+            deleteTargets();
+        }
+    }
+
+    private int createTexture(int internalFormat, int format, int type) {
+        gl.glGenTextures(1, ids, 0);
+        int texture = ids[0];
+        gl.glBindTexture(GLES30.GL_TEXTURE_2D, texture);
+        // 深度纹理不能线性过滤，两张纹理都按像素读取
+        gl.glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_MIN_FILTER, GLES30.GL_NEAREST);
+        gl.glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_MAG_FILTER, GLES30.GL_NEAREST);
+        gl.glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_WRAP_S, GLES30.GL_CLAMP_TO_EDGE);
+        gl.glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_WRAP_T, GLES30.GL_CLAMP_TO_EDGE);
+        gl.glTexImage2D(GLES30.GL_TEXTURE_2D, 0, internalFormat, width, height, 0, format, type, null);
+        return texture;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 之后的绘制写入离屏帧缓冲
+     */
+    public void begin() {
+        if (!enabled) return;
+        gl.glBindFramebuffer(GLES30.GL_FRAMEBUFFER, framebuffer);
+    }
+
+    /**
+     * 回到屏幕并做光照合成，之后恢复 sceneProgram 为当前程序
+     */
+    public void end(int sceneProgram) {
+        if (!enabled) return;
+        gl.glBindFramebuffer(GLES30.GL_FRAMEBUFFER, 0);
+        gl.glDisable(GLES30.GL_DEPTH_TEST);
+        gl.glDisable(GLES30.GL_BLEND);
+
+        gl.glUseProgram(program);
+        gl.glActiveTexture(GLES30.GL_TEXTURE1);
+        gl.glBindTexture(GLES30.GL_TEXTURE_2D, depthTexture);
+        gl.glUniform1i(depthTextureHandle, 1);
+        gl.glActiveTexture(GLES30.GL_TEXTURE0);
+        gl.glBindTexture(GLES30.GL_TEXTURE_2D, colorTexture);
+        gl.glUniform1i(colorTextureHandle, 0);
+        gl.glUniform2f(texelSizeHandle, 1.0f / width, 1.0f / height);
+        gl.glUniform2f(depthRangeHandle, near, far);
+        gl.glUniform1f(strengthHandle, strength);
+        gl.glUniform1f(radiusHandle, radius);
+
+        gl.glBindVertexArray(vao);
+        gl.glDrawArrays(GLES30.GL_TRIANGLES, 0, 3);
+        gl.glBindVertexArray(0);
+
+        // 解绑两张纹理，下一帧绘制到帧缓冲时它们不能被采样
+        gl.glBindTexture(GLES30.GL_TEXTURE_2D, 0);
+        gl.glActiveTexture(GLES30.GL_TEXTURE1);
+        gl.glBindTexture(GLES30.GL_TEXTURE_2D, 0);
+        gl.glActiveTexture(GLES30.GL_TEXTURE0);
+        gl.glUseProgram(sceneProgram);
+        gl.glEnable(GLES30.GL_BLEND);
+        gl.glEnable(GLES30.GL_DEPTH_TEST);
+    }
+
+    private void deleteTargets() {
+        if (framebuffer != 0) {
+            ids[0] = framebuffer;
+            gl.glDeleteFramebuffers(1, ids, 0);
+            framebuffer = 0;
+        }
+        if (colorTexture != 0) {
+            ids[0] = colorTexture;
+            gl.glDeleteTextures(1, ids, 0);
+            colorTexture = 0;
+        }
+        if (depthTexture != 0) {
+            ids[0] = depthTexture;
+            gl.glDeleteTextures(1, ids, 0);
+            depthTexture = 0;
+        }
+        enabled = false;
+    }
+
+    /**
+     * 删除帧缓冲、纹理和顶点数组，程序由 ShaderProgramManager 释放
+     */
+    public void release() {
+        deleteTargets();
+        if (vao != 0) {
+            ids[0] = vao;
+            gl.glDeleteVertexArrays(1, ids, 0);
+            vao = 0;
+        }
+        program = 0;
+    }
+}
@@ -11,17 +11,21 @@ public class FastSurfaceReconstructor {
      * 快速表面重建 - 使用简化的贪婪投影三角化
      */
     public static MeshData fastReconstruction(PointCloudData pointCloud, float searchRadius) {
+        return fastReconstruction(pointCloud, searchRadius, ReconstructionMonitor.NONE);
+    }
+
+    public static MeshData fastReconstruction(PointCloudData pointCloud, float searchRadius, ReconstructionMonitor monitor) {
         Log.i(TAG, "Starting fast surface reconstruction...");
         long startTime = System.currentTimeMillis();
 
         // 第一步：数据预处理（降采样）
-        PointCloudData sampledCloud = fastDownsample(pointCloud, 50000); // 限制到5万个点
+        PointCloudData sampledCloud = fastDownsample(pointCloud, 50000, monitor); // 限制到5万个点
 
         // 第二步：快速三角化
-        MeshData meshData = greedyProjectionTriangulation(sampledCloud, searchRadius);
+        MeshData meshData = greedyProjectionTriangulation(sampledCloud, searchRadius, monitor);
 
         long endTime = System.currentTimeMillis();
-        Log.i(TAG, String.format("Fast reconstruction completed in %d ms: %d vertices, %d triangles", (endTime - startTime), meshData.vertices.size(), meshData.triangles.size()));
+        Log.i(TAG, String.format("Fast reconstruction completed in %d ms: %d vertices, %d triangles", (endTime - startTime), meshData.getVertexCount(), meshData.getTriangleCount()));
 
         return meshData;
     }
@@ -30,17 +34,22 @@ public class FastSurfaceReconstructor {
      * 带目标点数的快速表面重建
      */
     public static MeshData fastReconstruction(PointCloudData pointCloud, float searchRadius, int targetPoints) {
+        return fastReconstruction(pointCloud, searchRadius, targetPoints, ReconstructionMonitor.NONE);
+    }
+
+    public static MeshData fastReconstruction(PointCloudData pointCloud, float searchRadius, int targetPoints,
+                                              ReconstructionMonitor monitor) {
         Log.i(TAG, "Starting fast surface reconstruction with target points...");
         long startTime = System.currentTimeMillis();
 
         // 第一步：数据预处理（降采样）
-        PointCloudData sampledCloud = fastDownsample(pointCloud, targetPoints);
+        PointCloudData sampledCloud = fastDownsample(pointCloud, targetPoints, monitor);
 
         // 第二步：快速三角化
-        MeshData meshData = greedyProjectionTriangulation(sampledCloud, searchRadius);
+        MeshData meshData = greedyProjectionTriangulation(sampledCloud, searchRadius, monitor);
 
         long endTime = System.currentTimeMillis();
-        Log.i(TAG, String.format("Fast reconstruction completed in %d ms: %d vertices, %d triangles", (endTime - startTime), meshData.vertices.size(), meshData.triangles.size()));
+        Log.i(TAG, String.format("Fast reconstruction completed in %d ms: %d vertices, %d triangles", (endTime - startTime), meshData.getVertexCount(), meshData.getTriangleCount()));
 
         return meshData;
     }
@@ -48,7 +57,7 @@ public class FastSurfaceReconstructor {
     /**
      * 快速降采样 - 使用体素网格滤波
      */
-    private static PointCloudData fastDownsample(PointCloudData pointCloud, int targetPoints) {
+    private static PointCloudData fastDownsample(PointCloudData pointCloud, int targetPoints, ReconstructionMonitor monitor) {
         if (pointCloud.pointCount <= targetPoints) {
             return pointCloud;
         }
@@ -63,7 +72,12 @@ public class FastSurfaceReconstructor {
         Map<String, float[]> voxelMap = new HashMap<>();
         Map<String, float[]> colorMap = new HashMap<>();
 
-        for (int i = 0; i < pointCloud.points.size(); i++) {
+        int count = pointCloud.points.size();
+        for (int i = 0; i < count; i++) {
+            if ((i & 0xFFF) == 0) {
+                monitor.checkCancelled();
+                monitor.onProgress(ReconstructionStage.SAMPLE, (float) i / count);
+            }
             float[] point = pointCloud.points.get(i);
             float[] color = pointCloud.colors.get(i);
 
@@ -95,24 +109,25 @@ public class FastSurfaceReconstructor {
     /**
      * 贪婪投影三角化 - 简化的快速算法
      */
-    private static MeshData greedyProjectionTriangulation(PointCloudData pointCloud, float searchRadius) {
-        List<float[]> vertices = new ArrayList<>();
-        List<float[]> normals = new ArrayList<>();
-        List<int[]> triangles = new ArrayList<>();
-
-        // 将点云直接作为顶点
-        vertices.addAll(pointCloud.points);
-
-        // 为每个点计算法线（简化版本）
-        for (int i = 0; i < pointCloud.points.size(); i++) {
+    private static MeshData greedyProjectionTriangulation(PointCloudData pointCloud, float searchRadius,
+                                                          ReconstructionMonitor monitor) {
+        MeshData.Builder builder = new MeshData.Builder(pointCloud.pointCount, pointCloud.pointCount * 2);
+
+        // 将点云直接作为顶点，为每个点计算法线（简化版本）
+        int count = pointCloud.points.size();
+        for (int i = 0; i < count; i++) {
+            monitor.checkCancelled();
+            monitor.onProgress(ReconstructionStage.NORMALS, (float) i / count);
+            float[] point = pointCloud.points.get(i);
             float[] normal = estimateNormal(pointCloud, i, searchRadius);
-            normals.add(normal);
+            builder.addVertex(point[0], point[1], point[2], normal[0], normal[1], normal[2]);
         }
 
         // 简化的三角化 - 基于空间邻近性
-        buildTrianglesFromNeighbors(pointCloud, vertices, triangles, searchRadius);
+        buildTrianglesFromNeighbors(pointCloud, pointCloud.points, builder, searchRadius, monitor);
 
-        return new MeshData(vertices, normals, triangles);
+        monitor.onProgress(ReconstructionStage.PACK, 0.0f);
+        return MeshPostProcessor.postProcess(builder.build(), pointCloud);
     }
 
     /**
@@ -145,29 +160,32 @@ public class FastSurfaceReconstructor {
     /**
      * 基于邻近点构建三角形
      */
-    private static void buildTrianglesFromNeighbors(PointCloudData pointCloud, List<float[]> vertices, List<int[]> triangles, float radius) {
+    private static void buildTrianglesFromNeighbors(PointCloudData pointCloud, List<float[]> vertices, MeshData.Builder builder, float radius,
+                                                    ReconstructionMonitor monitor) {
         int maxTriangles = Math.min(100000, vertices.size() * 2); // 限制三角形数量
 
         // 使用KD树或空间索引加速邻近搜索（这里简化实现）
-        for (int i = 0; i < vertices.size() && triangles.size() < maxTriangles; i++) {
+        for (int i = 0; i < vertices.size() && builder.getTriangleCount() < maxTriangles; i++) {
+            monitor.checkCancelled();
+            monitor.onProgress(ReconstructionStage.TRIANGULATE, (float) i / vertices.size());
             float[] point = vertices.get(i);
             List<Integer> neighborIndices = findNeighborIndices(pointCloud, point, radius);
 
             // 为每个邻近点对创建三角形
-            for (int j = 0; j < neighborIndices.size() && triangles.size() < maxTriangles; j++) {
-                for (int k = j + 1; k < neighborIndices.size() && triangles.size() < maxTriangles; k++) {
+            for (int j = 0; j < neighborIndices.size() && builder.getTriangleCount() < maxTriangles; j++) {
+                for (int k = j + 1; k < neighborIndices.size() && builder.getTriangleCount() < maxTriangles; k++) {
                     int idx1 = neighborIndices.get(j);
                     int idx2 = neighborIndices.get(k);
 
                     // 检查三角形是否有效（边长合理）
                     if (isValidTriangle(point, vertices.get(idx1), vertices.get(idx2), radius * 2)) {
-                        triangles.add(new int[]{i, idx1, idx2});
+                        builder.addTriangle(i, idx1, idx2);
                     }
                 }
             }
         }
 
-        Log.i(TAG, "Generated " + triangles.size() + " triangles");
+        Log.i(TAG, "Generated " + builder.getTriangleCount() + " triangles");
     }
 
     /**
@@ -234,17 +252,23 @@ public class FastSurfaceReconstructor {
      * 超快速重建 - 使用最简化的算法
      */
     public static MeshData ultraFastReconstruction(PointCloudData pointCloud) {
+        return ultraFastReconstruction(pointCloud, ReconstructionMonitor.NONE);
+    }
+
+    public static MeshData ultraFastReconstruction(PointCloudData pointCloud, ReconstructionMonitor monitor) {
         Log.i(TAG, "Starting ultra fast surface reconstruction...");
         long startTime = System.currentTimeMillis();
 
         // 极速降采样
-        PointCloudData sampledCloud = ultraFastDownsample(pointCloud, 10000);
+        PointCloudData sampledCloud = ultraFastDownsample(pointCloud, 10000, monitor);
 
         // 极速三角化
+        monitor.onProgress(ReconstructionStage.TRIANGULATE, 0.0f);
         MeshData meshData = ultraFastTriangulation(sampledCloud);
+        monitor.onProgress(ReconstructionStage.PACK, 1.0f);
 
         long endTime = System.currentTimeMillis();
-        Log.i(TAG, String.format("Ultra fast reconstruction completed in %d ms: %d vertices, %d triangles", (endTime - startTime), meshData.vertices.size(), meshData.triangles.size()));
+        Log.i(TAG, String.format("Ultra fast reconstruction completed in %d ms: %d vertices, %d triangles", (endTime - startTime), meshData.getVertexCount(), meshData.getTriangleCount()));
 
         return meshData;
     }
@@ -252,7 +276,7 @@ public class FastSurfaceReconstructor {
     /**
      * 极速降采样 - 均匀采样
      */
-    private static PointCloudData ultraFastDownsample(PointCloudData pointCloud, int targetPoints) {
+    private static PointCloudData ultraFastDownsample(PointCloudData pointCloud, int targetPoints, ReconstructionMonitor monitor) {
         if (pointCloud.pointCount <= targetPoints) {
             return pointCloud;
         }
@@ -261,6 +285,7 @@ public class FastSurfaceReconstructor {
         int step = pointCloud.pointCount / targetPoints;
 
         for (int i = 0; i < pointCloud.points.size() && sampled.pointCount < targetPoints; i += step) {
+            monitor.checkCancelled();
             float[] point = pointCloud.points.get(i);
             float[] color = pointCloud.colors.get(i);
             sampled.addPoint(point[0], point[1], point[2], color[0], color[1], color[2]);
@@ -273,22 +298,18 @@ public class FastSurfaceReconstructor {
      * 极速三角化 - 直接连接相邻点
      */
     private static MeshData ultraFastTriangulation(PointCloudData pointCloud) {
-        List<float[]> vertices = new ArrayList<>();
-        List<float[]> normals = new ArrayList<>();
-        List<int[]> triangles = new ArrayList<>();
-
-        vertices.addAll(pointCloud.points);
+        MeshData.Builder builder = new MeshData.Builder(pointCloud.pointCount, pointCloud.pointCount / 3);
 
         // 所有点使用默认法线
-        for (int i = 0; i < pointCloud.points.size(); i++) {
-            normals.add(new float[]{0, 1, 0});
+        for (float[] point : pointCloud.points) {
+            builder.addVertex(point[0], point[1], point[2]);
         }
 
         // 极简三角化：每三个点组成一个三角形
         for (int i = 0; i < pointCloud.points.size() - 2; i += 3) {
-            triangles.add(new int[]{i, i + 1, i + 2});
+            builder.addTriangle(i, i + 1, i + 2);
         }
 
-        return new MeshData(vertices, normals, triangles);
+        return builder.build();
     }
 }
@@ -0,0 +1,86 @@
+package com.example.sl;
+
+/**
+ * 拖动松手后的惯性：根据最近的移动估计速度（像素/秒），之后按指数衰减，速度足够小时停止
+ * 触摸事件在UI线程、step 在GL线程中调用，方法都是同步的
+ */
+public class FlingAnimator {
+    // 速度每秒衰减为 exp(-FRICTION)
+    static final float FRICTION = 4.0f;
+    // 低于此速度（像素/秒）时停止
+    static final float MIN_VELOCITY = 30.0f;
+    // 松手前停顿超过该时间不产生惯性
+    static final long MAX_RELEASE_DELAY_NANOS = 100_000_000L;
+    // 单步最长时间，避免掉帧后跳动过大
+    static final long MAX_STEP_NANOS = 50_000_000L;
+
+    private float velocityX;
+    private float velocityY;
+    private long lastMoveTime = -1;
+    private long lastStepTime;
+    private boolean active;
+
+    /**
+     * 手指按下：停止正在进行的惯性并重新估计速度
+     */
+    public synchronized void cancel() {
+        active = false;
+        velocityX = 0;
+        velocityY = 0;
+        lastMoveTime = -1;
+    }
+
+    /**
+     * 记录一次拖动位移，速度取瞬时速度的指数平滑
+     */
+    public synchronized void addMovement(float dx, float dy, long timeNanos) {
+        if (lastMoveTime < 0) {
+            // 新的拖动
+            velocityX = 0;
+            velocityY = 0;
+        } else if (timeNanos > lastMoveTime) {
+            float dt = (timeNanos - lastMoveTime) / 1e9f;
+            velocityX = 0.5f * velocityX + 0.5f * dx / dt;
+            velocityY = 0.5f * velocityY + 0.5f * dy / dt;
+        }
+        lastMoveTime = timeNanos;
+    }
+
+    /**
+     * 手指抬起：速度足够大且松手前没有停顿时开始惯性，返回是否开始
+     */
+    public synchronized boolean release(long timeNanos) {
+        boolean moving = lastMoveTime >= 0 && timeNanos - lastMoveTime <= MAX_RELEASE_DELAY_NANOS;
+        active = moving && Math.hypot(velocityX, velocityY) >= MIN_VELOCITY;
+        lastStepTime = timeNanos;
+        lastMoveTime = -1;
+        return active;
+    }
+
+    /**
+     * 推进到 timeNanos，把这段时间内的位移写入 outDelta[0..1]，返回惯性是否仍在进行
+     */
+    public synchronized boolean step(long timeNanos, float[] outDelta) {
+        outDelta[0] = 0;
+        outDelta[1] = 0;
+        if (!active) return false;
+
+        float dt = Math.min(Math.max(timeNanos - lastStepTime, 0), MAX_STEP_NANOS) / 1e9f;
+        lastStepTime = timeNanos;
+        // v(t) = v0 * exp(-kt) 在 [0, dt] 上的积分
+        float decay = (float) Math.exp(-FRICTION * dt);
+        float distance = (1 - decay) / FRICTION;
+        outDelta[0] = velocityX * distance;
+        outDelta[1] = velocityY * distance;
+        velocityX *= decay;
+        velocityY *= decay;
+        if (Math.hypot(velocityX, velocityY) < MIN_VELOCITY) {
+            active = false;
+        }
+        return active;
+    }
+
+    public synchronized boolean isActive() {
+        return active;
+    }
+}
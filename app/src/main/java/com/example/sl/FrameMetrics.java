@@ -0,0 +1,163 @@
+package com.example.sl;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * 最近若干帧的性能统计：CPU 更新/绘制耗时、GPU 耗时、上传字节数和绘制调用数
+ * 帧数据在GL线程中写入，snapshot() 可在任意线程中读取；记录过程不分配内存
+ */
+public class FrameMetrics {
+    public static final int DEFAULT_WINDOW = 120;
+
+    private final int window;
+    private final long[] updateNanos;
+    private final long[] drawNanos;
+    private final long[] uploadBytes;
+    private final int[] drawCalls;
+    private final long[] gpuNanos;
+    private int count;
+    private int next;
+    private int gpuCount;
+    private int gpuNext;
+    private long totalFrames;
+
+    // 当前帧，只在GL线程中访问
+    private long frameStart;
+    private long updateEnd;
+
+    public FrameMetrics() {
+        this(DEFAULT_WINDOW);
+    }
+
+    public FrameMetrics(int window) {
+        if (window <= 0) throw new IllegalArgumentException("window must be positive");
+        this.window = window;
+        updateNanos = new long[window];
+        drawNanos = new long[window];
+        uploadBytes = new long[window];
+        drawCalls = new int[window];
+        gpuNanos = new long[window];
+    }
+
+    /**
+     * 帧开始（更新阶段开始）
+     */
+    public void beginFrame(long nowNanos) {
+        frameStart = nowNanos;
+        updateEnd = nowNanos;
+    }
+
+    /**
+     * 更新阶段结束、绘制阶段开始
+     */
+    public void markUpdateEnd(long nowNanos) {
+        updateEnd = nowNanos;
+    }
+
+    /**
+     * 帧结束，记录本帧的上传字节数和绘制调用数
+     */
+    public synchronized void endFrame(long nowNanos, long frameUploadBytes, int frameDrawCalls) {
+        updateNanos[next] = updateEnd - frameStart;
+        drawNanos[next] = nowNanos - updateEnd;
+        uploadBytes[next] = frameUploadBytes;
+        drawCalls[next] = frameDrawCalls;
+        next = (next + 1) % window;
+        count = Math.min(count + 1, window);
+        totalFrames++;
+    }
+
+    /**
+     * 记录一帧的GPU耗时，计时查询的结果通常延迟几帧才到达
+     */
+    public synchronized void recordGpuTime(long nanos) {
+        gpuNanos[gpuNext] = nanos;
+        gpuNext = (gpuNext + 1) % window;
+        gpuCount = Math.min(gpuCount + 1, window);
+    }
+
+    public synchronized void reset() {
+        count = next = gpuCount = gpuNext = 0;
+        totalFrames = 0;
+    }
+
+    public synchronized Snapshot snapshot() {
+        long[] cpu = new long[count];
+        long updateSum = 0, drawSum = 0, uploadSum = 0, uploadMax = 0, drawCallSum = 0;
+        for (int i = 0; i < count; i++) {
+            cpu[i] = updateNanos[i] + drawNanos[i];
+            updateSum += updateNanos[i];
+            drawSum += drawNanos[i];
+            uploadSum += uploadBytes[i];
+            uploadMax = Math.max(uploadMax, uploadBytes[i]);
+            drawCallSum += drawCalls[i];
+        }
+        long[] gpu = Arrays.copyOf(gpuNanos, gpuCount);
+        Arrays.sort(cpu);
+        Arrays.sort(gpu);
+
+        Snapshot snapshot = new Snapshot();
+        snapshot.frames = count;
+        snapshot.totalFrames = totalFrames;
+        if (count > 0) {
+            snapshot.cpuP50Ms = toMs(percentile(cpu, 50));
+            snapshot.cpuP95Ms = toMs(percentile(cpu, 95));
+            snapshot.cpuP99Ms = toMs(percentile(cpu, 99));
+            snapshot.updateAvgMs = toMs(updateSum) / count;
+            snapshot.drawAvgMs = toMs(drawSum) / count;
+            snapshot.uploadBytesTotal = uploadSum;
+            snapshot.uploadBytesAvg = uploadSum / count;
+            snapshot.uploadBytesMax = uploadMax;
+            snapshot.drawCallsAvg = (double) drawCallSum / count;
+        }
+        if (gpuCount > 0) {
+            snapshot.gpuP50Ms = toMs(percentile(gpu, 50));
+            snapshot.gpuP95Ms = toMs(percentile(gpu, 95));
+            snapshot.gpuP99Ms = toMs(percentile(gpu, 99));
+        }
+        return snapshot;
+    }
+
+    /**
+     * 最近邻秩百分位数，sorted 非空且已升序排列
+     */
+    static long percentile(long[] sorted, double p) {
+        int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+
+    private static double toMs(long nanos) {
+        return nanos / 1e6;
+    }
+
+    /**
+     * 统计窗口的汇总结果，没有GPU计时数据时对应字段为 NaN
+     */
+    public static class Snapshot {
+        public int frames;
+        public long totalFrames;
+        public double cpuP50Ms;
+        public double cpuP95Ms;
+        public double cpuP99Ms;
+        public double updateAvgMs;
+        public double drawAvgMs;
+        public double gpuP50Ms = Double.NaN;
+        public double gpuP95Ms = Double.NaN;
+        public double gpuP99Ms = Double.NaN;
+        public long uploadBytesTotal;
+        public long uploadBytesAvg;
+        public long uploadBytesMax;
+        public double drawCallsAvg;
+
+        @Override
+        public String toString() {
+            String gpu = Double.isNaN(gpuP50Ms) ? "GPU n/a"
+                    : String.format(Locale.US, "GPU p50 %.2f p95 %.2f p99 %.2f ms", gpuP50Ms, gpuP95Ms, gpuP99Ms);
+            return String.format(Locale.US,
+                    "frames %d (%d total)\nCPU p50 %.2f p95 %.2f p99 %.2f ms\nupdate %.2f draw %.2f ms\n%s\nupload %d KB/frame (max %d KB), draws %.1f",
+                    frames, totalFrames, cpuP50Ms, cpuP95Ms, cpuP99Ms, updateAvgMs, drawAvgMs, gpu,
+                    uploadBytesAvg / 1024, uploadBytesMax / 1024, drawCallsAvg);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.sl;
+
+import android.content.Context;
+import android.graphics.Color;
+import android.graphics.Typeface;
+import android.widget.TextView;
+
+/**
+ * 叠加在GL视图上的性能信息，定时从 FrameMetrics 取快照刷新（UI线程）
+ */
+public class FrameMetricsOverlay extends TextView {
+    private static final long REFRESH_INTERVAL_MS = 500;
+
+    private final FrameMetrics metrics;
+    private final Runnable refresh = new Runnable() {
+        @Override
+        public void run() {
+            setText(metrics.snapshot().toString());
+            postDelayed(this, REFRESH_INTERVAL_MS);
+        }
+    };
+
+    public FrameMetricsOverlay(Context context, FrameMetrics metrics) {
+        super(context);
+        this.metrics = metrics;
+
+        setTextColor(Color.WHITE);
+        setBackgroundColor(0x80000000);
+        setTypeface(Typeface.MONOSPACE);
+        setTextSize(11);
+        setPadding(16, 16, 16, 16);
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        post(refresh);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        removeCallbacks(refresh);
+        super.onDetachedFromWindow();
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.sl;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按需渲染的调度策略（配合 RENDERMODE_WHEN_DIRTY）：
+ * 只在相机或数据变化、动画进行中或上传未完成时请求新帧，
+ * 下一帧开始前的多次请求合并为一次，没有需要时保持空闲
+ */
+public class FrameScheduler {
+    private static final Runnable NO_REQUESTER = () -> { };
+
+    private volatile Runnable requester = NO_REQUESTER;
+    private final AtomicBoolean frameRequested = new AtomicBoolean();
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private long frameCount;
+
+    /**
+     * 设置真正请求一帧的回调，例如 GLSurfaceView::requestRender
+     */
+    public void setRequester(Runnable requester) {
+        this.requester = requester != null ? requester : NO_REQUESTER;
+    }
+
+    /**
+     * 需要重绘时调用（任意线程），已有未开始的帧时只合并不重复请求
+     * 返回是否发出了新的请求
+     */
+    public boolean requestFrame() {
+        if (!frameRequested.compareAndSet(false, true)) {
+            coalescedCount.incrementAndGet();
+            return false;
+        }
+        requestCount.incrementAndGet();
+        requester.run();
+        return true;
+    }
+
+    /**
+     * GL线程，onDrawFrame 开始时调用：此后的请求会触发下一帧
+     */
+    public void onFrameStart() {
+        frameRequested.set(false);
+        frameCount++;
+    }
+
+    /**
+     * GL线程，onDrawFrame 结束时调用：还有动画或后台工作时继续请求下一帧，否则进入空闲
+     */
+    public void onFrameEnd(boolean animating) {
+        if (animating) {
+            requestFrame();
+        }
+    }
+
+    /**
+     * 没有已请求但尚未开始的帧
+     */
+    public boolean isIdle() {
+        return !frameRequested.get();
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    public long getFrameCount() {
+        return frameCount;
+    }
+}
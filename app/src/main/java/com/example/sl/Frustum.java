@@ -0,0 +1,77 @@
+package com.example.sl;
+
+/**
+ * 视锥体 - 从观察投影矩阵（列主序，与 android.opengl.Matrix 一致）提取六个裁剪平面
+ * 纯Java实现，不依赖GL，可在单元测试中使用
+ */
+public class Frustum {
+    // 六个平面 (a, b, c, d)，法线指向视锥体内部，已归一化
+    private final float[] planes = new float[24];
+
+    /**
+     * 从观察投影矩阵提取平面（Gribb/Hartmann 方法）
+     */
+    public void setFromMatrix(float[] m) {
+        // 行 i 的元素为 m[i], m[4 + i], m[8 + i], m[12 + i]
+        for (int p = 0; p < 6; p++) {
+            int row = p / 2;
+            float sign = (p % 2 == 0) ? 1 : -1;
+            float a = m[3] + sign * m[row];
+            float b = m[7] + sign * m[4 + row];
+            float c = m[11] + sign * m[8 + row];
+            float d = m[15] + sign * m[12 + row];
+            float length = (float) Math.sqrt(a * a + b * b + c * c);
+            if (length > 0) {
+                a /= length;
+                b /= length;
+                c /= length;
+                d /= length;
+            }
+            planes[p * 4] = a;
+            planes[p * 4 + 1] = b;
+            planes[p * 4 + 2] = c;
+            planes[p * 4 + 3] = d;
+        }
+    }
+
+    /**
+     * 球体是否与视锥体相交（保守判断）
+     */
+    public boolean intersectsSphere(float x, float y, float z, float radius) {
+        for (int p = 0; p < 6; p++) {
+            float distance = planes[p * 4] * x + planes[p * 4 + 1] * y + planes[p * 4 + 2] * z + planes[p * 4 + 3];
+            if (distance < -radius) return false;
+        }
+        return true;
+    }
+
+    /**
+     * 轴对齐包围盒是否与视锥体相交（保守判断）
+     */
+    public boolean intersectsBox(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        for (int p = 0; p < 6; p++) {
+            float a = planes[p * 4], b = planes[p * 4 + 1], c = planes[p * 4 + 2], d = planes[p * 4 + 3];
+            // 取沿平面法线方向最远的角点
+            float x = a >= 0 ? maxX : minX;
+            float y = b >= 0 ? maxY : minY;
+            float z = c >= 0 ? maxZ : minZ;
+            if (a * x + b * y + c * z + d < 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * 包围盒是否完全位于视锥体内部
+     */
+    public boolean containsBox(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        for (int p = 0; p < 6; p++) {
+            float a = planes[p * 4], b = planes[p * 4 + 1], c = planes[p * 4 + 2], d = planes[p * 4 + 3];
+            // 沿平面法线方向最近的角点也必须在内侧
+            float x = a >= 0 ? minX : maxX;
+            float y = b >= 0 ? minY : maxY;
+            float z = c >= 0 ? minZ : maxZ;
+            if (a * x + b * y + c * z + d < 0) return false;
+        }
+        return true;
+    }
+}
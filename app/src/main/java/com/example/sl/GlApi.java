@@ -0,0 +1,158 @@
+package com.example.sl;
+
+import android.graphics.Bitmap;
+
+import java.nio.Buffer;
+
+/**
+ * OpenGL ES 调用的抽象，方法名和参数与 GLES30 保持一致
+ * 生产环境使用 Gles30Api，测试中可替换为不依赖GL上下文的记录实现
+ */
+public interface GlApi {
+    // 状态
+    void glEnable(int cap);
+
+    void glDisable(int cap);
+
+    void glBlendFunc(int sfactor, int dfactor);
+
+    void glDepthFunc(int func);
+
+    void glDepthMask(boolean flag);
+
+    void glColorMask(boolean red, boolean green, boolean blue, boolean alpha);
+
+    void glCullFace(int mode);
+
+    void glViewport(int x, int y, int width, int height);
+
+    void glClearColor(float red, float green, float blue, float alpha);
+
+    void glClear(int mask);
+
+    int glGetError();
+
+    String glGetString(int name);
+
+    void glGetIntegerv(int pname, int[] params, int offset);
+
+    // 着色器和程序
+    int glCreateShader(int type);
+
+    void glShaderSource(int shader, String source);
+
+    void glCompileShader(int shader);
+
+    void glGetShaderiv(int shader, int pname, int[] params, int offset);
+
+    String glGetShaderInfoLog(int shader);
+
+    void glDeleteShader(int shader);
+
+    int glCreateProgram();
+
+    void glAttachShader(int program, int shader);
+
+    void glLinkProgram(int program);
+
+    void glGetProgramiv(int program, int pname, int[] params, int offset);
+
+    String glGetProgramInfoLog(int program);
+
+    void glDeleteProgram(int program);
+
+    void glUseProgram(int program);
+
+    void glProgramParameteri(int program, int pname, int value);
+
+    void glGetProgramBinary(int program, int bufSize, int[] length, int lengthOffset,
+                            int[] binaryFormat, int binaryFormatOffset, Buffer binary);
+
+    void glProgramBinary(int program, int binaryFormat, Buffer binary, int length);
+
+    int glGetAttribLocation(int program, String name);
+
+    int glGetUniformLocation(int program, String name);
+
+    // uniform
+    void glUniform1i(int location, int x);
+
+    void glUniform1f(int location, float x);
+
+    void glUniform2f(int location, float x, float y);
+
+    void glUniform3f(int location, float x, float y, float z);
+
+    void glUniform3fv(int location, int count, float[] v, int offset);
+
+    void glUniformMatrix4fv(int location, int count, boolean transpose, float[] value, int offset);
+
+    // 缓冲区和顶点数组
+    void glGenBuffers(int n, int[] buffers, int offset);
+
+    void glDeleteBuffers(int n, int[] buffers, int offset);
+
+    void glBindBuffer(int target, int buffer);
+
+    void glBufferData(int target, int size, Buffer data, int usage);
+
+    void glBufferSubData(int target, int offset, int size, Buffer data);
+
+    void glGenVertexArrays(int n, int[] arrays, int offset);
+
+    void glDeleteVertexArrays(int n, int[] arrays, int offset);
+
+    void glBindVertexArray(int array);
+
+    void glEnableVertexAttribArray(int index);
+
+    void glVertexAttribPointer(int index, int size, int type, boolean normalized, int stride, int offset);
+
+    // 纹理
+    void glGenTextures(int n, int[] textures, int offset);
+
+    void glDeleteTextures(int n, int[] textures, int offset);
+
+    void glActiveTexture(int texture);
+
+    void glBindTexture(int target, int texture);
+
+    void glTexParameteri(int target, int pname, int param);
+
+    void glTexImage2D(int target, int level, int internalformat, int width, int height, int border,
+                      int format, int type, Buffer pixels);
+
+    void glGenerateMipmap(int target);
+
+    /**
+     * 对应 GLUtils.texImage2D
+     */
+    void texImage2D(int target, int level, Bitmap bitmap, int border);
+
+    // 帧缓冲
+    void glGenFramebuffers(int n, int[] framebuffers, int offset);
+
+    void glDeleteFramebuffers(int n, int[] framebuffers, int offset);
+
+    void glBindFramebuffer(int target, int framebuffer);
+
+    void glFramebufferTexture2D(int target, int attachment, int textarget, int texture, int level);
+
+    int glCheckFramebufferStatus(int target);
+
+    // 查询
+    void glGenQueries(int n, int[] ids, int offset);
+
+    void glDeleteQueries(int n, int[] ids, int offset);
+
+    void glBeginQuery(int target, int id);
+
+    void glEndQuery(int target);
+
+    void glGetQueryObjectuiv(int id, int pname, int[] params, int offset);
+
+    // 绘制
+    void glDrawArrays(int mode, int first, int count);
+
+    void glDrawElements(int mode, int count, int type, int offset);
+}
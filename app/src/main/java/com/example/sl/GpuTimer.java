@@ -0,0 +1,93 @@
+package com.example.sl;
+
+import android.opengl.GLES30;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * 基于 GL_EXT_disjoint_timer_query 的GPU耗时测量：每帧一个查询，结果在之后的帧中读取，
+ * 设备不支持该扩展时所有方法都不做任何事（GL线程）
+ */
+public class GpuTimer {
+    static final String EXTENSION = "GL_EXT_disjoint_timer_query";
+    static final int GL_TIME_ELAPSED_EXT = 0x88BF;
+    static final int GL_GPU_DISJOINT_EXT = 0x8FBB;
+    // 同时在途的查询数，结果一般延迟 1~3 帧
+    private static final int QUERY_COUNT = 4;
+
+    private final GlApi gl;
+    private final int[] queries = new int[QUERY_COUNT];
+    private final boolean[] inFlight = new boolean[QUERY_COUNT];
+    private final int[] result = new int[1];
+    private int next;
+    private boolean supported;
+    private boolean running;
+
+    public GpuTimer(GlApi gl) {
+        this.gl = gl;
+    }
+
+    /**
+     * GL上下文创建后调用，旧上下文中的查询对象已随上下文失效
+     */
+    public void init() {
+        String extensions = gl.glGetString(GLES30.GL_EXTENSIONS);
+        supported = extensions != null && extensions.contains(EXTENSION);
+        next = 0;
+        running = false;
+        Arrays.fill(inFlight, false);
+        if (supported) {
+            gl.glGenQueries(QUERY_COUNT, queries, 0);
+        }
+    }
+
+    public boolean isSupported() {
+        return supported;
+    }
+
+    /**
+     * 开始计时，所有查询都还在途时跳过这一帧
+     */
+    public void begin() {
+        if (!supported || running || inFlight[next]) return;
+        gl.glBeginQuery(GL_TIME_ELAPSED_EXT, queries[next]);
+        running = true;
+    }
+
+    public void end() {
+        if (!running) return;
+        gl.glEndQuery(GL_TIME_ELAPSED_EXT);
+        inFlight[next] = true;
+        next = (next + 1) % QUERY_COUNT;
+        running = false;
+    }
+
+    /**
+     * 按提交顺序读取已完成的查询并交给 consumer（纳秒）
+     * 期间发生过 disjoint（例如频率变化）时结果不可靠，全部丢弃
+     */
+    public void poll(LongConsumer consumer) {
+        if (!supported) return;
+        gl.glGetIntegerv(GL_GPU_DISJOINT_EXT, result, 0);
+        boolean disjoint = result[0] != 0;
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            int index = (next + i) % QUERY_COUNT;
+            if (!inFlight[index]) continue;
+            gl.glGetQueryObjectuiv(queries[index], GLES30.GL_QUERY_RESULT_AVAILABLE, result, 0);
+            if (result[0] == 0) break;
+            gl.glGetQueryObjectuiv(queries[index], GLES30.GL_QUERY_RESULT, result, 0);
+            inFlight[index] = false;
+            if (!disjoint) {
+                consumer.accept(result[0] & 0xFFFFFFFFL);
+            }
+        }
+    }
+
+    public void release() {
+        if (supported) {
+            gl.glDeleteQueries(QUERY_COUNT, queries, 0);
+            supported = false;
+        }
+    }
+}
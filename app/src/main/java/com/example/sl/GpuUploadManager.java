@@ -0,0 +1,256 @@
+package com.example.sl;
+
+import android.opengl.GLES30;
+import android.util.Log;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * GPU上传管理 - 在工作线程中准备直接缓冲区，再在GL线程中按帧时间预算分块调用 glBufferSubData
+ * 渲染器每帧开始时调用 processFrame()，并只绘制已经上传完成的部分
+ *
+ * 上传统一通过 GL_COPY_WRITE_BUFFER 绑定点进行，不会改动当前 VAO 的索引缓冲区绑定
+ */
+public class GpuUploadManager {
+    private static final String TAG = "GpuUploadManager";
+
+    public static final int DEFAULT_CHUNK_BYTES = 256 * 1024;
+    public static final long DEFAULT_FRAME_BUDGET_NANOS = 4_000_000L;
+
+    /**
+     * 工作线程准备的数据就绪后在GL线程中回调
+     */
+    public interface PreparedCallback<T> {
+        void onPrepared(T result);
+    }
+
+    /**
+     * 一个缓冲区的上传进度，只在GL线程中访问
+     */
+    public static class Upload {
+        private final int buffer;
+        private final int size;
+        private ByteBuffer data;
+        private int uploadedBytes;
+        private boolean cancelled;
+
+        Upload(int buffer, ByteBuffer data, int size) {
+            this.buffer = buffer;
+            this.data = data;
+            this.size = size;
+        }
+
+        public int getBuffer() {
+            return buffer;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public int getUploadedBytes() {
+            return uploadedBytes;
+        }
+
+        public boolean isComplete() {
+            return uploadedBytes == size;
+        }
+    }
+
+    private final GlApi gl;
+    private final Executor worker;
+    private final boolean ownsWorker;
+    private final int chunkBytes;
+    private final long frameBudgetNanos;
+    private final LongSupplier clock;
+
+    private final ConcurrentLinkedQueue<Runnable> prepared = new ConcurrentLinkedQueue<>();
+    private final ArrayDeque<Upload> uploads = new ArrayDeque<>();
+    // cancelAll() 后递增，丢弃之前提交的准备结果
+    private final AtomicInteger epoch = new AtomicInteger();
+    private volatile Runnable onWorkAvailable;
+
+    private int lastFrameBytes;
+    private int lastFrameChunks;
+
+    public GpuUploadManager(GlApi gl) {
+        this(gl, Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "GpuUpload");
+            thread.setDaemon(true);
+            return thread;
+        }), true, DEFAULT_CHUNK_BYTES, DEFAULT_FRAME_BUDGET_NANOS, System::nanoTime);
+    }
+
+    GpuUploadManager(GlApi gl, Executor worker, int chunkBytes, long frameBudgetNanos, LongSupplier clock) {
+        this(gl, worker, false, chunkBytes, frameBudgetNanos, clock);
+    }
+
+    private GpuUploadManager(GlApi gl, Executor worker, boolean ownsWorker, int chunkBytes,
+                             long frameBudgetNanos, LongSupplier clock) {
+        if (chunkBytes <= 0) {
+            throw new IllegalArgumentException("Invalid chunk size: " + chunkBytes);
+        }
+        this.gl = gl;
+        this.worker = worker;
+        this.ownsWorker = ownsWorker;
+        this.chunkBytes = chunkBytes;
+        this.frameBudgetNanos = frameBudgetNanos;
+        this.clock = clock;
+    }
+
+    /**
+     * 有新的工作需要在GL线程中处理时调用，例如 GLSurfaceView::requestRender（可在任意线程中回调）
+     */
+    public void setOnWorkAvailable(Runnable onWorkAvailable) {
+        this.onWorkAvailable = onWorkAvailable;
+    }
+
+    /**
+     * 在工作线程中执行 work，结果在之后某一帧的 processFrame() 中交给 callback
+     */
+    public <T> void prepare(Callable<T> work, PreparedCallback<T> callback) {
+        int submitEpoch = epoch.get();
+        worker.execute(() -> {
+            if (submitEpoch != epoch.get()) return;
+            T result;
+            try {
+                result = work.call();
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to prepare upload: " + e.getMessage());
+                return;
+            }
+            prepared.add(() -> {
+                if (submitEpoch == epoch.get()) {
+                    callback.onPrepared(result);
+                }
+            });
+            notifyWorkAvailable();
+        });
+    }
+
+    /**
+     * 为缓冲区分配存储空间并排队上传 data 的 [0, limit)，必须在GL线程中调用
+     * data 在上传完成前不能再被修改
+     */
+    public Upload upload(int buffer, ByteBuffer data) {
+        int size = data.limit();
+        gl.glBindBuffer(GLES30.GL_COPY_WRITE_BUFFER, buffer);
+        gl.glBufferData(GLES30.GL_COPY_WRITE_BUFFER, size, null, GLES30.GL_STATIC_DRAW);
+        gl.glBindBuffer(GLES30.GL_COPY_WRITE_BUFFER, 0);
+
+        Upload upload = new Upload(buffer, data, size);
+        if (size > 0) {
+            uploads.add(upload);
+        } else {
+            upload.data = null;
+        }
+        return upload;
+    }
+
+    /**
+     * 每帧在GL线程中调用：先交付已准备好的数据，再在帧时间预算内分块上传
+     * 至少上传一块以保证进度，返回是否还有待处理的工作
+     */
+    public boolean processFrame() {
+        Runnable callback;
+        while ((callback = prepared.poll()) != null) {
+            callback.run();
+        }
+
+        lastFrameBytes = 0;
+        lastFrameChunks = 0;
+        long startTime = clock.getAsLong();
+        int boundBuffer = 0;
+        while (!uploads.isEmpty()) {
+            Upload upload = uploads.peek();
+            if (upload.cancelled) {
+                uploads.poll();
+                continue;
+            }
+
+            int offset = upload.uploadedBytes;
+            int size = Math.min(chunkBytes, upload.size - offset);
+            if (boundBuffer != upload.buffer) {
+                gl.glBindBuffer(GLES30.GL_COPY_WRITE_BUFFER, upload.buffer);
+                boundBuffer = upload.buffer;
+            }
+            upload.data.limit(offset + size);
+            upload.data.position(offset);
+            gl.glBufferSubData(GLES30.GL_COPY_WRITE_BUFFER, offset, size, upload.data);
+
+            upload.uploadedBytes += size;
+            lastFrameBytes += size;
+            lastFrameChunks++;
+            if (upload.isComplete()) {
+                upload.data = null;
+                uploads.poll();
+            }
+            if (clock.getAsLong() - startTime >= frameBudgetNanos) break;
+        }
+        if (boundBuffer != 0) {
+            gl.glBindBuffer(GLES30.GL_COPY_WRITE_BUFFER, 0);
+        }
+
+        boolean pending = hasPendingWork();
+        if (pending) {
+            notifyWorkAvailable();
+        }
+        return pending;
+    }
+
+    public boolean hasPendingWork() {
+        return !uploads.isEmpty() || !prepared.isEmpty();
+    }
+
+    /**
+     * 取消一个上传（例如它的缓冲区即将被删除），已上传的部分保留，GL线程
+     */
+    public void cancel(Upload upload) {
+        if (upload.isComplete()) return;
+        upload.cancelled = true;
+        upload.data = null;
+    }
+
+    /**
+     * 取消所有排队的上传和尚未交付的准备结果（例如缓冲区即将被删除时），GL线程
+     */
+    public void cancelAll() {
+        epoch.incrementAndGet();
+        for (Upload upload : uploads) {
+            upload.cancelled = true;
+            upload.data = null;
+        }
+        uploads.clear();
+        prepared.clear();
+    }
+
+    public void release() {
+        cancelAll();
+        if (ownsWorker) {
+            ((ExecutorService) worker).shutdownNow();
+        }
+    }
+
+    public int getLastFrameUploadedBytes() {
+        return lastFrameBytes;
+    }
+
+    public int getLastFrameChunks() {
+        return lastFrameChunks;
+    }
+
+    private void notifyWorkAvailable() {
+        Runnable listener = onWorkAvailable;
+        if (listener != null) {
+            listener.run();
+        }
+    }
+}
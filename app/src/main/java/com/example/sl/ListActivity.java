@@ -39,8 +39,15 @@ public class ListActivity extends AppCompatActivity {
         findViewById(R.id.quality).setOnClickListener(v -> {
             startPage("quality");
         });
+        findViewById(R.id.edl).setOnClickListener(v -> {
+            startPage("edl");
+        });
+        findViewById(R.id.splat).setOnClickListener(v -> {
+            startPage("splat");
+        });
         findViewById(R.id.mesh).setOnClickListener(v -> {
             Intent intent = new Intent(ListActivity.this, MeshActivity.class);
+            intent.putExtra(SplashActivity.EXTRA_DATASET, getIntent().getStringExtra(SplashActivity.EXTRA_DATASET));
             startActivity(intent);
         });
 
@@ -49,6 +56,7 @@ public class ListActivity extends AppCompatActivity {
     private void startPage(String mode) {
         Intent intent = new Intent(ListActivity.this, MainActivity.class);
         intent.putExtra("mode", mode);
+        intent.putExtra(SplashActivity.EXTRA_DATASET, getIntent().getStringExtra(SplashActivity.EXTRA_DATASET));
         startActivity(intent);
     }
 }
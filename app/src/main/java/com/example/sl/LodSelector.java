@@ -0,0 +1,76 @@
+package com.example.sl;
+
+/**
+ * 细节层次选择 - 把各层几何误差投影到屏幕上，选择误差不超过像素阈值的最粗一层
+ * 纯Java实现，只依赖投影矩阵和视口参数，可在单元测试中使用
+ */
+public class LodSelector {
+    public static final float DEFAULT_PIXEL_THRESHOLD = 1.0f;
+
+    private float pixelThreshold = DEFAULT_PIXEL_THRESHOLD;
+    // 距离为 1 处每单位长度对应的像素数
+    private float pixelsPerUnit = 1;
+
+    /**
+     * 根据透视投影矩阵（列主序）和视口高度更新屏幕投影比例
+     */
+    public void setProjection(float[] projection, int viewportHeight) {
+        // projection[5] = cot(fovY / 2)
+        pixelsPerUnit = projection[5] * viewportHeight * 0.5f;
+    }
+
+    public void setPixelThreshold(float pixelThreshold) {
+        this.pixelThreshold = pixelThreshold;
+    }
+
+    public float getPixelThreshold() {
+        return pixelThreshold;
+    }
+
+    /**
+     * 几何误差 error 在距离 distance 处投影到屏幕上的像素大小
+     */
+    public float getProjectedError(float error, float distance) {
+        return error * pixelsPerUnit / Math.max(distance, 1e-6f);
+    }
+
+    /**
+     * 选择投影误差不超过阈值的最粗一层
+     *
+     * @param distance 相机到网格的最近距离
+     */
+    public int selectLevel(MeshData mesh, float distance) {
+        int level = 0;
+        for (int l = 1; l < mesh.getLodCount(); l++) {
+            if (getProjectedError(mesh.getLodError(l), distance) > pixelThreshold) break;
+            level = l;
+        }
+        return level;
+    }
+
+    /**
+     * 相机到以原点为中心、半径为 radius 的包围球的最近距离，不小于 near
+     */
+    public static float distanceToBounds(float cameraDistance, float radius, float near) {
+        return Math.max(cameraDistance - radius, near);
+    }
+
+    /**
+     * 网格以原点为中心的包围球半径
+     */
+    public static float boundingRadius(MeshData mesh) {
+        return boundingRadius(mesh, 0, 0, 0);
+    }
+
+    /**
+     * 网格以 (centerX, centerY, centerZ) 为中心的包围球半径
+     */
+    public static float boundingRadius(MeshData mesh, float centerX, float centerY, float centerZ) {
+        float maxSquared = 0;
+        for (int v = 0; v < mesh.getVertexCount(); v++) {
+            float x = mesh.getX(v) - centerX, y = mesh.getY(v) - centerY, z = mesh.getZ(v) - centerZ;
+            maxSquared = Math.max(maxSquared, x * x + y * y + z * z);
+        }
+        return (float) Math.sqrt(maxSquared);
+    }
+}
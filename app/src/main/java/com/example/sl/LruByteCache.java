@@ -0,0 +1,156 @@
+package com.example.sl;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 按字节预算淘汰的 LRU 缓存，键为节点编号
+ * 以帧为单位工作：当前帧中访问过的条目不会被淘汰，即使总量暂时超过预算
+ * 不是线程安全的，只在GL线程中使用
+ */
+public class LruByteCache<V> {
+
+    public interface EvictionListener<V> {
+        void onEvicted(int key, V value);
+    }
+
+    private static class Entry<V> {
+        final V value;
+        final long bytes;
+        long lastUsedFrame;
+
+        Entry(V value, long bytes) {
+            this.value = value;
+            this.bytes = bytes;
+        }
+    }
+
+    // 访问顺序：最久未使用的在前
+    private final LinkedHashMap<Integer, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // 同样的条目，用于不改变顺序的查找
+    private final HashMap<Integer, Entry<V>> lookup = new HashMap<>();
+    private final EvictionListener<V> listener;
+    private long budgetBytes;
+    private long bytes;
+    private long frame;
+    private long evictionCount;
+
+    public LruByteCache(long budgetBytes, EvictionListener<V> listener) {
+        this.budgetBytes = budgetBytes;
+        this.listener = listener;
+    }
+
+    public void setBudgetBytes(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+    }
+
+    public long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    /**
+     * 新的一帧开始，之后访问的条目属于这一帧
+     */
+    public void beginFrame() {
+        frame++;
+    }
+
+    /**
+     * 加入或替换条目，被替换的旧值交给淘汰回调
+     */
+    public void put(int key, V value, long size) {
+        Entry<V> entry = new Entry<>(value, size);
+        entry.lastUsedFrame = frame;
+        Entry<V> old = entries.put(key, entry);
+        lookup.put(key, entry);
+        bytes += size;
+        if (old != null) {
+            bytes -= old.bytes;
+            if (old.value != value) listener.onEvicted(key, old.value);
+        }
+    }
+
+    /**
+     * 返回条目并标记为当前帧使用，不存在时返回 null
+     */
+    public V get(int key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) return null;
+        entry.lastUsedFrame = frame;
+        return entry.value;
+    }
+
+    /**
+     * 返回条目但不改变使用顺序
+     */
+    public V peek(int key) {
+        Entry<V> entry = lookup.get(key);
+        return entry != null ? entry.value : null;
+    }
+
+    public boolean contains(int key) {
+        return entries.containsKey(key);
+    }
+
+    /**
+     * 移除条目，不调用淘汰回调
+     */
+    public V remove(int key) {
+        Entry<V> entry = entries.remove(key);
+        if (entry == null) return null;
+        lookup.remove(key);
+        bytes -= entry.bytes;
+        return entry.value;
+    }
+
+    /**
+     * 从最久未使用的条目开始淘汰，直到不超过预算或只剩当前帧使用的条目
+     */
+    public void trim() {
+        Iterator<Map.Entry<Integer, Entry<V>>> iterator = entries.entrySet().iterator();
+        while (bytes > budgetBytes && iterator.hasNext()) {
+            Map.Entry<Integer, Entry<V>> eldest = iterator.next();
+            Entry<V> entry = eldest.getValue();
+            // 之后的条目都在当前帧中使用过
+            if (entry.lastUsedFrame == frame) break;
+            iterator.remove();
+            lookup.remove(eldest.getKey());
+            bytes -= entry.bytes;
+            evictionCount++;
+            listener.onEvicted(eldest.getKey(), entry.value);
+        }
+    }
+
+    /**
+     * 淘汰所有条目
+     */
+    public void evictAll() {
+        for (Map.Entry<Integer, Entry<V>> e : entries.entrySet()) {
+            listener.onEvicted(e.getKey(), e.getValue().value);
+        }
+        clear();
+    }
+
+    /**
+     * 丢弃所有条目，不调用淘汰回调（例如GL上下文已经失效）
+     */
+    public void clear() {
+        entries.clear();
+        lookup.clear();
+        bytes = 0;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+}
@@ -1,6 +1,12 @@
 package com.example.sl;
 
+import android.content.Intent;
 import android.os.Bundle;
+import android.util.Log;
+import android.view.Gravity;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import android.widget.Toast;
 
 import androidx.activity.EdgeToEdge;
 import androidx.appcompat.app.AppCompatActivity;
@@ -8,8 +14,14 @@ import androidx.core.graphics.Insets;
 import androidx.core.view.ViewCompat;
 import androidx.core.view.WindowInsetsCompat;
 
+import java.io.File;
+import java.io.IOException;
+
 public class MainActivity extends AppCompatActivity {
+    private static final String TAG = "MainActivity";
     private PointCloudGLSurfaceView glSurfaceView;
+    // 持有引用的数据集，界面销毁时释放
+    private String datasetKey;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -24,8 +36,66 @@ public class MainActivity extends AppCompatActivity {
 
         String mode = getIntent().getStringExtra("mode");
 
-        glSurfaceView = new PointCloudGLSurfaceView(MainActivity.this, PointCloudDataHolder.getPointCloudData(), mode);
-        setContentView(glSurfaceView);
+        // 传入 octreeDir 时流式显示 OctreeConverter 转换的点云
+        String octreeDir = getIntent().getStringExtra("octreeDir");
+        if (octreeDir != null) {
+            OctreeIndex index;
+            try {
+                index = OctreeIndex.read(new File(octreeDir));
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to open octree " + octreeDir + ": " + e.getMessage());
+                Toast.makeText(this, "无法打开点云: " + e.getMessage(), Toast.LENGTH_LONG).show();
+                finish();
+                return;
+            }
+            glSurfaceView = new PointCloudGLSurfaceView(MainActivity.this, index, mode);
+        } else {
+            String datasetId = getIntent().getStringExtra(SplashActivity.EXTRA_DATASET);
+            if (datasetId == null) datasetId = SplashActivity.DEFAULT_DATASET;
+            PointCloudRepository repository = PointCloudRepository.getInstance();
+            PointCloudData data = repository.acquire(PointCloudRepository.datasetKey(datasetId));
+            if (data == null) {
+                // 数据集已被淘汰（或进程被回收后重建），重新加载
+                startActivity(new Intent(this, SplashActivity.class));
+                finish();
+                return;
+            }
+            datasetKey = PointCloudRepository.datasetKey(datasetId);
+            glSurfaceView = new PointCloudGLSurfaceView(MainActivity.this, data, mode);
+            glSurfaceView.getPointCloudRenderer().setRepository(repository, datasetId);
+        }
+
+        // 可选的着色方式（PointCloudRenderer.COLOR_*），默认有颜色时用颜色，否则按高度
+        glSurfaceView.getPointCloudRenderer().setColorMode(
+                getIntent().getIntExtra("colorMode", PointCloudRenderer.COLOR_AUTO));
+
+        // 可选的测量：单击点依次加入测量，显示折线长度和闭合面积；单击空白处清除
+        if (getIntent().getBooleanExtra("measure", false)) {
+            Measurement measurement = new Measurement();
+            glSurfaceView.setOnPointPickedListener(hit -> {
+                if (hit == null) {
+                    measurement.clear();
+                    Toast.makeText(this, "测量已清除", Toast.LENGTH_SHORT).show();
+                    return;
+                }
+                measurement.add(hit);
+                Toast.makeText(this, String.format("点 %d (%.3f, %.3f, %.3f) 距离 %.3f 面积 %.3f",
+                        measurement.getPointCount(), hit.x, hit.y, hit.z,
+                        measurement.getDistance(), measurement.getArea()), Toast.LENGTH_SHORT).show();
+            });
+        }
+
+        // 可选的性能信息叠加层
+        if (getIntent().getBooleanExtra("showMetrics", false)) {
+            FrameLayout container = new FrameLayout(this);
+            container.addView(glSurfaceView);
+            FrameMetrics metrics = glSurfaceView.getPointCloudRenderer().getFrameMetrics();
+            container.addView(new FrameMetricsOverlay(this, metrics), new FrameLayout.LayoutParams(
+                    ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT, Gravity.TOP | Gravity.START));
+            setContentView(container);
+        } else {
+            setContentView(glSurfaceView);
+        }
     }
 
     @Override
@@ -43,4 +113,15 @@ public class MainActivity extends AppCompatActivity {
             glSurfaceView.onResume();
         }
     }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (glSurfaceView != null) {
+            glSurfaceView.getPointCloudRenderer().releaseSharedData();
+        }
+        if (datasetKey != null) {
+            PointCloudRepository.getInstance().release(datasetKey);
+        }
+    }
 }
\ No newline at end of file
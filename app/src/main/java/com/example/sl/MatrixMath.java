@@ -0,0 +1,177 @@
+package com.example.sl;
+
+/**
+ * 4x4 矩阵运算 - 列主序（m[offset + 列 * 4 + 行]），与 android.opengl.Matrix 的同名方法结果相同
+ * 纯 Java 实现，不依赖 Android 框架，本地单元测试中得到的也是真实的矩阵；不分配内存，结果与输入可以是同一个数组
+ */
+public class MatrixMath {
+
+    public static void setIdentityM(float[] m, int offset) {
+        for (int i = 0; i < 16; i++) {
+            m[offset + i] = (i % 5 == 0) ? 1 : 0;
+        }
+    }
+
+    /**
+     * m = m * S(x, y, z)
+     */
+    public static void scaleM(float[] m, int offset, float x, float y, float z) {
+        for (int i = 0; i < 4; i++) {
+            m[offset + i] *= x;
+            m[offset + 4 + i] *= y;
+            m[offset + 8 + i] *= z;
+        }
+    }
+
+    /**
+     * m = m * T(x, y, z)
+     */
+    public static void translateM(float[] m, int offset, float x, float y, float z) {
+        for (int i = 0; i < 4; i++) {
+            m[offset + 12 + i] += m[offset + i] * x + m[offset + 4 + i] * y + m[offset + 8 + i] * z;
+        }
+    }
+
+    /**
+     * 透视投影，near 平面上的可见范围为 [left, right] × [bottom, top]
+     */
+    public static void frustumM(float[] m, int offset, float left, float right, float bottom, float top,
+                                float near, float far) {
+        if (left == right || bottom == top || near == far || near <= 0 || far <= 0) {
+            throw new IllegalArgumentException("Invalid frustum");
+        }
+        float width = 1.0f / (right - left);
+        float height = 1.0f / (top - bottom);
+        float depth = 1.0f / (near - far);
+        for (int i = 0; i < 16; i++) {
+            m[offset + i] = 0;
+        }
+        m[offset] = 2.0f * near * width;
+        m[offset + 5] = 2.0f * near * height;
+        m[offset + 8] = (right + left) * width;
+        m[offset + 9] = (top + bottom) * height;
+        m[offset + 10] = (far + near) * depth;
+        m[offset + 11] = -1.0f;
+        m[offset + 14] = 2.0f * far * near * depth;
+    }
+
+    /**
+     * 观察矩阵：相机位于 eye，看向 center，up 为大致的上方向
+     */
+    public static void setLookAtM(float[] m, int offset, float eyeX, float eyeY, float eyeZ,
+                                  float centerX, float centerY, float centerZ, float upX, float upY, float upZ) {
+        float fx = centerX - eyeX, fy = centerY - eyeY, fz = centerZ - eyeZ;
+        float length = (float) Math.sqrt(fx * fx + fy * fy + fz * fz);
+        fx /= length;
+        fy /= length;
+        fz /= length;
+
+        // s = f × up，u = s × f
+        float sx = fy * upZ - fz * upY, sy = fz * upX - fx * upZ, sz = fx * upY - fy * upX;
+        length = (float) Math.sqrt(sx * sx + sy * sy + sz * sz);
+        sx /= length;
+        sy /= length;
+        sz /= length;
+        float ux = sy * fz - sz * fy, uy = sz * fx - sx * fz, uz = sx * fy - sy * fx;
+
+        m[offset] = sx;
+        m[offset + 1] = ux;
+        m[offset + 2] = -fx;
+        m[offset + 3] = 0;
+        m[offset + 4] = sy;
+        m[offset + 5] = uy;
+        m[offset + 6] = -fy;
+        m[offset + 7] = 0;
+        m[offset + 8] = sz;
+        m[offset + 9] = uz;
+        m[offset + 10] = -fz;
+        m[offset + 11] = 0;
+        m[offset + 12] = 0;
+        m[offset + 13] = 0;
+        m[offset + 14] = 0;
+        m[offset + 15] = 1;
+        translateM(m, offset, -eyeX, -eyeY, -eyeZ);
+    }
+
+    /**
+     * result = lhs * rhs
+     */
+    public static void multiplyMM(float[] result, int resultOffset, float[] lhs, int lhsOffset,
+                                  float[] rhs, int rhsOffset) {
+        float l0 = lhs[lhsOffset], l1 = lhs[lhsOffset + 1], l2 = lhs[lhsOffset + 2], l3 = lhs[lhsOffset + 3];
+        float l4 = lhs[lhsOffset + 4], l5 = lhs[lhsOffset + 5], l6 = lhs[lhsOffset + 6], l7 = lhs[lhsOffset + 7];
+        float l8 = lhs[lhsOffset + 8], l9 = lhs[lhsOffset + 9], l10 = lhs[lhsOffset + 10], l11 = lhs[lhsOffset + 11];
+        float l12 = lhs[lhsOffset + 12], l13 = lhs[lhsOffset + 13], l14 = lhs[lhsOffset + 14], l15 = lhs[lhsOffset + 15];
+        // 逐列计算：结果的第 j 列只依赖 rhs 的第 j 列，先读出再写入
+        for (int j = 0; j < 16; j += 4) {
+            float r0 = rhs[rhsOffset + j], r1 = rhs[rhsOffset + j + 1];
+            float r2 = rhs[rhsOffset + j + 2], r3 = rhs[rhsOffset + j + 3];
+            result[resultOffset + j] = l0 * r0 + l4 * r1 + l8 * r2 + l12 * r3;
+            result[resultOffset + j + 1] = l1 * r0 + l5 * r1 + l9 * r2 + l13 * r3;
+            result[resultOffset + j + 2] = l2 * r0 + l6 * r1 + l10 * r2 + l14 * r3;
+            result[resultOffset + j + 3] = l3 * r0 + l7 * r1 + l11 * r2 + l15 * r3;
+        }
+    }
+
+    /**
+     * 转置；结果与输入可以是同一个矩阵
+     */
+    public static void transposeM(float[] result, int resultOffset, float[] m, int offset) {
+        for (int i = 0; i < 4; i++) {
+            for (int j = i; j < 4; j++) {
+                float a = m[offset + i * 4 + j], b = m[offset + j * 4 + i];
+                result[resultOffset + j * 4 + i] = a;
+                result[resultOffset + i * 4 + j] = b;
+            }
+        }
+    }
+
+    /**
+     * 求逆（伴随矩阵除以行列式），矩阵不可逆时返回 false 且不修改 result
+     */
+    public static boolean invertM(float[] result, int resultOffset, float[] m, int offset) {
+        float m0 = m[offset], m1 = m[offset + 1], m2 = m[offset + 2], m3 = m[offset + 3];
+        float m4 = m[offset + 4], m5 = m[offset + 5], m6 = m[offset + 6], m7 = m[offset + 7];
+        float m8 = m[offset + 8], m9 = m[offset + 9], m10 = m[offset + 10], m11 = m[offset + 11];
+        float m12 = m[offset + 12], m13 = m[offset + 13], m14 = m[offset + 14], m15 = m[offset + 15];
+
+        float i0 = m5 * m10 * m15 - m5 * m11 * m14 - m9 * m6 * m15 + m9 * m7 * m14 + m13 * m6 * m11 - m13 * m7 * m10;
+        float i4 = -m4 * m10 * m15 + m4 * m11 * m14 + m8 * m6 * m15 - m8 * m7 * m14 - m12 * m6 * m11 + m12 * m7 * m10;
+        float i8 = m4 * m9 * m15 - m4 * m11 * m13 - m8 * m5 * m15 + m8 * m7 * m13 + m12 * m5 * m11 - m12 * m7 * m9;
+        float i12 = -m4 * m9 * m14 + m4 * m10 * m13 + m8 * m5 * m14 - m8 * m6 * m13 - m12 * m5 * m10 + m12 * m6 * m9;
+        float determinant = m0 * i0 + m1 * i4 + m2 * i8 + m3 * i12;
+        if (determinant == 0 || Float.isNaN(determinant) || Float.isInfinite(determinant)) return false;
+
+        float i1 = -m1 * m10 * m15 + m1 * m11 * m14 + m9 * m2 * m15 - m9 * m3 * m14 - m13 * m2 * m11 + m13 * m3 * m10;
+        float i5 = m0 * m10 * m15 - m0 * m11 * m14 - m8 * m2 * m15 + m8 * m3 * m14 + m12 * m2 * m11 - m12 * m3 * m10;
+        float i9 = -m0 * m9 * m15 + m0 * m11 * m13 + m8 * m1 * m15 - m8 * m3 * m13 - m12 * m1 * m11 + m12 * m3 * m9;
+        float i13 = m0 * m9 * m14 - m0 * m10 * m13 - m8 * m1 * m14 + m8 * m2 * m13 + m12 * m1 * m10 - m12 * m2 * m9;
+        float i2 = m1 * m6 * m15 - m1 * m7 * m14 - m5 * m2 * m15 + m5 * m3 * m14 + m13 * m2 * m7 - m13 * m3 * m6;
+        float i6 = -m0 * m6 * m15 + m0 * m7 * m14 + m4 * m2 * m15 - m4 * m3 * m14 - m12 * m2 * m7 + m12 * m3 * m6;
+        float i10 = m0 * m5 * m15 - m0 * m7 * m13 - m4 * m1 * m15 + m4 * m3 * m13 + m12 * m1 * m7 - m12 * m3 * m5;
+        float i14 = -m0 * m5 * m14 + m0 * m6 * m13 + m4 * m1 * m14 - m4 * m2 * m13 - m12 * m1 * m6 + m12 * m2 * m5;
+        float i3 = -m1 * m6 * m11 + m1 * m7 * m10 + m5 * m2 * m11 - m5 * m3 * m10 - m9 * m2 * m7 + m9 * m3 * m6;
+        float i7 = m0 * m6 * m11 - m0 * m7 * m10 - m4 * m2 * m11 + m4 * m3 * m10 + m8 * m2 * m7 - m8 * m3 * m6;
+        float i11 = -m0 * m5 * m11 + m0 * m7 * m9 + m4 * m1 * m11 - m4 * m3 * m9 - m8 * m1 * m7 + m8 * m3 * m5;
+        float i15 = m0 * m5 * m10 - m0 * m6 * m9 - m4 * m1 * m10 + m4 * m2 * m9 + m8 * m1 * m6 - m8 * m2 * m5;
+
+        float inverse = 1.0f / determinant;
+        result[resultOffset] = i0 * inverse;
+        result[resultOffset + 1] = i1 * inverse;
+        result[resultOffset + 2] = i2 * inverse;
+        result[resultOffset + 3] = i3 * inverse;
+        result[resultOffset + 4] = i4 * inverse;
+        result[resultOffset + 5] = i5 * inverse;
+        result[resultOffset + 6] = i6 * inverse;
+        result[resultOffset + 7] = i7 * inverse;
+        result[resultOffset + 8] = i8 * inverse;
+        result[resultOffset + 9] = i9 * inverse;
+        result[resultOffset + 10] = i10 * inverse;
+        result[resultOffset + 11] = i11 * inverse;
+        result[resultOffset + 12] = i12 * inverse;
+        result[resultOffset + 13] = i13 * inverse;
+        result[resultOffset + 14] = i14 * inverse;
+        result[resultOffset + 15] = i15 * inverse;
+        return true;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.sl;
+
+import java.util.Arrays;
+
+/**
+ * 测量：依次拾取的点构成折线（距离）或闭合多边形（面积），坐标与点云同一坐标系
+ */
+public class Measurement {
+    private float[] points = new float[4 * 3];
+    private int count;
+
+    public void add(float x, float y, float z) {
+        if (points.length < (count + 1) * 3) {
+            points = Arrays.copyOf(points, points.length * 2);
+        }
+        points[count * 3] = x;
+        points[count * 3 + 1] = y;
+        points[count * 3 + 2] = z;
+        count++;
+    }
+
+    public void add(PointPicker.Hit hit) {
+        add(hit.x, hit.y, hit.z);
+    }
+
+    public void removeLast() {
+        if (count > 0) count--;
+    }
+
+    public void clear() {
+        count = 0;
+    }
+
+    public int getPointCount() {
+        return count;
+    }
+
+    /**
+     * 折线总长度，两个点时即为两点间距离
+     */
+    public double getDistance() {
+        double length = 0;
+        for (int i = 1; i < count; i++) {
+            double dx = points[i * 3] - points[i * 3 - 3];
+            double dy = points[i * 3 + 1] - points[i * 3 - 2];
+            double dz = points[i * 3 + 2] - points[i * 3 - 1];
+            length += Math.sqrt(dx * dx + dy * dy + dz * dz);
+        }
+        return length;
+    }
+
+    /**
+     * 按顺序闭合的多边形面积（Newell 法向量长度的一半），点不必共面，少于三个点时为 0
+     */
+    public double getArea() {
+        if (count < 3) return 0;
+        double nx = 0, ny = 0, nz = 0;
+        for (int i = 0; i < count; i++) {
+            int j = (i + 1) % count;
+            double x0 = points[i * 3], y0 = points[i * 3 + 1], z0 = points[i * 3 + 2];
+            double x1 = points[j * 3], y1 = points[j * 3 + 1], z1 = points[j * 3 + 2];
+            nx += (y0 - y1) * (z0 + z1);
+            ny += (z0 - z1) * (x0 + x1);
+            nz += (x0 - x1) * (y0 + y1);
+        }
+        return Math.sqrt(nx * nx + ny * ny + nz * nz) / 2;
+    }
+}
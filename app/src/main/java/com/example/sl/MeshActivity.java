@@ -1,30 +1,146 @@
 package com.example.sl;
 
+import android.content.Intent;
 import android.opengl.GLSurfaceView;
 import android.os.Bundle;
 import android.util.Log;
+import android.view.View;
+import android.widget.FrameLayout;
+import android.widget.ProgressBar;
+import android.widget.TextView;
+import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
 
+import java.util.Arrays;
+
 // 在MainActivity中使用
 public class MeshActivity extends AppCompatActivity {
     private GLSurfaceView glSurfaceView;
+    // 重建进度，显示在网格上方，第一级网格出来后隐藏
+    private View progressPanel;
+    private ProgressBar progressBar;
+    private TextView progressText;
+    private ReconstructionJob reconstructionJob;
+    // 持有引用的仓库条目（数据集和重建的网格），界面销毁时释放；只在界面线程中读写
+    private String datasetKey;
+    private String meshKey;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
 
         Log.e("MeshActivity", System.currentTimeMillis() + " start");
-        // 转换为网格
-//        MeshData meshData = FastSurfaceReconstructor.fastReconstruction(PointCloudDataHolder.getPointCloudData(), 0.1f, 100000);
-//        MeshData meshData = FastSurfaceReconstructor.ultraFastReconstruction(PointCloudDataHolder.getPointCloudData());
-        MeshData meshData = UniformSurfaceReconstructor.autoReconstruct(PointCloudDataHolder.getPointCloudData());
 
-        // 使用网格渲染器
-        MeshRenderer renderer = new MeshRenderer(this, meshData);
+        String datasetId = getIntent().getStringExtra(SplashActivity.EXTRA_DATASET);
+        if (datasetId == null) datasetId = SplashActivity.DEFAULT_DATASET;
+        PointCloudRepository repository = PointCloudRepository.getInstance();
+        PointCloudData pointCloud = repository.acquire(PointCloudRepository.datasetKey(datasetId));
+        if (pointCloud == null) {
+            // 数据集已被淘汰（或进程被回收后重建），重新加载
+            startActivity(new Intent(this, SplashActivity.class));
+            finish();
+            return;
+        }
+        datasetKey = PointCloudRepository.datasetKey(datasetId);
+
+        // 使用网格渲染器，网格在后台重建完成后再上传；网格与点云同为原始坐标，按点云的范围归一化显示
+        MeshRenderer renderer = new MeshRenderer(this, null);
+        renderer.setNormalization(pointCloud.getCenterX(), pointCloud.getCenterY(), pointCloud.getCenterZ(),
+                1.0f / pointCloud.getHalfExtent());
         glSurfaceView = new MeshGLSurfaceView(this, renderer);
-        Log.e("MeshActivity", System.currentTimeMillis() + " end");
+        setContentView(R.layout.activity_mesh);
+        FrameLayout container = findViewById(R.id.main);
+        container.addView(glSurfaceView, 0);
+        progressPanel = findViewById(R.id.progress_panel);
+        progressBar = findViewById(R.id.progress_bar);
+        progressText = findViewById(R.id.progress_text);
+
+        // 同样参数重建过的网格仍在仓库中时直接显示
+        int[] levels = ProgressiveReconstructor.defaultLevels(pointCloud.pointCount);
+        String key = PointCloudRepository.key(datasetId, "progressiveMesh", Arrays.toString(levels));
+        MeshData cached = repository.acquire(key);
+        if (cached != null) {
+            meshKey = key;
+            renderer.setMeshData(cached);
+            progressPanel.setVisibility(View.GONE);
+            return;
+        }
+
+        // 转换为网格：渐进式重建，先显示粗糙网格再逐级细化
+        ProgressiveReconstructor progressive = new ProgressiveReconstructor(pointCloud, levels);
+        ProgressiveReconstructor.LevelListener levelListener = (level, levelCount, meshData) -> {
+            glSurfaceView.queueEvent(() -> renderer.setMeshData(meshData));
+            glSurfaceView.requestRender();
+            Log.e("MeshActivity", System.currentTimeMillis() + " level " + (level + 1) + "/" + levelCount);
+            runOnUiThread(() -> progressPanel.setVisibility(View.GONE));
+        };
+//        ReconstructionTask task = monitor -> FastSurfaceReconstructor.fastReconstruction(pointCloud, 0.1f, 100000, monitor);
+//        ReconstructionTask task = monitor -> FastSurfaceReconstructor.ultraFastReconstruction(pointCloud, monitor);
+//        ReconstructionTask task = monitor -> UniformSurfaceReconstructor.autoReconstruct(pointCloud, monitor);
+//        ReconstructionTask task = monitor -> new TiledReconstructor(new File(getCacheDir(), "tiles"), 500000, 0, 2)
+//                .reconstruct(PointSource.of(pointCloud), monitor);
+        ReconstructionTask task = monitor -> progressive.reconstruct(monitor, levelListener);
+
+        // 结果在GL线程中交给渲染器
+        reconstructionJob = ReconstructionExecutor.getInstance().submit(task, glSurfaceView::queueEvent,
+                new ReconstructionCallback() {
+                    @Override
+                    public void onProgress(ReconstructionStage stage, float fraction) {
+                        // 各阶段平分进度条
+                        int progress = (int) ((stage.ordinal() + fraction) * 100 / ReconstructionStage.values().length);
+                        runOnUiThread(() -> {
+                            progressBar.setProgress(progress);
+                            progressText.setText(String.format("正在重建网格... %s %d%%", stage, (int) (fraction * 100)));
+                        });
+                    }
+
+                    @Override
+                    public void onComplete(MeshData meshData) {
+                        // 最精细的一级已经通过 levelListener 上传，加入仓库供下次直接显示
+                        // 在界面线程中登记，与 onDestroy 中的释放先后有序；界面已销毁时不再持有引用
+                        Log.e("MeshActivity", System.currentTimeMillis() + " end");
+                        runOnUiThread(() -> {
+                            if (isDestroyed()) return;
+                            repository.acquire(key, () -> meshData, MeshData::estimateBytes);
+                            meshKey = key;
+                        });
+                    }
+
+                    @Override
+                    public void onError(Throwable error) {
+                        runOnUiThread(() -> {
+                            progressPanel.setVisibility(View.GONE);
+                            Toast.makeText(MeshActivity.this, "网格重建失败", Toast.LENGTH_LONG).show();
+                        });
+                    }
+                });
+    }
 
-        setContentView(glSurfaceView);
+    @Override
+    protected void onPause() {
+        super.onPause();
+        glSurfaceView.onPause();
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        glSurfaceView.onResume();
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (reconstructionJob != null) {
+            reconstructionJob.cancel();
+        }
+        PointCloudRepository repository = PointCloudRepository.getInstance();
+        if (meshKey != null) {
+            repository.release(meshKey);
+        }
+        if (datasetKey != null) {
+            repository.release(datasetKey);
+        }
     }
 }
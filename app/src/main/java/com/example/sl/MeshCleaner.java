@@ -0,0 +1,280 @@
+package com.example.sl;
+
+import android.util.Log;
+
+import java.util.Arrays;
+
+/**
+ * 网格后处理 - 顶点焊接、删除退化/重复三角形、删除非流形边上多余的三角形，并压缩顶点
+ */
+public class MeshCleaner {
+    private static final String TAG = "MeshCleaner";
+
+    /**
+     * 清理统计
+     */
+    public static class Report {
+        public int weldedVertices;
+        public int degenerateTriangles;
+        public int duplicateTriangles;
+        public int nonManifoldTriangles;
+        public int unusedVertices;
+
+        public int removedTriangles() {
+            return degenerateTriangles + duplicateTriangles + nonManifoldTriangles;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("welded %d vertices, removed %d triangles (%d degenerate, %d duplicate, %d non-manifold), %d unused vertices",
+                    weldedVertices, removedTriangles(), degenerateTriangles, duplicateTriangles,
+                    nonManifoldTriangles, unusedVertices);
+        }
+    }
+
+    /**
+     * 根据点云包围盒选择焊接阈值（对角线的十万分之一）
+     */
+    public static float suggestEpsilon(PointCloudData pointCloud) {
+        return suggestEpsilon(pointCloud.minX, pointCloud.minY, pointCloud.minZ,
+                pointCloud.maxX, pointCloud.maxY, pointCloud.maxZ);
+    }
+
+    public static float suggestEpsilon(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        float dx = maxX - minX;
+        float dy = maxY - minY;
+        float dz = maxZ - minZ;
+        return Math.max((float) Math.sqrt(dx * dx + dy * dy + dz * dz) * 1e-5f, 1e-7f);
+    }
+
+    public static MeshData clean(MeshData mesh, float weldEpsilon) {
+        return clean(mesh, weldEpsilon, new Report());
+    }
+
+    /**
+     * 清理网格，返回新的 MeshData，统计结果写入 report
+     */
+    public static MeshData clean(MeshData mesh, float weldEpsilon, Report report) {
+        long startTime = System.currentTimeMillis();
+        int vertexCount = mesh.getVertexCount();
+        int triangleCount = mesh.getTriangleCount();
+
+        // 1. 焊接：距离在 epsilon 内的顶点合并到先出现的代表顶点
+        int[] representative = weld(mesh, weldEpsilon, report);
+
+        // 2. 逐个检查三角形
+        int[] indices = new int[triangleCount * 3];
+        int kept = 0;
+        float minDoubleArea = weldEpsilon * weldEpsilon;
+        TriangleSet seenTriangles = new TriangleSet(triangleCount);
+        EdgeCounter edgeCounter = new EdgeCounter(triangleCount * 3);
+
+        for (int t = 0; t < triangleCount; t++) {
+            int a = representative[mesh.getIndex(t * 3)];
+            int b = representative[mesh.getIndex(t * 3 + 1)];
+            int c = representative[mesh.getIndex(t * 3 + 2)];
+
+            if (a == b || b == c || a == c || doubleArea(mesh, a, b, c) <= minDoubleArea) {
+                report.degenerateTriangles++;
+                continue;
+            }
+
+            indices[kept * 3] = a;
+            indices[kept * 3 + 1] = b;
+            indices[kept * 3 + 2] = c;
+            // 与顶点顺序无关：反向的同一三角形也视为重复
+            int slot = seenTriangles.find(indices, kept);
+            if (slot < 0) {
+                report.duplicateTriangles++;
+                continue;
+            }
+
+            // 每条边最多保留两个三角形
+            if (edgeCounter.count(a, b) >= 2 || edgeCounter.count(b, c) >= 2 || edgeCounter.count(c, a) >= 2) {
+                report.nonManifoldTriangles++;
+                continue;
+            }
+            edgeCounter.increment(a, b);
+            edgeCounter.increment(b, c);
+            edgeCounter.increment(c, a);
+            seenTriangles.insert(slot, kept);
+            kept++;
+        }
+
+        // 3. 压缩顶点
+        int[] remap = new int[vertexCount];
+        Arrays.fill(remap, -1);
+        MeshData.Builder builder = new MeshData.Builder(vertexCount - report.weldedVertices, kept);
+        for (int i = 0; i < kept * 3; i++) {
+            int v = indices[i];
+            if (remap[v] < 0) {
+                remap[v] = builder.addVertex(mesh.getX(v), mesh.getY(v), mesh.getZ(v), 0, 0, 0);
+            }
+            indices[i] = remap[v];
+        }
+        for (int t = 0; t < kept; t++) {
+            builder.addTriangle(indices[t * 3], indices[t * 3 + 1], indices[t * 3 + 2]);
+        }
+
+        // 被焊接顶点的法线取平均
+        float[] normalSums = new float[builder.getVertexCount() * 3];
+        for (int v = 0; v < vertexCount; v++) {
+            int target = remap[representative[v]];
+            if (target < 0) continue;
+            normalSums[target * 3] += mesh.getNormalX(v);
+            normalSums[target * 3 + 1] += mesh.getNormalY(v);
+            normalSums[target * 3 + 2] += mesh.getNormalZ(v);
+        }
+        for (int v = 0; v < builder.getVertexCount(); v++) {
+            float nx = normalSums[v * 3], ny = normalSums[v * 3 + 1], nz = normalSums[v * 3 + 2];
+            float length = (float) Math.sqrt(nx * nx + ny * ny + nz * nz);
+            if (length > 0) {
+                builder.setNormal(v, nx / length, ny / length, nz / length);
+            } else {
+                builder.setNormal(v, 0, 1, 0);
+            }
+        }
+        report.unusedVertices = vertexCount - report.weldedVertices - builder.getVertexCount();
+
+        Log.i(TAG, String.format("Cleaned mesh in %d ms: %s", System.currentTimeMillis() - startTime, report));
+        return builder.build();
+    }
+
+    /**
+     * 空间哈希焊接，返回每个顶点的代表顶点
+     */
+    private static int[] weld(MeshData mesh, float epsilon, Report report) {
+        int count = mesh.getVertexCount();
+        int[] representative = new int[count];
+        if (epsilon <= 0) {
+            for (int i = 0; i < count; i++) {
+                representative[i] = i;
+            }
+            return representative;
+        }
+
+        // 小于坐标浮点精度的阈值没有意义，同时避免格子坐标溢出
+        float maxAbs = 0;
+        for (int i = 0; i < count; i++) {
+            maxAbs = Math.max(maxAbs, Math.max(Math.abs(mesh.getX(i)), Math.max(Math.abs(mesh.getY(i)), Math.abs(mesh.getZ(i)))));
+        }
+        epsilon = Math.max(epsilon, maxAbs * 1e-7f);
+
+        // 网格中只存放代表顶点，gridToVertex 把网格索引映射回顶点索引
+        SpatialGrid grid = new SpatialGrid(epsilon * 2, count);
+        int[] gridToVertex = new int[count];
+        int[] found = new int[1];
+        for (int i = 0; i < count; i++) {
+            float x = mesh.getX(i), y = mesh.getY(i), z = mesh.getZ(i);
+            if (grid.findWithinRadius(x, y, z, epsilon, -1, found) > 0) {
+                representative[i] = gridToVertex[found[0]];
+                report.weldedVertices++;
+            } else {
+                gridToVertex[grid.add(x, y, z)] = i;
+                representative[i] = i;
+            }
+        }
+        return representative;
+    }
+
+    private static float doubleArea(MeshData mesh, int a, int b, int c) {
+        float e1x = mesh.getX(b) - mesh.getX(a), e1y = mesh.getY(b) - mesh.getY(a), e1z = mesh.getZ(b) - mesh.getZ(a);
+        float e2x = mesh.getX(c) - mesh.getX(a), e2y = mesh.getY(c) - mesh.getY(a), e2z = mesh.getZ(c) - mesh.getZ(a);
+        float nx = e1y * e2z - e1z * e2y;
+        float ny = e1z * e2x - e1x * e2z;
+        float nz = e1x * e2y - e1y * e2x;
+        return (float) Math.sqrt(nx * nx + ny * ny + nz * nz);
+    }
+
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    private static int tableSize(int expected) {
+        return Integer.highestOneBit(Math.max(16, expected) * 2 - 1) << 1;
+    }
+
+    /**
+     * 三角形集合：开放寻址哈希表存放三角形序号，按排序后的三元组比较
+     */
+    private static class TriangleSet {
+        private final int[] slots;
+
+        TriangleSet(int expected) {
+            slots = new int[tableSize(expected)];
+            Arrays.fill(slots, -1);
+        }
+
+        /**
+         * @return 三角形 t 不存在时返回可插入的位置，已存在时返回 -1
+         */
+        int find(int[] indices, int t) {
+            int a = indices[t * 3], b = indices[t * 3 + 1], c = indices[t * 3 + 2];
+            int min = Math.min(a, Math.min(b, c));
+            int max = Math.max(a, Math.max(b, c));
+            int mid = a + b + c - min - max;
+
+            int mask = slots.length - 1;
+            int slot = (int) (mix(((long) min * 31 + mid) * 0x9E3779B97F4A7C15L + max) & mask);
+            while (slots[slot] != -1) {
+                int o = slots[slot];
+                int oa = indices[o * 3], ob = indices[o * 3 + 1], oc = indices[o * 3 + 2];
+                int oMin = Math.min(oa, Math.min(ob, oc));
+                int oMax = Math.max(oa, Math.max(ob, oc));
+                if (oMin == min && oMax == max && oa + ob + oc - oMin - oMax == mid) {
+                    return -1;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        void insert(int slot, int t) {
+            slots[slot] = t;
+        }
+    }
+
+    /**
+     * 无向边使用次数
+     */
+    private static class EdgeCounter {
+        private static final long EMPTY = -1L;
+        private final long[] keys;
+        private final int[] counts;
+
+        EdgeCounter(int expected) {
+            int size = tableSize(expected);
+            keys = new long[size];
+            counts = new int[size];
+            Arrays.fill(keys, EMPTY);
+        }
+
+        int count(int a, int b) {
+            int slot = find(key(a, b));
+            return keys[slot] == EMPTY ? 0 : counts[slot];
+        }
+
+        void increment(int a, int b) {
+            long key = key(a, b);
+            int slot = find(key);
+            keys[slot] = key;
+            counts[slot]++;
+        }
+
+        private static long key(int a, int b) {
+            return ((long) Math.min(a, b) << 32) | Math.max(a, b);
+        }
+
+        private int find(long key) {
+            int mask = keys.length - 1;
+            int slot = (int) (mix(key) & mask);
+            while (keys[slot] != EMPTY && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+    }
+}
@@ -1,76 +1,387 @@
 package com.example.sl;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
 
+/**
+ * 网格数据 - 顶点、法线、纹理坐标和索引都以扁平数组存放，创建后不可修改
+ * GPU上传用的直接缓冲区在第一次使用时生成并缓存
+ */
 public class MeshData {
-    public List<float[]> vertices;
-    public List<float[]> normals;
-    public List<float[]> texCoords;
-    public List<int[]> triangles;
-    public int textureId = 0;
-
-    public MeshData(List<float[]> vertices, List<float[]> normals, List<int[]> triangles) {
-        this.vertices = vertices;
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int[][] NO_LOD_INDICES = new int[0][];
+    private static final float[] NO_LOD_ERRORS = new float[0];
+
+    private final float[] positions;   // x,y,z 连续存放
+    private final float[] normals;     // nx,ny,nz 连续存放
+    private final float[] texCoords;   // u,v 连续存放
+    private final int[] indices;       // 每三个一个三角形
+    private final int vertexCount;
+    private final int indexCount;
+
+    // 细节层次：第0层为 indices 本身，以下为第1层起各层的索引（共享同一组顶点）及几何误差
+    private final int[][] lodIndices;
+    private final float[] lodErrors;
+
+    private FloatBuffer vertexBuffer;
+    private FloatBuffer normalBuffer;
+    private FloatBuffer texCoordBuffer;
+    private IntBuffer indexBuffer;
+
+    public MeshData(float[] positions, float[] normals, int[] indices) {
+        this(positions, normals, positions.length / 3, indices, indices.length);
+    }
+
+    /**
+     * 直接使用传入的数组（不复制），数组中超出 vertexCount / indexCount 的部分被忽略
+     */
+    public MeshData(float[] positions, float[] normals, int vertexCount, int[] indices, int indexCount) {
+        if (positions.length < vertexCount * 3 || normals.length < vertexCount * 3) {
+            throw new IllegalArgumentException("Vertex arrays are shorter than vertexCount");
+        }
+        if (indices.length < indexCount || indexCount % 3 != 0) {
+            throw new IllegalArgumentException("Invalid index count: " + indexCount);
+        }
+        this.positions = positions;
         this.normals = normals;
-        this.triangles = triangles;
-        generateTextureCoordinates();
+        this.vertexCount = vertexCount;
+        this.indices = indices;
+        this.indexCount = indexCount;
+        this.texCoords = generateTextureCoordinates();
+        this.lodIndices = NO_LOD_INDICES;
+        this.lodErrors = NO_LOD_ERRORS;
+    }
+
+    private MeshData(MeshData source, int[] indices, int indexCount, int[][] lodIndices, float[] lodErrors) {
+        this.positions = source.positions;
+        this.normals = source.normals;
+        this.texCoords = source.texCoords;
+        this.vertexCount = source.vertexCount;
+        this.indices = indices;
+        this.indexCount = indexCount;
+        this.lodIndices = lodIndices;
+        this.lodErrors = lodErrors;
     }
 
-    private void generateTextureCoordinates() {
-        texCoords = new ArrayList<>();
+    /**
+     * 平面投影纹理坐标：与 PointCloudData 的显示归一化相同，以包围盒中心为原点、最长边的一半为单位长度，
+     * 把 xy 映射到 [0, 1]，与网格所在位置和单位无关（坐标不在原点附近时也不超出范围，半精度存放不损失精度）
+     */
+    private float[] generateTextureCoordinates() {
+        float[] uv = new float[vertexCount * 2];
+        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, minZ = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE, maxZ = -Float.MAX_VALUE;
+        for (int i = 0; i < vertexCount; i++) {
+            minX = Math.min(minX, positions[i * 3]);
+            minY = Math.min(minY, positions[i * 3 + 1]);
+            minZ = Math.min(minZ, positions[i * 3 + 2]);
+            maxX = Math.max(maxX, positions[i * 3]);
+            maxY = Math.max(maxY, positions[i * 3 + 1]);
+            maxZ = Math.max(maxZ, positions[i * 3 + 2]);
+        }
+        float centerX = (minX + maxX) / 2.0f, centerY = (minY + maxY) / 2.0f;
+        float half = Math.max(maxX - minX, Math.max(maxY - minY, maxZ - minZ)) / 2.0f;
+        if (half < 0.001f) half = 1.0f;
 
-        // 简单的平面投影纹理坐标
-        for (float[] vertex : vertices) {
-            float u = (vertex[0] + 1.0f) * 0.5f; // 映射到 [0,1]
-            float v = (vertex[1] + 1.0f) * 0.5f;
-            texCoords.add(new float[]{u, v});
+        for (int i = 0; i < vertexCount; i++) {
+            uv[i * 2] = ((positions[i * 3] - centerX) / half + 1.0f) * 0.5f;
+            uv[i * 2 + 1] = ((positions[i * 3 + 1] - centerY) / half + 1.0f) * 0.5f;
         }
+        return uv;
     }
 
-    public float[] getVerticesArray() {
-        float[] array = new float[vertices.size() * 3];
-        for (int i = 0; i < vertices.size(); i++) {
-            float[] vertex = vertices.get(i);
-            array[i * 3] = vertex[0];
-            array[i * 3 + 1] = vertex[1];
-            array[i * 3 + 2] = vertex[2];
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    public int getTriangleCount() {
+        return indexCount / 3;
+    }
+
+    public int getIndexCount() {
+        return indexCount;
+    }
+
+    public float getX(int vertex) {
+        return positions[vertex * 3];
+    }
+
+    public float getY(int vertex) {
+        return positions[vertex * 3 + 1];
+    }
+
+    public float getZ(int vertex) {
+        return positions[vertex * 3 + 2];
+    }
+
+    public float getNormalX(int vertex) {
+        return normals[vertex * 3];
+    }
+
+    public float getNormalY(int vertex) {
+        return normals[vertex * 3 + 1];
+    }
+
+    public float getNormalZ(int vertex) {
+        return normals[vertex * 3 + 2];
+    }
+
+    public int getIndex(int i) {
+        return indices[i];
+    }
+
+    /**
+     * 细节层次数量（包括第0层）
+     */
+    public int getLodCount() {
+        return lodIndices.length + 1;
+    }
+
+    /**
+     * 该层相对原网格的几何误差（与顶点坐标同单位），第0层为 0
+     */
+    public float getLodError(int level) {
+        return level == 0 ? 0 : lodErrors[level - 1];
+    }
+
+    public int getLodIndexCount(int level) {
+        return level == 0 ? indexCount : lodIndices[level - 1].length;
+    }
+
+    public int getLodIndex(int level, int i) {
+        return level == 0 ? indices[i] : lodIndices[level - 1][i];
+    }
+
+    /**
+     * 共享顶点数组、替换第0层索引，生成新的 MeshData（其余细节层次保留）
+     */
+    MeshData withIndices(int[] newIndices) {
+        if (newIndices.length % 3 != 0) {
+            throw new IllegalArgumentException("Invalid index count: " + newIndices.length);
         }
-        return array;
+        return new MeshData(this, newIndices, newIndices.length, lodIndices, lodErrors);
     }
 
-    public float[] getNormalsArray() {
-        float[] array = new float[normals.size() * 3];
-        for (int i = 0; i < normals.size(); i++) {
-            float[] normal = normals.get(i);
-            array[i * 3] = normal[0];
-            array[i * 3 + 1] = normal[1];
-            array[i * 3 + 2] = normal[2];
+    /**
+     * 共享顶点数组，附加第1层起的细节层次，误差须递增
+     */
+    MeshData withLods(int[][] levels, float[] errors) {
+        if (levels.length != errors.length) {
+            throw new IllegalArgumentException("Expected one error per LOD level");
+        }
+        for (int l = 0; l < levels.length; l++) {
+            if (levels[l].length % 3 != 0 || errors[l] < (l == 0 ? 0 : errors[l - 1])) {
+                throw new IllegalArgumentException("Invalid LOD level " + (l + 1));
+            }
         }
-        return array;
+        return new MeshData(this, indices, indexCount, levels, errors);
     }
 
-    public float[] getTexCoordsArray() {
-        float[] array = new float[texCoords.size() * 2];
-        for (int i = 0; i < texCoords.size(); i++) {
-            float[] texCoord = texCoords.get(i);
-            array[i * 2] = texCoord[0];
-            array[i * 2 + 1] = texCoord[1];
+    /**
+     * 估计顶点、法线、纹理坐标和各层索引占用的字节数（不含按需生成的直接缓冲区）
+     */
+    public long estimateBytes() {
+        long bytes = (positions.length + normals.length + texCoords.length) * 4L + indices.length * 4L;
+        for (int[] level : lodIndices) {
+            bytes += level.length * 4L;
         }
-        return array;
+        return bytes;
+    }
+
+    /**
+     * 以下 get*Array 方法返回副本，可以随意修改
+     */
+    public float[] getVerticesArray() {
+        return Arrays.copyOf(positions, vertexCount * 3);
+    }
+
+    public float[] getNormalsArray() {
+        return Arrays.copyOf(normals, vertexCount * 3);
+    }
+
+    public float[] getTexCoordsArray() {
+        return Arrays.copyOf(texCoords, vertexCount * 2);
     }
 
     public int[] getIndicesArray() {
-        int totalIndices = triangles.size() * 3;
-        int[] array = new int[totalIndices];
-        int index = 0;
+        return Arrays.copyOf(indices, indexCount);
+    }
+
+    /**
+     * 以下 get*Buffer 方法返回缓存的只读直接缓冲区的独立视图（position 为 0）
+     */
+    public synchronized FloatBuffer getVertexBuffer() {
+        if (vertexBuffer == null) {
+            vertexBuffer = toBuffer(positions, vertexCount * 3);
+        }
+        return vertexBuffer.duplicate();
+    }
+
+    public synchronized FloatBuffer getNormalBuffer() {
+        if (normalBuffer == null) {
+            normalBuffer = toBuffer(normals, vertexCount * 3);
+        }
+        return normalBuffer.duplicate();
+    }
+
+    public synchronized FloatBuffer getTexCoordBuffer() {
+        if (texCoordBuffer == null) {
+            texCoordBuffer = toBuffer(texCoords, vertexCount * 2);
+        }
+        return texCoordBuffer.duplicate();
+    }
+
+    public synchronized IntBuffer getIndexBuffer() {
+        if (indexBuffer == null) {
+            IntBuffer buffer = ByteBuffer.allocateDirect(indexCount * 4)
+                    .order(ByteOrder.nativeOrder())
+                    .asIntBuffer();
+            buffer.put(indices, 0, indexCount);
+            buffer.position(0);
+            indexBuffer = buffer.asReadOnlyBuffer();
+        }
+        return indexBuffer.duplicate();
+    }
+
+    private static FloatBuffer toBuffer(float[] data, int length) {
+        FloatBuffer buffer = ByteBuffer.allocateDirect(length * 4)
+                .order(ByteOrder.nativeOrder())
+                .asFloatBuffer();
+        buffer.put(data, 0, length);
+        buffer.position(0);
+        return buffer.asReadOnlyBuffer();
+    }
+
+    /**
+     * 网格构建器 - 重建算法直接向其中写入顶点和三角形，build() 时不再做转换
+     */
+    public static class Builder {
+        private float[] positions;
+        private float[] normals;
+        private int[] indices;
+        private int vertexCount;
+        private int indexCount;
+
+        public Builder() {
+            this(DEFAULT_CAPACITY, DEFAULT_CAPACITY);
+        }
+
+        public Builder(int vertexCapacity, int triangleCapacity) {
+            vertexCapacity = Math.max(vertexCapacity, 1);
+            triangleCapacity = Math.max(triangleCapacity, 1);
+            positions = new float[vertexCapacity * 3];
+            normals = new float[vertexCapacity * 3];
+            indices = new int[triangleCapacity * 3];
+        }
 
-        for (int[] triangle : triangles) {
-            array[index++] = triangle[0];
-            array[index++] = triangle[1];
-            array[index++] = triangle[2];
+        public int getVertexCount() {
+            return vertexCount;
         }
 
-        return array;
+        public int getTriangleCount() {
+            return indexCount / 3;
+        }
+
+        /**
+         * 添加顶点（默认法线朝上），返回顶点索引
+         */
+        public int addVertex(float x, float y, float z) {
+            return addVertex(x, y, z, 0, 1, 0);
+        }
+
+        public int addVertex(float x, float y, float z, float nx, float ny, float nz) {
+            if (vertexCount * 3 == positions.length) {
+                int capacity = vertexCount * 2;
+                positions = Arrays.copyOf(positions, capacity * 3);
+                normals = Arrays.copyOf(normals, capacity * 3);
+            }
+            int o = vertexCount * 3;
+            positions[o] = x;
+            positions[o + 1] = y;
+            positions[o + 2] = z;
+            normals[o] = nx;
+            normals[o + 1] = ny;
+            normals[o + 2] = nz;
+            return vertexCount++;
+        }
+
+        public void setNormal(int vertex, float nx, float ny, float nz) {
+            normals[vertex * 3] = nx;
+            normals[vertex * 3 + 1] = ny;
+            normals[vertex * 3 + 2] = nz;
+        }
+
+        public float getX(int vertex) {
+            return positions[vertex * 3];
+        }
+
+        public float getY(int vertex) {
+            return positions[vertex * 3 + 1];
+        }
+
+        public float getZ(int vertex) {
+            return positions[vertex * 3 + 2];
+        }
+
+        public void addTriangle(int a, int b, int c) {
+            if (indexCount == indices.length) {
+                indices = Arrays.copyOf(indices, indices.length * 2);
+            }
+            indices[indexCount++] = a;
+            indices[indexCount++] = b;
+            indices[indexCount++] = c;
+        }
+
+        public int getIndex(int i) {
+            return indices[i];
+        }
+
+        /**
+         * 按三角形面积加权重新计算所有顶点法线
+         */
+        public void computeNormals() {
+            Arrays.fill(normals, 0, vertexCount * 3, 0);
+            for (int i = 0; i < indexCount; i += 3) {
+                int a = indices[i] * 3, b = indices[i + 1] * 3, c = indices[i + 2] * 3;
+                float e1x = positions[b] - positions[a], e1y = positions[b + 1] - positions[a + 1], e1z = positions[b + 2] - positions[a + 2];
+                float e2x = positions[c] - positions[a], e2y = positions[c + 1] - positions[a + 1], e2z = positions[c + 2] - positions[a + 2];
+                float nx = e1y * e2z - e1z * e2y;
+                float ny = e1z * e2x - e1x * e2z;
+                float nz = e1x * e2y - e1y * e2x;
+                accumulateNormal(a, nx, ny, nz);
+                accumulateNormal(b, nx, ny, nz);
+                accumulateNormal(c, nx, ny, nz);
+            }
+            for (int o = 0; o < vertexCount * 3; o += 3) {
+                float length = (float) Math.sqrt(normals[o] * normals[o] + normals[o + 1] * normals[o + 1] + normals[o + 2] * normals[o + 2]);
+                if (length > 0) {
+                    normals[o] /= length;
+                    normals[o + 1] /= length;
+                    normals[o + 2] /= length;
+                } else {
+                    normals[o + 1] = 1;
+                }
+            }
+        }
+
+        private void accumulateNormal(int o, float nx, float ny, float nz) {
+            normals[o] += nx;
+            normals[o + 1] += ny;
+            normals[o + 2] += nz;
+        }
+
+        /**
+         * 生成 MeshData，之后不应再使用该构建器
+         */
+        public MeshData build() {
+            MeshData meshData = new MeshData(positions, normals, vertexCount, indices, indexCount);
+            positions = null;
+            normals = null;
+            indices = null;
+            return meshData;
+        }
     }
 }
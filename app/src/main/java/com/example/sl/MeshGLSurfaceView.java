@@ -32,8 +32,9 @@ public class MeshGLSurfaceView extends GLSurfaceView {
         // 设置OpenGL ES 3.0
         setEGLContextClientVersion(3);
 
-        // 设置渲染器
+        // 设置渲染器，后台上传有进展时请求重绘
         setRenderer(renderer);
+        renderer.setRenderRequester(this::requestRender);
 
         // 设置渲染模式
         setRenderMode(GLSurfaceView.RENDERMODE_WHEN_DIRTY);
@@ -0,0 +1,59 @@
+package com.example.sl;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 细节层次生成 - 逐级用 MeshSimplifier 减半三角形数，各层共享原网格的顶点缓冲区
+ */
+public class MeshLodGenerator {
+    private static final String TAG = "MeshLodGenerator";
+
+    public static final int MAX_LEVELS = 6;           // 包括第0层
+    private static final int MIN_TRIANGLES = 256;     // 低于该三角形数不再生成更粗的层
+    private static final float LEVEL_RATIO = 0.5f;
+    private static final float MIN_REDUCTION = 0.8f;  // 简化后仍多于上一层的 80% 时停止
+
+    public static MeshData generate(MeshData mesh) {
+        return generate(mesh, MAX_LEVELS);
+    }
+
+    /**
+     * 生成最多 maxLevels 层（包括原网格），返回附带细节层次的新 MeshData
+     */
+    public static MeshData generate(MeshData mesh, int maxLevels) {
+        long startTime = System.currentTimeMillis();
+        float[] positions = mesh.getVerticesArray();
+        int[] previous = mesh.getIndicesArray();
+        float error = 0;
+
+        List<int[]> levels = new ArrayList<>();
+        List<Float> errors = new ArrayList<>();
+        while (levels.size() + 1 < maxLevels && previous.length / 3 >= MIN_TRIANGLES * 2) {
+            int previousTriangles = previous.length / 3;
+            MeshSimplifier.Result result = MeshSimplifier.simplifyIndices(positions, previous,
+                    (int) (previousTriangles * LEVEL_RATIO), 0);
+            if (result.triangleCount == 0 || result.triangleCount > previousTriangles * MIN_REDUCTION) break;
+
+            // 每层都从上一层简化而来，误差累加作为相对原网格的保守上界
+            error += result.error;
+            int[] indices = MeshOptimizer.optimizeVertexCache(result.indices, mesh.getVertexCount());
+            levels.add(indices);
+            errors.add(error);
+            previous = indices;
+        }
+
+        int[][] levelIndices = levels.toArray(new int[0][]);
+        float[] levelErrors = new float[errors.size()];
+        StringBuilder summary = new StringBuilder().append(mesh.getTriangleCount());
+        for (int l = 0; l < levelErrors.length; l++) {
+            levelErrors[l] = errors.get(l);
+            summary.append(String.format(" -> %d (%.4f)", levelIndices[l].length / 3, levelErrors[l]));
+        }
+        Log.i(TAG, String.format("Generated %d LOD levels in %d ms: %s",
+                levelIndices.length + 1, System.currentTimeMillis() - startTime, summary));
+        return mesh.withLods(levelIndices, levelErrors);
+    }
+}
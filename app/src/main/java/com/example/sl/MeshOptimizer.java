@@ -0,0 +1,340 @@
+package com.example.sl;
+
+import android.util.Log;
+
+import java.util.Arrays;
+
+/**
+ * 网格索引优化 - 顶点缓存优化（Forsyth算法）、顶点读取顺序优化和基于簇的过度绘制优化
+ * 并提供顶点后变换缓存的CPU模拟，用 ACMR / ATVR 衡量效果
+ */
+public class MeshOptimizer {
+    private static final String TAG = "MeshOptimizer";
+
+    // Forsyth 算法参数
+    private static final int CACHE_SIZE = 32;
+    private static final float CACHE_DECAY_POWER = 1.5f;
+    private static final float LAST_TRIANGLE_SCORE = 0.75f;
+    private static final float VALENCE_BOOST_SCALE = 2.0f;
+    private static final float VALENCE_BOOST_POWER = 0.5f;
+
+    // 模拟的GPU缓存大小（移动GPU常见的FIFO缓存）
+    public static final int SIMULATED_CACHE_SIZE = 16;
+
+    /**
+     * 顶点缓存模拟结果
+     */
+    public static class CacheStats {
+        public int triangles;
+        public int vertices;     // 被引用的顶点数
+        public int misses;
+
+        /**
+         * 平均每个三角形的缓存未命中数（越接近 0.5 越好，最差为 3）
+         */
+        public float getAcmr() {
+            return triangles > 0 ? (float) misses / triangles : 0;
+        }
+
+        /**
+         * 平均每个顶点的变换次数（理想值为 1）
+         */
+        public float getAtvr() {
+            return vertices > 0 ? (float) misses / vertices : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("ACMR %.3f, ATVR %.3f", getAcmr(), getAtvr());
+        }
+    }
+
+    /**
+     * 依次进行顶点缓存优化、过度绘制优化和顶点读取顺序优化，返回新的 MeshData
+     */
+    public static MeshData optimize(MeshData mesh) {
+        long startTime = System.currentTimeMillis();
+        int[] indices = mesh.getIndicesArray();
+        CacheStats before = simulateCache(indices, mesh.getVertexCount(), SIMULATED_CACHE_SIZE);
+
+        int[] optimized = optimizeVertexCache(indices, mesh.getVertexCount());
+        optimized = optimizeOverdraw(optimized, mesh);
+        MeshData result = optimizeVertexFetch(mesh, optimized);
+
+        CacheStats after = simulateCache(result.getIndicesArray(), result.getVertexCount(), SIMULATED_CACHE_SIZE);
+        Log.i(TAG, String.format("Optimized %d triangles in %d ms: %s -> %s",
+                mesh.getTriangleCount(), System.currentTimeMillis() - startTime, before, after));
+        return result;
+    }
+
+    /**
+     * 模拟 FIFO 顶点后变换缓存
+     */
+    public static CacheStats simulateCache(int[] indices, int vertexCount, int cacheSize) {
+        CacheStats stats = new CacheStats();
+        // 每个顶点最近一次进入缓存的时间戳，之后进入的顶点少于 cacheSize 个即命中
+        int[] insertedAt = new int[vertexCount];
+        Arrays.fill(insertedAt, Integer.MIN_VALUE / 2);
+        boolean[] seen = new boolean[vertexCount];
+        int time = 0;
+
+        for (int index : indices) {
+            if (time - insertedAt[index] >= cacheSize) {
+                insertedAt[index] = ++time;
+                stats.misses++;
+            }
+            if (!seen[index]) {
+                seen[index] = true;
+                stats.vertices++;
+            }
+        }
+        stats.triangles = indices.length / 3;
+        return stats;
+    }
+
+    /**
+     * Forsyth 线性时间顶点缓存优化，返回重新排序的索引
+     */
+    public static int[] optimizeVertexCache(int[] indices, int vertexCount) {
+        int triangleCount = indices.length / 3;
+        int[] result = new int[indices.length];
+        if (triangleCount == 0) return result;
+
+        // 顶点 -> 三角形邻接（CSR）
+        int[] adjacencyOffset = new int[vertexCount + 1];
+        for (int index : indices) {
+            adjacencyOffset[index + 1]++;
+        }
+        for (int v = 0; v < vertexCount; v++) {
+            adjacencyOffset[v + 1] += adjacencyOffset[v];
+        }
+        int[] adjacency = new int[indices.length];
+        int[] fill = Arrays.copyOf(adjacencyOffset, vertexCount);
+        for (int t = 0; t < triangleCount; t++) {
+            for (int k = 0; k < 3; k++) {
+                int v = indices[t * 3 + k];
+                adjacency[fill[v]++] = t;
+            }
+        }
+
+        // 每个顶点剩余未输出的三角形数，adjacency 中前 remaining[v] 个为未输出的三角形
+        int[] remaining = new int[vertexCount];
+        for (int v = 0; v < vertexCount; v++) {
+            remaining[v] = adjacencyOffset[v + 1] - adjacencyOffset[v];
+        }
+
+        float[] vertexScore = new float[vertexCount];
+        for (int v = 0; v < vertexCount; v++) {
+            vertexScore[v] = vertexScore(-1, remaining[v]);
+        }
+
+        float[] triangleScore = new float[triangleCount];
+        boolean[] emitted = new boolean[triangleCount];
+        for (int t = 0; t < triangleCount; t++) {
+            triangleScore[t] = vertexScore[indices[t * 3]] + vertexScore[indices[t * 3 + 1]] + vertexScore[indices[t * 3 + 2]];
+        }
+
+        int[] cache = new int[CACHE_SIZE + 3];
+        int[] newCache = new int[CACHE_SIZE + 3];
+        int cacheCount = 0;
+
+        int bestTriangle = -1;
+        int scanCursor = 0;
+        int output = 0;
+
+        for (int emittedCount = 0; emittedCount < triangleCount; emittedCount++) {
+            if (bestTriangle < 0) {
+                // 缓存中没有候选三角形，取下一个未输出的三角形（保证总体为线性时间）
+                while (emitted[scanCursor]) scanCursor++;
+                bestTriangle = scanCursor;
+            }
+
+            int t = bestTriangle;
+            emitted[t] = true;
+
+            // 输出三角形，并从各顶点的剩余列表中移除
+            int newCacheCount = 0;
+            for (int k = 0; k < 3; k++) {
+                int v = indices[t * 3 + k];
+                result[output++] = v;
+                removeTriangle(adjacency, adjacencyOffset[v], remaining, v, t);
+                newCache[newCacheCount++] = v;
+            }
+
+            // 更新缓存：新三角形的顶点放到最前面
+            for (int i = 0; i < cacheCount; i++) {
+                int v = cache[i];
+                if (v != indices[t * 3] && v != indices[t * 3 + 1] && v != indices[t * 3 + 2]) {
+                    newCache[newCacheCount++] = v;
+                }
+            }
+            int[] swap = cache;
+            cache = newCache;
+            newCache = swap;
+            cacheCount = newCacheCount;
+
+            // 重新计算缓存中顶点的得分，并更新相关三角形的得分（被挤出缓存的顶点位置为 -1）
+            for (int i = 0; i < cacheCount; i++) {
+                int v = cache[i];
+                float score = vertexScore(i < CACHE_SIZE ? i : -1, remaining[v]);
+                float delta = score - vertexScore[v];
+                vertexScore[v] = score;
+
+                int start = adjacencyOffset[v];
+                for (int j = start; j < start + remaining[v]; j++) {
+                    triangleScore[adjacency[j]] += delta;
+                }
+            }
+            if (cacheCount > CACHE_SIZE) cacheCount = CACHE_SIZE;
+
+            // 在缓存顶点相邻的三角形中选择得分最高的
+            bestTriangle = -1;
+            float bestScore = -Float.MAX_VALUE;
+            for (int i = 0; i < cacheCount; i++) {
+                int v = cache[i];
+                int start = adjacencyOffset[v];
+                for (int j = start; j < start + remaining[v]; j++) {
+                    int neighbor = adjacency[j];
+                    if (triangleScore[neighbor] > bestScore) {
+                        bestScore = triangleScore[neighbor];
+                        bestTriangle = neighbor;
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void removeTriangle(int[] adjacency, int start, int[] remaining, int v, int t) {
+        int end = start + remaining[v];
+        for (int j = start; j < end; j++) {
+            if (adjacency[j] == t) {
+                adjacency[j] = adjacency[end - 1];
+                adjacency[end - 1] = t;
+                remaining[v]--;
+                return;
+            }
+        }
+    }
+
+    private static float vertexScore(int cachePosition, int remainingTriangles) {
+        if (remainingTriangles == 0) return -1.0f;
+
+        float score = 0;
+        if (cachePosition >= 0) {
+            if (cachePosition < 3) {
+                // 刚使用过的三个顶点得分固定，避免总是选择同一条带
+                score = LAST_TRIANGLE_SCORE;
+            } else {
+                float scaler = 1.0f / (CACHE_SIZE - 3);
+                score = (float) Math.pow(1.0f - (cachePosition - 3) * scaler, CACHE_DECAY_POWER);
+            }
+        }
+        // 剩余三角形少的顶点优先处理，避免留下孤立三角形
+        score += VALENCE_BOOST_SCALE * (float) Math.pow(remainingTriangles, -VALENCE_BOOST_POWER);
+        return score;
+    }
+
+    /**
+     * 过度绘制优化：按缓存优化后的顺序切分成簇（所有顶点都未命中的三角形开始新簇），
+     * 朝外的簇排在前面，使其先写入深度、遮挡后面的片元
+     */
+    public static int[] optimizeOverdraw(int[] indices, MeshData mesh) {
+        int triangleCount = indices.length / 3;
+        if (triangleCount == 0) return indices.clone();
+
+        // 1. 切分簇
+        int[] clusterStart = new int[triangleCount + 1];
+        int clusterCount = 0;
+        int[] insertedAt = new int[mesh.getVertexCount()];
+        Arrays.fill(insertedAt, Integer.MIN_VALUE / 2);
+        int time = 0;
+        for (int t = 0; t < triangleCount; t++) {
+            int misses = 0;
+            for (int k = 0; k < 3; k++) {
+                int v = indices[t * 3 + k];
+                if (time - insertedAt[v] >= SIMULATED_CACHE_SIZE) {
+                    insertedAt[v] = ++time;
+                    misses++;
+                }
+            }
+            if (t == 0 || misses == 3) {
+                clusterStart[clusterCount++] = t;
+            }
+        }
+        clusterStart[clusterCount] = triangleCount;
+
+        // 2. 网格质心
+        double cx = 0, cy = 0, cz = 0;
+        for (int v = 0; v < mesh.getVertexCount(); v++) {
+            cx += mesh.getX(v);
+            cy += mesh.getY(v);
+            cz += mesh.getZ(v);
+        }
+        int vertexCount = Math.max(1, mesh.getVertexCount());
+        cx /= vertexCount;
+        cy /= vertexCount;
+        cz /= vertexCount;
+
+        // 3. 每个簇的排序键：簇质心相对网格质心在簇法线方向上的距离
+        float[] keys = new float[clusterCount];
+        Integer[] order = new Integer[clusterCount];
+        for (int c = 0; c < clusterCount; c++) {
+            double nx = 0, ny = 0, nz = 0, px = 0, py = 0, pz = 0, area = 0;
+            for (int t = clusterStart[c]; t < clusterStart[c + 1]; t++) {
+                int a = indices[t * 3], b = indices[t * 3 + 1], d = indices[t * 3 + 2];
+                float e1x = mesh.getX(b) - mesh.getX(a), e1y = mesh.getY(b) - mesh.getY(a), e1z = mesh.getZ(b) - mesh.getZ(a);
+                float e2x = mesh.getX(d) - mesh.getX(a), e2y = mesh.getY(d) - mesh.getY(a), e2z = mesh.getZ(d) - mesh.getZ(a);
+                float tx = e1y * e2z - e1z * e2y;
+                float ty = e1z * e2x - e1x * e2z;
+                float tz = e1x * e2y - e1y * e2x;
+                double triangleArea = Math.sqrt(tx * tx + ty * ty + tz * tz);
+                nx += tx;
+                ny += ty;
+                nz += tz;
+                px += (mesh.getX(a) + mesh.getX(b) + mesh.getX(d)) / 3.0 * triangleArea;
+                py += (mesh.getY(a) + mesh.getY(b) + mesh.getY(d)) / 3.0 * triangleArea;
+                pz += (mesh.getZ(a) + mesh.getZ(b) + mesh.getZ(d)) / 3.0 * triangleArea;
+                area += triangleArea;
+            }
+            double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+            if (area > 0 && length > 0) {
+                keys[c] = (float) (((px / area - cx) * nx + (py / area - cy) * ny + (pz / area - cz) * nz) / length);
+            }
+            order[c] = c;
+        }
+        Arrays.sort(order, (a, b) -> Float.compare(keys[b], keys[a]));
+
+        // 4. 按新顺序输出各簇
+        int[] result = new int[indices.length];
+        int output = 0;
+        for (int c : order) {
+            int from = clusterStart[c] * 3, to = clusterStart[c + 1] * 3;
+            System.arraycopy(indices, from, result, output, to - from);
+            output += to - from;
+        }
+        return result;
+    }
+
+    /**
+     * 顶点读取优化：按索引中首次出现的顺序重新排列顶点，未被引用的顶点被丢弃
+     */
+    public static MeshData optimizeVertexFetch(MeshData mesh, int[] indices) {
+        int[] remap = new int[mesh.getVertexCount()];
+        Arrays.fill(remap, -1);
+        MeshData.Builder builder = new MeshData.Builder(mesh.getVertexCount(), indices.length / 3);
+        int[] remapped = new int[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            int v = indices[i];
+            if (remap[v] < 0) {
+                remap[v] = builder.addVertex(mesh.getX(v), mesh.getY(v), mesh.getZ(v),
+                        mesh.getNormalX(v), mesh.getNormalY(v), mesh.getNormalZ(v));
+            }
+            remapped[i] = remap[v];
+        }
+        for (int i = 0; i < remapped.length; i += 3) {
+            builder.addTriangle(remapped[i], remapped[i + 1], remapped[i + 2]);
+        }
+        return builder.build();
+    }
+}
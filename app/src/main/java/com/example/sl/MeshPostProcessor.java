@@ -0,0 +1,23 @@
+package com.example.sl;
+
+/**
+ * 重建后处理 - 各重建算法输出网格前共用的步骤：清理（MeshCleaner），按顶点缓存和过度绘制重排（MeshOptimizer），
+ * 再生成细节层次（MeshLodGenerator）
+ */
+public class MeshPostProcessor {
+
+    /**
+     * 按点云包围盒选择焊接阈值，并生成细节层次
+     */
+    public static MeshData postProcess(MeshData mesh, PointCloudData pointCloud) {
+        return postProcess(mesh, MeshCleaner.suggestEpsilon(pointCloud), true);
+    }
+
+    /**
+     * @param generateLods 是否生成细节层次；只短暂显示、随后被更精细的网格替换的网格可以跳过
+     */
+    public static MeshData postProcess(MeshData mesh, float weldEpsilon, boolean generateLods) {
+        MeshData optimized = MeshOptimizer.optimize(MeshCleaner.clean(mesh, weldEpsilon));
+        return generateLods ? MeshLodGenerator.generate(optimized) : optimized;
+    }
+}
@@ -5,16 +5,13 @@ import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.opengl.GLES30;
 import android.opengl.GLSurfaceView;
-import android.opengl.GLUtils;
-import android.opengl.Matrix;
 import android.util.Log;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
-import java.nio.FloatBuffer;
-import java.nio.IntBuffer;
 
 import javax.microedition.khronos.egl.EGLConfig;
 import javax.microedition.khronos.opengles.GL10;
@@ -22,7 +19,9 @@ import javax.microedition.khronos.opengles.GL10;
 public class MeshRenderer implements GLSurfaceView.Renderer {
     private static final String TAG = "MeshRenderer";
 
-    private Context context;
+    private final AssetSource assets;
+    private final GlApi gl;
+    private final ShaderProgramManager programs;
     private MeshData meshData;
 
     private int program;
@@ -34,44 +33,82 @@ public class MeshRenderer implements GLSurfaceView.Renderer {
     private int normalMatrixHandle;
     private int textureHandle;
     private int lightPositionHandle;
+    private int positionScaleHandle;
+    private int positionOffsetHandle;
+    private int octahedralNormalHandle;
 
     private final float[] mvpMatrix = new float[16];
     private final float[] projectionMatrix = new float[16];
     private final float[] viewMatrix = new float[16];
     private final float[] modelMatrix = new float[16];
     private final float[] normalMatrix = new float[16];
+    // 模型矩阵的缩放和平移（网格坐标系中的中心），网格坐标保持点云的原始单位
+    private float modelScale = 1.0f;
+    private final float[] modelCenter = new float[3];
 
-    private int vao;
-    private int[] vbo = new int[4]; // 顶点, 法线, 纹理坐标, 索引
+    private VertexPacker vertexPacker = VertexPacker.COMPACT;
     private int textureId;
 
+    // 网格簇：三角形较多时按簇做视锥和背面剔除，只绘制可见的索引范围
+    private static final int MESHLET_MIN_TRIANGLES = 4096;
+    private final Frustum frustum = new Frustum();
+    private final DrawList drawList = new DrawList();
+    private float eyeX, eyeY, eyeZ;
+
+    // 细节层次：所有层的索引都在同一个索引缓冲区中，按相机距离选择绘制范围
+    private static final float NEAR_PLANE = 1.0f;
+    private final LodSelector lodSelector = new LodSelector();
+
+    // 网格数据在后台准备、分帧上传；新网格上传完成前继续绘制当前网格
+    private final GpuUploadManager uploadManager;
+    private MeshBuffers current;
+    private MeshBuffers pending;
+
     private float rotationX = 0.0f;
     private float rotationY = 0.0f;
     private float distance = 5.0f;
 
     public MeshRenderer(Context context, MeshData meshData) {
-        this.context = context;
+        this(context.getAssets()::open, meshData, new Gles30Api());
+        programs.setCacheDirectory(new File(context.getCacheDir(), "shaders"));
+    }
+
+    MeshRenderer(AssetSource assets, MeshData meshData, GlApi gl) {
+        this(assets, meshData, gl, new GpuUploadManager(gl));
+    }
+
+    /**
+     * 测试用：注入GL实现和上传管理器，不需要 Context 和GL上下文
+     */
+    MeshRenderer(AssetSource assets, MeshData meshData, GlApi gl, GpuUploadManager uploadManager) {
+        this.assets = assets;
+        this.gl = gl;
+        this.programs = new ShaderProgramManager(gl, assets);
+        this.uploadManager = uploadManager;
         this.meshData = meshData;
 
-        Matrix.setIdentityM(modelMatrix, 0);
-        Matrix.setIdentityM(viewMatrix, 0);
-        Matrix.setIdentityM(projectionMatrix, 0);
+        MatrixMath.setIdentityM(modelMatrix, 0);
+        MatrixMath.setIdentityM(viewMatrix, 0);
+        MatrixMath.setIdentityM(projectionMatrix, 0);
     }
 
     @Override
-    public void onSurfaceCreated(GL10 gl, EGLConfig config) {
+    public void onSurfaceCreated(GL10 unused, EGLConfig config) {
         Log.i(TAG, "MeshRenderer onSurfaceCreated");
 
+        // 上一个上下文（暂停时被销毁）的对象名已经无效，新上下文可能分配相同的整数
+        onContextLost();
+
         // 设置背景色
-        GLES30.glClearColor(0.2f, 0.3f, 0.4f, 1.0f);
+        gl.glClearColor(0.2f, 0.3f, 0.4f, 1.0f);
 
         // 启用深度测试
-        GLES30.glEnable(GLES30.GL_DEPTH_TEST);
-        GLES30.glDepthFunc(GLES30.GL_LEQUAL);
+        gl.glEnable(GLES30.GL_DEPTH_TEST);
+        gl.glDepthFunc(GLES30.GL_LEQUAL);
 
         // 启用背面剔除
-        GLES30.glEnable(GLES30.GL_CULL_FACE);
-        GLES30.glCullFace(GLES30.GL_BACK);
+        gl.glEnable(GLES30.GL_CULL_FACE);
+        gl.glCullFace(GLES30.GL_BACK);
 
         // 加载着色器
         loadShaders();
@@ -79,15 +116,56 @@ public class MeshRenderer implements GLSurfaceView.Renderer {
         // 加载纹理
         loadTexture();
 
+        // 不随帧变化的程序、纹理和uniform只设置一次
+        bindStaticState();
+
         // 设置缓冲区
         setupBuffers();
     }
 
-    private void loadShaders() {
-        String vertexShaderCode = ShaderUtils.readShaderFromAssets(context, "shader/mesh/vertex_shader.glsl");
-        String fragmentShaderCode = ShaderUtils.readShaderFromAssets(context, "shader/mesh/fragment_shader.glsl");
+    /**
+     * 丢弃旧GL上下文中的对象记录而不删除它们（随上下文一起销毁），网格在新上下文中从 meshData 重新上传
+     */
+    private void onContextLost() {
+        uploadManager.cancelAll();
+        current = null;
+        pending = null;
+        program = 0;
+        textureId = 0;
+    }
+
+    /**
+     * 本渲染器只有一个程序和一张纹理，绑定后在整个表面生命周期内保持不变
+     */
+    private void bindStaticState() {
+        if (program == 0) return;
+        gl.glUseProgram(program);
+
+        applyModelMatrix();
 
-        program = ShaderUtils.createProgram(vertexShaderCode, fragmentShaderCode);
+        // 设置光源位置
+        gl.glUniform3f(lightPositionHandle, 2.0f, 5.0f, 3.0f);
+
+        // 绑定纹理
+        gl.glActiveTexture(GLES30.GL_TEXTURE0);
+        gl.glBindTexture(GLES30.GL_TEXTURE_2D, textureId);
+        gl.glUniform1i(textureHandle, 0);
+    }
+
+    /**
+     * 模型矩阵只在设置归一化时变化，法线矩阵也不随帧变化；程序需已绑定
+     */
+    private void applyModelMatrix() {
+        MatrixMath.invertM(normalMatrix, 0, modelMatrix, 0);
+        MatrixMath.transposeM(normalMatrix, 0, normalMatrix, 0);
+        gl.glUniformMatrix4fv(modelMatrixHandle, 1, false, modelMatrix, 0);
+        gl.glUniformMatrix4fv(normalMatrixHandle, 1, false, normalMatrix, 0);
+    }
+
+    private void loadShaders() {
+        // 优先使用磁盘上缓存的程序二进制
+        programs.onContextCreated();
+        program = programs.getProgram("shader/mesh/vertex_shader.glsl", "shader/mesh/fragment_shader.glsl");
 
         if (program == 0) {
             Log.e(TAG, "Failed to create mesh shader program");
@@ -95,38 +173,41 @@ public class MeshRenderer implements GLSurfaceView.Renderer {
         }
 
         // 获取attribute和uniform位置
-        positionHandle = GLES30.glGetAttribLocation(program, "aPosition");
-        normalHandle = GLES30.glGetAttribLocation(program, "aNormal");
-        texCoordHandle = GLES30.glGetAttribLocation(program, "aTexCoord");
-        mvpMatrixHandle = GLES30.glGetUniformLocation(program, "uMVPMatrix");
-        modelMatrixHandle = GLES30.glGetUniformLocation(program, "uModelMatrix");
-        normalMatrixHandle = GLES30.glGetUniformLocation(program, "uNormalMatrix");
-        textureHandle = GLES30.glGetUniformLocation(program, "uTexture");
-        lightPositionHandle = GLES30.glGetUniformLocation(program, "uLightPosition");
+        positionHandle = gl.glGetAttribLocation(program, "aPosition");
+        normalHandle = gl.glGetAttribLocation(program, "aNormal");
+        texCoordHandle = gl.glGetAttribLocation(program, "aTexCoord");
+        mvpMatrixHandle = gl.glGetUniformLocation(program, "uMVPMatrix");
+        modelMatrixHandle = gl.glGetUniformLocation(program, "uModelMatrix");
+        normalMatrixHandle = gl.glGetUniformLocation(program, "uNormalMatrix");
+        textureHandle = gl.glGetUniformLocation(program, "uTexture");
+        lightPositionHandle = gl.glGetUniformLocation(program, "uLightPosition");
+        positionScaleHandle = gl.glGetUniformLocation(program, "uPositionScale");
+        positionOffsetHandle = gl.glGetUniformLocation(program, "uPositionOffset");
+        octahedralNormalHandle = gl.glGetUniformLocation(program, "uOctahedralNormal");
 
         Log.i(TAG, "Mesh shader attributes loaded");
     }
 
     private void loadTexture() {
         int[] textures = new int[1];
-        GLES30.glGenTextures(1, textures, 0);
+        gl.glGenTextures(1, textures, 0);
         textureId = textures[0];
 
-        GLES30.glBindTexture(GLES30.GL_TEXTURE_2D, textureId);
+        gl.glBindTexture(GLES30.GL_TEXTURE_2D, textureId);
 
         // 设置纹理参数
-        GLES30.glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_MIN_FILTER, GLES30.GL_LINEAR_MIPMAP_LINEAR);
-        GLES30.glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_MAG_FILTER, GLES30.GL_LINEAR);
-        GLES30.glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_WRAP_S, GLES30.GL_REPEAT);
-        GLES30.glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_WRAP_T, GLES30.GL_REPEAT);
+        gl.glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_MIN_FILTER, GLES30.GL_LINEAR_MIPMAP_LINEAR);
+        gl.glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_MAG_FILTER, GLES30.GL_LINEAR);
+        gl.glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_WRAP_S, GLES30.GL_REPEAT);
+        gl.glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_WRAP_T, GLES30.GL_REPEAT);
 
         // 加载纹理图片
         try {
-            InputStream is = context.getAssets().open("textures/brick.jpg");
+            InputStream is = assets.open("textures/brick.jpg");
             Bitmap bitmap = BitmapFactory.decodeStream(is);
 
-            GLUtils.texImage2D(GLES30.GL_TEXTURE_2D, 0, bitmap, 0);
-            GLES30.glGenerateMipmap(GLES30.GL_TEXTURE_2D);
+            gl.texImage2D(GLES30.GL_TEXTURE_2D, 0, bitmap, 0);
+            gl.glGenerateMipmap(GLES30.GL_TEXTURE_2D);
 
             bitmap.recycle();
             is.close();
@@ -139,7 +220,6 @@ public class MeshRenderer implements GLSurfaceView.Renderer {
             createDefaultTexture();
         }
 
-        GLES30.glBindTexture(GLES30.GL_TEXTURE_2D, 0);
     }
 
     private void createDefaultTexture() {
@@ -161,117 +241,269 @@ public class MeshRenderer implements GLSurfaceView.Renderer {
         }
         buffer.position(0);
 
-        GLES30.glTexImage2D(GLES30.GL_TEXTURE_2D, 0, GLES30.GL_RGBA, size, size, 0,
+        gl.glTexImage2D(GLES30.GL_TEXTURE_2D, 0, GLES30.GL_RGBA, size, size, 0,
                 GLES30.GL_RGBA, GLES30.GL_UNSIGNED_BYTE, buffer);
-        GLES30.glGenerateMipmap(GLES30.GL_TEXTURE_2D);
+        gl.glGenerateMipmap(GLES30.GL_TEXTURE_2D);
+    }
+
+    /**
+     * 按点云的中心和缩放归一化显示网格（与点云显示相同的模型变换），必须在GL线程中或表面创建前调用
+     */
+    public void setNormalization(float centerX, float centerY, float centerZ, float scale) {
+        MatrixMath.setIdentityM(modelMatrix, 0);
+        MatrixMath.scaleM(modelMatrix, 0, scale, scale, scale);
+        MatrixMath.translateM(modelMatrix, 0, -centerX, -centerY, -centerZ);
+        modelScale = scale;
+        modelCenter[0] = centerX;
+        modelCenter[1] = centerY;
+        modelCenter[2] = centerZ;
+        if (program != 0) {
+            applyModelMatrix();
+        }
+    }
+
+    /**
+     * 替换网格数据，必须在GL线程中调用（例如通过 GLSurfaceView.queueEvent）
+     */
+    public void setMeshData(MeshData meshData) {
+        this.meshData = meshData;
+        if (program != 0) {
+            setupBuffers();
+        }
     }
 
     private void setupBuffers() {
         if (meshData == null) return;
 
-        // 生成VAO
+        // 丢弃尚未完成的上一次上传；未上传完的当前网格也无法再完成，一并删除
+        uploadManager.cancelAll();
+        deleteBuffers(pending);
+        pending = null;
+        if (current != null && !current.isUploaded()) {
+            deleteBuffers(current);
+            current = null;
+        }
+
+        MeshBuffers buffers = new MeshBuffers();
         int[] vaoArray = new int[1];
-        GLES30.glGenVertexArrays(1, vaoArray, 0);
-        vao = vaoArray[0];
-
-        // 生成VBOs
-        GLES30.glGenBuffers(4, vbo, 0);
-
-        // 绑定VAO
-        GLES30.glBindVertexArray(vao);
-
-        // 顶点数据
-        float[] vertices = meshData.getVerticesArray();
-        GLES30.glBindBuffer(GLES30.GL_ARRAY_BUFFER, vbo[0]);
-        FloatBuffer vertexBuffer = FloatBuffer.wrap(vertices);
-        GLES30.glBufferData(GLES30.GL_ARRAY_BUFFER, vertices.length * 4, vertexBuffer, GLES30.GL_STATIC_DRAW);
-        GLES30.glEnableVertexAttribArray(positionHandle);
-        GLES30.glVertexAttribPointer(positionHandle, 3, GLES30.GL_FLOAT, false, 12, 0);
-
-        // 法线数据
-        float[] normals = meshData.getNormalsArray();
-        GLES30.glBindBuffer(GLES30.GL_ARRAY_BUFFER, vbo[1]);
-        FloatBuffer normalBuffer = FloatBuffer.wrap(normals);
-        GLES30.glBufferData(GLES30.GL_ARRAY_BUFFER, normals.length * 4, normalBuffer, GLES30.GL_STATIC_DRAW);
-        GLES30.glEnableVertexAttribArray(normalHandle);
-        GLES30.glVertexAttribPointer(normalHandle, 3, GLES30.GL_FLOAT, false, 12, 0);
-
-        // 纹理坐标
-        float[] texCoords = meshData.getTexCoordsArray();
-        GLES30.glBindBuffer(GLES30.GL_ARRAY_BUFFER, vbo[2]);
-        FloatBuffer texCoordBuffer = FloatBuffer.wrap(texCoords);
-        GLES30.glBufferData(GLES30.GL_ARRAY_BUFFER, texCoords.length * 4, texCoordBuffer, GLES30.GL_STATIC_DRAW);
-        GLES30.glEnableVertexAttribArray(texCoordHandle);
-        GLES30.glVertexAttribPointer(texCoordHandle, 2, GLES30.GL_FLOAT, false, 8, 0);
-
-        // 索引数据
-        int[] indices = meshData.getIndicesArray();
-        GLES30.glBindBuffer(GLES30.GL_ELEMENT_ARRAY_BUFFER, vbo[3]);
-        IntBuffer indexBuffer = IntBuffer.wrap(indices);
-        GLES30.glBufferData(GLES30.GL_ELEMENT_ARRAY_BUFFER, indices.length * 4, indexBuffer, GLES30.GL_STATIC_DRAW);
-
-        // 解绑
-        GLES30.glBindBuffer(GLES30.GL_ARRAY_BUFFER, 0);
-        GLES30.glBindVertexArray(0);
-
-        Log.i(TAG, "Mesh buffers setup completed");
+        gl.glGenVertexArrays(1, vaoArray, 0);
+        buffers.vao = vaoArray[0];
+        gl.glGenBuffers(2, buffers.vbo, 0);
+        pending = buffers;
+
+        // 顶点格式在打包后才确定，属性指针在数据准备好后设置
+        final MeshData mesh = meshData;
+        final VertexPacker packer = vertexPacker;
+        final float centerX = modelCenter[0], centerY = modelCenter[1], centerZ = modelCenter[2];
+        uploadManager.prepare(() -> prepareMesh(mesh, packer, centerX, centerY, centerZ),
+                prepared -> onMeshPrepared(buffers, prepared));
+    }
+
+    /**
+     * 工作线程：划分网格簇（索引按簇重排）并打包顶点和索引
+     */
+    private static PreparedMesh prepareMesh(MeshData mesh, VertexPacker packer,
+                                            float centerX, float centerY, float centerZ) {
+        PreparedMesh prepared = new PreparedMesh();
+        prepared.mesh = mesh;
+        if (mesh.getTriangleCount() >= MESHLET_MIN_TRIANGLES) {
+            MeshletPartitioner.Result partitioned = MeshletPartitioner.partition(mesh);
+            prepared.mesh = partitioned.mesh;
+            prepared.culler = new MeshletCuller(partitioned.meshlets);
+        }
+        prepared.packed = packer.pack(prepared.mesh);
+        prepared.radius = LodSelector.boundingRadius(prepared.mesh, centerX, centerY, centerZ);
+        return prepared;
+    }
+
+    /**
+     * GL线程：设置顶点属性并排队分块上传
+     */
+    private void onMeshPrepared(MeshBuffers buffers, PreparedMesh prepared) {
+        VertexPacker.PackedMesh packed = prepared.packed;
+
+        gl.glBindVertexArray(buffers.vao);
+        gl.glBindBuffer(GLES30.GL_ARRAY_BUFFER, buffers.vbo[0]);
+        enableAttribute(positionHandle, packed.position, packed.stride);
+        enableAttribute(normalHandle, packed.normal, packed.stride);
+        enableAttribute(texCoordHandle, packed.texCoord, packed.stride);
+        gl.glBindBuffer(GLES30.GL_ELEMENT_ARRAY_BUFFER, buffers.vbo[1]);
+        gl.glBindVertexArray(0);
+        gl.glBindBuffer(GLES30.GL_ARRAY_BUFFER, 0);
+
+        System.arraycopy(packed.positionScale, 0, buffers.positionScale, 0, 3);
+        System.arraycopy(packed.positionOffset, 0, buffers.positionOffset, 0, 3);
+        buffers.octahedralNormals = packed.octahedralNormals;
+        buffers.indexType = packed.indexType;
+        buffers.indexSize = packed.indexType == GLES30.GL_UNSIGNED_SHORT ? 2 : 4;
+        buffers.lodIndexOffsets = packed.lodIndexOffsets;
+        buffers.mesh = prepared.mesh;
+        buffers.culler = prepared.culler;
+        if (prepared.culler != null) {
+            drawList.ensureCapacity(prepared.culler.getMeshletCount());
+        }
+        buffers.radius = prepared.radius;
+
+        // 顶点先于索引上传，索引到达多少就绘制多少
+        buffers.vertexUpload = uploadManager.upload(buffers.vbo[0], packed.vertices);
+        buffers.indexUpload = uploadManager.upload(buffers.vbo[1], packed.indexBytes);
+
+        Log.i(TAG, String.format("Mesh buffers prepared: %d vertex bytes (stride %d), %d index bytes, %d LOD levels",
+                packed.getVertexBytes(), packed.stride, packed.getIndexBytes(), prepared.mesh.getLodCount()));
+    }
+
+    private static class PreparedMesh {
+        MeshData mesh;
+        MeshletCuller culler;
+        VertexPacker.PackedMesh packed;
+        float radius;
+    }
+
+    /**
+     * 一个网格的GPU缓冲区及绘制所需的状态
+     */
+    private static class MeshBuffers {
+        int vao;
+        final int[] vbo = new int[2]; // 交错顶点, 索引
+        MeshData mesh;                // 索引已按簇重排，带细节层次
+        MeshletCuller culler;
+        float radius;
+
+        final float[] positionScale = {1, 1, 1};
+        final float[] positionOffset = {0, 0, 0};
+        boolean octahedralNormals;
+        int indexType;
+        int indexSize;
+        int[] lodIndexOffsets;
+
+        GpuUploadManager.Upload vertexUpload;
+        GpuUploadManager.Upload indexUpload;
+
+        boolean isUploaded() {
+            return vertexUpload != null && vertexUpload.isComplete() && indexUpload.isComplete();
+        }
+
+        boolean isDrawable() {
+            return vertexUpload != null && vertexUpload.isComplete() && indexUpload.getUploadedBytes() > 0;
+        }
+    }
+
+    private void enableAttribute(int handle, VertexPacker.Attribute attribute, int stride) {
+        gl.glEnableVertexAttribArray(handle);
+        gl.glVertexAttribPointer(handle, attribute.components, attribute.glType, attribute.normalized,
+                stride, attribute.offset);
+    }
+
+    /**
+     * 设置顶点打包格式，下次上传网格时生效（GL线程）
+     */
+    public void setVertexPacker(VertexPacker vertexPacker) {
+        this.vertexPacker = vertexPacker;
+        if (program != 0) {
+            setupBuffers();
+        }
+    }
+
+    /**
+     * 设置上传有进展时请求重绘的回调，例如 GLSurfaceView::requestRender
+     */
+    public void setRenderRequester(Runnable requester) {
+        uploadManager.setOnWorkAvailable(requester);
+    }
+
+    private void deleteBuffers(MeshBuffers buffers) {
+        if (buffers == null) return;
+        int[] vaoArray = {buffers.vao};
+        gl.glDeleteVertexArrays(1, vaoArray, 0);
+        gl.glDeleteBuffers(2, buffers.vbo, 0);
     }
 
     @Override
-    public void onSurfaceChanged(GL10 gl, int width, int height) {
-        GLES30.glViewport(0, 0, width, height);
+    public void onSurfaceChanged(GL10 unused, int width, int height) {
+        gl.glViewport(0, 0, width, height);
         float ratio = (float) width / height;
-        Matrix.frustumM(projectionMatrix, 0, -ratio, ratio, -1, 1, 1, 100);
+        MatrixMath.frustumM(projectionMatrix, 0, -ratio, ratio, -1, 1, NEAR_PLANE, 100);
+        lodSelector.setProjection(projectionMatrix, height);
     }
 
     @Override
-    public void onDrawFrame(GL10 gl) {
-        GLES30.glClear(GLES30.GL_COLOR_BUFFER_BIT | GLES30.GL_DEPTH_BUFFER_BIT);
-
-        if (meshData == null || program == 0) return;
+    public void onDrawFrame(GL10 unused) {
+        gl.glClear(GLES30.GL_COLOR_BUFFER_BIT | GLES30.GL_DEPTH_BUFFER_BIT);
+
+        uploadManager.processFrame();
+        if (pending != null && (current == null || pending.isUploaded())) {
+            deleteBuffers(current);
+            current = pending;
+            pending = null;
+            applyDecodeUniforms(current);
+        }
+        MeshBuffers buffers = current;
+        if (program == 0 || buffers == null || !buffers.isDrawable()) return;
 
         // 更新相机
         updateCamera();
 
-        // 计算法线矩阵
-        Matrix.invertM(normalMatrix, 0, modelMatrix, 0);
-        Matrix.transposeM(normalMatrix, 0, normalMatrix, 0);
-
-        // 使用着色器
-        GLES30.glUseProgram(program);
-
-        // 设置矩阵
-        GLES30.glUniformMatrix4fv(mvpMatrixHandle, 1, false, mvpMatrix, 0);
-        GLES30.glUniformMatrix4fv(modelMatrixHandle, 1, false, modelMatrix, 0);
-        GLES30.glUniformMatrix4fv(normalMatrixHandle, 1, false, normalMatrix, 0);
+        // 程序、纹理和其余uniform已在创建表面和切换网格时设置
+        gl.glUniformMatrix4fv(mvpMatrixHandle, 1, false, mvpMatrix, 0);
 
-        // 设置光源位置
-        GLES30.glUniform3f(lightPositionHandle, 2.0f, 5.0f, 3.0f);
+        // 绘制网格
+        gl.glBindVertexArray(buffers.vao);
+        int[] lodIndexOffsets = buffers.lodIndexOffsets;
+        // 层的误差和包围球半径都是网格坐标的长度，相机距离换算到同一单位
+        int level = lodSelector.selectLevel(buffers.mesh,
+                LodSelector.distanceToBounds(distance / modelScale, buffers.radius, NEAR_PLANE / modelScale));
+        if (!buffers.indexUpload.isComplete()) {
+            // 索引尚未全部到达：绘制第0层已上传的部分
+            int count = Math.min(buffers.indexUpload.getUploadedBytes() / buffers.indexSize, lodIndexOffsets[1]) / 3 * 3;
+            gl.glDrawElements(GLES30.GL_TRIANGLES, count, buffers.indexType, 0);
+        } else if (level == 0 && buffers.culler != null) {
+            drawVisibleMeshlets(buffers);
+        } else {
+            int first = lodIndexOffsets[level];
+            gl.glDrawElements(GLES30.GL_TRIANGLES, lodIndexOffsets[level + 1] - first,
+                    buffers.indexType, first * buffers.indexSize);
+        }
+        gl.glBindVertexArray(0);
+    }
 
-        // 绑定纹理
-        GLES30.glActiveTexture(GLES30.GL_TEXTURE0);
-        GLES30.glBindTexture(GLES30.GL_TEXTURE_2D, textureId);
-        GLES30.glUniform1i(textureHandle, 0);
+    /**
+     * 网格切换时更新顶点解码参数，程序在创建表面时已绑定
+     */
+    private void applyDecodeUniforms(MeshBuffers buffers) {
+        if (program == 0) return;
+        gl.glUniform3fv(positionScaleHandle, 1, buffers.positionScale, 0);
+        gl.glUniform3fv(positionOffsetHandle, 1, buffers.positionOffset, 0);
+        gl.glUniform1i(octahedralNormalHandle, buffers.octahedralNormals ? 1 : 0);
+    }
 
-        // 绘制网格
-        GLES30.glBindVertexArray(vao);
-        GLES30.glDrawElements(GLES30.GL_TRIANGLES, meshData.getIndicesArray().length, GLES30.GL_UNSIGNED_INT, 0);
-        GLES30.glBindVertexArray(0);
+    /**
+     * 按组剔除视锥外和完全背向相机的簇，相邻的可见簇合并为一次 glDrawElements
+     */
+    private void drawVisibleMeshlets(MeshBuffers buffers) {
+        // MVP 提取的平面在模型空间，相机位置也变换到模型空间
+        frustum.setFromMatrix(mvpMatrix);
+        drawList.reset();
+        buffers.culler.cull(frustum, eyeX / modelScale + modelCenter[0], eyeY / modelScale + modelCenter[1],
+                eyeZ / modelScale + modelCenter[2], drawList);
+        for (int i = 0; i < drawList.size(); i++) {
+            gl.glDrawElements(GLES30.GL_TRIANGLES, drawList.getCount(i), buffers.indexType,
+                    drawList.getFirst(i) * buffers.indexSize);
+        }
     }
 
     private void updateCamera() {
-        float eyeX = (float) (distance * Math.sin(Math.toRadians(rotationY)) * Math.cos(Math.toRadians(rotationX)));
-        float eyeY = (float) (distance * Math.sin(Math.toRadians(rotationX)));
-        float eyeZ = (float) (distance * Math.cos(Math.toRadians(rotationY)) * Math.cos(Math.toRadians(rotationX)));
+        eyeX = (float) (distance * Math.sin(Math.toRadians(rotationY)) * Math.cos(Math.toRadians(rotationX)));
+        eyeY = (float) (distance * Math.sin(Math.toRadians(rotationX)));
+        eyeZ = (float) (distance * Math.cos(Math.toRadians(rotationY)) * Math.cos(Math.toRadians(rotationX)));
 
-        Matrix.setLookAtM(viewMatrix, 0,
+        MatrixMath.setLookAtM(viewMatrix, 0,
                 eyeX, eyeY, eyeZ,
                 0, 0, 0,
                 0, 1, 0
         );
 
-        Matrix.multiplyMM(mvpMatrix, 0, viewMatrix, 0, modelMatrix, 0);
-        Matrix.multiplyMM(mvpMatrix, 0, projectionMatrix, 0, mvpMatrix, 0);
+        MatrixMath.multiplyMM(mvpMatrix, 0, viewMatrix, 0, modelMatrix, 0);
+        MatrixMath.multiplyMM(mvpMatrix, 0, projectionMatrix, 0, mvpMatrix, 0);
     }
 
     public void rotate(float dx, float dy) {
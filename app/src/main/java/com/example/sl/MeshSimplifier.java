@@ -0,0 +1,521 @@
+package com.example.sl;
+
+import android.util.Log;
+
+import java.util.Arrays;
+
+/**
+ * 基于二次误差度量（QEM）的网格简化 - 半边折叠
+ *
+ * 折叠时顶点只会移动到已有的端点上，不会产生新顶点，
+ * 因此简化后的索引可以与原网格共用同一份顶点缓冲区（用于LOD）
+ */
+public class MeshSimplifier {
+    private static final String TAG = "MeshSimplifier";
+
+    // 边界边约束平面的权重，避免边界收缩
+    private static final double BOUNDARY_WEIGHT = 10.0;
+    // 折叠后三角形法线与原法线夹角余弦小于该值时视为翻转
+    private static final float MIN_NORMAL_DOT = 0.2f;
+
+    /**
+     * 简化结果
+     */
+    public static class Result {
+        public int[] indices;          // 简化后的三角形索引（引用原顶点）
+        public int triangleCount;
+        public int collapses;
+        public float error;            // 已执行折叠中的最大误差（距离）
+        public long elapsedNanos;
+
+        public float getCollapsesPerSecond() {
+            return elapsedNanos > 0 ? collapses * 1e9f / elapsedNanos : 0;
+        }
+    }
+
+    /**
+     * 简化网格并压缩顶点，返回新的 MeshData
+     *
+     * @param targetTriangles 目标三角形数
+     * @param maxError        允许的最大几何误差（与顶点坐标同单位），<= 0 表示不限制
+     */
+    public static MeshData simplify(MeshData mesh, int targetTriangles, float maxError) {
+        Result result = simplifyIndices(mesh.getVerticesArray(), mesh.getIndicesArray(), targetTriangles, maxError);
+
+        // 只保留仍被引用的顶点
+        int[] remap = new int[mesh.getVertexCount()];
+        Arrays.fill(remap, -1);
+        MeshData.Builder builder = new MeshData.Builder(mesh.getVertexCount(), result.triangleCount);
+        for (int i = 0; i < result.triangleCount * 3; i++) {
+            int v = result.indices[i];
+            if (remap[v] < 0) {
+                remap[v] = builder.addVertex(mesh.getX(v), mesh.getY(v), mesh.getZ(v),
+                        mesh.getNormalX(v), mesh.getNormalY(v), mesh.getNormalZ(v));
+            }
+        }
+        for (int t = 0; t < result.triangleCount; t++) {
+            builder.addTriangle(remap[result.indices[t * 3]], remap[result.indices[t * 3 + 1]], remap[result.indices[t * 3 + 2]]);
+        }
+        return builder.build();
+    }
+
+    /**
+     * 简化三角形索引，顶点位置不变
+     */
+    public static Result simplifyIndices(float[] positions, int[] indices, int targetTriangles, float maxError) {
+        long startTime = System.nanoTime();
+        Simplifier simplifier = new Simplifier(positions, indices);
+        Result result = simplifier.run(Math.max(0, targetTriangles),
+                maxError > 0 ? (double) maxError * maxError : Double.MAX_VALUE);
+        result.elapsedNanos = System.nanoTime() - startTime;
+
+        Log.i(TAG, String.format("Simplified %d -> %d triangles, %d collapses (%.0f/s), error %.5f",
+                indices.length / 3, result.triangleCount, result.collapses,
+                result.getCollapsesPerSecond(), result.error));
+        return result;
+    }
+
+    /**
+     * 一次简化过程的状态
+     */
+    private static class Simplifier {
+        final float[] positions;
+        final int vertexCount;
+
+        final int[] triangles;
+        final boolean[] triangleRemoved;
+        int liveTriangles;
+
+        // 顶点 -> 相邻三角形（可增长的索引表）
+        final int[][] vertexTriangles;
+        final int[] vertexTriangleCount;
+
+        final double[] quadrics;
+        final int[] version;
+        final boolean[] vertexRemoved;
+
+        final EdgeHeap heap = new EdgeHeap();
+
+        // 邻居标记，避免重复处理
+        final int[] mark;
+        int markToken = 0;
+
+        Simplifier(float[] positions, int[] indices) {
+            this.positions = positions;
+            this.vertexCount = positions.length / 3;
+            this.triangles = indices.clone();
+            int triangleCount = indices.length / 3;
+            this.triangleRemoved = new boolean[triangleCount];
+            this.liveTriangles = triangleCount;
+
+            vertexTriangleCount = new int[vertexCount];
+            for (int index : indices) {
+                vertexTriangleCount[index]++;
+            }
+            vertexTriangles = new int[vertexCount][];
+            for (int v = 0; v < vertexCount; v++) {
+                vertexTriangles[v] = new int[Math.max(4, vertexTriangleCount[v])];
+            }
+            Arrays.fill(vertexTriangleCount, 0);
+            for (int t = 0; t < triangleCount; t++) {
+                for (int k = 0; k < 3; k++) {
+                    int v = indices[t * 3 + k];
+                    vertexTriangles[v][vertexTriangleCount[v]++] = t;
+                }
+            }
+
+            quadrics = new double[vertexCount * 10];
+            version = new int[vertexCount];
+            vertexRemoved = new boolean[vertexCount];
+            mark = new int[vertexCount];
+
+            computeQuadrics();
+        }
+
+        Result run(int targetTriangles, double maxErrorSq) {
+            for (int v = 0; v < vertexCount; v++) {
+                pushEdges(v);
+            }
+
+            Result result = new Result();
+            double maxCollapseError = 0;
+
+            while (liveTriangles > targetTriangles && heap.size > 0) {
+                double cost = heap.peekCost();
+                if (cost > maxErrorSq) break;
+
+                int from = heap.topFrom();
+                int to = heap.topTo();
+                int fromVersion = heap.topFromVersion();
+                int toVersion = heap.topToVersion();
+                heap.pop();
+
+                // 懒删除：顶点在入堆后发生过变化则丢弃
+                if (vertexRemoved[from] || vertexRemoved[to]
+                        || version[from] != fromVersion || version[to] != toVersion) {
+                    continue;
+                }
+                if (!canCollapse(from, to)) {
+                    continue;
+                }
+
+                collapse(from, to);
+                result.collapses++;
+                maxCollapseError = Math.max(maxCollapseError, cost);
+                pushEdges(to);
+            }
+
+            result.triangleCount = liveTriangles;
+            result.indices = new int[liveTriangles * 3];
+            int out = 0;
+            for (int t = 0; t < triangleRemoved.length; t++) {
+                if (triangleRemoved[t]) continue;
+                result.indices[out++] = triangles[t * 3];
+                result.indices[out++] = triangles[t * 3 + 1];
+                result.indices[out++] = triangles[t * 3 + 2];
+            }
+            result.error = (float) Math.sqrt(Math.max(0, maxCollapseError));
+            return result;
+        }
+
+        private void computeQuadrics() {
+            int triangleCount = triangles.length / 3;
+            double[] plane = new double[4];
+
+            for (int t = 0; t < triangleCount; t++) {
+                int a = triangles[t * 3], b = triangles[t * 3 + 1], c = triangles[t * 3 + 2];
+                if (!trianglePlane(a, b, c, plane)) continue;
+                for (int k = 0; k < 3; k++) {
+                    addPlane(triangles[t * 3 + k], plane, 1.0);
+                }
+            }
+
+            // 边界边：添加垂直于三角形、经过该边的约束平面
+            for (int t = 0; t < triangleCount; t++) {
+                for (int k = 0; k < 3; k++) {
+                    int a = triangles[t * 3 + k];
+                    int b = triangles[t * 3 + (k + 1) % 3];
+                    if (countTrianglesWithEdge(a, b) != 1) continue;
+
+                    int c = triangles[t * 3 + (k + 2) % 3];
+                    if (!trianglePlane(a, b, c, plane)) continue;
+
+                    double ex = positions[b * 3] - positions[a * 3];
+                    double ey = positions[b * 3 + 1] - positions[a * 3 + 1];
+                    double ez = positions[b * 3 + 2] - positions[a * 3 + 2];
+                    // 约束平面法线 = 边 × 三角形法线
+                    double nx = ey * plane[2] - ez * plane[1];
+                    double ny = ez * plane[0] - ex * plane[2];
+                    double nz = ex * plane[1] - ey * plane[0];
+                    double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+                    if (length < 1e-12) continue;
+                    nx /= length;
+                    ny /= length;
+                    nz /= length;
+                    double d = -(nx * positions[a * 3] + ny * positions[a * 3 + 1] + nz * positions[a * 3 + 2]);
+                    double[] constraint = {nx, ny, nz, d};
+                    addPlane(a, constraint, BOUNDARY_WEIGHT);
+                    addPlane(b, constraint, BOUNDARY_WEIGHT);
+                }
+            }
+        }
+
+        private int countTrianglesWithEdge(int a, int b) {
+            int count = 0;
+            for (int i = 0; i < vertexTriangleCount[a]; i++) {
+                int t = vertexTriangles[a][i];
+                if (!triangleRemoved[t] && triangleContains(t, b)) count++;
+            }
+            return count;
+        }
+
+        private boolean trianglePlane(int a, int b, int c, double[] plane) {
+            double e1x = positions[b * 3] - positions[a * 3];
+            double e1y = positions[b * 3 + 1] - positions[a * 3 + 1];
+            double e1z = positions[b * 3 + 2] - positions[a * 3 + 2];
+            double e2x = positions[c * 3] - positions[a * 3];
+            double e2y = positions[c * 3 + 1] - positions[a * 3 + 1];
+            double e2z = positions[c * 3 + 2] - positions[a * 3 + 2];
+            double nx = e1y * e2z - e1z * e2y;
+            double ny = e1z * e2x - e1x * e2z;
+            double nz = e1x * e2y - e1y * e2x;
+            double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+            if (length < 1e-12) return false;
+            plane[0] = nx / length;
+            plane[1] = ny / length;
+            plane[2] = nz / length;
+            plane[3] = -(plane[0] * positions[a * 3] + plane[1] * positions[a * 3 + 1] + plane[2] * positions[a * 3 + 2]);
+            return true;
+        }
+
+        private void addPlane(int v, double[] p, double weight) {
+            int o = v * 10;
+            quadrics[o] += weight * p[0] * p[0];
+            quadrics[o + 1] += weight * p[0] * p[1];
+            quadrics[o + 2] += weight * p[0] * p[2];
+            quadrics[o + 3] += weight * p[0] * p[3];
+            quadrics[o + 4] += weight * p[1] * p[1];
+            quadrics[o + 5] += weight * p[1] * p[2];
+            quadrics[o + 6] += weight * p[1] * p[3];
+            quadrics[o + 7] += weight * p[2] * p[2];
+            quadrics[o + 8] += weight * p[2] * p[3];
+            quadrics[o + 9] += weight * p[3] * p[3];
+        }
+
+        /**
+         * 把顶点 a 折叠到顶点 b 的位置时的误差 (Qa + Qb)(b)
+         */
+        private double collapseCost(int a, int b) {
+            double x = positions[b * 3], y = positions[b * 3 + 1], z = positions[b * 3 + 2];
+            int oa = a * 10, ob = b * 10;
+            double q0 = quadrics[oa] + quadrics[ob];
+            double q1 = quadrics[oa + 1] + quadrics[ob + 1];
+            double q2 = quadrics[oa + 2] + quadrics[ob + 2];
+            double q3 = quadrics[oa + 3] + quadrics[ob + 3];
+            double q4 = quadrics[oa + 4] + quadrics[ob + 4];
+            double q5 = quadrics[oa + 5] + quadrics[ob + 5];
+            double q6 = quadrics[oa + 6] + quadrics[ob + 6];
+            double q7 = quadrics[oa + 7] + quadrics[ob + 7];
+            double q8 = quadrics[oa + 8] + quadrics[ob + 8];
+            double q9 = quadrics[oa + 9] + quadrics[ob + 9];
+            double error = q0 * x * x + 2 * q1 * x * y + 2 * q2 * x * z + 2 * q3 * x
+                    + q4 * y * y + 2 * q5 * y * z + 2 * q6 * y
+                    + q7 * z * z + 2 * q8 * z
+                    + q9;
+            return Math.max(0, error);
+        }
+
+        /**
+         * 为顶点 v 的所有邻边计算折叠代价并入堆
+         */
+        private void pushEdges(int v) {
+            markToken++;
+            mark[v] = markToken;
+            for (int i = 0; i < vertexTriangleCount[v]; i++) {
+                int t = vertexTriangles[v][i];
+                if (triangleRemoved[t]) continue;
+                for (int k = 0; k < 3; k++) {
+                    int w = triangles[t * 3 + k];
+                    if (mark[w] == markToken) continue;
+                    mark[w] = markToken;
+
+                    double costVW = collapseCost(v, w);
+                    double costWV = collapseCost(w, v);
+                    if (costVW <= costWV) {
+                        heap.push(costVW, v, w, version[v], version[w]);
+                    } else {
+                        heap.push(costWV, w, v, version[w], version[v]);
+                    }
+                }
+            }
+        }
+
+        private boolean triangleContains(int t, int v) {
+            return triangles[t * 3] == v || triangles[t * 3 + 1] == v || triangles[t * 3 + 2] == v;
+        }
+
+        /**
+         * 检查折叠是否会破坏流形结构或导致三角形翻转
+         */
+        private boolean canCollapse(int from, int to) {
+            // 连接条件：from 和 to 的公共邻居数不能超过共享的三角形数
+            markToken++;
+            int shared = 0;
+            for (int i = 0; i < vertexTriangleCount[from]; i++) {
+                int t = vertexTriangles[from][i];
+                if (triangleRemoved[t]) continue;
+                if (triangleContains(t, to)) shared++;
+                for (int k = 0; k < 3; k++) {
+                    mark[triangles[t * 3 + k]] = markToken;
+                }
+            }
+            if (shared == 0) return false;
+
+            int common = 0;
+            int commonToken = markToken;
+            markToken++;
+            for (int i = 0; i < vertexTriangleCount[to]; i++) {
+                int t = vertexTriangles[to][i];
+                if (triangleRemoved[t]) continue;
+                for (int k = 0; k < 3; k++) {
+                    int w = triangles[t * 3 + k];
+                    if (w != from && w != to && mark[w] == commonToken) {
+                        common++;
+                        mark[w] = markToken;
+                    }
+                }
+            }
+            if (common > shared) return false;
+
+            // 翻转检查
+            for (int i = 0; i < vertexTriangleCount[from]; i++) {
+                int t = vertexTriangles[from][i];
+                if (triangleRemoved[t] || triangleContains(t, to)) continue;
+                if (flips(t, from, to)) return false;
+            }
+            return true;
+        }
+
+        private boolean flips(int t, int from, int to) {
+            int a = triangles[t * 3], b = triangles[t * 3 + 1], c = triangles[t * 3 + 2];
+            float[] before = normal(a, b, c, -1, -1);
+            float[] after = normal(a, b, c, from, to);
+            float lengthBefore = length(before);
+            float lengthAfter = length(after);
+            if (lengthAfter < 1e-12f) return true;
+            if (lengthBefore < 1e-12f) return false;
+            float dot = (before[0] * after[0] + before[1] * after[1] + before[2] * after[2]) / (lengthBefore * lengthAfter);
+            return dot < MIN_NORMAL_DOT;
+        }
+
+        private float[] normal(int a, int b, int c, int from, int to) {
+            if (a == from) a = to;
+            if (b == from) b = to;
+            if (c == from) c = to;
+            float e1x = positions[b * 3] - positions[a * 3];
+            float e1y = positions[b * 3 + 1] - positions[a * 3 + 1];
+            float e1z = positions[b * 3 + 2] - positions[a * 3 + 2];
+            float e2x = positions[c * 3] - positions[a * 3];
+            float e2y = positions[c * 3 + 1] - positions[a * 3 + 1];
+            float e2z = positions[c * 3 + 2] - positions[a * 3 + 2];
+            return new float[]{e1y * e2z - e1z * e2y, e1z * e2x - e1x * e2z, e1x * e2y - e1y * e2x};
+        }
+
+        private static float length(float[] v) {
+            return (float) Math.sqrt(v[0] * v[0] + v[1] * v[1] + v[2] * v[2]);
+        }
+
+        private void collapse(int from, int to) {
+            for (int i = 0; i < vertexTriangleCount[from]; i++) {
+                int t = vertexTriangles[from][i];
+                if (triangleRemoved[t]) continue;
+
+                if (triangleContains(t, to)) {
+                    triangleRemoved[t] = true;
+                    liveTriangles--;
+                } else {
+                    for (int k = 0; k < 3; k++) {
+                        if (triangles[t * 3 + k] == from) {
+                            triangles[t * 3 + k] = to;
+                        }
+                    }
+                    addVertexTriangle(to, t);
+                }
+            }
+
+            for (int k = 0; k < 10; k++) {
+                quadrics[to * 10 + k] += quadrics[from * 10 + k];
+            }
+            vertexRemoved[from] = true;
+            vertexTriangleCount[from] = 0;
+            version[to]++;
+            compactVertexTriangles(to);
+        }
+
+        private void addVertexTriangle(int v, int t) {
+            if (vertexTriangleCount[v] == vertexTriangles[v].length) {
+                vertexTriangles[v] = Arrays.copyOf(vertexTriangles[v], vertexTriangles[v].length * 2);
+            }
+            vertexTriangles[v][vertexTriangleCount[v]++] = t;
+        }
+
+        /**
+         * 移除已删除的三角形，防止邻接表无限增长
+         */
+        private void compactVertexTriangles(int v) {
+            int[] list = vertexTriangles[v];
+            int count = 0;
+            for (int i = 0; i < vertexTriangleCount[v]; i++) {
+                if (!triangleRemoved[list[i]]) {
+                    list[count++] = list[i];
+                }
+            }
+            vertexTriangleCount[v] = count;
+        }
+    }
+
+    /**
+     * 基于数组的二叉最小堆，存放候选折叠边
+     */
+    private static class EdgeHeap {
+        double[] cost = new double[1024];
+        int[] from = new int[1024];
+        int[] to = new int[1024];
+        int[] fromVersion = new int[1024];
+        int[] toVersion = new int[1024];
+        int size;
+
+        void push(double c, int f, int t, int fv, int tv) {
+            if (size == cost.length) {
+                int capacity = size * 2;
+                cost = Arrays.copyOf(cost, capacity);
+                from = Arrays.copyOf(from, capacity);
+                to = Arrays.copyOf(to, capacity);
+                fromVersion = Arrays.copyOf(fromVersion, capacity);
+                toVersion = Arrays.copyOf(toVersion, capacity);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >> 1;
+                if (cost[parent] <= c) break;
+                move(parent, i);
+                i = parent;
+            }
+            set(i, c, f, t, fv, tv);
+        }
+
+        double peekCost() {
+            return cost[0];
+        }
+
+        int topFrom() {
+            return from[0];
+        }
+
+        int topTo() {
+            return to[0];
+        }
+
+        int topFromVersion() {
+            return fromVersion[0];
+        }
+
+        int topToVersion() {
+            return toVersion[0];
+        }
+
+        void pop() {
+            size--;
+            if (size == 0) return;
+
+            double c = cost[size];
+            int f = from[size], t = to[size], fv = fromVersion[size], tv = toVersion[size];
+            int i = 0;
+            while (true) {
+                int child = i * 2 + 1;
+                if (child >= size) break;
+                if (child + 1 < size && cost[child + 1] < cost[child]) child++;
+                if (cost[child] >= c) break;
+                move(child, i);
+                i = child;
+            }
+            set(i, c, f, t, fv, tv);
+        }
+
+        private void move(int src, int dst) {
+            cost[dst] = cost[src];
+            from[dst] = from[src];
+            to[dst] = to[src];
+            fromVersion[dst] = fromVersion[src];
+            toVersion[dst] = toVersion[src];
+        }
+
+        private void set(int i, double c, int f, int t, int fv, int tv) {
+            cost[i] = c;
+            from[i] = f;
+            to[i] = t;
+            fromVersion[i] = fv;
+            toVersion[i] = tv;
+        }
+    }
+}
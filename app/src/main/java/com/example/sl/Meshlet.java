@@ -0,0 +1,31 @@
+package com.example.sl;
+
+/**
+ * 网格簇 - 索引缓冲区中一段连续的三角形，带包围球和法线锥，用于CPU端剔除
+ */
+public class Meshlet {
+    public int indexOffset;      // 在索引缓冲区中的起始位置（以索引计）
+    public int triangleCount;
+    public int vertexCount;      // 簇内不同顶点的个数
+
+    // 包围球
+    public float centerX, centerY, centerZ, radius;
+
+    // 法线锥：axis 为平均朝向，coneCutoff 为锥体半角的正弦；>= 1 表示不做背面剔除
+    public float axisX, axisY, axisZ;
+    public float coneCutoff = 1;
+
+    /**
+     * 从 (eyeX, eyeY, eyeZ) 看过去，簇中所有三角形是否都是背面
+     */
+    public boolean isBackFacing(float eyeX, float eyeY, float eyeZ) {
+        if (coneCutoff >= 1) return false;
+        float dx = centerX - eyeX, dy = centerY - eyeY, dz = centerZ - eyeZ;
+        float distance = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+        return dx * axisX + dy * axisY + dz * axisZ >= coneCutoff * distance + radius;
+    }
+
+    public boolean isVisible(Frustum frustum, float eyeX, float eyeY, float eyeZ) {
+        return frustum.intersectsSphere(centerX, centerY, centerZ, radius) && !isBackFacing(eyeX, eyeY, eyeZ);
+    }
+}
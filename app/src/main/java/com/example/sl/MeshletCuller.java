@@ -0,0 +1,92 @@
+package com.example.sl;
+
+/**
+ * 网格簇的层次剔除：相邻的簇（划分时按 Morton 码排序，空间上相近）每 GROUP_SIZE 个组成一组，
+ * 组的包围盒在视锥外时整组跳过，完全在视锥内时组内只做背面剔除
+ * 可见簇写入 DrawList，索引相接的簇合并为一个绘制范围；每帧剔除不分配内存
+ */
+public class MeshletCuller {
+    public static final int GROUP_SIZE = 32;
+
+    private final Meshlet[] meshlets;
+    private final int groupCount;
+    private final float[] groupBounds; // 每组 minX, minY, minZ, maxX, maxY, maxZ
+
+    private int culledGroups;
+    private int culledMeshlets;
+
+    public MeshletCuller(Meshlet[] meshlets) {
+        this.meshlets = meshlets;
+        groupCount = (meshlets.length + GROUP_SIZE - 1) / GROUP_SIZE;
+        groupBounds = new float[groupCount * 6];
+        for (int g = 0; g < groupCount; g++) {
+            float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, minZ = Float.MAX_VALUE;
+            float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE, maxZ = -Float.MAX_VALUE;
+            int end = Math.min(meshlets.length, (g + 1) * GROUP_SIZE);
+            for (int m = g * GROUP_SIZE; m < end; m++) {
+                Meshlet meshlet = meshlets[m];
+                minX = Math.min(minX, meshlet.centerX - meshlet.radius);
+                minY = Math.min(minY, meshlet.centerY - meshlet.radius);
+                minZ = Math.min(minZ, meshlet.centerZ - meshlet.radius);
+                maxX = Math.max(maxX, meshlet.centerX + meshlet.radius);
+                maxY = Math.max(maxY, meshlet.centerY + meshlet.radius);
+                maxZ = Math.max(maxZ, meshlet.centerZ + meshlet.radius);
+            }
+            int b = g * 6;
+            groupBounds[b] = minX;
+            groupBounds[b + 1] = minY;
+            groupBounds[b + 2] = minZ;
+            groupBounds[b + 3] = maxX;
+            groupBounds[b + 4] = maxY;
+            groupBounds[b + 5] = maxZ;
+        }
+    }
+
+    /**
+     * 把从 (eyeX, eyeY, eyeZ) 看去可见的簇的索引范围追加到 drawList（不先清空）
+     */
+    public void cull(Frustum frustum, float eyeX, float eyeY, float eyeZ, DrawList drawList) {
+        culledGroups = 0;
+        culledMeshlets = 0;
+        for (int g = 0; g < groupCount; g++) {
+            int b = g * 6;
+            int start = g * GROUP_SIZE;
+            int end = Math.min(meshlets.length, start + GROUP_SIZE);
+            if (!frustum.intersectsBox(groupBounds[b], groupBounds[b + 1], groupBounds[b + 2],
+                    groupBounds[b + 3], groupBounds[b + 4], groupBounds[b + 5])) {
+                culledGroups++;
+                culledMeshlets += end - start;
+                continue;
+            }
+            boolean inside = frustum.containsBox(groupBounds[b], groupBounds[b + 1], groupBounds[b + 2],
+                    groupBounds[b + 3], groupBounds[b + 4], groupBounds[b + 5]);
+            for (int m = start; m < end; m++) {
+                Meshlet meshlet = meshlets[m];
+                boolean visible = inside
+                        ? !meshlet.isBackFacing(eyeX, eyeY, eyeZ)
+                        : meshlet.isVisible(frustum, eyeX, eyeY, eyeZ);
+                if (visible) {
+                    drawList.add(meshlet.indexOffset, meshlet.triangleCount * 3);
+                } else {
+                    culledMeshlets++;
+                }
+            }
+        }
+    }
+
+    public int getMeshletCount() {
+        return meshlets.length;
+    }
+
+    public int getGroupCount() {
+        return groupCount;
+    }
+
+    public int getCulledGroups() {
+        return culledGroups;
+    }
+
+    public int getCulledMeshlets() {
+        return culledMeshlets;
+    }
+}
@@ -0,0 +1,379 @@
+package com.example.sl;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 网格簇划分 - 把 MeshData 的三角形划分为顶点数和三角形数都有上限的簇，
+ * 并重排索引使每个簇在索引缓冲区中连续，渲染时可按簇剔除后分段调用 glDrawElements
+ *
+ * 三角形先按重心的 Morton 码排序并切成若干块，各块在线程池中并行地沿顶点邻接关系贪心生长簇
+ */
+public class MeshletPartitioner {
+    private static final String TAG = "MeshletPartitioner";
+
+    public static final int MAX_VERTICES = 64;
+    public static final int MAX_TRIANGLES = 124;
+
+    // 每块至少包含的三角形数，块太小时切块边界会产生过多不满的簇
+    private static final int MIN_TRIANGLES_PER_CHUNK = 16384;
+
+    // 法线锥夹角余弦低于该值时不做背面剔除
+    private static final float MIN_CONE_DOT = 0.1f;
+
+    public static class Result {
+        public final MeshData mesh;        // 与原网格共享顶点，索引按簇重排
+        public final Meshlet[] meshlets;   // 按索引偏移升序排列
+
+        Result(MeshData mesh, Meshlet[] meshlets) {
+            this.mesh = mesh;
+            this.meshlets = meshlets;
+        }
+    }
+
+    public static Result partition(MeshData mesh) {
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors());
+        return partition(mesh, MAX_VERTICES, MAX_TRIANGLES, threads);
+    }
+
+    public static Result partition(MeshData mesh, int maxVertices, int maxTriangles, int threads) {
+        if (maxVertices < 3 || maxTriangles < 1) {
+            throw new IllegalArgumentException("Invalid meshlet limits: " + maxVertices + "/" + maxTriangles);
+        }
+        long startTime = System.currentTimeMillis();
+        int triangleCount = mesh.getTriangleCount();
+
+        int[] sorted = sortTriangles(mesh);
+        int[] rank = new int[triangleCount];
+        for (int i = 0; i < triangleCount; i++) {
+            rank[sorted[i]] = i;
+        }
+        int[] adjacencyStart = new int[mesh.getVertexCount() + 1];
+        int[] adjacency = buildAdjacency(mesh, adjacencyStart);
+
+        int chunkCount = Math.max(1, Math.min(threads, triangleCount / MIN_TRIANGLES_PER_CHUNK));
+        int[] order = new int[triangleCount];
+        List<List<Meshlet>> chunks = new ArrayList<>();
+
+        if (chunkCount == 1) {
+            chunks.add(new ChunkPartitioner(mesh, sorted, rank, adjacencyStart, adjacency, order,
+                    0, triangleCount, maxVertices, maxTriangles).run());
+        } else {
+            ExecutorService pool = Executors.newFixedThreadPool(chunkCount);
+            List<Future<List<Meshlet>>> futures = new ArrayList<>();
+            try {
+                for (int c = 0; c < chunkCount; c++) {
+                    int begin = (int) ((long) triangleCount * c / chunkCount);
+                    int end = (int) ((long) triangleCount * (c + 1) / chunkCount);
+                    ChunkPartitioner partitioner = new ChunkPartitioner(mesh, sorted, rank, adjacencyStart, adjacency,
+                            order, begin, end, maxVertices, maxTriangles);
+                    futures.add(pool.submit(partitioner::run));
+                }
+                for (Future<List<Meshlet>> future : futures) {
+                    chunks.add(future.get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Interrupted");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                throw new RuntimeException(cause);
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+
+        int[] indices = new int[triangleCount * 3];
+        for (int i = 0; i < triangleCount; i++) {
+            int t = order[i];
+            indices[i * 3] = mesh.getIndex(t * 3);
+            indices[i * 3 + 1] = mesh.getIndex(t * 3 + 1);
+            indices[i * 3 + 2] = mesh.getIndex(t * 3 + 2);
+        }
+
+        int meshletCount = 0;
+        for (List<Meshlet> chunk : chunks) {
+            meshletCount += chunk.size();
+        }
+        Meshlet[] meshlets = new Meshlet[meshletCount];
+        int m = 0;
+        for (List<Meshlet> chunk : chunks) {
+            for (Meshlet meshlet : chunk) {
+                meshlets[m++] = meshlet;
+            }
+        }
+
+        Log.i(TAG, String.format("Partitioned %d triangles into %d meshlets (%d chunks) in %d ms",
+                triangleCount, meshletCount, chunkCount, System.currentTimeMillis() - startTime));
+        return new Result(mesh.withIndices(indices), meshlets);
+    }
+
+    /**
+     * 按三角形重心的 Morton 码排序，返回排序后的三角形编号
+     */
+    private static int[] sortTriangles(MeshData mesh) {
+        int triangleCount = mesh.getTriangleCount();
+        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, minZ = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE, maxZ = -Float.MAX_VALUE;
+        for (int v = 0; v < mesh.getVertexCount(); v++) {
+            minX = Math.min(minX, mesh.getX(v));
+            minY = Math.min(minY, mesh.getY(v));
+            minZ = Math.min(minZ, mesh.getZ(v));
+            maxX = Math.max(maxX, mesh.getX(v));
+            maxY = Math.max(maxY, mesh.getY(v));
+            maxZ = Math.max(maxZ, mesh.getZ(v));
+        }
+        float extent = Math.max(maxX - minX, Math.max(maxY - minY, maxZ - minZ));
+        float scale = extent > 0 ? 1023 / extent : 0;
+
+        long[] keys = new long[triangleCount];
+        for (int t = 0; t < triangleCount; t++) {
+            int a = mesh.getIndex(t * 3), b = mesh.getIndex(t * 3 + 1), c = mesh.getIndex(t * 3 + 2);
+            float cx = (mesh.getX(a) + mesh.getX(b) + mesh.getX(c)) / 3;
+            float cy = (mesh.getY(a) + mesh.getY(b) + mesh.getY(c)) / 3;
+            float cz = (mesh.getZ(a) + mesh.getZ(b) + mesh.getZ(c)) / 3;
+            long code = morton((int) ((cx - minX) * scale), (int) ((cy - minY) * scale), (int) ((cz - minZ) * scale));
+            keys[t] = (code << 32) | t;
+        }
+        Arrays.sort(keys);
+
+        int[] sorted = new int[triangleCount];
+        for (int i = 0; i < triangleCount; i++) {
+            sorted[i] = (int) keys[i];
+        }
+        return sorted;
+    }
+
+    private static long morton(int x, int y, int z) {
+        return spreadBits(x) | (spreadBits(y) << 1) | (spreadBits(z) << 2);
+    }
+
+    // 把10位整数的各位间隔两位展开
+    private static long spreadBits(int value) {
+        long x = value & 0x3FF;
+        x = (x | (x << 16)) & 0x030000FFL;
+        x = (x | (x << 8)) & 0x0300F00FL;
+        x = (x | (x << 4)) & 0x030C30C3L;
+        x = (x | (x << 2)) & 0x09249249L;
+        return x;
+    }
+
+    /**
+     * 顶点到三角形的邻接表（CSR格式）
+     */
+    private static int[] buildAdjacency(MeshData mesh, int[] start) {
+        int indexCount = mesh.getIndexCount();
+        for (int i = 0; i < indexCount; i++) {
+            start[mesh.getIndex(i) + 1]++;
+        }
+        for (int v = 0; v < mesh.getVertexCount(); v++) {
+            start[v + 1] += start[v];
+        }
+        int[] fill = Arrays.copyOf(start, start.length - 1);
+        int[] adjacency = new int[indexCount];
+        for (int i = 0; i < indexCount; i++) {
+            adjacency[fill[mesh.getIndex(i)]++] = i / 3;
+        }
+        return adjacency;
+    }
+
+    /**
+     * 处理排序后 [begin, end) 范围内的三角形，结果写入 order 的同一范围
+     * 各块只读写自己范围内三角形对应的数组元素，因此可以并行
+     */
+    private static class ChunkPartitioner {
+        private final MeshData mesh;
+        private final int[] sorted;
+        private final int[] rank;
+        private final int[] adjacencyStart;
+        private final int[] adjacency;
+        private final int[] order;
+        private final int begin;
+        private final int end;
+        private final int maxVertices;
+        private final int maxTriangles;
+
+        private final boolean[] assigned;        // 下标为排序后的位置减去 begin
+        private final int[] queuedStamp;         // 同上，记录三角形最近一次入队的簇编号
+        private final int[] queue;
+        private final int[] vertexStamp;         // 记录顶点最近一次加入的簇编号
+        private final int[] clusterVertices;
+
+        ChunkPartitioner(MeshData mesh, int[] sorted, int[] rank, int[] adjacencyStart, int[] adjacency,
+                         int[] order, int begin, int end, int maxVertices, int maxTriangles) {
+            this.mesh = mesh;
+            this.sorted = sorted;
+            this.rank = rank;
+            this.adjacencyStart = adjacencyStart;
+            this.adjacency = adjacency;
+            this.order = order;
+            this.begin = begin;
+            this.end = end;
+            this.maxVertices = maxVertices;
+            this.maxTriangles = maxTriangles;
+            this.assigned = new boolean[end - begin];
+            this.queuedStamp = new int[end - begin];
+            this.queue = new int[end - begin];
+            this.vertexStamp = new int[mesh.getVertexCount()];
+            this.clusterVertices = new int[maxVertices];
+        }
+
+        List<Meshlet> run() {
+            List<Meshlet> meshlets = new ArrayList<>();
+            int written = begin;
+            int seed = 0;
+            int cluster = 0;
+            while (true) {
+                while (seed < end - begin && assigned[seed]) seed++;
+                if (seed == end - begin) break;
+                cluster++;
+
+                // 从种子三角形开始广度优先生长
+                Meshlet meshlet = new Meshlet();
+                meshlet.indexOffset = written * 3;
+                int head = 0, tail = 0;
+                queue[tail++] = seed;
+                queuedStamp[seed] = cluster;
+                while (head < tail && meshlet.triangleCount < maxTriangles) {
+                    int local = queue[head++];
+                    int t = sorted[begin + local];
+                    int newVertices = 0;
+                    for (int k = 0; k < 3; k++) {
+                        if (vertexStamp[mesh.getIndex(t * 3 + k)] != cluster) newVertices++;
+                    }
+                    if (meshlet.vertexCount + newVertices > maxVertices) continue;
+
+                    assigned[local] = true;
+                    order[written++] = t;
+                    meshlet.triangleCount++;
+                    for (int k = 0; k < 3; k++) {
+                        int v = mesh.getIndex(t * 3 + k);
+                        if (vertexStamp[v] != cluster) {
+                            vertexStamp[v] = cluster;
+                            clusterVertices[meshlet.vertexCount++] = v;
+                        }
+                        for (int a = adjacencyStart[v]; a < adjacencyStart[v + 1]; a++) {
+                            int r = rank[adjacency[a]] - begin;
+                            if (r < 0 || r >= end - begin || assigned[r] || queuedStamp[r] == cluster) continue;
+                            queuedStamp[r] = cluster;
+                            queue[tail++] = r;
+                        }
+                    }
+                }
+
+                computeBounds(meshlet);
+                meshlets.add(meshlet);
+            }
+            return meshlets;
+        }
+
+        private void computeBounds(Meshlet meshlet) {
+            computeSphere(meshlet);
+
+            // 法线锥：平均法线为轴，最大偏角决定锥体大小
+            float sumX = 0, sumY = 0, sumZ = 0;
+            int first = meshlet.indexOffset / 3;
+            for (int i = first; i < first + meshlet.triangleCount; i++) {
+                float[] n = triangleNormal(order[i]);
+                if (n != null) {
+                    sumX += n[0];
+                    sumY += n[1];
+                    sumZ += n[2];
+                }
+            }
+            float length = (float) Math.sqrt(sumX * sumX + sumY * sumY + sumZ * sumZ);
+            if (length == 0) return;
+            meshlet.axisX = sumX / length;
+            meshlet.axisY = sumY / length;
+            meshlet.axisZ = sumZ / length;
+
+            float minDot = 1;
+            for (int i = first; i < first + meshlet.triangleCount; i++) {
+                float[] n = triangleNormal(order[i]);
+                if (n != null) {
+                    minDot = Math.min(minDot, n[0] * meshlet.axisX + n[1] * meshlet.axisY + n[2] * meshlet.axisZ);
+                }
+            }
+            meshlet.coneCutoff = minDot <= MIN_CONE_DOT ? 1 : (float) Math.sqrt(1 - minDot * minDot);
+        }
+
+        /**
+         * Ritter 近似最小包围球
+         */
+        private void computeSphere(Meshlet meshlet) {
+            int p = farthestVertex(meshlet, clusterVertices[0]);
+            int q = farthestVertex(meshlet, p);
+            float cx = (mesh.getX(p) + mesh.getX(q)) / 2;
+            float cy = (mesh.getY(p) + mesh.getY(q)) / 2;
+            float cz = (mesh.getZ(p) + mesh.getZ(q)) / 2;
+            float radius = distance(q, cx, cy, cz);
+
+            for (int i = 0; i < meshlet.vertexCount; i++) {
+                int v = clusterVertices[i];
+                float d = distance(v, cx, cy, cz);
+                if (d > radius) {
+                    // 扩大球体使其恰好包含该点
+                    float newRadius = (radius + d) / 2;
+                    float shift = (newRadius - radius) / d;
+                    cx += (mesh.getX(v) - cx) * shift;
+                    cy += (mesh.getY(v) - cy) * shift;
+                    cz += (mesh.getZ(v) - cz) * shift;
+                    radius = newRadius;
+                }
+            }
+            meshlet.centerX = cx;
+            meshlet.centerY = cy;
+            meshlet.centerZ = cz;
+            // 留出浮点误差余量
+            meshlet.radius = radius * 1.0001f;
+        }
+
+        private int farthestVertex(Meshlet meshlet, int from) {
+            int best = from;
+            float bestDistance = -1;
+            for (int i = 0; i < meshlet.vertexCount; i++) {
+                int v = clusterVertices[i];
+                float d = distance(v, mesh.getX(from), mesh.getY(from), mesh.getZ(from));
+                if (d > bestDistance) {
+                    bestDistance = d;
+                    best = v;
+                }
+            }
+            return best;
+        }
+
+        private float distance(int v, float x, float y, float z) {
+            float dx = mesh.getX(v) - x, dy = mesh.getY(v) - y, dz = mesh.getZ(v) - z;
+            return (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+        }
+
+        private final float[] normal = new float[3];
+
+        /**
+         * 单位面法线，退化三角形返回 null
+         */
+        private float[] triangleNormal(int t) {
+            int a = mesh.getIndex(t * 3), b = mesh.getIndex(t * 3 + 1), c = mesh.getIndex(t * 3 + 2);
+            float e1x = mesh.getX(b) - mesh.getX(a), e1y = mesh.getY(b) - mesh.getY(a), e1z = mesh.getZ(b) - mesh.getZ(a);
+            float e2x = mesh.getX(c) - mesh.getX(a), e2y = mesh.getY(c) - mesh.getY(a), e2z = mesh.getZ(c) - mesh.getZ(a);
+            float nx = e1y * e2z - e1z * e2y;
+            float ny = e1z * e2x - e1x * e2z;
+            float nz = e1x * e2y - e1y * e2x;
+            float length = (float) Math.sqrt(nx * nx + ny * ny + nz * nz);
+            if (length == 0) return null;
+            normal[0] = nx / length;
+            normal[1] = ny / length;
+            normal[2] = nz / length;
+            return normal;
+        }
+    }
+}
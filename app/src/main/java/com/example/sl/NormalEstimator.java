@@ -0,0 +1,148 @@
+package com.example.sl;
+
+/**
+ * PCA法线估计 - 邻域协方差矩阵最小特征值对应的特征向量
+ */
+public class NormalEstimator {
+
+    /**
+     * 计算点 index 的法线，写入 outNormal
+     *
+     * @param neighbors  邻居索引（SpatialGrid中的索引）
+     * @param count      邻居个数
+     * @param viewX/Y/Z  法线朝向的参考点（法线指向该点一侧）
+     * @return 邻域的平面度（0-1，越大越平），点太少时返回 0
+     */
+    public static float estimate(SpatialGrid grid, int index, int[] neighbors, int count,
+                                 float viewX, float viewY, float viewZ, float[] outNormal) {
+        float px = grid.getX(index), py = grid.getY(index), pz = grid.getZ(index);
+        if (count < 2) {
+            outNormal[0] = 0;
+            outNormal[1] = 1;
+            outNormal[2] = 0;
+            return 0;
+        }
+
+        // 计算质心（包含自身）
+        float cx = px, cy = py, cz = pz;
+        for (int i = 0; i < count; i++) {
+            int n = neighbors[i];
+            cx += grid.getX(n);
+            cy += grid.getY(n);
+            cz += grid.getZ(n);
+        }
+        float inv = 1.0f / (count + 1);
+        cx *= inv;
+        cy *= inv;
+        cz *= inv;
+
+        // 构建3x3协方差矩阵
+        double xx = 0, xy = 0, xz = 0, yy = 0, yz = 0, zz = 0;
+        for (int i = -1; i < count; i++) {
+            float x, y, z;
+            if (i < 0) {
+                x = px - cx;
+                y = py - cy;
+                z = pz - cz;
+            } else {
+                int n = neighbors[i];
+                x = grid.getX(n) - cx;
+                y = grid.getY(n) - cy;
+                z = grid.getZ(n) - cz;
+            }
+            xx += x * x;
+            xy += x * y;
+            xz += x * z;
+            yy += y * y;
+            yz += y * z;
+            zz += z * z;
+        }
+
+        double[][] a = {{xx, xy, xz}, {xy, yy, yz}, {xz, yz, zz}};
+        double[][] v = new double[3][3];
+        double[] eigen = new double[3];
+        jacobiEigen(a, v, eigen);
+
+        int min = 0;
+        if (eigen[1] < eigen[min]) min = 1;
+        if (eigen[2] < eigen[min]) min = 2;
+
+        float nx = (float) v[0][min];
+        float ny = (float) v[1][min];
+        float nz = (float) v[2][min];
+        float length = (float) Math.sqrt(nx * nx + ny * ny + nz * nz);
+        if (length < 1e-12f) {
+            outNormal[0] = 0;
+            outNormal[1] = 1;
+            outNormal[2] = 0;
+            return 0;
+        }
+        nx /= length;
+        ny /= length;
+        nz /= length;
+
+        // 朝向参考点
+        if (nx * (viewX - px) + ny * (viewY - py) + nz * (viewZ - pz) < 0) {
+            nx = -nx;
+            ny = -ny;
+            nz = -nz;
+        }
+        outNormal[0] = nx;
+        outNormal[1] = ny;
+        outNormal[2] = nz;
+
+        double sum = eigen[0] + eigen[1] + eigen[2];
+        return sum > 0 ? (float) (1.0 - 3.0 * eigen[min] / sum) : 0;
+    }
+
+    /**
+     * 对称3x3矩阵的Jacobi特征分解，特征向量按列存放在 v 中
+     */
+    static void jacobiEigen(double[][] a, double[][] v, double[] eigen) {
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                v[i][j] = i == j ? 1 : 0;
+            }
+        }
+
+        for (int sweep = 0; sweep < 16; sweep++) {
+            double off = a[0][1] * a[0][1] + a[0][2] * a[0][2] + a[1][2] * a[1][2];
+            if (off < 1e-30) break;
+
+            for (int p = 0; p < 2; p++) {
+                for (int q = p + 1; q < 3; q++) {
+                    if (Math.abs(a[p][q]) < 1e-30) continue;
+
+                    double theta = (a[q][q] - a[p][p]) / (2 * a[p][q]);
+                    double t = Math.signum(theta) / (Math.abs(theta) + Math.sqrt(theta * theta + 1));
+                    if (theta == 0) t = 1;
+                    double c = 1 / Math.sqrt(t * t + 1);
+                    double s = t * c;
+
+                    for (int k = 0; k < 3; k++) {
+                        double akp = a[k][p];
+                        double akq = a[k][q];
+                        a[k][p] = c * akp - s * akq;
+                        a[k][q] = s * akp + c * akq;
+                    }
+                    for (int k = 0; k < 3; k++) {
+                        double apk = a[p][k];
+                        double aqk = a[q][k];
+                        a[p][k] = c * apk - s * aqk;
+                        a[q][k] = s * apk + c * aqk;
+                    }
+                    for (int k = 0; k < 3; k++) {
+                        double vkp = v[k][p];
+                        double vkq = v[k][q];
+                        v[k][p] = c * vkp - s * vkq;
+                        v[k][q] = s * vkp + c * vkq;
+                    }
+                }
+            }
+        }
+
+        eigen[0] = a[0][0];
+        eigen[1] = a[1][1];
+        eigen[2] = a[2][2];
+    }
+}
@@ -0,0 +1,434 @@
+package com.example.sl;
+
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 离线转换：把不能整体放入内存的点流转换为磁盘上的分层点云（类似 Potree），输出见 OctreeIndex
+ * 采样规则与 PointOctree 相同（每个节点每格保留流中第一个点，其余下放），内存中最多只有一个分块的点：
+ * 1. 第一遍读取包围盒
+ * 2. 第二遍统计 2^COUNT_LEVEL 计数网格中每格的点数，自顶向下划分，点数不超过 maxChunkPoints 的区域成为分块
+ * 3. 第三遍中每个点从根向下经过分块之上的节点，占到空格则留在该节点，否则追加到所属分块的临时文件
+ * 4. 逐块读入内存，用 PointOctree 构建子树并写出节点
+ * 最后按广度优先编号写出层次索引，节点文件重命名为编号
+ */
+public class OctreeConverter {
+    private static final String TAG = "OctreeConverter";
+    public static final int DEFAULT_MAX_CHUNK_POINTS = 1_000_000;
+    // 计数网格每轴 2^6 = 64 格
+    static final int COUNT_LEVEL = 6;
+    private static final String TEMP_DIR = "tmp";
+    private static final int WRITE_BUFFER_BYTES = 16 * 1024;
+
+    private int gridResolution = PointOctree.DEFAULT_GRID_RESOLUTION;
+    private int maxLeafPoints = PointOctree.DEFAULT_MAX_LEAF_POINTS;
+    private int maxChunkPoints = DEFAULT_MAX_CHUNK_POINTS;
+
+    public OctreeConverter setGridResolution(int gridResolution) {
+        if (gridResolution < 1 || gridResolution > 1024) {
+            throw new IllegalArgumentException("gridResolution out of range: " + gridResolution);
+        }
+        this.gridResolution = gridResolution;
+        return this;
+    }
+
+    public OctreeConverter setMaxLeafPoints(int maxLeafPoints) {
+        this.maxLeafPoints = Math.max(1, maxLeafPoints);
+        return this;
+    }
+
+    /**
+     * 一次读入内存构建的最多点数
+     */
+    public OctreeConverter setMaxChunkPoints(int maxChunkPoints) {
+        this.maxChunkPoints = Math.max(1, maxChunkPoints);
+        return this;
+    }
+
+    /**
+     * 转换过程中的节点：分块之上的节点在第三遍中采样，分块在第四遍中展开为 PointOctree 子树
+     */
+    private static class Node {
+        final int level;
+        final float minX, minY, minZ, size;
+        final Node[] children = new Node[8];
+        boolean chunk;          // 尚未展开的分块
+        long[] occupied;        // 上层节点已占用的采样格（位集）
+        PointWriter points;
+        int pointCount;
+
+        Node(int level, float minX, float minY, float minZ, float size) {
+            this.level = level;
+            this.minX = minX;
+            this.minY = minY;
+            this.minZ = minZ;
+            this.size = size;
+        }
+
+        Node child(int octant) {
+            float half = size * 0.5f;
+            return new Node(level + 1,
+                    (octant & 1) != 0 ? minX + half : minX,
+                    (octant & 2) != 0 ? minY + half : minY,
+                    (octant & 4) != 0 ? minZ + half : minZ, half);
+        }
+    }
+
+    /**
+     * 转换 source 中的点，输出到 outputDir（已有的索引和节点文件会被替换）
+     */
+    public OctreeIndex convert(PointSource source, File outputDir) throws IOException {
+        long startTime = System.currentTimeMillis();
+        File nodesDir = new File(outputDir, OctreeIndex.NODES_DIR);
+        File tempDir = new File(outputDir, TEMP_DIR);
+        deleteDirectory(nodesDir);
+        deleteDirectory(tempDir);
+        if (!nodesDir.mkdirs() || !tempDir.mkdirs()) {
+            throw new IOException("Failed to create " + outputDir);
+        }
+
+        try {
+            // 第一遍：包围立方体
+            float[] bounds = {Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE,
+                    -Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE};
+            long[] total = new long[1];
+            source.read((x, y, z, rgb) -> {
+                bounds[0] = Math.min(bounds[0], x);
+                bounds[1] = Math.min(bounds[1], y);
+                bounds[2] = Math.min(bounds[2], z);
+                bounds[3] = Math.max(bounds[3], x);
+                bounds[4] = Math.max(bounds[4], y);
+                bounds[5] = Math.max(bounds[5], z);
+                total[0]++;
+            });
+            if (total[0] == 0) throw new IOException("Point source is empty");
+            float size = Math.max(bounds[3] - bounds[0], Math.max(bounds[4] - bounds[1], bounds[5] - bounds[2]));
+            // 与 PointOctree 相同，略微放大使最大值落在立方体内部
+            size = Math.max(size, 1e-6f) * 1.0001f;
+            final float minX = bounds[0], minY = bounds[1], minZ = bounds[2], rootSize = size;
+            final float minHeight = bounds[1], heightRange = bounds[4] - bounds[1];
+            Log.i(TAG, "Converting " + total[0] + " points");
+
+            // 第二遍：计数网格和各层汇总
+            final int cells = 1 << COUNT_LEVEL;
+            final float cellScale = cells / rootSize;
+            int[][] counts = new int[COUNT_LEVEL + 1][];
+            counts[COUNT_LEVEL] = new int[cells * cells * cells];
+            int[] finest = counts[COUNT_LEVEL];
+            source.read((x, y, z, rgb) -> finest[countCell(x, y, z, minX, minY, minZ, cellScale, cells)]++);
+            for (int level = COUNT_LEVEL - 1; level >= 0; level--) {
+                int n = 1 << level;
+                counts[level] = new int[n * n * n];
+                int[] fine = counts[level + 1];
+                for (int ix = 0; ix < n * 2; ix++) {
+                    for (int iy = 0; iy < n * 2; iy++) {
+                        for (int iz = 0; iz < n * 2; iz++) {
+                            counts[level][((ix >> 1) * n + (iy >> 1)) * n + (iz >> 1)] += fine[(ix * n * 2 + iy) * n * 2 + iz];
+                        }
+                    }
+                }
+            }
+
+            Node root = new Node(0, minX, minY, minZ, rootSize);
+            int[] tempNames = {0};
+            partition(root, 0, 0, 0, counts, tempDir, tempNames);
+            List<Node> chunks = new ArrayList<>();
+            collectChunks(root, chunks);
+            Log.i(TAG, "Partitioned into " + chunks.size() + " chunks");
+
+            // 第三遍：上层节点采样，其余点分发到分块
+            readPoints(source, (x, y, z, rgb) -> {
+                int cell = countCell(x, y, z, minX, minY, minZ, cellScale, cells);
+                int cx = cell / (cells * cells), cy = cell / cells % cells, cz = cell % cells;
+                int rgba = rgb != null
+                        ? packColor(rgb[0], rgb[1], rgb[2])
+                        : heightColor(y, minHeight, heightRange);
+                Node node = root;
+                while (!node.chunk) {
+                    if (occupy(node, x, y, z)) break;
+                    int shift = COUNT_LEVEL - node.level - 1;
+                    int octant = ((cx >> shift) & 1) | (((cy >> shift) & 1) << 1) | (((cz >> shift) & 1) << 2);
+                    node = node.children[octant];
+                    if (node == null) throw new IOException("Point source changed between passes");
+                }
+                node.points.add(x, y, z, rgba);
+            });
+
+            // 第四遍：逐块构建子树
+            for (Node chunk : chunks) {
+                buildChunk(chunk, tempDir, tempNames);
+            }
+            prune(root);
+
+            OctreeIndex index = writeIndex(root, outputDir, nodesDir);
+            Log.i(TAG, String.format("Converted %d points into %d nodes in %d ms", index.getTotalPointCount(),
+                    index.getNodeCount(), System.currentTimeMillis() - startTime));
+            return index;
+        } finally {
+            deleteDirectory(tempDir);
+        }
+    }
+
+    /**
+     * 写文件的访问者，IOException 原样抛出
+     */
+    private interface PointWriterVisitor {
+        void onPoint(float x, float y, float z, float[] rgb) throws IOException;
+    }
+
+    private static void readPoints(PointSource source, PointWriterVisitor visitor) throws IOException {
+        try {
+            source.read((x, y, z, rgb) -> {
+                try {
+                    visitor.onPoint(x, y, z, rgb);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static int countCell(float x, float y, float z, float minX, float minY, float minZ, float scale, int cells) {
+        int cx = Math.max(0, Math.min(cells - 1, (int) ((x - minX) * scale)));
+        int cy = Math.max(0, Math.min(cells - 1, (int) ((y - minY) * scale)));
+        int cz = Math.max(0, Math.min(cells - 1, (int) ((z - minZ) * scale)));
+        return (cx * cells + cy) * cells + cz;
+    }
+
+    /**
+     * 按计数自顶向下划分：点数不超过 maxChunkPoints 或到达计数网格最细一层的区域成为分块
+     */
+    private void partition(Node node, int ix, int iy, int iz, int[][] counts, File tempDir, int[] tempNames) {
+        int n = 1 << node.level;
+        int count = counts[node.level][(ix * n + iy) * n + iz];
+        node.points = new PointWriter(new File(tempDir, "t" + (tempNames[0]++) + ".tmp"));
+        if (count <= maxChunkPoints || node.level == COUNT_LEVEL) {
+            node.chunk = true;
+            return;
+        }
+        node.occupied = new long[(int) (((long) gridResolution * gridResolution * gridResolution + 63) / 64)];
+        for (int octant = 0; octant < 8; octant++) {
+            int cx = ix * 2 + (octant & 1), cy = iy * 2 + ((octant >> 1) & 1), cz = iz * 2 + ((octant >> 2) & 1);
+            if (counts[node.level + 1][(cx * n * 2 + cy) * n * 2 + cz] == 0) continue;
+            node.children[octant] = node.child(octant);
+            partition(node.children[octant], cx, cy, cz, counts, tempDir, tempNames);
+        }
+    }
+
+    /**
+     * 上层节点采样：点所在的格子尚未被占用时占用并返回 true
+     */
+    private boolean occupy(Node node, float x, float y, float z) {
+        float scale = gridResolution / node.size;
+        int cx = Math.max(0, Math.min(gridResolution - 1, (int) ((x - node.minX) * scale)));
+        int cy = Math.max(0, Math.min(gridResolution - 1, (int) ((y - node.minY) * scale)));
+        int cz = Math.max(0, Math.min(gridResolution - 1, (int) ((z - node.minZ) * scale)));
+        int cell = (cx * gridResolution + cy) * gridResolution + cz;
+        long bit = 1L << (cell & 63);
+        if ((node.occupied[cell >> 6] & bit) != 0) return false;
+        node.occupied[cell >> 6] |= bit;
+        return true;
+    }
+
+    private static void collectChunks(Node node, List<Node> chunks) {
+        if (node.chunk) {
+            chunks.add(node);
+            return;
+        }
+        for (Node child : node.children) {
+            if (child != null) collectChunks(child, chunks);
+        }
+    }
+
+    /**
+     * 读入一个分块的点，构建子树，分块节点本身成为子树的根
+     */
+    private void buildChunk(Node chunk, File tempDir, int[] tempNames) throws IOException {
+        chunk.points.flush();
+        int count = chunk.points.count;
+        File chunkFile = chunk.points.file;
+        if (count == 0) {
+            chunk.pointCount = 0;
+            return;
+        }
+        float[] positions = new float[count * 3];
+        float[] colors = new float[count * 4];
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(chunkFile)))) {
+            byte[] record = new byte[OctreeIndex.POINT_BYTES];
+            ByteBuffer buffer = ByteBuffer.wrap(record).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < count; i++) {
+                in.readFully(record);
+                positions[i * 3] = buffer.getFloat(0);
+                positions[i * 3 + 1] = buffer.getFloat(4);
+                positions[i * 3 + 2] = buffer.getFloat(8);
+                for (int c = 0; c < 4; c++) {
+                    colors[i * 4 + c] = (record[12 + c] & 0xFF) / 255.0f;
+                }
+            }
+        }
+        chunkFile.delete();
+
+        PointOctree octree = PointOctree.build(positions, colors, count, chunk.minX, chunk.minY, chunk.minZ,
+                chunk.size, gridResolution, maxLeafPoints);
+        attachSubtree(chunk, octree, 0, tempDir, tempNames);
+        chunk.chunk = false;
+    }
+
+    private void attachSubtree(Node node, PointOctree octree, int local, File tempDir, int[] tempNames) throws IOException {
+        PointWriter writer = new PointWriter(new File(tempDir, "t" + (tempNames[0]++) + ".tmp"));
+        float[] positions = octree.getPositions();
+        float[] colors = octree.getColors();
+        int offset = octree.getNodeOffset(local);
+        for (int p = offset; p < offset + octree.getNodePointCount(local); p++) {
+            writer.add(positions[p * 3], positions[p * 3 + 1], positions[p * 3 + 2],
+                    packColor(colors[p * 4], colors[p * 4 + 1], colors[p * 4 + 2], colors[p * 4 + 3]));
+        }
+        writer.flush();
+        node.points = writer;
+        node.pointCount = writer.count;
+
+        int first = octree.getFirstChild(local);
+        for (int c = 0; c < octree.getChildCount(local); c++) {
+            int child = first + c;
+            // 由子节点最小角相对父节点中心的位置确定八分体
+            float half = octree.getNodeSize(local) * 0.5f;
+            int octant = (octree.getNodeMinX(child) >= octree.getNodeMinX(local) + half * 0.5f ? 1 : 0)
+                    | (octree.getNodeMinY(child) >= octree.getNodeMinY(local) + half * 0.5f ? 2 : 0)
+                    | (octree.getNodeMinZ(child) >= octree.getNodeMinZ(local) + half * 0.5f ? 4 : 0);
+            Node childNode = node.child(octant);
+            node.children[octant] = childNode;
+            attachSubtree(childNode, octree, child, tempDir, tempNames);
+        }
+    }
+
+    /**
+     * 删除没有点的子树（上层节点采样后分块可能为空），返回节点是否保留
+     */
+    private static boolean prune(Node node) throws IOException {
+        if (node.occupied != null) {
+            node.points.flush();
+            node.pointCount = node.points.count;
+        }
+        boolean hasChildren = false;
+        for (int o = 0; o < 8; o++) {
+            if (node.children[o] != null) {
+                if (prune(node.children[o])) {
+                    hasChildren = true;
+                } else {
+                    node.children[o] = null;
+                }
+            }
+        }
+        return node.pointCount > 0 || hasChildren;
+    }
+
+    private static OctreeIndex writeIndex(Node root, File outputDir, File nodesDir) throws IOException {
+        List<Node> order = new ArrayList<>();
+        ArrayDeque<Node> queue = new ArrayDeque<>();
+        queue.add(root);
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+            order.add(node);
+            for (Node child : node.children) {
+                if (child != null) queue.add(child);
+            }
+        }
+
+        OctreeIndex index = new OctreeIndex(outputDir, order.size());
+        int next = 1;
+        for (int id = 0; id < order.size(); id++) {
+            Node node = order.get(id);
+            int children = 0;
+            for (Node child : node.children) {
+                if (child != null) children++;
+            }
+            index.setNode(id, node.level, node.minX, node.minY, node.minZ, node.size, node.pointCount,
+                    children > 0 ? next : -1, children);
+            next += children;
+
+            File target = new File(nodesDir, id + ".bin");
+            if (node.pointCount > 0) {
+                if (!node.points.file.renameTo(target)) throw new IOException("Failed to move node file " + target);
+            } else {
+                new FileOutputStream(target).close();
+            }
+        }
+        return index.write();
+    }
+
+    private static int packColor(float r, float g, float b) {
+        return packColor(r, g, b, 1.0f);
+    }
+
+    private static int packColor(float r, float g, float b, float a) {
+        return toByte(r) | toByte(g) << 8 | toByte(b) << 16 | toByte(a) << 24;
+    }
+
+    private static int toByte(float value) {
+        return Math.max(0, Math.min(255, Math.round(value * 255)));
+    }
+
+    /**
+     * 没有颜色时按高度着色，与点着色器的高度色带（shader/point/vertex_shader.glsl）一致
+     */
+    private static int heightColor(float y, float minY, float range) {
+        float normalizedY = (y - minY) / (range + 0.001f);
+        return packColor(normalizedY, 0.5f, 1.0f - normalizedY);
+    }
+
+    private static void deleteDirectory(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.isDirectory()) deleteDirectory(file);
+                else file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    /**
+     * 带缓冲的节点点数据写入器，缓冲区满时以追加方式写入文件，避免同时打开大量文件
+     */
+    private static class PointWriter {
+        final File file;
+        private ByteBuffer buffer;
+        int count;
+
+        PointWriter(File file) {
+            this.file = file;
+        }
+
+        void add(float x, float y, float z, int rgba) throws IOException {
+            if (buffer == null) {
+                buffer = ByteBuffer.allocate(WRITE_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            } else if (buffer.remaining() < OctreeIndex.POINT_BYTES) {
+                flush();
+            }
+            buffer.putFloat(x).putFloat(y).putFloat(z).putInt(rgba);
+            count++;
+        }
+
+        void flush() throws IOException {
+            if (buffer == null || buffer.position() == 0) return;
+            try (FileOutputStream out = new FileOutputStream(file, true)) {
+                out.write(buffer.array(), 0, buffer.position());
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.sl;
+
+/**
+ * 八叉树的节点结构（不含点数据），节点按广度优先编号，根为 0，子节点编号连续
+ * 内存中的 PointOctree 和磁盘上的 OctreeIndex 都实现该接口，PointBudgetTraverser 只依赖它
+ */
+public interface OctreeHierarchy {
+
+    int getNodeCount();
+
+    float getNodeMinX(int node);
+
+    float getNodeMinY(int node);
+
+    float getNodeMinZ(int node);
+
+    /**
+     * 节点立方体的边长
+     */
+    float getNodeSize(int node);
+
+    int getNodeLevel(int node);
+
+    int getNodePointCount(int node);
+
+    /**
+     * 第一个子节点的编号，没有子节点时为 -1
+     */
+    int getFirstChild(int node);
+
+    int getChildCount(int node);
+}
@@ -0,0 +1,204 @@
+package com.example.sl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * 磁盘上分层点云的层次索引（hierarchy.bin），由 OctreeConverter 写出
+ * 只包含节点结构和点数，点数据在 nodes/<编号>.bin 中按需加载，见 OctreeNodeLoader
+ *
+ * 索引格式（大端序）：魔数、版本、节点数、总点数，随后按广度优先顺序每个节点一条记录：
+ * 层级、最小角 xyz、边长、点数、第一个子节点、子节点数
+ * 节点文件：每个点 POINT_BYTES 字节，xyz 三个 float 加 rgba 四个字节，小端序，可直接作为顶点数据上传
+ */
+public class OctreeIndex implements OctreeHierarchy {
+    public static final String HIERARCHY_FILE = "hierarchy.bin";
+    public static final String NODES_DIR = "nodes";
+    public static final int POINT_BYTES = 16;
+    private static final int MAGIC = 0x534C4F43; // "SLOC"
+    private static final int VERSION = 1;
+
+    private final File directory;
+    private final int nodeCount;
+    private final float[] nodeMin;
+    private final float[] nodeSize;
+    private final int[] nodeLevel;
+    private final int[] nodePoints;
+    private final int[] firstChild;
+    private final int[] childCount;
+    private final long totalPoints;
+
+    OctreeIndex(File directory, int nodeCount) {
+        this.directory = directory;
+        this.nodeCount = nodeCount;
+        nodeMin = new float[nodeCount * 3];
+        nodeSize = new float[nodeCount];
+        nodeLevel = new int[nodeCount];
+        nodePoints = new int[nodeCount];
+        firstChild = new int[nodeCount];
+        childCount = new int[nodeCount];
+        totalPoints = 0;
+    }
+
+    private OctreeIndex(OctreeIndex source, long totalPoints) {
+        directory = source.directory;
+        nodeCount = source.nodeCount;
+        nodeMin = source.nodeMin;
+        nodeSize = source.nodeSize;
+        nodeLevel = source.nodeLevel;
+        nodePoints = source.nodePoints;
+        firstChild = source.firstChild;
+        childCount = source.childCount;
+        this.totalPoints = totalPoints;
+    }
+
+    /**
+     * 设置一个节点的记录，只在构建索引时使用
+     */
+    void setNode(int node, int level, float minX, float minY, float minZ, float size, int pointCount,
+                 int first, int children) {
+        nodeLevel[node] = level;
+        nodeMin[node * 3] = minX;
+        nodeMin[node * 3 + 1] = minY;
+        nodeMin[node * 3 + 2] = minZ;
+        nodeSize[node] = size;
+        nodePoints[node] = pointCount;
+        firstChild[node] = first;
+        childCount[node] = children;
+    }
+
+    /**
+     * 写出索引文件（先写临时文件再重命名），返回带总点数的索引
+     */
+    OctreeIndex write() throws IOException {
+        long total = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            total += nodePoints[node];
+        }
+        File file = new File(directory, HIERARCHY_FILE);
+        File temp = new File(directory, HIERARCHY_FILE + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(nodeCount);
+            out.writeLong(total);
+            for (int node = 0; node < nodeCount; node++) {
+                out.writeByte(nodeLevel[node]);
+                out.writeFloat(nodeMin[node * 3]);
+                out.writeFloat(nodeMin[node * 3 + 1]);
+                out.writeFloat(nodeMin[node * 3 + 2]);
+                out.writeFloat(nodeSize[node]);
+                out.writeInt(nodePoints[node]);
+                out.writeInt(firstChild[node]);
+                out.writeByte(childCount[node]);
+            }
+        }
+        if (file.exists() && !file.delete() || !temp.renameTo(file)) {
+            throw new IOException("Failed to write " + file);
+        }
+        return new OctreeIndex(this, total);
+    }
+
+    /**
+     * 读取 directory 中的层次索引
+     */
+    public static OctreeIndex read(File directory) throws IOException {
+        File file = new File(directory, HIERARCHY_FILE);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not an octree index: " + file);
+            int version = in.readInt();
+            if (version != VERSION) throw new IOException("Unsupported octree index version " + version);
+            int nodeCount = in.readInt();
+            long total = in.readLong();
+            if (nodeCount <= 0) throw new IOException("Invalid node count " + nodeCount);
+
+            OctreeIndex index = new OctreeIndex(directory, nodeCount);
+            for (int node = 0; node < nodeCount; node++) {
+                int level = in.readUnsignedByte();
+                float minX = in.readFloat(), minY = in.readFloat(), minZ = in.readFloat();
+                float size = in.readFloat();
+                int points = in.readInt();
+                int first = in.readInt();
+                int children = in.readUnsignedByte();
+                if (points < 0 || children > 8 || (children > 0 && (first <= node || first + children > nodeCount))) {
+                    throw new IOException("Corrupt octree index at node " + node);
+                }
+                index.setNode(node, level, minX, minY, minZ, size, points, children > 0 ? first : -1, children);
+            }
+            return new OctreeIndex(index, total);
+        }
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * 节点的点数据文件
+     */
+    public File getNodeFile(int node) {
+        return new File(new File(directory, NODES_DIR), node + ".bin");
+    }
+
+    /**
+     * 节点文件的字节数
+     */
+    public int getNodeBytes(int node) {
+        return nodePoints[node] * POINT_BYTES;
+    }
+
+    public long getTotalPointCount() {
+        return totalPoints;
+    }
+
+    @Override
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    @Override
+    public float getNodeMinX(int node) {
+        return nodeMin[node * 3];
+    }
+
+    @Override
+    public float getNodeMinY(int node) {
+        return nodeMin[node * 3 + 1];
+    }
+
+    @Override
+    public float getNodeMinZ(int node) {
+        return nodeMin[node * 3 + 2];
+    }
+
+    @Override
+    public float getNodeSize(int node) {
+        return nodeSize[node];
+    }
+
+    @Override
+    public int getNodeLevel(int node) {
+        return nodeLevel[node];
+    }
+
+    @Override
+    public int getNodePointCount(int node) {
+        return nodePoints[node];
+    }
+
+    @Override
+    public int getFirstChild(int node) {
+        return firstChild[node];
+    }
+
+    @Override
+    public int getChildCount(int node) {
+        return childCount[node];
+    }
+}
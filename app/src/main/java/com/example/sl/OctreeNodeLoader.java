@@ -0,0 +1,242 @@
+package com.example.sl;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * 按需加载节点文件的后台加载器：GL线程每帧提交需要的节点和优先级，
+ * 空闲的加载线程总是先读取优先级最高的节点，结果在GL线程中通过 drainCompleted() 取走
+ * 不依赖GL，可以直接针对本地目录测试
+ */
+public class OctreeNodeLoader {
+    private static final String TAG = "OctreeNodeLoader";
+
+    public static final int DEFAULT_THREADS = 2;
+
+    /**
+     * 一个节点的加载结果，data 为 null 表示读取失败
+     */
+    public static class LoadedNode {
+        public final int node;
+        public final ByteBuffer data;
+
+        LoadedNode(int node, ByteBuffer data) {
+            this.node = node;
+            this.data = data;
+        }
+    }
+
+    private final OctreeIndex index;
+    private final Executor pool;
+    private final boolean ownsPool;
+    private final int maxConcurrent;
+
+    // 以下字段由 lock 保护
+    private final Object lock = new Object();
+    private final int[] pendingNodes;
+    private final float[] pendingPriorities;
+    private final boolean[] pending;
+    private final boolean[] loading;
+    private int pendingCount;
+    private int loadingCount;
+    private int activeWorkers;
+    private boolean released;
+
+    private final ConcurrentLinkedQueue<LoadedNode> completed = new ConcurrentLinkedQueue<>();
+    private volatile Runnable onNodeLoaded;
+
+    public OctreeNodeLoader(OctreeIndex index) {
+        this(index, Executors.newFixedThreadPool(DEFAULT_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "OctreeLoader");
+            thread.setDaemon(true);
+            return thread;
+        }), true, DEFAULT_THREADS);
+    }
+
+    /**
+     * 测试用：使用外部线程池，最多同时运行 maxConcurrent 个加载任务
+     */
+    OctreeNodeLoader(OctreeIndex index, Executor pool, int maxConcurrent) {
+        this(index, pool, false, maxConcurrent);
+    }
+
+    private OctreeNodeLoader(OctreeIndex index, Executor pool, boolean ownsPool, int maxConcurrent) {
+        if (maxConcurrent <= 0) {
+            throw new IllegalArgumentException("Invalid concurrency: " + maxConcurrent);
+        }
+        this.index = index;
+        this.pool = pool;
+        this.ownsPool = ownsPool;
+        this.maxConcurrent = maxConcurrent;
+        int nodeCount = index.getNodeCount();
+        pendingNodes = new int[nodeCount];
+        pendingPriorities = new float[nodeCount];
+        pending = new boolean[nodeCount];
+        loading = new boolean[nodeCount];
+    }
+
+    /**
+     * 节点加载完成后调用，例如请求新的一帧（在加载线程中回调）
+     */
+    public void setOnNodeLoaded(Runnable onNodeLoaded) {
+        this.onNodeLoaded = onNodeLoaded;
+    }
+
+    /**
+     * 丢弃尚未开始的请求，正在读取的节点不受影响；每帧提交新的请求前调用
+     */
+    public void clearPending() {
+        synchronized (lock) {
+            for (int i = 0; i < pendingCount; i++) {
+                pending[pendingNodes[i]] = false;
+            }
+            pendingCount = 0;
+        }
+    }
+
+    /**
+     * 请求加载节点，优先级越大越先加载；正在读取或等待取走的节点被忽略，已在等待的节点更新优先级
+     */
+    public void request(int node, float priority) {
+        synchronized (lock) {
+            if (released || loading[node]) return;
+            if (pending[node]) {
+                for (int i = 0; i < pendingCount; i++) {
+                    if (pendingNodes[i] == node) {
+                        pendingPriorities[i] = priority;
+                        break;
+                    }
+                }
+                return;
+            }
+            pending[node] = true;
+            pendingNodes[pendingCount] = node;
+            pendingPriorities[pendingCount++] = priority;
+            if (activeWorkers >= maxConcurrent) return;
+            activeWorkers++;
+        }
+        pool.execute(this::work);
+    }
+
+    private void work() {
+        while (true) {
+            int node;
+            synchronized (lock) {
+                node = takeHighestPriority();
+                if (node < 0) {
+                    activeWorkers--;
+                    return;
+                }
+                loading[node] = true;
+                loadingCount++;
+            }
+            ByteBuffer data = null;
+            try {
+                data = readNode(index.getNodeFile(node), index.getNodeBytes(node));
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to load node " + node + ": " + e.getMessage());
+            }
+            completed.add(new LoadedNode(node, data));
+            Runnable listener = onNodeLoaded;
+            if (listener != null) {
+                listener.run();
+            }
+        }
+    }
+
+    /**
+     * 取出优先级最高的等待节点，没有时返回 -1；调用时持有 lock
+     */
+    private int takeHighestPriority() {
+        if (released || pendingCount == 0) return -1;
+        int best = 0;
+        for (int i = 1; i < pendingCount; i++) {
+            if (pendingPriorities[i] > pendingPriorities[best]) best = i;
+        }
+        int node = pendingNodes[best];
+        // 保持其余请求的先后顺序，优先级相同时先提交的先加载
+        System.arraycopy(pendingNodes, best + 1, pendingNodes, best, pendingCount - best - 1);
+        System.arraycopy(pendingPriorities, best + 1, pendingPriorities, best, pendingCount - best - 1);
+        pendingCount--;
+        pending[node] = false;
+        return node;
+    }
+
+    /**
+     * 把节点文件读入直接缓冲区，长度必须与索引一致
+     */
+    static ByteBuffer readNode(File file, int expectedBytes) throws IOException {
+        try (FileInputStream in = new FileInputStream(file); FileChannel channel = in.getChannel()) {
+            if (channel.size() != expectedBytes) {
+                throw new IOException("Unexpected size " + channel.size() + " of " + file
+                        + ", expected " + expectedBytes);
+            }
+            ByteBuffer data = ByteBuffer.allocateDirect(expectedBytes).order(ByteOrder.LITTLE_ENDIAN);
+            while (data.hasRemaining()) {
+                if (channel.read(data) < 0) {
+                    throw new IOException("Unexpected end of " + file);
+                }
+            }
+            data.flip();
+            return data;
+        }
+    }
+
+    /**
+     * 在GL线程中取走所有已完成的节点
+     */
+    public void drainCompleted(Consumer<LoadedNode> consumer) {
+        LoadedNode result;
+        while ((result = completed.poll()) != null) {
+            synchronized (lock) {
+                loading[result.node] = false;
+                loadingCount--;
+            }
+            consumer.accept(result);
+        }
+    }
+
+    /**
+     * 等待加载的节点数
+     */
+    public int getPendingCount() {
+        synchronized (lock) {
+            return pendingCount;
+        }
+    }
+
+    /**
+     * 正在读取或已完成但尚未取走的节点数
+     */
+    public int getLoadingCount() {
+        synchronized (lock) {
+            return loadingCount;
+        }
+    }
+
+    public OctreeIndex getIndex() {
+        return index;
+    }
+
+    public void release() {
+        synchronized (lock) {
+            released = true;
+        }
+        clearPending();
+        completed.clear();
+        if (ownsPool) {
+            ((ExecutorService) pool).shutdownNow();
+        }
+    }
+}
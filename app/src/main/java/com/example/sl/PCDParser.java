@@ -3,6 +3,8 @@ package com.example.sl;
 import android.content.Context;
 import android.util.Log;
 import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -15,19 +17,98 @@ public class PCDParser {
 
         try {
             InputStream inputStream = context.getAssets().open(filename);
-            BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
+            streamPCDWithAttributes(inputStream, (x, y, z, rgb, intensity, classification) -> {
+                int index = data.pointCount;
+                if (rgb != null) {
+                    data.addPoint(x, y, z, rgb[0], rgb[1], rgb[2]);
+                } else {
+                    // 没有颜色信息，显示时按高度着色
+                    data.addPoint(x, y, z);
+                }
+                if (!Float.isNaN(intensity)) {
+                    data.setIntensity(index, intensity);
+                }
+                if (classification >= 0) {
+                    data.setClassification(index, classification);
+                }
+
+                // 显示进度（对于大文件）
+                if (data.pointCount % 100000 == 0) {
+                    Log.i(TAG, "Parsed " + data.pointCount + " points...");
+                }
+            });
+            // 高度范围已确定，计算没有颜色的点的 CPU 端颜色
+            data.applyHeightColors();
+            Log.i(TAG, "Successfully parsed " + data.pointCount + " points");
+
+        } catch (IOException e) {
+            Log.e(TAG, "Error reading PCD file: " + e.getMessage());
+            e.printStackTrace();
+        } catch (NumberFormatException e) {
+            Log.e(TAG, "Error parsing number: " + e.getMessage());
+            e.printStackTrace();
+        } catch (Exception e) {
+            Log.e(TAG, "Unexpected error: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return data;
+    }
+
+    /**
+     * 带强度和分类字段的点
+     */
+    public interface AttributeVisitor {
+        /**
+         * @param rgb            点的颜色 [r, g, b]，没有颜色时为 null
+         * @param intensity      强度，没有该字段时为 NaN
+         * @param classification 分类编号，没有该字段时为 -1
+         */
+        void onPoint(float x, float y, float z, float[] rgb, float intensity, int classification);
+    }
+
+    /**
+     * 以流的方式解析ASCII格式的PCD，不在内存中保留点，解析完成后关闭输入流
+     */
+    public static void streamPCD(InputStream inputStream, PointSource.PointVisitor visitor) throws IOException {
+        streamPCDWithAttributes(inputStream, (x, y, z, rgb, intensity, classification) -> visitor.onPoint(x, y, z, rgb));
+    }
 
+    /**
+     * 同 streamPCD，同时读取 intensity 和 label（或 classification）字段
+     */
+    public static void streamPCDWithAttributes(InputStream inputStream, AttributeVisitor visitor) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
             String line;
             boolean inHeader = true;
             boolean dataStarted = false;
             int pointsCount = 0;
-            boolean hasRGB = false;
+            int parsed = 0;
+            // 各字段所在的列，没有时为 -1；未声明 FIELDS 时按 x y z rgb 处理
+            int xIndex = 0, yIndex = 1, zIndex = 2, rgbIndex = -1, intensityIndex = -1, labelIndex = -1;
+            int fieldCount = 3;
 
             while ((line = reader.readLine()) != null) {
                 if (inHeader) {
                     if (line.startsWith("FIELDS")) {
-                        hasRGB = line.contains("rgb");
-                        Log.i(TAG, "File has RGB field: " + hasRGB);
+                        String[] fields = line.trim().split("\\s+");
+                        fieldCount = fields.length - 1;
+                        xIndex = yIndex = zIndex = -1;
+                        for (int i = 1; i < fields.length; i++) {
+                            String field = fields[i];
+                            int column = i - 1;
+                            if (field.equals("x")) xIndex = column;
+                            else if (field.equals("y")) yIndex = column;
+                            else if (field.equals("z")) zIndex = column;
+                            else if (field.equals("rgb") || field.equals("rgba")) rgbIndex = column;
+                            else if (field.equals("intensity")) intensityIndex = column;
+                            else if (field.equals("label") || field.equals("classification")) labelIndex = column;
+                        }
+                        if (xIndex < 0 || yIndex < 0 || zIndex < 0) {
+                            throw new IOException("PCD fields missing x/y/z: " + line);
+                        }
+                        Log.i(TAG, "File has RGB field: " + (rgbIndex >= 0) + ", intensity: " + (intensityIndex >= 0)
+                                + ", label: " + (labelIndex >= 0));
                     } else if (line.startsWith("POINTS")) {
                         String[] parts = line.split("\\s+");
                         pointsCount = Integer.parseInt(parts[1]);
@@ -41,48 +122,35 @@ public class PCDParser {
 
                 if (dataStarted) {
                     String[] values = line.trim().split("\\s+");
-                    if (values.length >= 4) {
-                        float x = Float.parseFloat(values[0]);
-                        float y = Float.parseFloat(values[1]);
-                        float z = Float.parseFloat(values[2]);
+                    if (values.length >= Math.max(fieldCount, 3)) {
+                        float x = Float.parseFloat(values[xIndex]);
+                        float y = Float.parseFloat(values[yIndex]);
+                        float z = Float.parseFloat(values[zIndex]);
 
-                        if (hasRGB && values.length >= 4) {
+                        float[] rgb = null;
+                        if (rgbIndex >= 0) {
                             // 解析打包的RGB值
-                            long packedRGB = Long.parseLong(values[3]);
-                            float[] rgb = unpackRGB(packedRGB);
-                            data.addPoint(x, y, z, rgb[0], rgb[1], rgb[2]);
-                        } else {
-                            // 没有颜色信息，使用高度颜色
-                            data.addPoint(x, y, z);
+                            rgb = unpackRGB(Long.parseLong(values[rgbIndex]));
                         }
+                        float intensity = intensityIndex >= 0 ? Float.parseFloat(values[intensityIndex]) : Float.NaN;
+                        int classification = labelIndex >= 0 ? (int) Float.parseFloat(values[labelIndex]) : -1;
+                        visitor.onPoint(x, y, z, rgb, intensity, classification);
+                        parsed++;
                     }
 
-                    // 显示进度（对于大文件）
-                    if (data.pointCount % 100000 == 0) {
-                        Log.i(TAG, "Parsed " + data.pointCount + " points...");
-                    }
-
-                    if (data.pointCount >= pointsCount) {
+                    if (parsed >= pointsCount) {
                         break;
                     }
                 }
             }
-
-            reader.close();
-            Log.i(TAG, "Successfully parsed " + data.pointCount + " points");
-
-        } catch (IOException e) {
-            Log.e(TAG, "Error reading PCD file: " + e.getMessage());
-            e.printStackTrace();
-        } catch (NumberFormatException e) {
-            Log.e(TAG, "Error parsing number: " + e.getMessage());
-            e.printStackTrace();
-        } catch (Exception e) {
-            Log.e(TAG, "Unexpected error: " + e.getMessage());
-            e.printStackTrace();
         }
+    }
 
-        return data;
+    /**
+     * 基于本地PCD文件的点流，每次读取都重新打开文件
+     */
+    public static PointSource fileSource(File file) {
+        return visitor -> streamPCD(new FileInputStream(file), visitor);
     }
 
     /**
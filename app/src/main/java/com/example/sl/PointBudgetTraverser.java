@@ -0,0 +1,273 @@
+package com.example.sl;
+
+import java.util.function.IntPredicate;
+
+/**
+ * 点预算遍历：按节点投影到屏幕上的大小从大到小访问八叉树（优先队列），
+ * 直到可见点数达到预算或剩余节点投影过小，结果是一组从根开始的连通节点
+ * 设置观察投影矩阵后同时做层次视锥剔除：视锥外节点的整棵子树被跳过，完全在视锥内的节点其子树不再检测
+ * 流式加载时节点的点数据可能尚未就绪：这些节点记为缺失（按优先级排列，供加载器使用），其子节点不再展开
+ * 纯Java实现，只依赖投影矩阵、视口和相机位置，可在单元测试中使用；
+ * 工作数组随八叉树大小分配一次，每帧遍历不分配内存
+ */
+public class PointBudgetTraverser {
+    public static final int DEFAULT_POINT_BUDGET = 2_000_000;
+    public static final float DEFAULT_MIN_NODE_PIXELS = 30.0f;
+    private static final float HALF_SQRT3 = 0.8660254f;
+
+    private int pointBudget = DEFAULT_POINT_BUDGET;
+    private float minNodePixels = DEFAULT_MIN_NODE_PIXELS;
+    // 距离为 1 处每单位长度对应的像素数，与 LodSelector 相同
+    private float pixelsPerUnit = 1;
+    private float cameraX, cameraY, cameraZ;
+    private final Frustum frustum = new Frustum();
+    private boolean culling;
+
+    // 二叉最大堆：节点编号、优先级和是否完全在视锥内
+    private int[] heapNodes = new int[0];
+    private float[] heapPriorities = new float[0];
+    private boolean[] heapInside = new boolean[0];
+    private int heapSize;
+
+    private int[] visibleNodes = new int[0];
+    private int visibleCount;
+    private int[] missingNodes = new int[0];
+    private float[] missingPriorities = new float[0];
+    private int missingCount;
+    private int visiblePoints;
+    private int nodesVisited;
+    private int nodesCulled;
+    private long lastTraversalNanos;
+
+    public void setPointBudget(int pointBudget) {
+        if (pointBudget <= 0) throw new IllegalArgumentException("pointBudget must be positive");
+        this.pointBudget = pointBudget;
+    }
+
+    public int getPointBudget() {
+        return pointBudget;
+    }
+
+    /**
+     * 投影半径小于该像素数的节点不再细分
+     */
+    public void setMinNodePixels(float minNodePixels) {
+        this.minNodePixels = minNodePixels;
+    }
+
+    /**
+     * 根据透视投影矩阵（列主序）和视口高度更新屏幕投影比例
+     */
+    public void setProjection(float[] projection, int viewportHeight) {
+        // projection[5] = cot(fovY / 2)
+        pixelsPerUnit = projection[5] * viewportHeight * 0.5f;
+    }
+
+    /**
+     * 观察投影矩阵（列主序，模型空间到裁剪空间），用于视锥剔除；null 表示不剔除
+     */
+    public void setViewProjection(float[] viewProjection) {
+        culling = viewProjection != null;
+        if (culling) {
+            frustum.setFromMatrix(viewProjection);
+        }
+    }
+
+    /**
+     * 相机位置（与八叉树同一坐标系）
+     */
+    public void setCamera(float x, float y, float z) {
+        cameraX = x;
+        cameraY = y;
+        cameraZ = z;
+    }
+
+    /**
+     * 节点外接球在屏幕上的投影半径（像素），相机在球内时为无穷大
+     */
+    public float getProjectedSize(OctreeHierarchy octree, int node) {
+        float half = octree.getNodeSize(node) * 0.5f;
+        float dx = octree.getNodeMinX(node) + half - cameraX;
+        float dy = octree.getNodeMinY(node) + half - cameraY;
+        float dz = octree.getNodeMinZ(node) + half - cameraZ;
+        float distance = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+        float radius = half * 2 * HALF_SQRT3;
+        if (distance <= radius) return Float.POSITIVE_INFINITY;
+        return radius * pixelsPerUnit / distance;
+    }
+
+    /**
+     * 选择本帧绘制的节点，结果见 getVisibleNodes/getVisibleCount
+     * 根节点在视锥内时总是被选中，即使它的点数超过预算
+     */
+    public void traverse(OctreeHierarchy octree) {
+        traverse(octree, null);
+    }
+
+    /**
+     * 同 traverse(octree)，ready 为 null 表示所有节点的数据都已就绪
+     * 未就绪的节点同样计入预算，结果见 getMissingNodes/getMissingCount
+     */
+    public void traverse(OctreeHierarchy octree, IntPredicate ready) {
+        long start = System.nanoTime();
+        visibleCount = 0;
+        missingCount = 0;
+        visiblePoints = 0;
+        nodesVisited = 0;
+        nodesCulled = 0;
+        heapSize = 0;
+        if (octree == null || octree.getNodeCount() == 0) {
+            lastTraversalNanos = System.nanoTime() - start;
+            return;
+        }
+        ensureCapacity(octree.getNodeCount());
+
+        int rootCull = cull(octree, 0, false);
+        if (rootCull >= 0) {
+            push(0, Float.POSITIVE_INFINITY, rootCull == 1);
+        }
+        while (heapSize > 0) {
+            int node = heapNodes[0];
+            float nodePriority = heapPriorities[0];
+            boolean inside = heapInside[0];
+            pop();
+            nodesVisited++;
+            int count = octree.getNodePointCount(node);
+            if (visibleCount + missingCount > 0 && visiblePoints + count > pointBudget) {
+                // 优先级更低的节点同样放不下，保持结果连通
+                break;
+            }
+            visiblePoints += count;
+            if (ready != null && !ready.test(node)) {
+                missingNodes[missingCount] = node;
+                missingPriorities[missingCount++] = nodePriority;
+                continue;
+            }
+            visibleNodes[visibleCount++] = node;
+
+            int first = octree.getFirstChild(node);
+            for (int c = 0; c < octree.getChildCount(node); c++) {
+                int child = first + c;
+                float priority = getProjectedSize(octree, child);
+                if (priority < minNodePixels) continue;
+                int childCull = cull(octree, child, inside);
+                if (childCull >= 0) {
+                    push(child, priority, childCull == 1);
+                }
+            }
+        }
+        lastTraversalNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * 视锥检测：-1 在视锥外，0 相交，1 完全在视锥内；父节点完全在内时不再检测
+     */
+    private int cull(OctreeHierarchy octree, int node, boolean parentInside) {
+        if (!culling || parentInside) return 1;
+        float minX = octree.getNodeMinX(node), minY = octree.getNodeMinY(node), minZ = octree.getNodeMinZ(node);
+        float size = octree.getNodeSize(node);
+        if (!frustum.intersectsBox(minX, minY, minZ, minX + size, minY + size, minZ + size)) {
+            nodesCulled++;
+            return -1;
+        }
+        return frustum.containsBox(minX, minY, minZ, minX + size, minY + size, minZ + size) ? 1 : 0;
+    }
+
+    private void ensureCapacity(int nodeCount) {
+        if (heapNodes.length < nodeCount) {
+            heapNodes = new int[nodeCount];
+            heapPriorities = new float[nodeCount];
+            heapInside = new boolean[nodeCount];
+            visibleNodes = new int[nodeCount];
+            missingNodes = new int[nodeCount];
+            missingPriorities = new float[nodeCount];
+        }
+    }
+
+    private void push(int node, float priority, boolean inside) {
+        int i = heapSize++;
+        while (i > 0) {
+            int parent = (i - 1) >> 1;
+            if (heapPriorities[parent] >= priority) break;
+            heapNodes[i] = heapNodes[parent];
+            heapPriorities[i] = heapPriorities[parent];
+            heapInside[i] = heapInside[parent];
+            i = parent;
+        }
+        heapNodes[i] = node;
+        heapPriorities[i] = priority;
+        heapInside[i] = inside;
+    }
+
+    private void pop() {
+        int lastNode = heapNodes[--heapSize];
+        float lastPriority = heapPriorities[heapSize];
+        boolean lastInside = heapInside[heapSize];
+        int i = 0;
+        while (true) {
+            int child = i * 2 + 1;
+            if (child >= heapSize) break;
+            if (child + 1 < heapSize && heapPriorities[child + 1] > heapPriorities[child]) child++;
+            if (heapPriorities[child] <= lastPriority) break;
+            heapNodes[i] = heapNodes[child];
+            heapPriorities[i] = heapPriorities[child];
+            heapInside[i] = heapInside[child];
+            i = child;
+        }
+        heapNodes[i] = lastNode;
+        heapPriorities[i] = lastPriority;
+        heapInside[i] = lastInside;
+    }
+
+    /**
+     * 选中的节点编号，按访问顺序（优先级从高到低）排列，前 getVisibleCount() 个有效
+     * 数组由遍历器复用，下一次遍历后内容改变
+     */
+    public int[] getVisibleNodes() {
+        return visibleNodes;
+    }
+
+    public int getVisibleCount() {
+        return visibleCount;
+    }
+
+    /**
+     * 需要但尚未就绪的节点，按优先级从高到低排列，前 getMissingCount() 个有效
+     */
+    public int[] getMissingNodes() {
+        return missingNodes;
+    }
+
+    /**
+     * 与 getMissingNodes 对应的投影大小（像素），根节点为无穷大
+     */
+    public float[] getMissingPriorities() {
+        return missingPriorities;
+    }
+
+    public int getMissingCount() {
+        return missingCount;
+    }
+
+    /**
+     * 选中节点（包括缺失节点）的点数之和
+     */
+    public int getVisiblePoints() {
+        return visiblePoints;
+    }
+
+    public int getNodesVisited() {
+        return nodesVisited;
+    }
+
+    /**
+     * 因在视锥外而跳过的子树数
+     */
+    public int getNodesCulled() {
+        return nodesCulled;
+    }
+
+    public long getLastTraversalNanos() {
+        return lastTraversalNanos;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.sl;
+
+import android.app.Application;
+
+/**
+ * 把系统的内存压力通知转交给点云仓库
+ */
+public class PointCloudApplication extends Application {
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        PointCloudRepository.getInstance().onTrimMemory(level);
+    }
+
+    @Override
+    public void onLowMemory() {
+        super.onLowMemory();
+        PointCloudRepository.getInstance().onLowMemory();
+    }
+}
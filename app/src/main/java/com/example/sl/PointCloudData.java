@@ -3,17 +3,24 @@ package com.example.sl;
 import android.util.Log;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 
 public class PointCloudData {
     public List<float[]> points;
     public List<float[]> colors;
     public int pointCount;
+    // 没有颜色的点（按高度着色），颜色在 applyHeightColors() 中按最终范围计算
+    private final BitSet colorless = new BitSet();
+    // 可选的逐点属性：强度、分类，第一次设置时分配
+    private float[] intensities;
+    private byte[] classifications;
 
-    // 用于统计点的范围
-    public float minX = Float.MAX_VALUE, maxX = Float.MIN_VALUE;
-    public float minY = Float.MAX_VALUE, maxY = Float.MIN_VALUE;
-    public float minZ = Float.MAX_VALUE, maxZ = Float.MIN_VALUE;
+    // 用于统计点的范围（Float.MIN_VALUE 是最小的正数，不能作为最大值的初值）
+    public float minX = Float.MAX_VALUE, maxX = -Float.MAX_VALUE;
+    public float minY = Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+    public float minZ = Float.MAX_VALUE, maxZ = -Float.MAX_VALUE;
 
     public PointCloudData() {
         points = new ArrayList<>();
@@ -21,17 +28,14 @@ public class PointCloudData {
         pointCount = 0;
     }
 
+    /**
+     * 没有颜色的点：显示时在着色器中按高度着色；CPU 端的颜色在解析完成后由 applyHeightColors() 填充
+     */
     public void addPoint(float x, float y, float z) {
         points.add(new float[]{x, y, z});
         updateBounds(x, y, z);
-
-        // 基于高度生成颜色
-        float normalizedY = (y - minY) / (maxY - minY + 0.001f);
-        float r = normalizedY;
-        float g = 0.5f;
-        float b = 1.0f - normalizedY;
-        colors.add(new float[]{r, g, b, 1.0f});
-
+        colors.add(new float[]{1.0f, 1.0f, 1.0f, 1.0f});
+        colorless.set(pointCount);
         pointCount++;
     }
 
@@ -42,6 +46,62 @@ public class PointCloudData {
         pointCount++;
     }
 
+    /**
+     * 是否所有点都带有颜色；否则显示时默认按高度着色
+     */
+    public boolean hasRgb() {
+        return pointCount > 0 && colorless.isEmpty();
+    }
+
+    /**
+     * 按最终的高度范围计算没有颜色的点的 CPU 端颜色（供采样、重建等使用），色带与点着色器相同
+     */
+    public void applyHeightColors() {
+        float range = maxY - minY + 0.001f;
+        for (int i = colorless.nextSetBit(0); i >= 0; i = colorless.nextSetBit(i + 1)) {
+            float normalizedY = (points.get(i)[1] - minY) / range;
+            float[] color = colors.get(i);
+            color[0] = normalizedY;
+            color[1] = 0.5f;
+            color[2] = 1.0f - normalizedY;
+        }
+    }
+
+    public void setIntensity(int index, float intensity) {
+        if (intensities == null) intensities = new float[Math.max(pointCount, 16)];
+        if (index >= intensities.length) {
+            intensities = Arrays.copyOf(intensities, Math.max(index + 1, intensities.length * 2));
+        }
+        intensities[index] = intensity;
+    }
+
+    public void setClassification(int index, int classification) {
+        if (classifications == null) classifications = new byte[Math.max(pointCount, 16)];
+        if (index >= classifications.length) {
+            classifications = Arrays.copyOf(classifications, Math.max(index + 1, classifications.length * 2));
+        }
+        classifications[index] = (byte) classification;
+    }
+
+    public boolean hasIntensity() {
+        return intensities != null;
+    }
+
+    public boolean hasClassification() {
+        return classifications != null;
+    }
+
+    public float getIntensity(int index) {
+        return intensities != null && index < intensities.length ? intensities[index] : 0;
+    }
+
+    /**
+     * 分类编号 0-255（如 LAS 的地面 2、植被 3-5、建筑 6）
+     */
+    public int getClassification(int index) {
+        return classifications != null && index < classifications.length ? classifications[index] & 0xFF : 0;
+    }
+
     private void updateBounds(float x, float y, float z) {
         if (x < minX) minX = x;
         if (x > maxX) maxX = x;
@@ -74,26 +134,38 @@ public class PointCloudData {
         return array;
     }
 
-    public void normalizePoints() {
-        // 将点云数据归一化到 [-1, 1] 范围
-        float centerX = (minX + maxX) / 2.0f;
-        float centerY = (minY + maxY) / 2.0f;
-        float centerZ = (minZ + maxZ) / 2.0f;
-        float scale = Math.max(maxX - minX, Math.max(maxY - minY, maxZ - minZ)) / 2.0f;
+    /**
+     * 显示时的归一化：以包围盒中心为原点、最长边的一半为单位长度，点云落在 [-1, 1] 内
+     * 只作为模型变换使用，点坐标保持原始单位，可在多个界面间只读共享
+     */
+    public float getCenterX() {
+        return (minX + maxX) / 2.0f;
+    }
 
-        if (scale < 0.001f) scale = 1.0f;
+    public float getCenterY() {
+        return (minY + maxY) / 2.0f;
+    }
 
-        for (int i = 0; i < points.size(); i++) {
-            float[] point = points.get(i);
-            point[0] = (point[0] - centerX) / scale;
-            point[1] = (point[1] - centerY) / scale;
-            point[2] = (point[2] - centerZ) / scale;
-        }
+    public float getCenterZ() {
+        return (minZ + maxZ) / 2.0f;
+    }
+
+    /**
+     * 最长边的一半，点云过小时为 1；也是按归一化尺度设定的距离阈值的单位
+     */
+    public float getHalfExtent() {
+        float half = Math.max(maxX - minX, Math.max(maxY - minY, maxZ - minZ)) / 2.0f;
+        return half < 0.001f ? 1.0f : half;
+    }
 
-        // 更新边界
-        minX = -1.0f; maxX = 1.0f;
-        minY = -1.0f; maxY = 1.0f;
-        minZ = -1.0f; maxZ = 1.0f;
+    /**
+     * 估计占用的堆内存：每点的坐标和颜色各是一个小数组（含对象头）及列表中的引用
+     */
+    public long estimateBytes() {
+        long bytes = pointCount * 80L;
+        if (intensities != null) bytes += intensities.length * 4L;
+        if (classifications != null) bytes += classifications.length;
+        return bytes;
     }
 
     public void logBounds() {
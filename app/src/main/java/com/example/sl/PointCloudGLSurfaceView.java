@@ -4,6 +4,7 @@ import android.content.Context;
 import android.opengl.GLSurfaceView;
 import android.view.MotionEvent;
 import android.view.ScaleGestureDetector;
+import android.view.ViewConfiguration;
 
 public class PointCloudGLSurfaceView extends GLSurfaceView {
     private PointCloudRenderer renderer;
@@ -13,16 +14,62 @@ public class PointCloudGLSurfaceView extends GLSurfaceView {
     private long lastTouchTime = 0;
     private static final int DOUBLE_TAP_TIME_DELTA = 300; // 毫秒
 
+    // 单击拾取点：按下后移动不超过 touchSlop 且没有多指操作时视为单击，拾取容差同为 touchSlop
+    private OnPointPickedListener pickListener;
+    private int touchSlop;
+    private float downX;
+    private float downY;
+    private boolean tapCandidate;
+
+    /**
+     * 单击拾取的结果，在UI线程中回调；没有点在容差内时 hit 为 null
+     */
+    public interface OnPointPickedListener {
+        void onPointPicked(PointPicker.Hit hit);
+    }
+
     public PointCloudGLSurfaceView(Context context, PointCloudData data, String mode) {
         super(context);
+        init(context, new PointCloudRenderer(context, data, mode));
+    }
 
+    /**
+     * 流式显示 OctreeConverter 转换的点云
+     */
+    public PointCloudGLSurfaceView(Context context, OctreeIndex index, String mode) {
+        super(context);
+        init(context, new PointCloudRenderer(context, index, mode));
+    }
+
+    private void init(Context context, PointCloudRenderer renderer) {
+        this.renderer = renderer;
         setEGLContextClientVersion(3);
-        renderer = new PointCloudRenderer(context, data, mode);
         setRenderer(renderer);
-        setRenderMode(GLSurfaceView.RENDERMODE_CONTINUOUSLY);
+
+        // 按需渲染：渲染器在视角或数据变化、惯性旋转和后台上传时请求重绘，合并多次请求
+        renderer.setRenderRequester(this::requestRender);
+        setRenderMode(GLSurfaceView.RENDERMODE_WHEN_DIRTY);
 
         // 初始化缩放手势检测器
         scaleDetector = new ScaleGestureDetector(context, new ScaleListener());
+        touchSlop = ViewConfiguration.get(context).getScaledTouchSlop();
+    }
+
+    /**
+     * 设置后单击拾取点，null 表示关闭拾取
+     */
+    public void setOnPointPickedListener(OnPointPickedListener listener) {
+        this.pickListener = listener;
+    }
+
+    private void pick(float x, float y) {
+        final OnPointPickedListener listener = pickListener;
+        if (listener == null || renderer == null) return;
+        // 拾取读取渲染器的相机和索引，在GL线程中进行
+        queueEvent(() -> {
+            PointPicker.Hit hit = renderer.pick(x, y, touchSlop);
+            post(() -> listener.onPointPicked(hit));
+        });
     }
 
     @Override
@@ -37,17 +84,22 @@ public class PointCloudGLSurfaceView extends GLSurfaceView {
             case MotionEvent.ACTION_DOWN:
                 // 双击检测
                 long currentTime = System.currentTimeMillis();
-                if (currentTime - lastTouchTime < DOUBLE_TAP_TIME_DELTA) {
+                boolean doubleTap = currentTime - lastTouchTime < DOUBLE_TAP_TIME_DELTA;
+                if (doubleTap) {
                     // 双击事件 - 重置视角
                     if (renderer != null) {
                         renderer.resetView();
-                        requestRender();
                     }
+                } else if (renderer != null) {
+                    renderer.startDrag();
                 }
                 lastTouchTime = currentTime;
 
                 previousX = x;
                 previousY = y;
+                downX = x;
+                downY = y;
+                tapCandidate = !doubleTap;
                 break;
 
             case MotionEvent.ACTION_MOVE:
@@ -56,16 +108,33 @@ public class PointCloudGLSurfaceView extends GLSurfaceView {
                     float dx = x - previousX;
                     float dy = y - previousY;
                     if (renderer != null) {
-                        renderer.rotate(dx, dy);
+                        renderer.drag(dx, dy, System.nanoTime());
                     }
-                    requestRender();
                 }
                 previousX = x;
                 previousY = y;
+                if (Math.abs(x - downX) > touchSlop || Math.abs(y - downY) > touchSlop) {
+                    tapCandidate = false;
+                }
                 break;
 
             case MotionEvent.ACTION_UP:
+                if (renderer != null) {
+                    renderer.endDrag(System.nanoTime());
+                }
+                if (tapCandidate) {
+                    pick(x, y);
+                }
+                tapCandidate = false;
+                break;
+
+            case MotionEvent.ACTION_POINTER_DOWN:
             case MotionEvent.ACTION_CANCEL:
+                tapCandidate = false;
+                // 多指缩放或取消时不产生惯性
+                if (renderer != null) {
+                    renderer.startDrag();
+                }
                 break;
         }
 
@@ -78,7 +147,6 @@ public class PointCloudGLSurfaceView extends GLSurfaceView {
             if (renderer != null) {
                 float scaleFactor = detector.getScaleFactor();
                 renderer.zoom(scaleFactor);
-                requestRender();
                 return true;
             }
             return false;
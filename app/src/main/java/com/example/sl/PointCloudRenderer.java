@@ -3,75 +3,263 @@ package com.example.sl;
 import android.content.Context;
 import android.opengl.GLES30;
 import android.opengl.GLSurfaceView;
-import android.opengl.Matrix;
 import android.util.Log;
 
 import javax.microedition.khronos.egl.EGLConfig;
 import javax.microedition.khronos.opengles.GL10;
 
-import java.nio.FloatBuffer;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
 
 public class PointCloudRenderer implements GLSurfaceView.Renderer {
     private static final String TAG = "PointCloudRenderer";
 
-    private Context context;
+    private final CountingGlApi gl;
+    private final ShaderProgramManager programs;
     private PointCloudData pointCloudData;
 
     private int program;
     private int positionHandle;
     private int colorHandle;
     private int mvpMatrixHandle;
+    private int colorModeHandle;
+    private int heightRangeHandle;
+
+    // 着色方式：在顶点着色器中根据属性和 uniform 计算颜色，切换时只更新 uniform，不重新上传
+    public static final int COLOR_AUTO = -1;
+    public static final int COLOR_RGB = 0;
+    public static final int COLOR_HEIGHT = 1;
+    public static final int COLOR_INTENSITY = 2;
+    public static final int COLOR_CLASSIFICATION = 3;
+    // 强度和分类属性（归一化的无符号字节）的顶点属性位置，与 shader/point/vertex_shader.glsl 一致
+    static final int ATTRIBUTE_LOCATION = 3;
+    private static final String[] COLOR_MODE_NAMES = {"rgb", "height", "intensity", "classification"};
+    private volatile int colorMode = COLOR_AUTO;
+    private int appliedColorMode = -1;
+    private boolean withColors;
+    private boolean withIntensity;
+    private boolean withClassification;
+    // 高度色带的范围：按节点顺序打包时由全部点的最终坐标确定
+    private float heightMin = -1;
+    private float heightMax = 1;
 
     private final float[] mvpMatrix = new float[16];
     private final float[] projectionMatrix = new float[16];
     private final float[] viewMatrix = new float[16];
     private final float[] modelMatrix = new float[16];
-
-    private int[] vbo = new int[2]; // 0: positions, 1: colors
+    private final float[] modelViewMatrix = new float[16];
+    // 模型矩阵的缩放和平移（点云坐标系中的中心），用于把相机位置变换到点云坐标系
+    // 点云坐标保持原始单位，归一化到 [-1, 1] 只通过模型矩阵完成
+    private float modelScale = 1.0f;
+    private final float[] modelCenter = new float[3];
+    private int modelCenterHandle;
+    private int modelScaleHandle;
+    private boolean modelUniformsDirty = true;
+
+    private int[] vbo = new int[4]; // 0: positions, 1: colors, 2: splat 模式的法线和半径, 3: 强度和分类
     private int vao;
 
+    // 缓冲区数据在后台准备、分帧上传，只绘制已经到达的点
+    private final GpuUploadManager uploadManager;
+    private GpuUploadManager.Upload positionUpload;
+    private GpuUploadManager.Upload colorUpload;
+    private GpuUploadManager.Upload splatUpload;
+    private GpuUploadManager.Upload attributeUpload;
+
+    // 按需渲染：只在视角或数据变化、惯性旋转或上传进行中时请求新帧
+    private final FrameScheduler frameScheduler = new FrameScheduler();
+    private final FlingAnimator fling = new FlingAnimator();
+    private final float[] flingDelta = new float[2];
+    private LongSupplier clock = System::nanoTime;
+
+    // 性能统计：CPU 分阶段耗时、GPU 耗时（设备支持计时查询时）、上传字节数和绘制调用数
+    private final FrameMetrics frameMetrics = new FrameMetrics();
+    private final GpuTimer gpuTimer;
+    private final LongConsumer gpuTimeRecorder = frameMetrics::recordGpuTime;
+
+    // 点预算：点按八叉树节点组织，每帧剔除视锥外的子树并按投影大小选择节点，最多绘制 pointBudget 个点
+    private PointOctree octree;
+    private final PointBudgetTraverser traverser = new PointBudgetTraverser();
+    private int[] drawNodes = new int[0];
+    private final DrawList drawList = new DrawList();
+    // 半透明模式（软边缘）按深度从远到近绘制：在上传管理器的工作线程中对可见点做基数排序，
+    // 结果上传到两个索引缓冲区中的后台那个，上传完成后交换；只在可见范围变化或相机移动超过阈值时重新排序
+    private final boolean depthSorted;
+    private final DepthSorter depthSorter = new DepthSorter();
+    private final int[] indexBuffers = new int[2];
+    private int frontIndex = -1;
+    private int frontIndexCount;
+    private int vaoIndexBuffer;
+    private GpuUploadManager.Upload sortUpload;
+    private int sortUploadCount;
+    private boolean sortInFlight;
+    private ByteBuffer sortBuffer;
+    private int[] sortedFirsts = new int[0];
+    private int[] sortedCounts = new int[0];
+    private final float[] sortedEye = new float[3];
+    private final float[] sortedDir = new float[3];
+    private final float[] eye = new float[3];
+    private final float[] viewDir = new float[3];
+
+    // edl 模式：点绘制到离屏帧缓冲后做眼穹光照合成
+    private final EyeDomeLighting edl;
+
+    // splat 模式：每个点绘制为按法线和半径定向的圆盘，属性在工作线程中由K近邻估计（多线程）后随点一起上传
+    private final SurfaceSplatting splatting;
+    private final Runnable drawRanges = this::drawRanges;
+
+    // 点拾取：八叉树就绪后在工作线程中建立 k-d 树索引，查询在GL线程中进行
+    private PointPicker picker;
+
+    // 设置仓库后，准备好的点数据和拾取索引按数据集共享，再次显示同一数据集时不重新构建
+    private PointCloudRepository repository;
+    private String datasetId;
+    // 正在使用的仓库条目，不再使用时释放引用（GL线程和UI线程都会访问）
+    private final List<String> heldKeys = new ArrayList<>();
+    private int viewportWidth;
+    private int viewportHeight;
+
+    // 流式模式：点云保存在磁盘上的八叉树中（见 OctreeConverter），节点按需加载并缓存
+    private StreamingPointCloud streaming;
+
     private float rotationX = 0.0f;
     private float rotationY = 0.0f;
     private float distance = 3.0f;
-    private float[] centerPoint = new float[3]; // 点云中心点
+    private final float[] centerPoint = new float[3]; // 观察点：模型矩阵把点云中心移到原点
 
     // 触摸控制相关
     private float previousX;
     private float previousY;
     private boolean isRotating = false;
     private final String mode;
+    // quality 模式的基础点大小（像素）
+    private static final float DEFAULT_POINT_SIZE = 3.0f;
+    // 透视投影的近、远平面
+    private static final float NEAR_PLANE = 1.0f;
+    private static final float FAR_PLANE = 100.0f;
+    // 背景（清除）颜色：深灰色
+    private static final float[] BACKGROUND = {0.1f, 0.1f, 0.1f, 1.0f};
 
     public PointCloudRenderer(Context context, PointCloudData data, String mode) {
-        this.context = context;
+        this(context.getAssets()::open, data, mode, new Gles30Api());
+        programs.setCacheDirectory(new File(context.getCacheDir(), "shaders"));
+    }
+
+    /**
+     * 流式显示 OctreeConverter 转换的点云，节点在后台按需加载
+     */
+    public PointCloudRenderer(Context context, OctreeIndex index, String mode) {
+        this(context, (PointCloudData) null, mode);
+        setOctree(new OctreeNodeLoader(index));
+    }
+
+    PointCloudRenderer(AssetSource assets, PointCloudData data, String mode, GlApi gl) {
+        this(assets, data, mode, gl, new GpuUploadManager(gl));
+    }
+
+    /**
+     * 测试用：注入GL实现和上传管理器，不需要 Context 和GL上下文
+     */
+    PointCloudRenderer(AssetSource assets, PointCloudData data, String mode, GlApi gl, GpuUploadManager uploadManager) {
+        this.gl = new CountingGlApi(gl);
+        this.programs = new ShaderProgramManager(this.gl, assets);
+        this.gpuTimer = new GpuTimer(this.gl);
+        this.uploadManager = uploadManager;
         this.pointCloudData = data;
         this.mode = mode;
+        this.depthSorted = isBlended(mode);
+        this.edl = "edl".equals(mode) ? new EyeDomeLighting(this.gl) : null;
+        this.splatting = "splat".equals(mode) ? new SurfaceSplatting(this.gl) : null;
+        uploadManager.setOnWorkAvailable(frameScheduler::requestFrame);
 
         // 初始化矩阵
-        Matrix.setIdentityM(modelMatrix, 0);
-        Matrix.setIdentityM(viewMatrix, 0);
-        Matrix.setIdentityM(projectionMatrix, 0);
+        MatrixMath.setIdentityM(modelMatrix, 0);
+        MatrixMath.setIdentityM(viewMatrix, 0);
+        MatrixMath.setIdentityM(projectionMatrix, 0);
 
-        // 归一化点云数据以便更好地显示
+        // 模型矩阵把点云归一化到 [-1, 1]，不修改共享的点数据
         if (pointCloudData != null) {
-            pointCloudData.normalizePoints();
             pointCloudData.logBounds();
-
-            // 计算中心点（归一化后应该是原点附近）
-            centerPoint[0] = (pointCloudData.minX + pointCloudData.maxX) / 2.0f;
-            centerPoint[1] = (pointCloudData.minY + pointCloudData.maxY) / 2.0f;
-            centerPoint[2] = (pointCloudData.minZ + pointCloudData.maxZ) / 2.0f;
+            setNormalization(pointCloudData.getCenterX(), pointCloudData.getCenterY(), pointCloudData.getCenterZ(),
+                    1.0f / pointCloudData.getHalfExtent());
         }
     }
 
+    /**
+     * 模型矩阵：先平移使 (centerX, centerY, centerZ) 位于原点，再均匀缩放 scale
+     */
+    private void setNormalization(float centerX, float centerY, float centerZ, float scale) {
+        MatrixMath.setIdentityM(modelMatrix, 0);
+        MatrixMath.scaleM(modelMatrix, 0, scale, scale, scale);
+        MatrixMath.translateM(modelMatrix, 0, -centerX, -centerY, -centerZ);
+        modelScale = scale;
+        modelCenter[0] = centerX;
+        modelCenter[1] = centerY;
+        modelCenter[2] = centerZ;
+        modelUniformsDirty = true;
+    }
+
+    /**
+     * 切换到流式模式，在渲染开始前调用；模型矩阵把根节点的立方体缩放到 [-1, 1]
+     */
+    void setOctree(OctreeNodeLoader loader) {
+        loader.setOnNodeLoaded(frameScheduler::requestFrame);
+        streaming = new StreamingPointCloud(gl, uploadManager, loader);
+        OctreeIndex index = loader.getIndex();
+        float half = index.getNodeSize(0) / 2.0f;
+        setNormalization(index.getNodeMinX(0) + half, index.getNodeMinY(0) + half, index.getNodeMinZ(0) + half,
+                half > 0 ? 1.0f / half : 1.0f);
+        frameScheduler.requestFrame();
+    }
+
+    StreamingPointCloud getStreaming() {
+        return streaming;
+    }
+
     public void rotate(float dx, float dy) {
+        applyRotation(dx, dy);
+        Log.d(TAG, "Rotation - X: " + rotationX + ", Y: " + rotationY);
+        frameScheduler.requestFrame();
+    }
+
+    private void applyRotation(float dx, float dy) {
         rotationY += dx * 0.5f;
         rotationX += dy * 0.5f;
 
         // 限制X轴旋转角度
         if (rotationX > 90.0f) rotationX = 90.0f;
         if (rotationX < -90.0f) rotationX = -90.0f;
+    }
 
-        Log.d(TAG, "Rotation - X: " + rotationX + ", Y: " + rotationY);
+    /**
+     * 手指按下：停止惯性旋转
+     */
+    public void startDrag() {
+        fling.cancel();
+    }
+
+    /**
+     * 拖动旋转，同时记录位移用于估计松手时的速度
+     */
+    public void drag(float dx, float dy, long timeNanos) {
+        fling.addMovement(dx, dy, timeNanos);
+        rotate(dx, dy);
+    }
+
+    /**
+     * 手指抬起：速度足够时开始惯性旋转，由每帧推进直到停止
+     */
+    public void endDrag(long timeNanos) {
+        if (fling.release(timeNanos)) {
+            frameScheduler.requestFrame();
+        }
     }
 
     public void zoom(float scaleFactor) {
@@ -89,62 +277,73 @@ public class PointCloudRenderer implements GLSurfaceView.Renderer {
 
         Log.d(TAG, "Zoom - scaleFactor: " + scaleFactor +
                 ", zoomFactor: " + zoomFactor + ", distance: " + distance);
+        frameScheduler.requestFrame();
     }
 
     public void resetView() {
         rotationX = 0.0f;
         rotationY = 0.0f;
         distance = 3.0f;
+        fling.cancel();
         Log.d(TAG, "View reset to default");
+        frameScheduler.requestFrame();
+    }
+
+    /**
+     * 在仓库中共享 datasetId 的派生数据（准备好的点数据、拾取索引），在渲染开始前调用
+     */
+    public void setRepository(PointCloudRepository repository, String datasetId) {
+        this.repository = repository;
+        this.datasetId = datasetId;
     }
 
     public void setPointCloudData(PointCloudData data) {
+        // 新数据不一定是仓库中的数据集，不再共享
+        datasetId = null;
         this.pointCloudData = data;
         if (pointCloudData != null) {
-            pointCloudData.normalizePoints();
             pointCloudData.logBounds();
-
-            // 重新计算中心点
-            centerPoint[0] = (pointCloudData.minX + pointCloudData.maxX) / 2.0f;
-            centerPoint[1] = (pointCloudData.minY + pointCloudData.maxY) / 2.0f;
-            centerPoint[2] = (pointCloudData.minZ + pointCloudData.maxZ) / 2.0f;
+            setNormalization(pointCloudData.getCenterX(), pointCloudData.getCenterY(), pointCloudData.getCenterZ(),
+                    1.0f / pointCloudData.getHalfExtent());
 
             // 重新设置缓冲区
             if (program != 0) {
                 setupBuffers();
             }
         }
+        frameScheduler.requestFrame();
     }
 
     @Override
-    public void onSurfaceCreated(GL10 gl, EGLConfig config) {
+    public void onSurfaceCreated(GL10 unused, EGLConfig config) {
         Log.i(TAG, "onSurfaceCreated");
 
+        // 暂停后恢复时是新的上下文，先丢弃旧上下文的缓冲区记录，之后 edl、splat 才创建新对象
+        onContextLost();
+
         // 设置深灰色背景
-        GLES30.glClearColor(0.1f, 0.1f, 0.1f, 1.0f);
+        gl.glClearColor(BACKGROUND[0], BACKGROUND[1], BACKGROUND[2], BACKGROUND[3]);
 
         // 启用深度测试
-        GLES30.glEnable(GLES30.GL_DEPTH_TEST);
-        GLES30.glDepthFunc(GLES30.GL_LEQUAL);
+        gl.glEnable(GLES30.GL_DEPTH_TEST);
+        gl.glDepthFunc(GLES30.GL_LEQUAL);
 
         // 启用点平滑（可选）
-//        GLES30.glEnable(GLES30.GL_POINT_SMOOTH);
-//        GLES30.glHint(GLES30.GL_POINT_SMOOTH_HINT, GLES30.GL_NICEST);
+//        gl.glEnable(GLES30.GL_POINT_SMOOTH);
+//        gl.glHint(GLES30.GL_POINT_SMOOTH_HINT, GLES30.GL_NICEST);
 
         // 混合设置（如果使用透明效果）
-        GLES30.glEnable(GLES30.GL_BLEND);
-        GLES30.glBlendFunc(GLES30.GL_SRC_ALPHA, GLES30.GL_ONE_MINUS_SRC_ALPHA);
+        gl.glEnable(GLES30.GL_BLEND);
+        gl.glBlendFunc(GLES30.GL_SRC_ALPHA, GLES30.GL_ONE_MINUS_SRC_ALPHA);
 
-        // 加载和创建着色器程序
-        String vertexShaderCode = ShaderUtils.readShaderFromAssets(context, "shader/" + mode + "/vertex_shader.glsl");
-        String fragmentShaderCode = ShaderUtils.readShaderFromAssets(context, "shader/" + mode + "/fragment_shader.glsl");
+        // GPU计时查询（需要 GL_EXT_disjoint_timer_query）
+        gpuTimer.init();
+        frameMetrics.reset();
 
-        if (vertexShaderCode == null || fragmentShaderCode == null) {
-            Log.e(TAG, "Failed to load shader code");
-            return;
-        }
-
-        program = ShaderUtils.createProgram(vertexShaderCode, fragmentShaderCode);
+        // 各显示模式共用一组着色器，通过宏定义生成变体；优先使用磁盘上缓存的程序二进制
+        programs.onContextCreated();
+        program = programs.getProgram("shader/point/vertex_shader.glsl", "shader/point/fragment_shader.glsl",
+                getShaderDefines(mode));
 
         if (program == 0) {
             Log.e(TAG, "Failed to create shader program");
@@ -152,20 +351,84 @@ public class PointCloudRenderer implements GLSurfaceView.Renderer {
         }
 
         // 获取uniform和attribute位置
-        positionHandle = GLES30.glGetAttribLocation(program, "aPosition");
-        colorHandle = GLES30.glGetAttribLocation(program, "aColor");
-        mvpMatrixHandle = GLES30.glGetUniformLocation(program, "uMVPMatrix");
+        positionHandle = gl.glGetAttribLocation(program, "aPosition");
+        colorHandle = gl.glGetAttribLocation(program, "aColor");
+        mvpMatrixHandle = gl.glGetUniformLocation(program, "uMVPMatrix");
+        colorModeHandle = gl.glGetUniformLocation(program, "uColorMode");
+        heightRangeHandle = gl.glGetUniformLocation(program, "uHeightRange");
+        modelCenterHandle = gl.glGetUniformLocation(program, "uModelCenter");
+        modelScaleHandle = gl.glGetUniformLocation(program, "uModelScale");
+        appliedColorMode = -1;
+        modelUniformsDirty = true;
 
         Log.i(TAG, "Shader attributes - position: " + positionHandle +
                 ", color: " + colorHandle + ", mvp: " + mvpMatrixHandle);
 
-        // 设置缓冲区
-        setupBuffers();
+        if (edl != null) {
+            edl.onContextCreated(programs);
+        }
+        if (splatting != null) {
+            splatting.onContextCreated(programs);
+            splatting.setBackground(BACKGROUND[0], BACKGROUND[1], BACKGROUND[2], BACKGROUND[3]);
+        }
+
+        // 点的着色器程序在表面生命周期内保持绑定（edl、splat 模式绘制后恢复）
+        gl.glUseProgram(program);
+        int pointSizeHandle = gl.glGetUniformLocation(program, "uPointSize");
+        if (pointSizeHandle >= 0) {
+            gl.glUniform1f(pointSizeHandle, DEFAULT_POINT_SIZE);
+        }
+
+        // 设置缓冲区；流式模式下旧上下文的节点随上下文释放，之后按需重新上传
+        if (streaming != null) {
+            uploadManager.cancelAll();
+            streaming.onContextCreated(positionHandle, colorHandle);
+        } else {
+            setupBuffers();
+        }
 
         // 检查OpenGL错误
         checkGLError("onSurfaceCreated");
     }
 
+    /**
+     * 显示模式对应的着色器宏定义，见 shader/point 中的说明
+     */
+    static String[] getShaderDefines(String mode) {
+        if (mode == null) return new String[0];
+        switch (mode) {
+            case "circle":
+                return new String[]{"ROUND"};
+            case "normal":
+                return new String[]{"POINT_SIZE_FIXED", "ROUND"};
+            case "smooth":
+                return new String[]{"ROUND", "EDGE_WIDTH 0.2"};
+            case "light":
+                return new String[]{"ROUND", "EDGE_WIDTH 0.3", "SHADE_LIGHT"};
+            case "quality":
+                return new String[]{"POINT_SIZE_UNIFORM", "HIGH_PRECISION", "ROUND", "EDGE_WIDTH 0.1", "SHADE_GLOW"};
+            case "edl":
+                // 不透明圆形点，明暗由屏幕空间的眼穹光照决定
+                return new String[]{"ROUND"};
+            case "splat":
+                // 面元由 SurfaceSplatting 的程序绘制，流式模式没有面元属性，绘制圆形点
+                return new String[]{"ROUND"};
+            case "fast":
+            default:
+                return new String[0];
+        }
+    }
+
+    /**
+     * 着色器输出软边缘透明度的模式，需要从远到近绘制才能正确混合
+     */
+    static boolean isBlended(String mode) {
+        for (String define : getShaderDefines(mode)) {
+            if (define.startsWith("EDGE_WIDTH")) return true;
+        }
+        return false;
+    }
+
     private void setupBuffers() {
         if (pointCloudData == null || pointCloudData.pointCount == 0) {
             Log.e(TAG, "No point cloud data available for buffer setup");
@@ -180,40 +443,96 @@ public class PointCloudRenderer implements GLSurfaceView.Renderer {
 
             // 生成VAO
             int[] vaoArray = new int[1];
-            GLES30.glGenVertexArrays(1, vaoArray, 0);
+            gl.glGenVertexArrays(1, vaoArray, 0);
             vao = vaoArray[0];
 
-            // 生成VBOs (2个：位置和颜色)
-            vbo = new int[2];
-            GLES30.glGenBuffers(2, vbo, 0);
+            // 生成VBOs：位置；有颜色时颜色（RGBA 各一字节），splat 模式的法线和半径，有强度或分类时的属性
+            withColors = pointCloudData.hasRgb();
+            withIntensity = pointCloudData.hasIntensity();
+            withClassification = pointCloudData.hasClassification();
+            boolean withAttributes = withIntensity || withClassification;
+            vbo = new int[4];
+            gl.glGenBuffers(1, vbo, 0);
+            if (withColors) gl.glGenBuffers(1, vbo, 1);
+            if (splatting != null) gl.glGenBuffers(1, vbo, 2);
+            if (withAttributes) gl.glGenBuffers(1, vbo, 3);
+            appliedColorMode = -1;
+            if (depthSorted) {
+                gl.glGenBuffers(2, indexBuffers, 0);
+            }
 
             // 绑定VAO
-            GLES30.glBindVertexArray(vao);
-
-            // 设置位置VBO
-            float[] positions = pointCloudData.getPointsArray();
-            GLES30.glBindBuffer(GLES30.GL_ARRAY_BUFFER, vbo[0]);
-            FloatBuffer positionBuffer = FloatBuffer.wrap(positions);
-            GLES30.glBufferData(GLES30.GL_ARRAY_BUFFER, positions.length * 4,
-                    positionBuffer, GLES30.GL_STATIC_DRAW);
-            GLES30.glEnableVertexAttribArray(positionHandle);
-            GLES30.glVertexAttribPointer(positionHandle, 3, GLES30.GL_FLOAT, false, 12, 0);
-
-            // 设置颜色VBO
-            float[] colors = pointCloudData.getColorsArray();
-            GLES30.glBindBuffer(GLES30.GL_ARRAY_BUFFER, vbo[1]);
-            FloatBuffer colorBuffer = FloatBuffer.wrap(colors);
-            GLES30.glBufferData(GLES30.GL_ARRAY_BUFFER, colors.length * 4,
-                    colorBuffer, GLES30.GL_STATIC_DRAW);
-            GLES30.glEnableVertexAttribArray(colorHandle);
-            GLES30.glVertexAttribPointer(colorHandle, 4, GLES30.GL_FLOAT, false, 16, 0);
+            gl.glBindVertexArray(vao);
+
+            // 属性指针只引用缓冲区对象，数据在后续帧中上传
+            gl.glBindBuffer(GLES30.GL_ARRAY_BUFFER, vbo[0]);
+            gl.glEnableVertexAttribArray(positionHandle);
+            gl.glVertexAttribPointer(positionHandle, 3, GLES30.GL_FLOAT, false, 12, 0);
+
+            if (withColors) {
+                gl.glBindBuffer(GLES30.GL_ARRAY_BUFFER, vbo[1]);
+                gl.glEnableVertexAttribArray(colorHandle);
+                gl.glVertexAttribPointer(colorHandle, 4, GLES30.GL_UNSIGNED_BYTE, true, 4, 0);
+            }
+            if (withAttributes) {
+                gl.glBindBuffer(GLES30.GL_ARRAY_BUFFER, vbo[3]);
+                gl.glEnableVertexAttribArray(ATTRIBUTE_LOCATION);
+                gl.glVertexAttribPointer(ATTRIBUTE_LOCATION, 4, GLES30.GL_UNSIGNED_BYTE, true, 4, 0);
+            }
+
+            if (splatting != null) {
+                gl.glBindBuffer(GLES30.GL_ARRAY_BUFFER, vbo[2]);
+                gl.glEnableVertexAttribArray(SurfaceSplatting.SPLAT_ATTRIBUTE);
+                gl.glVertexAttribPointer(SurfaceSplatting.SPLAT_ATTRIBUTE, 4, GLES30.GL_FLOAT, false, 16, 0);
+            }
+
+            // 在工作线程中构建八叉树并按节点顺序打包为直接缓冲区，粗糙的层级先上传
+            final PointCloudData data = pointCloudData;
+            final int positionVbo = vbo[0];
+            final int colorVbo = vbo[1];
+            final int splatVbo = vbo[2];
+            final int attributeVbo = vbo[3];
+            final String pointsKey = sharedKey("points", colorVbo != 0, splatVbo != 0, attributeVbo != 0);
+            final String pickerKey = sharedKey("picker");
+            octree = null;
+            uploadManager.prepare(
+                    () -> share(pointsKey, () -> new PreparedPoints(data, PointOctree.build(data), colorVbo != 0,
+                            splatVbo != 0, attributeVbo != 0), PreparedPoints::estimateBytes),
+                    prepared -> {
+                        hold(pointsKey);
+                        octree = prepared.octree;
+                        drawNodes = new int[octree.getNodeCount()];
+                        drawList.ensureCapacity(octree.getNodeCount());
+                        heightMin = prepared.heightMin;
+                        heightMax = prepared.heightMax;
+                        appliedColorMode = -1;
+                        // 准备结果可能被多个渲染器共享，上传使用各自的视图
+                        positionUpload = uploadManager.upload(positionVbo, prepared.positions.duplicate());
+                        if (prepared.colors != null) {
+                            colorUpload = uploadManager.upload(colorVbo, prepared.colors.duplicate());
+                        }
+                        if (prepared.splats != null) {
+                            splatUpload = uploadManager.upload(splatVbo, prepared.splats.duplicate());
+                        }
+                        if (prepared.attributes != null) {
+                            attributeUpload = uploadManager.upload(attributeVbo, prepared.attributes.duplicate());
+                        }
+                        // 拾取索引不影响显示，排在点数据之后构建
+                        final PointOctree built = octree;
+                        uploadManager.prepare(
+                                () -> share(pickerKey, () -> new PointPicker(built.getPositions(), built.getPointCount()),
+                                        PointPicker::estimateBytes),
+                                created -> {
+                                    hold(pickerKey);
+                                    picker = created;
+                                });
+                    });
 
             // 解绑
-            GLES30.glBindBuffer(GLES30.GL_ARRAY_BUFFER, 0);
-            GLES30.glBindVertexArray(0);
+            gl.glBindBuffer(GLES30.GL_ARRAY_BUFFER, 0);
+            gl.glBindVertexArray(0);
 
-            Log.i(TAG, "Buffers created successfully - VAO: " + vao +
-                    ", VBOs: " + vbo[0] + ", " + vbo[1]);
+            Log.i(TAG, "Buffers created - VAO: " + vao + ", VBOs: " + Arrays.toString(vbo) + ", uploading in background");
 
             // 检查OpenGL错误
             checkGLError("setupBuffers");
@@ -224,16 +543,236 @@ public class PointCloudRenderer implements GLSurfaceView.Renderer {
         }
     }
 
+    /**
+     * 仓库中当前数据集的派生数据的键，不共享时为 null
+     */
+    private String sharedKey(String kind, Object... params) {
+        return repository != null && datasetId != null ? PointCloudRepository.key(datasetId, kind, params) : null;
+    }
+
+    /**
+     * 工作线程：从仓库取共享的派生数据，没有时创建并加入；只在GL线程开始使用时（hold）才持有引用，
+     * 被取消的准备结果不会留下引用
+     */
+    private <T> T share(String key, PointCloudRepository.Factory<T> factory, ToLongFunction<? super T> sizer) {
+        if (key == null) return factory.create();
+        T value = repository.acquire(key, factory, sizer);
+        repository.release(key);
+        return value;
+    }
+
+    /**
+     * GL线程：持有正在使用的共享数据的引用；期间已被淘汰时不再加入仓库，只由本渲染器使用
+     */
+    private void hold(String key) {
+        if (key == null) return;
+        synchronized (heldKeys) {
+            if (repository.acquire(key) != null) heldKeys.add(key);
+        }
+    }
+
+    /**
+     * 释放持有的共享数据，之后仓库可以在内存紧张时淘汰它们；界面销毁时调用，可在任意线程中调用
+     */
+    public void releaseSharedData() {
+        synchronized (heldKeys) {
+            for (String key : heldKeys) {
+                repository.release(key);
+            }
+            heldKeys.clear();
+        }
+    }
+
+    /**
+     * 工作线程的准备结果：八叉树和按节点顺序打包的位置，以及需要时的颜色、面元属性、强度和分类
+     * 准备完成后只读，可在仓库中被多个渲染器共享
+     */
+    private static class PreparedPoints {
+        final PointOctree octree;
+        final ByteBuffer positions;
+        final ByteBuffer colors;
+        final ByteBuffer splats;
+        final ByteBuffer attributes;
+        float heightMin = Float.MAX_VALUE;
+        float heightMax = -Float.MAX_VALUE;
+
+        PreparedPoints(PointCloudData data, PointOctree octree, boolean withColors, boolean withSplats,
+                       boolean withAttributes) {
+            this.octree = octree;
+            float[] points = octree.getPositions();
+            positions = packFloats(points);
+            for (int i = 1; i < points.length; i += 3) {
+                heightMin = Math.min(heightMin, points[i]);
+                heightMax = Math.max(heightMax, points[i]);
+            }
+            colors = withColors ? packColors(octree.getColors()) : null;
+            attributes = withAttributes ? packAttributes(data, octree) : null;
+            if (withSplats) {
+                long start = System.nanoTime();
+                float[] attributes = SplatEstimator.estimate(octree.getPositions(), octree.getPositions().length / 3,
+                        Runtime.getRuntime().availableProcessors());
+                Log.i(TAG, String.format("Splat attributes estimated in %.1f ms", (System.nanoTime() - start) / 1e6));
+                splats = packFloats(attributes);
+            } else {
+                splats = null;
+            }
+        }
+
+        /**
+         * 打包的缓冲区加上八叉树的逐点数组（位置、颜色、输入编号）
+         */
+        long estimateBytes() {
+            long bytes = positions.capacity() + octree.getPointCount() * 32L;
+            if (colors != null) bytes += colors.capacity();
+            if (splats != null) bytes += splats.capacity();
+            if (attributes != null) bytes += attributes.capacity();
+            return bytes;
+        }
+    }
+
+    /**
+     * rgba 浮点颜色压缩为每点 4 字节
+     */
+    private static ByteBuffer packColors(float[] colors) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(colors.length).order(ByteOrder.nativeOrder());
+        for (float value : colors) {
+            buffer.put((byte) Math.max(0, Math.min(255, Math.round(value * 255))));
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * 按节点顺序打包每点的强度（按全部点的最终范围归一化）和分类编号，各一字节，补齐为 4 字节
+     */
+    private static ByteBuffer packAttributes(PointCloudData data, PointOctree octree) {
+        float minIntensity = Float.MAX_VALUE, maxIntensity = -Float.MAX_VALUE;
+        for (int i = 0; i < data.pointCount; i++) {
+            minIntensity = Math.min(minIntensity, data.getIntensity(i));
+            maxIntensity = Math.max(maxIntensity, data.getIntensity(i));
+        }
+        float scale = maxIntensity > minIntensity ? 255 / (maxIntensity - minIntensity) : 0;
+        int count = octree.getPointCount();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(count * 4).order(ByteOrder.nativeOrder());
+        for (int i = 0; i < count; i++) {
+            int source = octree.getSourceIndex(i);
+            buffer.put((byte) Math.round((data.getIntensity(source) - minIntensity) * scale));
+            buffer.put((byte) data.getClassification(source));
+            buffer.putShort((short) 0);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static ByteBuffer packFloats(float[] values) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(values.length * 4).order(ByteOrder.nativeOrder());
+        buffer.asFloatBuffer().put(values);
+        return buffer;
+    }
+
+    /**
+     * 所有顶点属性都已上传的点数
+     */
+    private int getUploadedPointCount() {
+        if (positionUpload == null) return 0;
+        int uploaded = positionUpload.getUploadedBytes() / 12;
+        if (colorUpload != null) uploaded = Math.min(uploaded, colorUpload.getUploadedBytes() / 4);
+        if (splatUpload != null) uploaded = Math.min(uploaded, splatUpload.getUploadedBytes() / 16);
+        if (attributeUpload != null) uploaded = Math.min(uploaded, attributeUpload.getUploadedBytes() / 4);
+        return uploaded;
+    }
+
+    /**
+     * 选择着色方式（COLOR_*），COLOR_AUTO 表示有颜色时用颜色，否则按高度；数据没有对应属性时同 COLOR_AUTO
+     * 只在下一帧更新 uniform，可在任意线程中调用
+     */
+    public void setColorMode(int colorMode) {
+        this.colorMode = colorMode;
+        frameScheduler.requestFrame();
+    }
+
+    /**
+     * 实际使用的着色方式；流式模式的节点颜色在转换时已确定
+     */
+    int getEffectiveColorMode() {
+        if (streaming != null) return COLOR_RGB;
+        int mode = colorMode;
+        boolean available = mode == COLOR_HEIGHT || mode == COLOR_RGB && withColors
+                || mode == COLOR_INTENSITY && withIntensity || mode == COLOR_CLASSIFICATION && withClassification;
+        if (available) return mode;
+        return withColors ? COLOR_RGB : COLOR_HEIGHT;
+    }
+
+    /**
+     * 着色方式、高度范围或模型变换变化时更新点程序（和面元程序）的 uniform，点程序需已绑定
+     */
+    private void applyDataUniforms() {
+        if (modelUniformsDirty) {
+            // 点大小按归一化后到中心的距离计算
+            gl.glUniform3f(modelCenterHandle, modelCenter[0], modelCenter[1], modelCenter[2]);
+            gl.glUniform1f(modelScaleHandle, modelScale);
+            modelUniformsDirty = false;
+        }
+        int mode = getEffectiveColorMode();
+        if (mode == appliedColorMode) return;
+        gl.glUniform1i(colorModeHandle, mode);
+        gl.glUniform2f(heightRangeHandle, heightMin, heightMax);
+        if (splatting != null) {
+            splatting.setColoring(mode, heightMin, heightMax);
+        }
+        appliedColorMode = mode;
+    }
+
+    /**
+     * 设置请求重绘的回调，例如 GLSurfaceView::requestRender，渲染模式应为 RENDERMODE_WHEN_DIRTY
+     */
+    public void setRenderRequester(Runnable requester) {
+        frameScheduler.setRequester(requester);
+    }
+
+    /**
+     * 每帧最多绘制的点数，默认 2M
+     */
+    public void setPointBudget(int pointBudget) {
+        traverser.setPointBudget(pointBudget);
+        frameScheduler.requestFrame();
+    }
+
+    PointBudgetTraverser getTraverser() {
+        return traverser;
+    }
+
+    FrameScheduler getFrameScheduler() {
+        return frameScheduler;
+    }
+
+    /**
+     * 测试用：替换推进惯性旋转的时钟，与 drag/endDrag 的时间戳同一时基
+     */
+    void setClock(LongSupplier clock) {
+        this.clock = clock;
+    }
+
     @Override
-    public void onSurfaceChanged(GL10 gl, int width, int height) {
+    public void onSurfaceChanged(GL10 unused, int width, int height) {
         Log.i(TAG, "onSurfaceChanged: " + width + "x" + height);
 
-        GLES30.glViewport(0, 0, width, height);
+        gl.glViewport(0, 0, width, height);
+        viewportWidth = width;
+        viewportHeight = height;
 
         float ratio = (float) width / height;
 
         // 设置透视投影
-        Matrix.frustumM(projectionMatrix, 0, -ratio, ratio, -1, 1, 1, 100);
+        MatrixMath.frustumM(projectionMatrix, 0, -ratio, ratio, -1, 1, NEAR_PLANE, FAR_PLANE);
+        traverser.setProjection(projectionMatrix, height);
+        if (edl != null) {
+            edl.setDepthRange(NEAR_PLANE, FAR_PLANE);
+            edl.resize(width, height);
+        }
+        if (splatting != null) {
+            splatting.resize(width, height);
+        }
 
         // 或者使用透视投影（可选）
         // Matrix.perspectiveM(projectionMatrix, 0, 45.0f, ratio, 0.1f, 100.0f);
@@ -242,70 +781,259 @@ public class PointCloudRenderer implements GLSurfaceView.Renderer {
     }
 
     @Override
-    public void onDrawFrame(GL10 gl) {
-        // 清除颜色和深度缓冲
-        GLES30.glClear(GLES30.GL_COLOR_BUFFER_BIT | GLES30.GL_DEPTH_BUFFER_BIT);
+    public void onDrawFrame(GL10 unused) {
+        long frameStart = clock.getAsLong();
+        frameMetrics.beginFrame(frameStart);
+        gl.resetCounters();
+
+        // 更新：推进惯性旋转，交付后台准备好的数据并分块上传，按点预算选择节点
+        frameScheduler.onFrameStart();
+        if (fling.isActive()) {
+            fling.step(frameStart, flingDelta);
+            applyRotation(flingDelta[0], flingDelta[1]);
+        }
+        uploadManager.processFrame();
+        updateCamera();
+        if (streaming != null) {
+            streaming.update(traverser);
+        } else {
+            traverser.traverse(octree);
+        }
+        frameMetrics.markUpdateEnd(clock.getAsLong());
 
-        if (pointCloudData == null || pointCloudData.pointCount == 0 || program == 0) {
-            return;
+        // 绘制
+        gpuTimer.begin();
+        if (edl != null) {
+            edl.begin();
+        }
+        drawScene();
+        if (edl != null) {
+            edl.end(program);
         }
+        gpuTimer.end();
+        gpuTimer.poll(gpuTimeRecorder);
+        frameMetrics.endFrame(clock.getAsLong(),
+                uploadManager.getLastFrameUploadedBytes() + gl.getUploadedBytes(), gl.getDrawCalls());
+
+        // 惯性旋转未停止时继续请求下一帧，上传进度由上传管理器单独请求
+        frameScheduler.onFrameEnd(fling.isActive());
+    }
 
+    private void updateCamera() {
         // 设置相机位置 - 围绕点云中心旋转
         float eyeX = (float) (distance * Math.sin(Math.toRadians(rotationY)) * Math.cos(Math.toRadians(rotationX)));
         float eyeY = (float) (distance * Math.sin(Math.toRadians(rotationX)));
         float eyeZ = (float) (distance * Math.cos(Math.toRadians(rotationY)) * Math.cos(Math.toRadians(rotationX)));
 
-        Matrix.setLookAtM(viewMatrix, 0,
+        eye[0] = eyeX;
+        eye[1] = eyeY;
+        eye[2] = eyeZ;
+        MatrixMath.setLookAtM(viewMatrix, 0,
                 eyeX, eyeY, eyeZ,           // 眼睛位置
                 centerPoint[0], centerPoint[1], centerPoint[2], // 观察点（点云中心）
                 0, 1, 0                     // 上向量
         );
 
-        // 应用模型变换（目前主要是旋转）
-        Matrix.setIdentityM(modelMatrix, 0);
-
         // 计算MVP矩阵: Projection * View * Model
-        Matrix.multiplyMM(mvpMatrix, 0, viewMatrix, 0, modelMatrix, 0);
-        Matrix.multiplyMM(mvpMatrix, 0, projectionMatrix, 0, mvpMatrix, 0);
+        MatrixMath.multiplyMM(modelViewMatrix, 0, viewMatrix, 0, modelMatrix, 0);
+        MatrixMath.multiplyMM(mvpMatrix, 0, projectionMatrix, 0, modelViewMatrix, 0);
+
+        // MVP 提取的平面在点云坐标系中，相机位置同样变换到点云坐标系
+        traverser.setCamera(eyeX / modelScale + modelCenter[0], eyeY / modelScale + modelCenter[1],
+                eyeZ / modelScale + modelCenter[2]);
+        traverser.setViewProjection(mvpMatrix);
+    }
+
+    private void drawScene() {
+        // 清除颜色和深度缓冲
+        gl.glClear(GLES30.GL_COLOR_BUFFER_BIT | GLES30.GL_DEPTH_BUFFER_BIT);
+
+        if (streaming != null) {
+            if (program != 0) {
+                applyDataUniforms();
+                gl.glUniformMatrix4fv(mvpMatrixHandle, 1, false, mvpMatrix, 0);
+                streaming.draw();
+                checkGLError("drawScene");
+            }
+            return;
+        }
 
-        // 使用着色器程序
-        GLES30.glUseProgram(program);
+        int uploaded = getUploadedPointCount();
+        int visibleCount = traverser.getVisibleCount();
+        if (pointCloudData == null || octree == null || uploaded == 0 || visibleCount == 0 || program == 0) {
+            return;
+        }
 
         // 设置MVP矩阵
-        GLES30.glUniformMatrix4fv(mvpMatrixHandle, 1, false, mvpMatrix, 0);
+        applyDataUniforms();
+        gl.glUniformMatrix4fv(mvpMatrixHandle, 1, false, mvpMatrix, 0);
+
+        // 按点数组中的位置排序，相邻节点（如兄弟节点）合并为一个绘制范围；只绘制已上传的部分
+        System.arraycopy(traverser.getVisibleNodes(), 0, drawNodes, 0, visibleCount);
+        Arrays.sort(drawNodes, 0, visibleCount);
+        drawList.reset();
+        for (int i = 0; i < visibleCount; i++) {
+            int start = octree.getNodeOffset(drawNodes[i]);
+            int end = Math.min(start + octree.getNodePointCount(drawNodes[i]), uploaded);
+            drawList.add(start, end - start);
+        }
 
-        // 绘制点
-        GLES30.glBindVertexArray(vao);
-        GLES30.glDrawArrays(GLES30.GL_POINTS, 0, pointCloudData.pointCount);
-        GLES30.glBindVertexArray(0);
+        gl.glBindVertexArray(vao);
+        if (splatting != null) {
+            splatting.draw(modelViewMatrix, projectionMatrix, drawRanges);
+        } else if (depthSorted && updateDepthOrder()) {
+            if (vaoIndexBuffer != indexBuffers[frontIndex]) {
+                vaoIndexBuffer = indexBuffers[frontIndex];
+                gl.glBindBuffer(GLES30.GL_ELEMENT_ARRAY_BUFFER, vaoIndexBuffer);
+            }
+            gl.glDrawElements(GLES30.GL_POINTS, frontIndexCount, GLES30.GL_UNSIGNED_INT, 0);
+        } else {
+            drawRanges();
+        }
+        gl.glBindVertexArray(0);
+        if (splatting != null) {
+            splatting.resolve(program);
+        }
 
         // 检查OpenGL错误
 
-        checkGLError("onDrawFrame");
-//        int error = GLES30.glGetError();
+        checkGLError("drawScene");
+//        int error = gl.glGetError();
 //        if (error != GLES30.GL_NO_ERROR) {
 //            Log.e(TAG, "OpenGL error in onDrawFrame: " + error);
 //        }
     }
 
+    private void drawRanges() {
+        for (int i = 0; i < drawList.size(); i++) {
+            gl.glDrawArrays(GLES30.GL_POINTS, drawList.getFirst(i), drawList.getCount(i));
+        }
+    }
+
+    /**
+     * 交换已上传完成的排序结果，需要时提交新的排序；返回是否有可用的排序结果
+     * 排序在上传管理器的（单线程）工作线程中进行，同一时刻最多一个排序或其索引上传在进行
+     */
+    private boolean updateDepthOrder() {
+        if (sortUpload != null && sortUpload.isComplete()) {
+            frontIndex = frontIndex == 0 ? 1 : 0;
+            frontIndexCount = sortUploadCount;
+            sortUpload = null;
+            sortInFlight = false;
+        }
+        if (!sortInFlight) {
+            float dx = centerPoint[0] - eye[0], dy = centerPoint[1] - eye[1], dz = centerPoint[2] - eye[2];
+            float length = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+            viewDir[0] = dx / length;
+            viewDir[1] = dy / length;
+            viewDir[2] = dz / length;
+            if (frontIndex < 0 || rangesChanged() || DepthSorter.cameraMoved(sortedEye, sortedDir,
+                    eye[0], eye[1], eye[2], viewDir[0], viewDir[1], viewDir[2])) {
+                requestDepthSort();
+            }
+        }
+        return frontIndex >= 0;
+    }
+
+    private boolean rangesChanged() {
+        if (sortedFirsts.length != drawList.size()) return true;
+        for (int i = 0; i < sortedFirsts.length; i++) {
+            if (sortedFirsts[i] != drawList.getFirst(i) || sortedCounts[i] != drawList.getCount(i)) return true;
+        }
+        return false;
+    }
+
+    private void requestDepthSort() {
+        // 每次排序使用新的范围数组，工作线程读取期间GL线程不会修改
+        int ranges = drawList.size();
+        final int[] firsts = new int[ranges];
+        final int[] counts = new int[ranges];
+        for (int i = 0; i < ranges; i++) {
+            firsts[i] = drawList.getFirst(i);
+            counts[i] = drawList.getCount(i);
+        }
+        sortedFirsts = firsts;
+        sortedCounts = counts;
+        System.arraycopy(eye, 0, sortedEye, 0, 3);
+        System.arraycopy(viewDir, 0, sortedDir, 0, 3);
+        final float[] positions = octree.getPositions();
+        // 点在点云坐标系中，相机位置变换过去；均匀缩放不改变方向
+        final float eyeX = eye[0] / modelScale + modelCenter[0];
+        final float eyeY = eye[1] / modelScale + modelCenter[1];
+        final float eyeZ = eye[2] / modelScale + modelCenter[2];
+        final float dirX = viewDir[0], dirY = viewDir[1], dirZ = viewDir[2];
+        final int back = frontIndex == 0 ? 1 : 0;
+        sortInFlight = true;
+        uploadManager.prepare(() -> {
+            int count = depthSorter.sortBackToFront(positions, firsts, counts, ranges,
+                    eyeX, eyeY, eyeZ, dirX, dirY, dirZ);
+            // 上一次的结果已上传完成，缓冲区可以复用
+            if (sortBuffer == null || sortBuffer.capacity() < count * 4) {
+                sortBuffer = ByteBuffer.allocateDirect(count * 4).order(ByteOrder.nativeOrder());
+            }
+            ByteBuffer buffer = sortBuffer;
+            buffer.clear();
+            buffer.asIntBuffer().put(depthSorter.getIndices(), 0, count);
+            buffer.limit(count * 4);
+            return buffer;
+        }, buffer -> {
+            sortUploadCount = buffer.limit() / 4;
+            sortUpload = uploadManager.upload(indexBuffers[back], buffer);
+        });
+    }
+
     private void checkGLError(String operation) {
         int error;
-        while ((error = GLES30.glGetError()) != GLES30.GL_NO_ERROR) {
+        while ((error = gl.glGetError()) != GLES30.GL_NO_ERROR) {
             Log.e(TAG, operation + ": OpenGL error: 0x" + Integer.toHexString(error));
         }
     }
 
+    /**
+     * 旧上下文的缓冲区随上下文销毁，新上下文会重新分配相同的整数（例如 edl、splat 的全屏VAO），
+     * 只把编号清零而不删除，其余状态同 cleanupBuffers()；数据在 setupBuffers() 中重新上传
+     */
+    private void onContextLost() {
+        vao = 0;
+        indexBuffers[0] = 0;
+        indexBuffers[1] = 0;
+        if (vbo != null) {
+            Arrays.fill(vbo, 0);
+        }
+        cleanupBuffers();
+    }
+
     private void cleanupBuffers() {
+        uploadManager.cancelAll();
+        positionUpload = null;
+        colorUpload = null;
+        splatUpload = null;
+        attributeUpload = null;
+        octree = null;
+        picker = null;
+        releaseSharedData();
         if (vao != 0) {
             int[] vaoArray = {vao};
-            GLES30.glDeleteVertexArrays(1, vaoArray, 0);
+            gl.glDeleteVertexArrays(1, vaoArray, 0);
             vao = 0;
         }
+        if (indexBuffers[0] != 0) {
+            gl.glDeleteBuffers(2, indexBuffers, 0);
+            indexBuffers[0] = 0;
+            indexBuffers[1] = 0;
+        }
+        frontIndex = -1;
+        frontIndexCount = 0;
+        vaoIndexBuffer = 0;
+        sortUpload = null;
+        sortInFlight = false;
+        sortedFirsts = new int[0];
+        sortedCounts = new int[0];
         if (vbo != null) {
-            if (vbo[0] != 0 || vbo[1] != 0) {
-                GLES30.glDeleteBuffers(2, vbo, 0);
-                vbo[0] = 0;
-                vbo[1] = 0;
+            if (vbo[0] != 0) {
+                // 未使用的槽为 0，删除时被忽略
+                gl.glDeleteBuffers(vbo.length, vbo, 0);
+                Arrays.fill(vbo, 0);
             }
         }
     }
@@ -313,24 +1041,94 @@ public class PointCloudRenderer implements GLSurfaceView.Renderer {
     public void cleanup() {
         Log.i(TAG, "Cleaning up OpenGL resources");
 
+        if (streaming != null) {
+            streaming.release();
+        }
         cleanupBuffers();
-
-        if (program != 0) {
-            GLES30.glDeleteProgram(program);
-            program = 0;
+        uploadManager.release();
+        gpuTimer.release();
+        if (edl != null) {
+            edl.release();
         }
+        if (splatting != null) {
+            splatting.release();
+        }
+
+        programs.release();
+        program = 0;
+    }
+
+    /**
+     * 拾取屏幕坐标 (x, y)（像素，原点在左上角）处的点：沿最近一帧的视线找 tolerancePixels 像素内最前面的点，
+     * 结果坐标与点云数据同一坐标系；点云或拾取索引尚未就绪（包括流式模式）时返回 null
+     * 在GL线程中调用（GLSurfaceView.queueEvent）
+     */
+    public PointPicker.Hit pick(float x, float y, float tolerancePixels) {
+        PointPicker current = picker;
+        if (current == null || viewportWidth == 0 || viewportHeight == 0) return null;
+
+        // 视线坐标系：前、右、上，与 updateCamera 中的 setLookAtM 相同
+        float fx = centerPoint[0] - eye[0], fy = centerPoint[1] - eye[1], fz = centerPoint[2] - eye[2];
+        float length = (float) Math.sqrt(fx * fx + fy * fy + fz * fz);
+        fx /= length;
+        fy /= length;
+        fz /= length;
+        float sx = -fz, sy = 0, sz = fx;  // f x (0, 1, 0)
+        length = (float) Math.sqrt(sx * sx + sz * sz);
+        if (length < 1e-6f) return null;
+        sx /= length;
+        sz /= length;
+        float ux = sy * fz - sz * fy, uy = sz * fx - sx * fz, uz = sx * fy - sy * fx;
+
+        // 近平面上 x 范围 [-ratio, ratio]、y 范围 [-1, 1]，与 onSurfaceChanged 中的 frustumM 相同
+        float ndcX = 2.0f * x / viewportWidth - 1.0f;
+        float ndcY = 1.0f - 2.0f * y / viewportHeight;
+        float ratio = (float) viewportWidth / viewportHeight;
+        float dx = fx * NEAR_PLANE + sx * ndcX * ratio + ux * ndcY;
+        float dy = fy * NEAR_PLANE + sy * ndcX * ratio + uy * ndcY;
+        float dz = fz * NEAR_PLANE + sz * ndcX * ratio + uz * ndcY;
+        length = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+        float tanTolerance = tolerancePixels * 2.0f / (viewportHeight * NEAR_PLANE);
+
+        // 射线变换到点云坐标系：模型矩阵只有均匀缩放和平移，方向不变
+        return current.pick(eye[0] / modelScale + modelCenter[0], eye[1] / modelScale + modelCenter[1],
+                eye[2] / modelScale + modelCenter[2], dx / length, dy / length, dz / length,
+                tanTolerance, NEAR_PLANE / modelScale);
+    }
+
+    /**
+     * 最近帧的性能统计，可在任意线程中调用 snapshot()
+     */
+    public FrameMetrics getFrameMetrics() {
+        return frameMetrics;
     }
 
     // 获取当前渲染状态信息
     public String getRenderInfo() {
+        if (streaming != null) {
+            return String.format(
+                    "Points: %,d | Drawn: %,d (%d nodes, %d loading, %d culled) | GPU: %.1f MB | Heap: %.1f MB",
+                    streaming.getIndex().getTotalPointCount(), streaming.getDrawnPoints(),
+                    traverser.getVisibleCount(), streaming.getLoadingCount(), traverser.getNodesCulled(),
+                    streaming.getGpuBytes() / 1048576.0, streaming.getHeapBytes() / 1048576.0);
+        }
         if (pointCloudData == null) {
             return "No point cloud data";
         }
 
-        return String.format(
-                "Points: %,d | Distance: %.1f | Rotation: (%.1f, %.1f)",
-                pointCloudData.pointCount, distance, rotationX, rotationY
+        String info = String.format(
+                "Points: %,d | Drawn: %,d (%d nodes, %d culled, %.2f ms) | Distance: %.1f | Rotation: (%.1f, %.1f)",
+                pointCloudData.pointCount, traverser.getVisiblePoints(), traverser.getVisibleCount(),
+                traverser.getNodesCulled(), traverser.getLastTraversalNanos() / 1e6, distance, rotationX, rotationY
         );
+        info += " | Color: " + COLOR_MODE_NAMES[getEffectiveColorMode()];
+        if (depthSorted) {
+            info += String.format(" | Sort: %.1f ms", depthSorter.getLastSortNanos() / 1e6);
+        }
+        if (splatting != null) {
+            info += splatting.isEnabled() ? " | Splats: 2-pass" : " | Splats: opaque";
+        }
+        return info;
     }
 
     // 处理触摸事件的方法
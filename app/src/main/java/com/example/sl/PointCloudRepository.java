@@ -0,0 +1,274 @@
+package com.example.sl;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * 点云仓库：在界面之间共享的数据集（点云）和派生数据（准备好的顶点、拾取索引、网格等），
+ * 键为数据集编号加类型和参数，见 key()；再次打开同一数据时直接复用，不重新加载或计算
+ * 条目带引用计数，使用中的条目不会被淘汰；未引用的派生数据可以重新计算，按最近使用顺序保留在字节预算内，
+ * 内存紧张时（onTrimMemory）按级别进一步淘汰；数据集需要重新加载，只在进程可能被回收时淘汰
+ * 线程安全；factory 在调用线程中执行，执行期间不持有锁
+ */
+public class PointCloudRepository {
+    // 与 android.content.ComponentCallbacks2 的 TRIM_MEMORY_* 相同
+    public static final int TRIM_MEMORY_RUNNING_MODERATE = 5;
+    public static final int TRIM_MEMORY_RUNNING_LOW = 10;
+    public static final int TRIM_MEMORY_RUNNING_CRITICAL = 15;
+    public static final int TRIM_MEMORY_UI_HIDDEN = 20;
+    public static final int TRIM_MEMORY_BACKGROUND = 40;
+    public static final int TRIM_MEMORY_MODERATE = 60;
+    public static final int TRIM_MEMORY_COMPLETE = 80;
+
+    public static final long DEFAULT_BUDGET_BYTES = 256L * 1024 * 1024;
+    // 数据集条目的类型
+    public static final String KIND_DATASET = "data";
+
+    private static PointCloudRepository instance;
+
+    /**
+     * 缺少条目时创建值，在调用线程中执行
+     */
+    public interface Factory<T> {
+        T create();
+    }
+
+    public interface EvictionListener {
+        void onEvicted(String key, Object value);
+    }
+
+    private static class Entry {
+        final Object value;
+        final long bytes;
+        final boolean dataset;
+        int refCount;
+
+        Entry(Object value, long bytes, boolean dataset) {
+            this.value = value;
+            this.bytes = bytes;
+            this.dataset = dataset;
+        }
+    }
+
+    // 访问顺序：最久未使用的在前
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // 同样的条目，用于不改变顺序的查找
+    private final HashMap<String, Entry> lookup = new HashMap<>();
+    // 派生数据的预算
+    private long budgetBytes;
+    private long bytes;
+    private long derivedBytes;
+    private long evictionCount;
+    private EvictionListener listener;
+
+    public static synchronized PointCloudRepository getInstance() {
+        if (instance == null) {
+            instance = new PointCloudRepository(DEFAULT_BUDGET_BYTES);
+        }
+        return instance;
+    }
+
+    public PointCloudRepository(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * 条目的键：数据集编号（不含 '/'）、类型和影响结果的参数，例如 key("a4", "mesh", 1000, 5000)
+     */
+    public static String key(String datasetId, String kind, Object... params) {
+        StringBuilder builder = new StringBuilder(datasetId).append('/').append(kind);
+        for (Object param : params) {
+            builder.append(':').append(param);
+        }
+        return builder.toString();
+    }
+
+    public static String datasetKey(String datasetId) {
+        return key(datasetId, KIND_DATASET);
+    }
+
+    public synchronized void setEvictionListener(EvictionListener listener) {
+        this.listener = listener;
+    }
+
+    public synchronized void setBudgetBytes(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+        evictDerived(budgetBytes);
+    }
+
+    public synchronized long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    /**
+     * 加入或替换数据集，不持有引用；替换时旧的数据及其派生数据（未引用的）一并移除，
+     * 旧数据集仍被引用时其引用不再计数
+     */
+    public synchronized void putDataset(String datasetId, PointCloudData data, long sizeBytes) {
+        removeDataset(datasetId);
+        String key = datasetKey(datasetId);
+        insert(key, new Entry(data, sizeBytes, true));
+    }
+
+    /**
+     * 返回已有的条目并加一个引用，没有时返回 null；使用结束后调用 release()
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T> T acquire(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) return null;
+        entry.refCount++;
+        return (T) entry.value;
+    }
+
+    /**
+     * 同 acquire(key)，没有时用 factory 创建并加入（派生数据），sizer 估计其占用的字节数
+     * 多个线程同时创建同一条目时只保留先加入的结果
+     */
+    public <T> T acquire(String key, Factory<T> factory, ToLongFunction<? super T> sizer) {
+        T value = acquire(key);
+        if (value != null) return value;
+        T created = factory.create();
+        long size = sizer.applyAsLong(created);
+        synchronized (this) {
+            value = acquire(key);
+            if (value != null) return value;
+            Entry entry = new Entry(created, size, false);
+            entry.refCount = 1;
+            insert(key, entry);
+            return created;
+        }
+    }
+
+    /**
+     * 释放 acquire() 得到的引用；不存在（已被 removeDataset 移除）时忽略
+     */
+    public synchronized void release(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null || entry.refCount == 0) return;
+        entry.refCount--;
+        evictDerived(budgetBytes);
+    }
+
+    public synchronized boolean contains(String key) {
+        return lookup.containsKey(key);
+    }
+
+    /**
+     * 当前的引用数，不存在时为 0；不改变使用顺序
+     */
+    public synchronized int getRefCount(String key) {
+        Entry entry = lookup.get(key);
+        return entry != null ? entry.refCount : 0;
+    }
+
+    /**
+     * 移除数据集和它的派生数据中未被引用的条目，使用中的条目在之后被释放并淘汰
+     */
+    public synchronized void removeDataset(String datasetId) {
+        String prefix = datasetId + '/';
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Entry> e = iterator.next();
+            if (!e.getKey().startsWith(prefix) || e.getValue().refCount > 0) continue;
+            iterator.remove();
+            remove(e.getKey(), e.getValue());
+        }
+    }
+
+    /**
+     * 系统内存紧张时调用（ComponentCallbacks2.onTrimMemory），级别越高淘汰越多：
+     * 运行中的轻度压力把未引用的派生数据收缩到预算的 3/4 或 1/2，界面不可见时同 1/2；
+     * 严重压力或进入后台列表时淘汰所有未引用的派生数据，保留数据集以便回来时直接显示；
+     * 进程可能被回收时（MODERATE 及以上）连同未引用的数据集一起淘汰
+     */
+    public synchronized void onTrimMemory(int level) {
+        if (level >= TRIM_MEMORY_MODERATE) {
+            evictDerived(0);
+            evictDatasets();
+        } else if (level >= TRIM_MEMORY_BACKGROUND || level == TRIM_MEMORY_RUNNING_CRITICAL) {
+            evictDerived(0);
+        } else if (level >= TRIM_MEMORY_RUNNING_LOW) {
+            evictDerived(budgetBytes / 2);
+        } else if (level >= TRIM_MEMORY_RUNNING_MODERATE) {
+            evictDerived(budgetBytes * 3 / 4);
+        }
+    }
+
+    /**
+     * 系统内存不足（ComponentCallbacks.onLowMemory）：淘汰所有未引用的条目
+     */
+    public synchronized void onLowMemory() {
+        evictDerived(0);
+        evictDatasets();
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * 派生数据占用的字节数，按预算淘汰的只是这一部分
+     */
+    public synchronized long getDerivedBytes() {
+        return derivedBytes;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    private void insert(String key, Entry entry) {
+        Entry old = entries.put(key, entry);
+        lookup.put(key, entry);
+        if (old != null) {
+            bytes -= old.bytes;
+            if (!old.dataset) derivedBytes -= old.bytes;
+        }
+        bytes += entry.bytes;
+        if (!entry.dataset) derivedBytes += entry.bytes;
+        evictDerived(budgetBytes);
+    }
+
+    /**
+     * 从最久未使用的开始淘汰未引用的派生数据，直到不超过 targetBytes
+     */
+    private void evictDerived(long targetBytes) {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (derivedBytes > targetBytes && iterator.hasNext()) {
+            Map.Entry<String, Entry> eldest = iterator.next();
+            Entry entry = eldest.getValue();
+            if (entry.refCount > 0 || entry.dataset) continue;
+            iterator.remove();
+            remove(eldest.getKey(), entry);
+        }
+    }
+
+    private void evictDatasets() {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Entry> e = iterator.next();
+            if (e.getValue().refCount > 0 || !e.getValue().dataset) continue;
+            iterator.remove();
+            remove(e.getKey(), e.getValue());
+        }
+    }
+
+    /**
+     * 已从 entries 中移除的条目：更新其余状态并通知淘汰回调
+     */
+    private void remove(String key, Entry entry) {
+        lookup.remove(key);
+        bytes -= entry.bytes;
+        if (!entry.dataset) derivedBytes -= entry.bytes;
+        evictionCount++;
+        if (listener != null) listener.onEvicted(key, entry.value);
+    }
+}
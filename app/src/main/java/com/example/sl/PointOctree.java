@@ -0,0 +1,342 @@
+package com.example.sl;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 点云八叉树（类似 Potree）：每个节点保存其范围内的一份均匀子采样，
+ * 每轴 gridResolution 个格子，每格最多一个点，其余点下放到子节点，越深越密；
+ * 点数不超过 maxLeafPoints 的节点成为叶子，保存全部剩余点
+ * 节点按广度优先编号，各节点的点按同样的顺序连续存放，节点对应 [offset, offset + count)，
+ * 子节点编号连续；按前缀上传时粗糙的层级先到达
+ */
+public class PointOctree implements OctreeHierarchy {
+    public static final int DEFAULT_GRID_RESOLUTION = 64;
+    public static final int DEFAULT_MAX_LEAF_POINTS = 32768;
+    static final int MAX_DEPTH = 20;
+
+    private final float[] positions;   // xyz
+    private final float[] colors;      // rgba
+    private final int[] sourceIndices; // 每个点在输入中的编号
+    private final int pointCount;
+
+    // 节点数据按数组存放（结构数组），遍历时不追指针
+    private final int nodeCount;
+    private final float[] nodeMin;     // 立方体最小角 xyz
+    private final float[] nodeSize;    // 立方体边长
+    private final int[] nodeLevel;
+    private final int[] nodeOffset;
+    private final int[] nodePoints;
+    private final int[] firstChild;    // 没有子节点时为 -1
+    private final int[] childCount;
+    private final int depth;
+
+    private PointOctree(float[] positions, float[] colors, int[] sourceIndices, int pointCount, List<BuildNode> order) {
+        this.positions = positions;
+        this.colors = colors;
+        this.sourceIndices = sourceIndices;
+        this.pointCount = pointCount;
+        nodeCount = order.size();
+        nodeMin = new float[nodeCount * 3];
+        nodeSize = new float[nodeCount];
+        nodeLevel = new int[nodeCount];
+        nodeOffset = new int[nodeCount];
+        nodePoints = new int[nodeCount];
+        firstChild = new int[nodeCount];
+        childCount = new int[nodeCount];
+        int maxLevel = 0;
+        for (int i = 0; i < nodeCount; i++) {
+            BuildNode node = order.get(i);
+            nodeMin[i * 3] = node.minX;
+            nodeMin[i * 3 + 1] = node.minY;
+            nodeMin[i * 3 + 2] = node.minZ;
+            nodeSize[i] = node.size;
+            nodeLevel[i] = node.level;
+            nodeOffset[i] = node.offset;
+            nodePoints[i] = node.count;
+            firstChild[i] = node.firstChild;
+            childCount[i] = node.childCount;
+            maxLevel = Math.max(maxLevel, node.level);
+        }
+        depth = maxLevel + 1;
+    }
+
+    public static PointOctree build(PointCloudData data) {
+        return build(data.getPointsArray(), data.getColorsArray(), data.pointCount,
+                DEFAULT_GRID_RESOLUTION, DEFAULT_MAX_LEAF_POINTS);
+    }
+
+    /**
+     * positions 为 xyz、colors 为 rgba，结果中的点重新排列，不修改输入
+     */
+    public static PointOctree build(float[] positions, float[] colors, int count, int gridResolution, int maxLeafPoints) {
+        // 包围立方体
+        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, minZ = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE, maxZ = -Float.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            float x = positions[i * 3], y = positions[i * 3 + 1], z = positions[i * 3 + 2];
+            minX = Math.min(minX, x);
+            maxX = Math.max(maxX, x);
+            minY = Math.min(minY, y);
+            maxY = Math.max(maxY, y);
+            minZ = Math.min(minZ, z);
+            maxZ = Math.max(maxZ, z);
+        }
+        if (count == 0) {
+            minX = minY = minZ = 0;
+            maxX = maxY = maxZ = 0;
+        }
+        float size = Math.max(maxX - minX, Math.max(maxY - minY, maxZ - minZ));
+        // 略微放大，最大值落在立方体内部
+        size = Math.max(size, 1e-6f) * 1.0001f;
+        return build(positions, colors, count, minX, minY, minZ, size, gridResolution, maxLeafPoints);
+    }
+
+    /**
+     * 在给定的根立方体中构建，所有点都必须位于立方体内（用于 OctreeConverter 中的分块）
+     */
+    static PointOctree build(float[] positions, float[] colors, int count, float minX, float minY, float minZ,
+                             float size, int gridResolution, int maxLeafPoints) {
+        if (gridResolution < 1 || gridResolution > (1 << 20)) {
+            throw new IllegalArgumentException("gridResolution out of range: " + gridResolution);
+        }
+        int[] all = new int[count];
+        for (int i = 0; i < count; i++) all[i] = i;
+        Builder builder = new Builder(positions, gridResolution, Math.max(1, maxLeafPoints));
+        BuildNode root = new BuildNode(0, minX, minY, minZ, size);
+        builder.build(root, all, count);
+
+        // 广度优先编号，同时确定每个节点在点数组中的位置
+        List<BuildNode> order = new ArrayList<>();
+        ArrayDeque<BuildNode> queue = new ArrayDeque<>();
+        queue.add(root);
+        int offset = 0;
+        while (!queue.isEmpty()) {
+            BuildNode node = queue.poll();
+            order.add(node);
+            node.offset = offset;
+            offset += node.count;
+            node.firstChild = -1;
+            if (node.children != null) {
+                for (BuildNode child : node.children) {
+                    if (child == null) continue;
+                    if (node.firstChild < 0) node.firstChild = order.size() + queue.size();
+                    node.childCount++;
+                    queue.add(child);
+                }
+            }
+        }
+
+        float[] sortedPositions = new float[count * 3];
+        float[] sortedColors = new float[count * 4];
+        int[] sourceIndices = new int[count];
+        for (BuildNode node : order) {
+            for (int i = 0; i < node.count; i++) {
+                int source = node.points[i];
+                int target = node.offset + i;
+                System.arraycopy(positions, source * 3, sortedPositions, target * 3, 3);
+                System.arraycopy(colors, source * 4, sortedColors, target * 4, 4);
+                sourceIndices[target] = source;
+            }
+            node.points = null;
+        }
+        return new PointOctree(sortedPositions, sortedColors, sourceIndices, count, order);
+    }
+
+    private static class BuildNode {
+        final int level;
+        final float minX, minY, minZ, size;
+        int[] points;
+        int count;
+        BuildNode[] children;
+        int offset;
+        int firstChild;
+        int childCount;
+
+        BuildNode(int level, float minX, float minY, float minZ, float size) {
+            this.level = level;
+            this.minX = minX;
+            this.minY = minY;
+            this.minZ = minZ;
+            this.size = size;
+        }
+    }
+
+    private static class Builder {
+        private static final long EMPTY = Long.MIN_VALUE;
+
+        private final float[] positions;
+        private final int gridResolution;
+        private final int maxLeafPoints;
+        // 子采样用的格子集合（开放寻址），按需扩大后复用
+        private long[] cells = new long[0];
+
+        Builder(float[] positions, int gridResolution, int maxLeafPoints) {
+            this.positions = positions;
+            this.gridResolution = gridResolution;
+            this.maxLeafPoints = maxLeafPoints;
+        }
+
+        void build(BuildNode node, int[] indices, int count) {
+            if (count <= maxLeafPoints || node.level >= MAX_DEPTH - 1) {
+                node.points = Arrays.copyOf(indices, count);
+                node.count = count;
+                return;
+            }
+
+            // 每个格子保留第一个点，其余按八分体分到子节点
+            long cellCapacity = Math.min((long) count, (long) gridResolution * gridResolution * gridResolution);
+            int tableSize = Integer.highestOneBit((int) Math.min(cellCapacity * 2, 1 << 30) - 1) << 1;
+            if (cells.length < tableSize) {
+                cells = new long[tableSize];
+            }
+            Arrays.fill(cells, 0, tableSize, EMPTY);
+            int mask = tableSize - 1;
+
+            float cellScale = gridResolution / node.size;
+            float half = node.size * 0.5f;
+            float midX = node.minX + half, midY = node.minY + half, midZ = node.minZ + half;
+            int[] kept = new int[Math.min(count, (int) cellCapacity)];
+            int keptCount = 0;
+            int[] octant = new int[count];
+            int[] octantCounts = new int[8];
+            for (int i = 0; i < count; i++) {
+                int p = indices[i];
+                float x = positions[p * 3], y = positions[p * 3 + 1], z = positions[p * 3 + 2];
+                long cx = clampCell((int) ((x - node.minX) * cellScale));
+                long cy = clampCell((int) ((y - node.minY) * cellScale));
+                long cz = clampCell((int) ((z - node.minZ) * cellScale));
+                long key = (cx << 42) | (cy << 21) | cz;
+                int slot = (int) (mix(key) & mask);
+                while (cells[slot] != EMPTY && cells[slot] != key) {
+                    slot = (slot + 1) & mask;
+                }
+                if (cells[slot] == EMPTY) {
+                    cells[slot] = key;
+                    kept[keptCount++] = p;
+                    octant[i] = -1;
+                } else {
+                    int o = (x >= midX ? 1 : 0) | (y >= midY ? 2 : 0) | (z >= midZ ? 4 : 0);
+                    octant[i] = o;
+                    octantCounts[o]++;
+                }
+            }
+            node.points = Arrays.copyOf(kept, keptCount);
+            node.count = keptCount;
+
+            int[][] childIndices = new int[8][];
+            for (int o = 0; o < 8; o++) {
+                if (octantCounts[o] > 0) childIndices[o] = new int[octantCounts[o]];
+                octantCounts[o] = 0;
+            }
+            for (int i = 0; i < count; i++) {
+                int o = octant[i];
+                if (o >= 0) childIndices[o][octantCounts[o]++] = indices[i];
+            }
+            octant = null;
+
+            node.children = new BuildNode[8];
+            for (int o = 0; o < 8; o++) {
+                if (childIndices[o] == null) continue;
+                BuildNode child = new BuildNode(node.level + 1,
+                        (o & 1) != 0 ? midX : node.minX,
+                        (o & 2) != 0 ? midY : node.minY,
+                        (o & 4) != 0 ? midZ : node.minZ, half);
+                node.children[o] = child;
+                build(child, childIndices[o], childIndices[o].length);
+                childIndices[o] = null;
+            }
+        }
+
+        private long clampCell(int c) {
+            return Math.max(0, Math.min(gridResolution - 1, c));
+        }
+
+        private static long mix(long key) {
+            key ^= key >>> 33;
+            key *= 0xff51afd7ed558ccdL;
+            key ^= key >>> 33;
+            return key;
+        }
+    }
+
+    public int getPointCount() {
+        return pointCount;
+    }
+
+    /**
+     * 按节点顺序排列的位置 xyz
+     */
+    public float[] getPositions() {
+        return positions;
+    }
+
+    /**
+     * 按节点顺序排列的颜色 rgba
+     */
+    public float[] getColors() {
+        return colors;
+    }
+
+    /**
+     * 按节点顺序排列的第 index 个点在输入中的编号，用于重排其它逐点属性
+     */
+    public int getSourceIndex(int index) {
+        return sourceIndices[index];
+    }
+
+    @Override
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    @Override
+    public float getNodeMinX(int node) {
+        return nodeMin[node * 3];
+    }
+
+    @Override
+    public float getNodeMinY(int node) {
+        return nodeMin[node * 3 + 1];
+    }
+
+    @Override
+    public float getNodeMinZ(int node) {
+        return nodeMin[node * 3 + 2];
+    }
+
+    @Override
+    public float getNodeSize(int node) {
+        return nodeSize[node];
+    }
+
+    @Override
+    public int getNodeLevel(int node) {
+        return nodeLevel[node];
+    }
+
+    public int getNodeOffset(int node) {
+        return nodeOffset[node];
+    }
+
+    @Override
+    public int getNodePointCount(int node) {
+        return nodePoints[node];
+    }
+
+    @Override
+    public int getFirstChild(int node) {
+        return firstChild[node];
+    }
+
+    @Override
+    public int getChildCount(int node) {
+        return childCount[node];
+    }
+}
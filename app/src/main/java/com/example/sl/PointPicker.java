@@ -0,0 +1,289 @@
+package com.example.sl;
+
+import java.util.Arrays;
+
+/**
+ * 点拾取：屏幕触摸点反投影得到的射线，在像素容差（换算为视锥角）内找沿射线最近、即最前面的点
+ * 点按中位数递归二分为隐式平衡 k-d 树（节点 i 的子节点为 2i+1、2i+2，叶子最多 LEAF_SIZE 个点），
+ * 每个节点保存包围盒；查询按射线进入扩展后包围盒的距离从近到远访问节点（最小堆），
+ * 比已找到的点更远的节点不再访问，通常只检测射线附近的几个叶子
+ * 构建后点数据只读；查询使用内部工作数组，多个线程的查询依次进行
+ */
+public class PointPicker {
+    static final int LEAF_SIZE = 32;
+
+    private final float[] positions;
+    private final int count;
+    // 树中第 i 个位置对应的点编号（positions 中的下标）
+    private final int[] order;
+    private final int levels;
+    // 每个节点的包围盒：minX, minY, minZ, maxX, maxY, maxZ
+    private final float[] bounds;
+
+    // 最小堆：节点编号和射线进入距离
+    private int[] heapNodes = new int[64];
+    private float[] heapDistances = new float[64];
+    private int heapSize;
+    private float slabNear, slabFar;
+    private int nodesVisited;
+    private long lastPickNanos;
+
+    /**
+     * 拾取结果，坐标与构建时的点同一坐标系
+     */
+    public static class Hit {
+        public final int index;
+        public final float x, y, z;
+        // 沿射线（单位方向）的距离
+        public final float distance;
+
+        Hit(int index, float x, float y, float z, float distance) {
+            this.index = index;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.distance = distance;
+        }
+    }
+
+    /**
+     * 对 positions（xyz）中前 count 个点建立索引，不复制也不修改点数据
+     */
+    public PointPicker(float[] positions, int count) {
+        this.positions = positions;
+        this.count = count;
+        order = new int[count];
+        for (int i = 0; i < count; i++) order[i] = i;
+        int depth = 0;
+        while ((long) count > (long) LEAF_SIZE << depth) depth++;
+        levels = depth + 1;
+        int nodeCount = count == 0 ? 0 : (1 << levels) - 1;
+        bounds = new float[nodeCount * 6];
+        for (int level = 0; level < levels && count > 0; level++) {
+            int first = (1 << level) - 1;
+            for (int k = 0; k < 1 << level; k++) {
+                buildNode(first + k, level, k);
+            }
+        }
+    }
+
+    private int rangeBegin(int level, int k) {
+        return (int) ((long) count * k >> level);
+    }
+
+    private void buildNode(int node, int level, int k) {
+        int begin = rangeBegin(level, k);
+        int end = rangeBegin(level, k + 1);
+        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, minZ = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE, maxZ = -Float.MAX_VALUE;
+        for (int i = begin; i < end; i++) {
+            int p = order[i] * 3;
+            minX = Math.min(minX, positions[p]);
+            minY = Math.min(minY, positions[p + 1]);
+            minZ = Math.min(minZ, positions[p + 2]);
+            maxX = Math.max(maxX, positions[p]);
+            maxY = Math.max(maxY, positions[p + 1]);
+            maxZ = Math.max(maxZ, positions[p + 2]);
+        }
+        int b = node * 6;
+        bounds[b] = minX;
+        bounds[b + 1] = minY;
+        bounds[b + 2] = minZ;
+        bounds[b + 3] = maxX;
+        bounds[b + 4] = maxY;
+        bounds[b + 5] = maxZ;
+        if (level == levels - 1 || end - begin < 2) return;
+
+        // 沿包围盒最长的轴按中位数划分，左右两半即为两个子节点
+        float extentX = maxX - minX, extentY = maxY - minY, extentZ = maxZ - minZ;
+        int axis = extentX >= extentY && extentX >= extentZ ? 0 : extentY >= extentZ ? 1 : 2;
+        select(begin, end, rangeBegin(level + 1, 2 * k + 1), axis);
+    }
+
+    /**
+     * 快速选择：重排 order[begin, end)，使第 nth 个位置之前的点在 axis 上都不大于之后的点
+     */
+    private void select(int begin, int end, int nth, int axis) {
+        int lo = begin, hi = end - 1;
+        while (lo < hi) {
+            float pivot = key(lo + (hi - lo) / 2, axis);
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (key(i, axis) < pivot) i++;
+                while (key(j, axis) > pivot) j--;
+                if (i <= j) {
+                    int swap = order[i];
+                    order[i] = order[j];
+                    order[j] = swap;
+                    i++;
+                    j--;
+                }
+            }
+            if (nth <= j) {
+                hi = j;
+            } else if (nth >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private float key(int i, int axis) {
+        return positions[order[i] * 3 + axis];
+    }
+
+    public int getPointCount() {
+        return count;
+    }
+
+    /**
+     * 索引本身占用的字节数，不含构建时传入（共享）的点数据
+     */
+    public long estimateBytes() {
+        return order.length * 4L + bounds.length * 4L;
+    }
+
+    /**
+     * 射线 (origin, 单位方向 dir) 上距离不小于 minDistance 的点中，与射线夹角的正切不超过 tanTolerance、
+     * 沿射线最近的点；没有时返回 null
+     */
+    public synchronized Hit pick(float originX, float originY, float originZ, float dirX, float dirY, float dirZ,
+                    float tanTolerance, float minDistance) {
+        long start = System.nanoTime();
+        nodesVisited = 0;
+        if (count == 0) {
+            lastPickNanos = System.nanoTime() - start;
+            return null;
+        }
+
+        float toleranceSq = tanTolerance * tanTolerance;
+        float bestDistance = Float.MAX_VALUE;
+        int best = -1;
+        int leafFirst = (1 << (levels - 1)) - 1;
+
+        heapSize = 0;
+        float enter = enterDistance(0, originX, originY, originZ, dirX, dirY, dirZ, tanTolerance, minDistance);
+        if (enter < Float.MAX_VALUE) push(0, enter);
+        while (heapSize > 0) {
+            if (heapDistances[0] >= bestDistance) break;
+            int node = pop();
+            nodesVisited++;
+
+            if (node >= leafFirst) {
+                int level = 31 - Integer.numberOfLeadingZeros(node + 1);
+                int k = node + 1 - (1 << level);
+                int end = rangeBegin(level, k + 1);
+                for (int i = rangeBegin(level, k); i < end; i++) {
+                    int p = order[i] * 3;
+                    float vx = positions[p] - originX, vy = positions[p + 1] - originY, vz = positions[p + 2] - originZ;
+                    float t = vx * dirX + vy * dirY + vz * dirZ;
+                    if (t < minDistance || t >= bestDistance) continue;
+                    float perpendicularSq = vx * vx + vy * vy + vz * vz - t * t;
+                    if (perpendicularSq <= t * t * toleranceSq) {
+                        bestDistance = t;
+                        best = order[i];
+                    }
+                }
+                continue;
+            }
+
+            for (int child = 2 * node + 1; child <= 2 * node + 2; child++) {
+                float childEnter = enterDistance(child, originX, originY, originZ, dirX, dirY, dirZ,
+                        tanTolerance, minDistance);
+                if (childEnter < bestDistance) push(child, childEnter);
+            }
+        }
+        lastPickNanos = System.nanoTime() - start;
+        if (best < 0) return null;
+        return new Hit(best, positions[best * 3], positions[best * 3 + 1], positions[best * 3 + 2], bestDistance);
+    }
+
+    /**
+     * 射线进入节点包围盒（按到相机最远处的容差半径扩展）的距离，不相交时返回 Float.MAX_VALUE
+     * 容差圆锥内的点在射线上的投影一定落在扩展后的包围盒内，因此该距离是节点内点距离的下界
+     */
+    private float enterDistance(int node, float originX, float originY, float originZ,
+                                float dirX, float dirY, float dirZ, float tanTolerance, float minDistance) {
+        int b = node * 6;
+        if (bounds[b] > bounds[b + 3]) return Float.MAX_VALUE;
+        float halfX = (bounds[b + 3] - bounds[b]) * 0.5f;
+        float halfY = (bounds[b + 4] - bounds[b + 1]) * 0.5f;
+        float halfZ = (bounds[b + 5] - bounds[b + 2]) * 0.5f;
+        float cx = bounds[b] + halfX - originX, cy = bounds[b + 1] + halfY - originY, cz = bounds[b + 2] + halfZ - originZ;
+        float farthest = (float) Math.sqrt(cx * cx + cy * cy + cz * cz)
+                + (float) Math.sqrt(halfX * halfX + halfY * halfY + halfZ * halfZ);
+        float margin = farthest * tanTolerance;
+
+        slabNear = minDistance;
+        slabFar = farthest + margin;
+        if (!clipSlab(cx, halfX + margin, dirX) || !clipSlab(cy, halfY + margin, dirY)
+                || !clipSlab(cz, halfZ + margin, dirZ)) {
+            return Float.MAX_VALUE;
+        }
+        return slabNear;
+    }
+
+    /**
+     * 把 [slabNear, slabFar] 限制在射线位于一个轴向平板（中心相对射线起点 center，半宽 half）内的部分，返回是否非空
+     */
+    private boolean clipSlab(float center, float half, float dir) {
+        if (Math.abs(dir) < 1e-12f) return Math.abs(center) <= half;
+        float t0 = (center - half) / dir, t1 = (center + half) / dir;
+        if (t0 > t1) {
+            float swap = t0;
+            t0 = t1;
+            t1 = swap;
+        }
+        slabNear = Math.max(slabNear, t0);
+        slabFar = Math.min(slabFar, t1);
+        return slabNear <= slabFar;
+    }
+
+    private void push(int node, float distance) {
+        if (heapSize == heapNodes.length) {
+            heapNodes = Arrays.copyOf(heapNodes, heapSize * 2);
+            heapDistances = Arrays.copyOf(heapDistances, heapSize * 2);
+        }
+        int i = heapSize++;
+        while (i > 0) {
+            int parent = (i - 1) >> 1;
+            if (heapDistances[parent] <= distance) break;
+            heapNodes[i] = heapNodes[parent];
+            heapDistances[i] = heapDistances[parent];
+            i = parent;
+        }
+        heapNodes[i] = node;
+        heapDistances[i] = distance;
+    }
+
+    private int pop() {
+        int top = heapNodes[0];
+        int lastNode = heapNodes[--heapSize];
+        float lastDistance = heapDistances[heapSize];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) break;
+            if (child + 1 < heapSize && heapDistances[child + 1] < heapDistances[child]) child++;
+            if (heapDistances[child] >= lastDistance) break;
+            heapNodes[i] = heapNodes[child];
+            heapDistances[i] = heapDistances[child];
+            i = child;
+        }
+        heapNodes[i] = lastNode;
+        heapDistances[i] = lastDistance;
+        return top;
+    }
+
+    /**
+     * 上一次查询访问的节点数
+     */
+    public synchronized int getNodesVisited() {
+        return nodesVisited;
+    }
+
+    public synchronized long getLastPickNanos() {
+        return lastPickNanos;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.sl;
+
+import java.io.IOException;
+
+/**
+ * 可重复读取的点流，用于不能整体放入内存的点云
+ */
+public interface PointSource {
+
+    interface PointVisitor {
+        /**
+         * @param rgb 点的颜色 [r, g, b]，没有颜色时为 null；数组可能被复用，需要时请拷贝
+         */
+        void onPoint(float x, float y, float z, float[] rgb);
+    }
+
+    /**
+     * 依次访问所有点，每次调用都从头开始
+     */
+    void read(PointVisitor visitor) throws IOException;
+
+    /**
+     * 把内存中的点云包装成点流
+     */
+    static PointSource of(PointCloudData pointCloud) {
+        return visitor -> {
+            for (int i = 0; i < pointCloud.pointCount; i++) {
+                float[] point = pointCloud.points.get(i);
+                visitor.onPoint(point[0], point[1], point[2], pointCloud.colors.get(i));
+            }
+        };
+    }
+}
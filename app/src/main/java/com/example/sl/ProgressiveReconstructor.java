@@ -0,0 +1,291 @@
+package com.example.sl;
+
+import android.util.Log;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * 渐进式表面重建 - 先用少量点快速生成粗糙网格，再逐级加入更多点细化
+ * 各级之间复用空间索引和已计算的法线，每一级都是一个独立可用、经过 MeshPostProcessor 后处理的 MeshData
+ */
+public class ProgressiveReconstructor {
+    private static final String TAG = "ProgressiveReconstructor";
+
+    static final int NORMAL_NEIGHBORS = 10;
+    static final int TRIANGLE_NEIGHBORS = 8;
+    // 相邻邻居的夹角超过该值时认为是边界，不连接
+    private static final double MAX_GAP_ANGLE = Math.PI * 0.6;
+
+    /**
+     * 每完成一级细化时回调（在重建线程中调用）
+     */
+    public interface LevelListener {
+        void onLevel(int level, int levelCount, MeshData meshData);
+    }
+
+    private final PointCloudData pointCloud;
+    private final int[] levelSizes;
+
+    // 各级之间复用的状态
+    private int[] order;
+    private SpatialGrid grid;
+    private float[] normals;
+    private float viewX, viewY, viewZ;
+    private int currentLevel = 0;
+
+    public ProgressiveReconstructor(PointCloudData pointCloud, int... levelSizes) {
+        this.pointCloud = pointCloud;
+        this.levelSizes = levelSizes;
+    }
+
+    /**
+     * 根据点数自动选择各级点数，每级约为上一级的4倍
+     */
+    public static int[] defaultLevels(int pointCount) {
+        int[] candidates = {1000, 5000, 20000, 80000};
+        int[] levels = new int[candidates.length];
+        int count = 0;
+        for (int size : candidates) {
+            int level = Math.min(size, pointCount);
+            if (count == 0 || level > levels[count - 1]) {
+                levels[count++] = level;
+            }
+        }
+        return Arrays.copyOf(levels, count);
+    }
+
+    public int getLevelCount() {
+        return levelSizes.length;
+    }
+
+    public boolean hasMoreLevels() {
+        return currentLevel < levelSizes.length;
+    }
+
+    /**
+     * 依次生成所有级别，每级通过 listener 输出，返回最精细的网格
+     */
+    public MeshData reconstruct(ReconstructionMonitor monitor, LevelListener listener) {
+        MeshData meshData = null;
+        while (hasMoreLevels()) {
+            int level = currentLevel;
+            meshData = refine(monitor);
+            if (listener != null) {
+                listener.onLevel(level, levelSizes.length, meshData);
+            }
+        }
+        return meshData;
+    }
+
+    /**
+     * 生成下一级网格
+     */
+    public MeshData refine(ReconstructionMonitor monitor) {
+        if (!hasMoreLevels()) {
+            throw new IllegalStateException("All levels have been reconstructed");
+        }
+
+        long startTime = System.currentTimeMillis();
+        if (grid == null) {
+            initialize();
+        }
+
+        int from = grid.size();
+        int to = Math.min(levelSizes[currentLevel], pointCloud.pointCount);
+
+        // 1. 把新增的取样点加入空间索引
+        for (int i = from; i < to; i++) {
+            if ((i & 0xFFF) == 0) {
+                monitor.checkCancelled();
+                monitor.onProgress(ReconstructionStage.SAMPLE, (float) (i - from) / (to - from));
+            }
+            float[] point = pointCloud.points.get(order[i]);
+            grid.add(point[0], point[1], point[2]);
+        }
+
+        // 2. 只为新增的点估计法线，之前各级的法线直接复用
+        if (normals.length < to * 3) {
+            normals = Arrays.copyOf(normals, to * 3);
+        }
+        int[] neighbors = new int[NORMAL_NEIGHBORS];
+        float[] distSq = new float[NORMAL_NEIGHBORS];
+        float[] normal = new float[3];
+        for (int i = from; i < to; i++) {
+            if ((i & 0xFF) == 0) {
+                monitor.checkCancelled();
+                monitor.onProgress(ReconstructionStage.NORMALS, (float) (i - from) / (to - from));
+            }
+            int found = grid.findNearest(grid.getX(i), grid.getY(i), grid.getZ(i), NORMAL_NEIGHBORS, i, neighbors, distSq);
+            NormalEstimator.estimate(grid, i, neighbors, found, viewX, viewY, viewZ, normal);
+            normals[i * 3] = normal[0];
+            normals[i * 3 + 1] = normal[1];
+            normals[i * 3 + 2] = normal[2];
+        }
+
+        // 3. 顶点和法线直接写入网格，再对当前所有点重新三角化
+        MeshData.Builder builder = new MeshData.Builder(to, to * 2);
+        for (int i = 0; i < to; i++) {
+            builder.addVertex(grid.getX(i), grid.getY(i), grid.getZ(i),
+                    normals[i * 3], normals[i * 3 + 1], normals[i * 3 + 2]);
+        }
+        triangulate(to, builder, monitor);
+
+        // 4. 清理伞形三角化留下的重复、非流形三角形和没有用到的点，按顶点缓存重排后打包
+        // 较粗的级别很快被替换，只为最精细的一级生成细节层次
+        monitor.onProgress(ReconstructionStage.PACK, 0.0f);
+        MeshData meshData = MeshPostProcessor.postProcess(builder.build(), MeshCleaner.suggestEpsilon(pointCloud),
+                currentLevel == levelSizes.length - 1);
+
+        Log.i(TAG, String.format("Level %d/%d completed in %d ms: %d vertices, %d triangles",
+                currentLevel + 1, levelSizes.length, (System.currentTimeMillis() - startTime),
+                meshData.getVertexCount(), meshData.getTriangleCount()));
+        currentLevel++;
+        return meshData;
+    }
+
+    private void initialize() {
+        int count = pointCloud.pointCount;
+
+        // 随机排列，每一级的取样都是下一级取样的子集
+        order = new int[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Random random = new Random(42);
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+
+        int finalSize = Math.min(levelSizes[levelSizes.length - 1], count);
+        grid = new SpatialGrid(SpatialGrid.suggestCellSize(pointCloud, finalSize, 2.0f), finalSize);
+        normals = new float[Math.min(levelSizes[0], count) * 3];
+
+        // 法线朝向包围盒外侧的一个观察点
+        viewX = (pointCloud.minX + pointCloud.maxX) / 2.0f;
+        viewY = pointCloud.maxY + (pointCloud.maxY - pointCloud.minY);
+        viewZ = pointCloud.maxZ + (pointCloud.maxZ - pointCloud.minZ);
+    }
+
+    /**
+     * 伞形三角化：对每个点生成 umbrella() 的三角形，去掉重复的
+     */
+    private void triangulate(int pointCount, MeshData.Builder builder, ReconstructionMonitor monitor) {
+        Set<Long> emitted = new HashSet<>();
+
+        int[] neighbors = new int[TRIANGLE_NEIGHBORS];
+        float[] distSq = new float[TRIANGLE_NEIGHBORS];
+        double[] angles = new double[TRIANGLE_NEIGHBORS];
+        int[] pairs = new int[TRIANGLE_NEIGHBORS * 2];
+
+        for (int i = 0; i < pointCount; i++) {
+            if ((i & 0xFF) == 0) {
+                monitor.checkCancelled();
+                monitor.onProgress(ReconstructionStage.TRIANGULATE, (float) i / pointCount);
+            }
+
+            int triangles = umbrella(grid, normals, i, neighbors, distSq, angles, pairs);
+            for (int t = 0; t < triangles; t++) {
+                int a = pairs[t * 2], b = pairs[t * 2 + 1];
+                if (emitted.add(triangleKey(i, a, b))) {
+                    builder.addTriangle(i, a, b);
+                }
+            }
+        }
+    }
+
+    /**
+     * 点 i 的伞形三角形：把 K 近邻按切平面上的角度排序，相邻两个邻居与该点组成三角形
+     * 每个三角形 (i, a, b) 的 a, b 依次写入 outPairs（长度至少 2 * TRIANGLE_NEIGHBORS），返回三角形个数
+     * neighbors、distSq、angles 为工作数组，长度为 TRIANGLE_NEIGHBORS
+     */
+    static int umbrella(SpatialGrid grid, float[] normals, int i,
+                        int[] neighbors, float[] distSq, double[] angles, int[] outPairs) {
+        float px = grid.getX(i), py = grid.getY(i), pz = grid.getZ(i);
+        int found = grid.findNearest(px, py, pz, TRIANGLE_NEIGHBORS, i, neighbors, distSq);
+        if (found < 2) return 0;
+
+        // 切平面基向量 u, v（u × v = n）
+        float nx = normals[i * 3], ny = normals[i * 3 + 1], nz = normals[i * 3 + 2];
+        float ux, uy, uz;
+        if (Math.abs(nx) < 0.9f) {
+            ux = 0;
+            uy = nz;
+            uz = -ny;
+        } else {
+            ux = -nz;
+            uy = 0;
+            uz = nx;
+        }
+        float uLength = (float) Math.sqrt(ux * ux + uy * uy + uz * uz);
+        ux /= uLength;
+        uy /= uLength;
+        uz /= uLength;
+        float vx = ny * uz - nz * uy;
+        float vy = nz * ux - nx * uz;
+        float vz = nx * uy - ny * ux;
+
+        for (int j = 0; j < found; j++) {
+            int n = neighbors[j];
+            float dx = grid.getX(n) - px, dy = grid.getY(n) - py, dz = grid.getZ(n) - pz;
+            angles[j] = Math.atan2(dx * vx + dy * vy + dz * vz, dx * ux + dy * uy + dz * uz);
+        }
+        sortByAngle(neighbors, angles, found);
+
+        // 边长上限：邻居中位距离的2倍
+        float maxEdgeSq = 4.0f * distSq[found / 2];
+
+        int count = 0;
+        for (int j = 0; j < found; j++) {
+            int next = (j + 1) % found;
+            double gap = angles[next] - angles[j];
+            if (gap < 0) gap += Math.PI * 2;
+            if (gap > MAX_GAP_ANGLE || gap <= 0) continue;
+
+            int a = neighbors[j];
+            int b = neighbors[next];
+            if (edgeLengthSq(grid, a, b) > maxEdgeSq) continue;
+            outPairs[count * 2] = a;
+            outPairs[count * 2 + 1] = b;
+            count++;
+        }
+        return count;
+    }
+
+    private static float edgeLengthSq(SpatialGrid grid, int a, int b) {
+        float dx = grid.getX(a) - grid.getX(b);
+        float dy = grid.getY(a) - grid.getY(b);
+        float dz = grid.getZ(a) - grid.getZ(b);
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    private static void sortByAngle(int[] indices, double[] angles, int count) {
+        for (int i = 1; i < count; i++) {
+            double angle = angles[i];
+            int index = indices[i];
+            int j = i - 1;
+            while (j >= 0 && angles[j] > angle) {
+                angles[j + 1] = angles[j];
+                indices[j + 1] = indices[j];
+                j--;
+            }
+            angles[j + 1] = angle;
+            indices[j + 1] = index;
+        }
+    }
+
+    /**
+     * 与顶点顺序无关的三角形键值
+     */
+    static long triangleKey(int a, int b, int c) {
+        int min = Math.min(a, Math.min(b, c));
+        int max = Math.max(a, Math.max(b, c));
+        int mid = a + b + c - min - max;
+        return ((long) min << 42) | ((long) mid << 21) | max;
+    }
+}
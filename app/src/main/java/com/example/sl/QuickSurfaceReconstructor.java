@@ -10,18 +10,22 @@ public class QuickSurfaceReconstructor {
      * 快速表面重建 - 直接对点云进行三角化
      */
     public static MeshData quickReconstruct(PointCloudData pointCloud, int targetPoints) {
+        return quickReconstruct(pointCloud, targetPoints, ReconstructionMonitor.NONE);
+    }
+
+    public static MeshData quickReconstruct(PointCloudData pointCloud, int targetPoints, ReconstructionMonitor monitor) {
         Log.i(TAG, "Starting quick surface reconstruction...");
         long startTime = System.currentTimeMillis();
 
         // 1. 降采样到合适数量
-        PointCloudData sampled = fastDownsample(pointCloud, targetPoints);
+        PointCloudData sampled = fastDownsample(pointCloud, targetPoints, monitor);
 
         // 2. 快速三角化
-        MeshData meshData = quickTriangulation(sampled);
+        MeshData meshData = quickTriangulation(sampled, monitor);
 
         long endTime = System.currentTimeMillis();
         Log.i(TAG, String.format("Quick reconstruction completed in %d ms: %d vertices, %d triangles",
-                (endTime - startTime), meshData.vertices.size(), meshData.triangles.size()));
+                (endTime - startTime), meshData.getVertexCount(), meshData.getTriangleCount()));
 
         return meshData;
     }
@@ -29,7 +33,7 @@ public class QuickSurfaceReconstructor {
     /**
      * 快速降采样
      */
-    private static PointCloudData fastDownsample(PointCloudData pointCloud, int targetPoints) {
+    private static PointCloudData fastDownsample(PointCloudData pointCloud, int targetPoints, ReconstructionMonitor monitor) {
         if (pointCloud.pointCount <= targetPoints) {
             return pointCloud;
         }
@@ -38,10 +42,12 @@ public class QuickSurfaceReconstructor {
         int step = pointCloud.pointCount / targetPoints;
 
         for (int i = 0; i < pointCloud.points.size() && sampled.pointCount < targetPoints; i += step) {
+            monitor.checkCancelled();
             float[] point = pointCloud.points.get(i);
             float[] color = pointCloud.colors.get(i);
             sampled.addPoint(point[0], point[1], point[2], color[0], color[1], color[2]);
         }
+        monitor.onProgress(ReconstructionStage.SAMPLE, 1.0f);
 
         Log.i(TAG, "Downsampled from " + pointCloud.pointCount + " to " + sampled.pointCount + " points");
         return sampled;
@@ -50,23 +56,31 @@ public class QuickSurfaceReconstructor {
     /**
      * 快速三角化 - 使用Delaunay-like算法
      */
-    private static MeshData quickTriangulation(PointCloudData pointCloud) {
-        List<float[]> vertices = new ArrayList<>();
-        List<float[]> normals = new ArrayList<>();
-        List<int[]> triangles = new ArrayList<>();
+    private static MeshData quickTriangulation(PointCloudData pointCloud, ReconstructionMonitor monitor) {
+        MeshData.Builder builder = new MeshData.Builder(pointCloud.pointCount, pointCloud.pointCount * 2);
 
-        // 直接使用点云作为顶点
-        vertices.addAll(pointCloud.points);
-
-        // 计算法线（简化版本）
-        for (int i = 0; i < vertices.size(); i++) {
-            normals.add(calculateSimpleNormal(pointCloud, i));
-        }
+        // 直接使用点云作为顶点，同时计算法线（简化版本）
+        addVerticesWithNormals(pointCloud, builder, monitor);
 
         // 生成三角形网格
-        generateTriangleMesh(pointCloud, vertices, triangles);
+        generateTriangleMesh(pointCloud, pointCloud.points, builder, monitor);
 
-        return new MeshData(vertices, normals, triangles);
+        monitor.onProgress(ReconstructionStage.PACK, 0.0f);
+        return MeshPostProcessor.postProcess(builder.build(), pointCloud);
+    }
+
+    /**
+     * 把所有点作为顶点加入网格，并计算法线
+     */
+    private static void addVerticesWithNormals(PointCloudData pointCloud, MeshData.Builder builder, ReconstructionMonitor monitor) {
+        int count = pointCloud.points.size();
+        for (int i = 0; i < count; i++) {
+            monitor.checkCancelled();
+            monitor.onProgress(ReconstructionStage.NORMALS, (float) i / count);
+            float[] point = pointCloud.points.get(i);
+            float[] normal = calculateSimpleNormal(pointCloud, i);
+            builder.addVertex(point[0], point[1], point[2], normal[0], normal[1], normal[2]);
+        }
     }
 
     /**
@@ -90,12 +104,16 @@ public class QuickSurfaceReconstructor {
      */
     private static void generateTriangleMesh(PointCloudData pointCloud,
                                              List<float[]> vertices,
-                                             List<int[]> triangles) {
+                                             MeshData.Builder builder,
+                                             ReconstructionMonitor monitor) {
         int pointCount = vertices.size();
         int maxTriangles = Math.min(100000, pointCount * 2);
+        float unit = pointCloud.getHalfExtent();
 
         // 简化的网格生成：连接邻近点形成三角形
-        for (int i = 0; i < pointCount - 2 && triangles.size() < maxTriangles; i++) {
+        for (int i = 0; i < pointCount - 2 && builder.getTriangleCount() < maxTriangles; i++) {
+            monitor.checkCancelled();
+            monitor.onProgress(ReconstructionStage.TRIANGULATE, (float) i / pointCount);
             float[] p1 = vertices.get(i);
 
             // 找到两个最近的点
@@ -121,29 +139,29 @@ public class QuickSurfaceReconstructor {
 
             if (closest1 != -1 && closest2 != -1) {
                 // 检查三角形是否合理
-                if (isValidTriangle(p1, vertices.get(closest1), vertices.get(closest2))) {
-                    triangles.add(new int[]{i, closest1, closest2});
+                if (isValidTriangle(p1, vertices.get(closest1), vertices.get(closest2), unit)) {
+                    builder.addTriangle(i, closest1, closest2);
                 }
             }
         }
 
         // 如果三角形太少，使用更简单的方法
-        if (triangles.size() < pointCount / 10) {
-            generateSimpleTriangles(vertices, triangles, maxTriangles);
+        if (builder.getTriangleCount() < pointCount / 10) {
+            generateSimpleTriangles(vertices, builder, maxTriangles);
         }
 
-        Log.i(TAG, "Generated " + triangles.size() + " triangles from " + pointCount + " points");
+        Log.i(TAG, "Generated " + builder.getTriangleCount() + " triangles from " + pointCount + " points");
     }
 
     /**
      * 简单三角形生成：每三个连续点组成三角形
      */
     private static void generateSimpleTriangles(List<float[]> vertices,
-                                                List<int[]> triangles,
+                                                MeshData.Builder builder,
                                                 int maxTriangles) {
         Log.i(TAG, "Using simple triangle generation");
-        for (int i = 0; i < vertices.size() - 2 && triangles.size() < maxTriangles; i += 1) {
-            triangles.add(new int[]{i, i + 1, i + 2});
+        for (int i = 0; i < vertices.size() - 2 && builder.getTriangleCount() < maxTriangles; i += 1) {
+            builder.addTriangle(i, i + 1, i + 2);
         }
     }
 
@@ -152,12 +170,13 @@ public class QuickSurfaceReconstructor {
      */
     private static List<Integer> findClosestNeighbors(PointCloudData pointCloud, float[] point, int k) {
         List<Neighbor> neighbors = new ArrayList<>();
+        float selfDistance = 0.001f * pointCloud.getHalfExtent();
 
         for (int i = 0; i < pointCloud.points.size(); i++) {
             float[] other = pointCloud.points.get(i);
             float dist = distance(point, other);
 
-            if (dist > 0.001f) { // 排除自身
+            if (dist > selfDistance) { // 排除自身
                 neighbors.add(new Neighbor(i, dist));
             }
         }
@@ -208,9 +227,9 @@ public class QuickSurfaceReconstructor {
     }
 
     /**
-     * 检查三角形有效性
+     * 检查三角形有效性，阈值以点云半边长 unit 为单位（归一化到 [-1, 1] 时 unit 为 1）
      */
-    private static boolean isValidTriangle(float[] p1, float[] p2, float[] p3) {
+    private static boolean isValidTriangle(float[] p1, float[] p2, float[] p3, float unit) {
         // 检查边长是否合理
         float d12 = distance(p1, p2);
         float d23 = distance(p2, p3);
@@ -220,12 +239,12 @@ public class QuickSurfaceReconstructor {
         float minEdge = Math.min(d12, Math.min(d23, d31));
 
         // 避免太长的边和太短的边
-        boolean valid = maxEdge < 0.3f && minEdge > 0.01f && maxEdge / minEdge < 10.0f;
+        boolean valid = maxEdge < 0.3f * unit && minEdge > 0.01f * unit && maxEdge / minEdge < 10.0f;
 
         // 检查三角形面积（避免退化三角形）
         if (valid) {
             float area = calculateTriangleArea(p1, p2, p3);
-            valid = area > 0.0001f;
+            valid = area > 0.0001f * unit * unit;
         }
 
         return valid;
@@ -262,18 +281,23 @@ public class QuickSurfaceReconstructor {
      * 改进的快速重建 - 使用K最近邻
      */
     public static MeshData improvedReconstruct(PointCloudData pointCloud, int targetPoints, int kNeighbors) {
+        return improvedReconstruct(pointCloud, targetPoints, kNeighbors, ReconstructionMonitor.NONE);
+    }
+
+    public static MeshData improvedReconstruct(PointCloudData pointCloud, int targetPoints, int kNeighbors,
+                                               ReconstructionMonitor monitor) {
         Log.i(TAG, "Starting improved reconstruction with KNN...");
         long startTime = System.currentTimeMillis();
 
         // 1. 均匀取样
-        PointCloudData sampled = UniformSampler.uniformSample(pointCloud, targetPoints);
+        PointCloudData sampled = UniformSampler.uniformSample(pointCloud, targetPoints, monitor);
 
         // 2. 使用KNN三角化
-        MeshData meshData = knnTriangulation(sampled, kNeighbors);
+        MeshData meshData = knnTriangulation(sampled, kNeighbors, monitor);
 
         long endTime = System.currentTimeMillis();
         Log.i(TAG, String.format("Improved reconstruction completed in %d ms: %d vertices, %d triangles",
-                (endTime - startTime), meshData.vertices.size(), meshData.triangles.size()));
+                (endTime - startTime), meshData.getVertexCount(), meshData.getTriangleCount()));
 
         return meshData;
     }
@@ -281,22 +305,17 @@ public class QuickSurfaceReconstructor {
     /**
      * K最近邻三角化
      */
-    private static MeshData knnTriangulation(PointCloudData pointCloud, int k) {
-        List<float[]> vertices = new ArrayList<>();
-        List<float[]> normals = new ArrayList<>();
-        List<int[]> triangles = new ArrayList<>();
-
-        vertices.addAll(pointCloud.points);
+    private static MeshData knnTriangulation(PointCloudData pointCloud, int k, ReconstructionMonitor monitor) {
+        MeshData.Builder builder = new MeshData.Builder(pointCloud.pointCount, pointCloud.pointCount * 3);
 
         // 为每个点计算法线
-        for (int i = 0; i < vertices.size(); i++) {
-            normals.add(calculateSimpleNormal(pointCloud, i));
-        }
+        addVerticesWithNormals(pointCloud, builder, monitor);
 
         // 使用KNN生成三角形
-        generateKNNTriangles(pointCloud, vertices, triangles, k);
+        generateKNNTriangles(pointCloud, pointCloud.points, builder, k, monitor);
 
-        return new MeshData(vertices, normals, triangles);
+        monitor.onProgress(ReconstructionStage.PACK, 0.0f);
+        return MeshPostProcessor.postProcess(builder.build(), pointCloud);
     }
 
     /**
@@ -304,70 +323,78 @@ public class QuickSurfaceReconstructor {
      */
     private static void generateKNNTriangles(PointCloudData pointCloud,
                                              List<float[]> vertices,
-                                             List<int[]> triangles,
-                                             int k) {
+                                             MeshData.Builder builder,
+                                             int k,
+                                             ReconstructionMonitor monitor) {
         int maxTriangles = Math.min(150000, vertices.size() * 3);
+        float unit = pointCloud.getHalfExtent();
 
-        for (int i = 0; i < vertices.size() && triangles.size() < maxTriangles; i++) {
+        for (int i = 0; i < vertices.size() && builder.getTriangleCount() < maxTriangles; i++) {
+            monitor.checkCancelled();
+            monitor.onProgress(ReconstructionStage.TRIANGULATE, (float) i / vertices.size());
             float[] point = vertices.get(i);
             List<Integer> neighbors = findClosestNeighbors(pointCloud, point, k);
 
             // 为每个邻近点对创建三角形
-            for (int j = 0; j < neighbors.size() && triangles.size() < maxTriangles; j++) {
-                for (int m = j + 1; m < neighbors.size() && triangles.size() < maxTriangles; m++) {
+            for (int j = 0; j < neighbors.size() && builder.getTriangleCount() < maxTriangles; j++) {
+                for (int m = j + 1; m < neighbors.size() && builder.getTriangleCount() < maxTriangles; m++) {
                     int idx1 = neighbors.get(j);
                     int idx2 = neighbors.get(m);
 
                     // 避免重复三角形
                     if (i < idx1 && i < idx2) {
-                        if (isValidTriangle(point, vertices.get(idx1), vertices.get(idx2))) {
-                            triangles.add(new int[]{i, idx1, idx2});
+                        if (isValidTriangle(point, vertices.get(idx1), vertices.get(idx2), unit)) {
+                            builder.addTriangle(i, idx1, idx2);
                         }
                     }
                 }
             }
         }
 
-        Log.i(TAG, "KNN generated " + triangles.size() + " triangles with k=" + k);
+        Log.i(TAG, "KNN generated " + builder.getTriangleCount() + " triangles with k=" + k);
     }
 
     /**
      * 超快速重建 - 用于实时预览
      */
     public static MeshData ultraFastReconstruct(PointCloudData pointCloud, int targetPoints) {
+        return ultraFastReconstruct(pointCloud, targetPoints, ReconstructionMonitor.NONE);
+    }
+
+    public static MeshData ultraFastReconstruct(PointCloudData pointCloud, int targetPoints, ReconstructionMonitor monitor) {
         Log.i(TAG, "Starting ultra fast reconstruction...");
         long startTime = System.currentTimeMillis();
 
         // 极速取样
-        PointCloudData sampled = UniformSampler.uniformSample(pointCloud, Math.min(targetPoints, 5000));
-
-        List<float[]> vertices = new ArrayList<>();
-        List<float[]> normals = new ArrayList<>();
-        List<int[]> triangles = new ArrayList<>();
+        PointCloudData sampled = UniformSampler.uniformSample(pointCloud, Math.min(targetPoints, 5000), monitor);
 
-        vertices.addAll(sampled.points);
+        MeshData.Builder builder = new MeshData.Builder(sampled.pointCount, sampled.pointCount * 2);
 
         // 所有点使用默认法线
-        for (int i = 0; i < vertices.size(); i++) {
-            normals.add(new float[]{0, 1, 0});
+        for (float[] point : sampled.points) {
+            builder.addVertex(point[0], point[1], point[2]);
         }
 
         // 极简三角化：网格方式连接
-        generateGridTriangles(vertices, triangles);
+        monitor.checkCancelled();
+        monitor.onProgress(ReconstructionStage.TRIANGULATE, 0.0f);
+        generateGridTriangles(builder);
+        monitor.onProgress(ReconstructionStage.PACK, 0.0f);
 
         long endTime = System.currentTimeMillis();
         Log.i(TAG, String.format("Ultra fast reconstruction completed in %d ms: %d vertices, %d triangles",
-                (endTime - startTime), vertices.size(), triangles.size()));
+                (endTime - startTime), builder.getVertexCount(), builder.getTriangleCount()));
 
-        return new MeshData(vertices, normals, triangles);
+        return builder.build();
     }
 
     /**
      * 网格方式生成三角形
      */
-    private static void generateGridTriangles(List<float[]> vertices, List<int[]> triangles) {
+    private static void generateGridTriangles(MeshData.Builder builder) {
         // 简单的网格连接
-        int gridSize = (int) Math.sqrt(vertices.size());
+        int vertexCount = builder.getVertexCount();
+        int gridSize = (int) Math.sqrt(vertexCount);
         if (gridSize < 2) return;
 
         for (int i = 0; i < gridSize - 1; i++) {
@@ -377,10 +404,10 @@ public class QuickSurfaceReconstructor {
                 int idx3 = (i + 1) * gridSize + j;
                 int idx4 = (i + 1) * gridSize + j + 1;
 
-                if (idx4 < vertices.size()) {
+                if (idx4 < vertexCount) {
                     // 两个三角形组成一个网格面
-                    triangles.add(new int[]{idx1, idx2, idx3});
-                    triangles.add(new int[]{idx2, idx4, idx3});
+                    builder.addTriangle(idx1, idx2, idx3);
+                    builder.addTriangle(idx2, idx4, idx3);
                 }
             }
         }
@@ -0,0 +1,19 @@
+package com.example.sl;
+
+/**
+ * 重建任务回调
+ * onProgress 在工作线程中调用，其余方法在提交任务时指定的 Executor 中调用（例如GL线程）
+ */
+public interface ReconstructionCallback {
+
+    default void onProgress(ReconstructionStage stage, float fraction) {
+    }
+
+    void onComplete(MeshData meshData);
+
+    default void onCancelled() {
+    }
+
+    default void onError(Throwable error) {
+    }
+}
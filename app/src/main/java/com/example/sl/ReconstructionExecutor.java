@@ -0,0 +1,66 @@
+package com.example.sl;
+
+import android.util.Log;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 重建任务执行器 - 有界线程池，避免在UI线程中进行表面重建
+ */
+public class ReconstructionExecutor {
+    private static final String TAG = "ReconstructionExecutor";
+
+    static final int QUEUE_CAPACITY = 8;
+
+    private static ReconstructionExecutor instance;
+
+    private final ThreadPoolExecutor executor;
+
+    public static synchronized ReconstructionExecutor getInstance() {
+        if (instance == null) {
+            int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+            instance = new ReconstructionExecutor(threads);
+        }
+        return instance;
+    }
+
+    public ReconstructionExecutor(int threads) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory factory = r -> {
+            Thread thread = new Thread(r, "reconstruction-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        };
+
+        executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), factory);
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 提交重建任务
+     *
+     * @param deliveryExecutor 结果回调所在的线程，例如 GLSurfaceView::queueEvent
+     */
+    public ReconstructionJob submit(ReconstructionTask task, Executor deliveryExecutor, ReconstructionCallback callback) {
+        ReconstructionJob job = new ReconstructionJob(task, deliveryExecutor, callback);
+        try {
+            executor.execute(job);
+        } catch (RejectedExecutionException e) {
+            Log.e(TAG, "Reconstruction queue is full, job rejected");
+            job.reject(e);
+        }
+        return job;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.sl;
+
+import android.util.Log;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 一个已提交的重建任务，可以随时取消
+ */
+public class ReconstructionJob implements ReconstructionMonitor, Runnable {
+    private static final String TAG = "ReconstructionJob";
+
+    // 进度变化小于该值时不回调，避免回调过于频繁
+    private static final float PROGRESS_STEP = 0.01f;
+
+    private final ReconstructionTask task;
+    private final Executor deliveryExecutor;
+    private final ReconstructionCallback callback;
+
+    // run() 与 cancel() 谁先置位谁负责回调，保证回调只发生一次
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private volatile boolean cancelled = false;
+    private volatile boolean done = false;
+    private volatile Throwable error;
+
+    private ReconstructionStage lastStage;
+    private float lastFraction = -1.0f;
+
+    ReconstructionJob(ReconstructionTask task, Executor deliveryExecutor, ReconstructionCallback callback) {
+        this.task = task;
+        this.deliveryExecutor = deliveryExecutor;
+        this.callback = callback;
+    }
+
+    @Override
+    public void run() {
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+
+        long startTime = System.currentTimeMillis();
+        final MeshData meshData;
+        try {
+            meshData = task.reconstruct(this);
+            checkCancelled();
+        } catch (CancellationException e) {
+            Log.i(TAG, "Job cancelled after " + (System.currentTimeMillis() - startTime) + " ms");
+            finishCancelled();
+            return;
+        } catch (Throwable t) {
+            Log.e(TAG, "Job failed: " + t.getMessage());
+            finishWithError(t);
+            return;
+        }
+        done = true;
+        Log.i(TAG, "Job completed in " + (System.currentTimeMillis() - startTime) + " ms");
+        // 回调在 try 之外，回调自身抛出的异常不会被当作重建失败
+        deliveryExecutor.execute(() -> {
+            if (!cancelled) {
+                callback.onComplete(meshData);
+            } else {
+                callback.onCancelled();
+            }
+        });
+    }
+
+    /**
+     * 执行器拒绝了任务（队列已满）：任务不会运行，以该异常结束
+     */
+    void reject(Throwable e) {
+        if (started.compareAndSet(false, true)) {
+            finishWithError(e);
+        }
+    }
+
+    private void finishWithError(Throwable t) {
+        error = t;
+        done = true;
+        deliveryExecutor.execute(() -> callback.onError(t));
+    }
+
+    private void finishCancelled() {
+        done = true;
+        deliveryExecutor.execute(callback::onCancelled);
+    }
+
+    /**
+     * 取消任务，正在运行的算法会在下一个检查点停止
+     */
+    public void cancel() {
+        cancelled = true;
+        if (started.compareAndSet(false, true)) {
+            // 任务尚未开始执行
+            finishCancelled();
+        }
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    /**
+     * 失败或被拒绝时的异常，否则为 null
+     */
+    public Throwable getError() {
+        return error;
+    }
+
+    @Override
+    public void onProgress(ReconstructionStage stage, float fraction) {
+        if (stage == lastStage && fraction - lastFraction < PROGRESS_STEP && fraction < 1.0f) {
+            return;
+        }
+        lastStage = stage;
+        lastFraction = fraction;
+        callback.onProgress(stage, fraction);
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.sl;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * 重建过程的进度与取消监视器
+ * 重建算法在循环中调用 checkCancelled() 实现协作式取消
+ */
+public interface ReconstructionMonitor {
+
+    /**
+     * 不报告进度、永不取消的监视器（用于同步调用）
+     */
+    ReconstructionMonitor NONE = new ReconstructionMonitor() {
+        @Override
+        public void onProgress(ReconstructionStage stage, float fraction) {
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+    };
+
+    /**
+     * 报告当前阶段的进度，fraction 范围 [0,1]
+     */
+    void onProgress(ReconstructionStage stage, float fraction);
+
+    boolean isCancelled();
+
+    /**
+     * 如果任务已取消则抛出 CancellationException
+     */
+    default void checkCancelled() {
+        if (isCancelled()) {
+            throw new CancellationException("Reconstruction cancelled");
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.sl;
+
+/**
+ * 重建流程的阶段，用于进度回调
+ */
+public enum ReconstructionStage {
+    SAMPLE,      // 取样
+    NORMALS,     // 法线估计
+    TRIANGULATE, // 三角化
+    PACK         // 打包为MeshData
+}
@@ -0,0 +1,9 @@
+package com.example.sl;
+
+/**
+ * 可在 ReconstructionExecutor 中运行的重建任务
+ * 例如：monitor -> UniformSurfaceReconstructor.autoReconstruct(pointCloud, monitor)
+ */
+public interface ReconstructionTask {
+    MeshData reconstruct(ReconstructionMonitor monitor);
+}
@@ -0,0 +1,217 @@
+package com.example.sl;
+
+import android.opengl.GLES30;
+import android.util.Log;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 着色器程序管理：缓存着色器源码，通过注入 #define 生成变体，
+ * 并用 glGetProgramBinary/glProgramBinary 把链接好的程序缓存到磁盘，
+ * 缓存按驱动（厂商、渲染器、版本）和源码哈希区分，二进制缺失或加载失败时从源码编译
+ * 程序只在当前GL上下文中有效，所有方法都在GL线程中调用
+ */
+public class ShaderProgramManager {
+    private static final String TAG = "ShaderProgramManager";
+    private static final int CACHE_MAGIC = 0x53504231; // "SPB1"
+    private static final String CACHE_SUFFIX = ".bin";
+
+    private final GlApi gl;
+    private final AssetSource assets;
+    private File cacheDir;
+
+    // 源码在上下文重建后仍然有效，程序不是
+    private final Map<String, String> sources = new HashMap<>();
+    private final Map<String, Integer> programs = new HashMap<>();
+    private String driverId;
+    private Boolean binariesSupported;
+
+    private int compiledCount;
+    private int binaryLoadCount;
+
+    public ShaderProgramManager(GlApi gl, AssetSource assets) {
+        this.gl = gl;
+        this.assets = assets;
+    }
+
+    /**
+     * 设置程序二进制的缓存目录，null 表示不使用磁盘缓存
+     */
+    public void setCacheDirectory(File cacheDir) {
+        this.cacheDir = cacheDir;
+    }
+
+    /**
+     * GL上下文（重新）创建后调用：旧上下文中的程序已经失效，驱动也可能不同
+     */
+    public void onContextCreated() {
+        programs.clear();
+        driverId = null;
+        binariesSupported = null;
+    }
+
+    /**
+     * 返回由两个着色器文件和宏定义组成的程序，同一组合在当前上下文中只创建一次
+     * 失败时返回 0
+     */
+    public int getProgram(String vertexPath, String fragmentPath, String... defines) {
+        String key = vertexPath + '|' + fragmentPath + '|' + String.join(",", defines);
+        Integer cached = programs.get(key);
+        if (cached != null) return cached;
+
+        String vertexSource = ShaderUtils.injectDefines(getSource(vertexPath), defines);
+        String fragmentSource = ShaderUtils.injectDefines(getSource(fragmentPath), defines);
+
+        File cacheFile = getCacheFile(vertexSource, fragmentSource);
+        int program = cacheFile != null ? loadBinary(cacheFile) : 0;
+        if (program == 0) {
+            program = ShaderUtils.createProgram(gl, vertexSource, fragmentSource, cacheFile != null);
+            if (program == 0) {
+                Log.e(TAG, "Failed to create program " + key);
+                return 0;
+            }
+            compiledCount++;
+            if (cacheFile != null) {
+                saveBinary(program, cacheFile);
+            }
+        }
+        programs.put(key, program);
+        return program;
+    }
+
+    private String getSource(String path) {
+        String source = sources.get(path);
+        if (source == null) {
+            source = ShaderUtils.readShaderFromAssets(assets, path);
+            if (!source.isEmpty()) {
+                sources.put(path, source);
+            }
+        }
+        return source;
+    }
+
+    /**
+     * 删除当前上下文中的所有程序
+     */
+    public void release() {
+        for (int program : programs.values()) {
+            gl.glDeleteProgram(program);
+        }
+        programs.clear();
+    }
+
+    /**
+     * 从源码编译的程序数
+     */
+    public int getCompiledCount() {
+        return compiledCount;
+    }
+
+    /**
+     * 从磁盘缓存加载的程序数
+     */
+    public int getBinaryLoadCount() {
+        return binaryLoadCount;
+    }
+
+    private File getCacheFile(String vertexSource, String fragmentSource) {
+        if (cacheDir == null) return null;
+        if (binariesSupported == null) {
+            int[] formats = new int[1];
+            gl.glGetIntegerv(GLES30.GL_NUM_PROGRAM_BINARY_FORMATS, formats, 0);
+            binariesSupported = formats[0] > 0;
+            driverId = gl.glGetString(GLES30.GL_VENDOR) + '\n' + gl.glGetString(GLES30.GL_RENDERER)
+                    + '\n' + gl.glGetString(GLES30.GL_VERSION);
+        }
+        if (!binariesSupported) return null;
+        String hash = sha256(driverId + '\0' + vertexSource + '\0' + fragmentSource);
+        return hash != null ? new File(cacheDir, hash + CACHE_SUFFIX) : null;
+    }
+
+    private int loadBinary(File file) {
+        if (!file.isFile()) return 0;
+
+        int format;
+        byte[] bytes;
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            if (in.readInt() != CACHE_MAGIC) throw new IOException("bad magic");
+            format = in.readInt();
+            bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+        } catch (IOException | NegativeArraySizeException e) {
+            Log.w(TAG, "Discarding unreadable program binary " + file.getName());
+            file.delete();
+            return 0;
+        }
+
+        ByteBuffer binary = ByteBuffer.allocateDirect(bytes.length).order(ByteOrder.nativeOrder());
+        binary.put(bytes).flip();
+        int program = gl.glCreateProgram();
+        gl.glProgramBinary(program, format, binary, bytes.length);
+        int[] linked = new int[1];
+        gl.glGetProgramiv(program, GLES30.GL_LINK_STATUS, linked, 0);
+        if (linked[0] == 0) {
+            // 驱动更新等原因导致二进制不再可用，删除后从源码重新编译
+            Log.w(TAG, "Program binary rejected by driver, recompiling");
+            gl.glDeleteProgram(program);
+            file.delete();
+            return 0;
+        }
+        binaryLoadCount++;
+        return program;
+    }
+
+    private void saveBinary(int program, File file) {
+        int[] length = new int[1];
+        gl.glGetProgramiv(program, GLES30.GL_PROGRAM_BINARY_LENGTH, length, 0);
+        if (length[0] <= 0) return;
+
+        ByteBuffer binary = ByteBuffer.allocateDirect(length[0]).order(ByteOrder.nativeOrder());
+        int[] format = new int[1];
+        gl.glGetProgramBinary(program, length[0], length, 0, format, 0, binary);
+        byte[] bytes = new byte[length[0]];
+        binary.get(bytes);
+
+        // 先写临时文件再重命名，避免留下不完整的缓存
+        if (!cacheDir.isDirectory() && !cacheDir.mkdirs()) return;
+        File temp = new File(cacheDir, file.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(temp))) {
+            out.writeInt(CACHE_MAGIC);
+            out.writeInt(format[0]);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to write program binary: " + e.getMessage());
+            temp.delete();
+            return;
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+        }
+    }
+
+    private static String sha256(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        }
+    }
+}
@@ -1,70 +1,115 @@
 package com.example.sl;
 
-import android.content.Context;
 import android.opengl.GLES30;
 import android.util.Log;
 
-import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 
 public class ShaderUtils {
     private static final String TAG = "ShaderUtils";
 
-    public static String readShaderFromAssets(Context context, String filename) {
-        StringBuilder shaderSource = new StringBuilder();
-        try {
-            InputStream inputStream = context.getAssets().open(filename);
-            BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
-            String line;
-            while ((line = reader.readLine()) != null) {
-                shaderSource.append(line).append("\n");
+    public static String readShaderFromAssets(AssetSource assets, String filename) {
+        // 整块读取后按 UTF-8 解码，不逐行拼接
+        try (InputStream inputStream = assets.open(filename)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
             }
-            reader.close();
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
         } catch (IOException e) {
             Log.e(TAG, "Could not read shader file: " + filename);
             e.printStackTrace();
         }
-        return shaderSource.toString();
+        return "";
     }
 
-    public static int loadShader(int type, String shaderCode) {
-        int shader = GLES30.glCreateShader(type);
-        GLES30.glShaderSource(shader, shaderCode);
-        GLES30.glCompileShader(shader);
+    /**
+     * 在 #version 行之后插入宏定义，defines 的每一项为 "NAME" 或 "NAME value"
+     * 之后用 #line 恢复原来的行号，编译错误信息中的行号与源文件一致
+     */
+    public static String injectDefines(String source, String... defines) {
+        if (defines == null || defines.length == 0) return source;
+
+        int insertAt = 0;
+        int line = 1;
+        String trimmed = source.trim();
+        if (trimmed.startsWith("#version")) {
+            int newline = source.indexOf('\n', source.indexOf("#version"));
+            insertAt = newline < 0 ? source.length() : newline + 1;
+            line = 2;
+        }
+
+        StringBuilder result = new StringBuilder(source.length() + defines.length * 32);
+        result.append(source, 0, insertAt);
+        if (insertAt > 0 && source.charAt(insertAt - 1) != '\n') {
+            result.append('\n');
+        }
+        for (String define : defines) {
+            result.append("#define ").append(define).append('\n');
+        }
+        result.append("#line ").append(line).append('\n');
+        result.append(source, insertAt, source.length());
+        return result.toString();
+    }
+
+    public static int loadShader(GlApi gl, int type, String shaderCode) {
+        int shader = gl.glCreateShader(type);
+        gl.glShaderSource(shader, shaderCode);
+        gl.glCompileShader(shader);
 
         // Check compilation status
         int[] compiled = new int[1];
-        GLES30.glGetShaderiv(shader, GLES30.GL_COMPILE_STATUS, compiled, 0);
+        gl.glGetShaderiv(shader, GLES30.GL_COMPILE_STATUS, compiled, 0);
         if (compiled[0] == 0) {
-            Log.e(TAG, "Could not compile shader: " + GLES30.glGetShaderInfoLog(shader));
-            GLES30.glDeleteShader(shader);
+            Log.e(TAG, "Could not compile shader: " + gl.glGetShaderInfoLog(shader));
+            gl.glDeleteShader(shader);
             return 0;
         }
         return shader;
     }
 
-    public static int createProgram(String vertexShaderCode, String fragmentShaderCode) {
-        int vertexShader = loadShader(GLES30.GL_VERTEX_SHADER, vertexShaderCode);
-        int fragmentShader = loadShader(GLES30.GL_FRAGMENT_SHADER, fragmentShaderCode);
+    public static int createProgram(GlApi gl, String vertexShaderCode, String fragmentShaderCode) {
+        return createProgram(gl, vertexShaderCode, fragmentShaderCode, false);
+    }
+
+    /**
+     * retrievable 为 true 时在链接前设置 GL_PROGRAM_BINARY_RETRIEVABLE_HINT，之后可以读取程序二进制
+     */
+    public static int createProgram(GlApi gl, String vertexShaderCode, String fragmentShaderCode, boolean retrievable) {
+        int vertexShader = loadShader(gl, GLES30.GL_VERTEX_SHADER, vertexShaderCode);
+        int fragmentShader = loadShader(gl, GLES30.GL_FRAGMENT_SHADER, fragmentShaderCode);
+        if (vertexShader == 0 || fragmentShader == 0) {
+            if (vertexShader != 0) gl.glDeleteShader(vertexShader);
+            if (fragmentShader != 0) gl.glDeleteShader(fragmentShader);
+            return 0;
+        }
 
-        int program = GLES30.glCreateProgram();
-        GLES30.glAttachShader(program, vertexShader);
-        GLES30.glAttachShader(program, fragmentShader);
-        GLES30.glLinkProgram(program);
+        int program = gl.glCreateProgram();
+        if (retrievable) {
+            gl.glProgramParameteri(program, GLES30.GL_PROGRAM_BINARY_RETRIEVABLE_HINT, GLES30.GL_TRUE);
+        }
+        gl.glAttachShader(program, vertexShader);
+        gl.glAttachShader(program, fragmentShader);
+        gl.glLinkProgram(program);
 
         // Check linking status
         int[] linked = new int[1];
-        GLES30.glGetProgramiv(program, GLES30.GL_LINK_STATUS, linked, 0);
+        gl.glGetProgramiv(program, GLES30.GL_LINK_STATUS, linked, 0);
         if (linked[0] == 0) {
-            Log.e(TAG, "Could not link program: " + GLES30.glGetProgramInfoLog(program));
-            GLES30.glDeleteProgram(program);
+            Log.e(TAG, "Could not link program: " + gl.glGetProgramInfoLog(program));
+            gl.glDeleteProgram(program);
+            gl.glDeleteShader(vertexShader);
+            gl.glDeleteShader(fragmentShader);
             return 0;
         }
 
-        GLES30.glDeleteShader(vertexShader);
-        GLES30.glDeleteShader(fragmentShader);
+        gl.glDeleteShader(vertexShader);
+        gl.glDeleteShader(fragmentShader);
 
         return program;
     }
@@ -0,0 +1,267 @@
+package com.example.sl;
+
+import java.util.Arrays;
+
+/**
+ * 均匀网格空间索引 - 支持增量插入、K近邻和半径查询
+ * 每个格子的点通过 next[] 串成链表，格子表使用开放寻址哈希，避免装箱
+ * 插入完成后查询只读，多个线程可同时查询
+ */
+public class SpatialGrid {
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private final float cellSize;
+    private final float invCellSize;
+
+    // 点坐标 (x,y,z 连续存放)
+    private float[] coords;
+    private int[] next;
+    private int size;
+
+    // 开放寻址哈希表：格子键 -> 链表头
+    private long[] keys;
+    private int[] heads;
+    private int cellCount;
+
+    // 已占用格子的范围，用于限制K近邻搜索的扩张
+    private int minCellX = Integer.MAX_VALUE, minCellY = Integer.MAX_VALUE, minCellZ = Integer.MAX_VALUE;
+    private int maxCellX = Integer.MIN_VALUE, maxCellY = Integer.MIN_VALUE, maxCellZ = Integer.MIN_VALUE;
+
+    public SpatialGrid(float cellSize, int expectedPoints) {
+        this.cellSize = cellSize;
+        this.invCellSize = 1.0f / cellSize;
+        int capacity = Math.max(16, expectedPoints);
+        coords = new float[capacity * 3];
+        next = new int[capacity];
+
+        int tableSize = Integer.highestOneBit(Math.max(16, expectedPoints) * 2 - 1) << 1;
+        keys = new long[tableSize];
+        heads = new int[tableSize];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * 根据包围盒和点数选择格子大小，使每个格子平均约有 pointsPerCell 个点
+     */
+    public static float suggestCellSize(PointCloudData pointCloud, int pointCount, float pointsPerCell) {
+        return suggestCellSize(pointCloud.minX, pointCloud.minY, pointCloud.minZ,
+                pointCloud.maxX, pointCloud.maxY, pointCloud.maxZ, pointCount, pointsPerCell);
+    }
+
+    /**
+     * 同上，包围盒直接给出
+     */
+    public static float suggestCellSize(float minX, float minY, float minZ, float maxX, float maxY, float maxZ,
+                                        int pointCount, float pointsPerCell) {
+        float width = Math.max(maxX - minX, 1e-6f);
+        float height = Math.max(maxY - minY, 1e-6f);
+        float depth = Math.max(maxZ - minZ, 1e-6f);
+        float maxExtent = Math.max(width, Math.max(height, depth));
+
+        // 扫描数据通常分布在表面上，按面积估计比按体积更准确
+        float area = Math.max(width * height, Math.max(height * depth, width * depth));
+        float cellSize = (float) Math.sqrt(area * pointsPerCell / Math.max(1, pointCount));
+        return Math.max(cellSize, maxExtent / 4096f);
+    }
+
+    public float getCellSize() {
+        return cellSize;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public float getX(int index) {
+        return coords[index * 3];
+    }
+
+    public float getY(int index) {
+        return coords[index * 3 + 1];
+    }
+
+    public float getZ(int index) {
+        return coords[index * 3 + 2];
+    }
+
+    /**
+     * 插入一个点，返回其索引（按插入顺序递增）
+     */
+    public int add(float x, float y, float z) {
+        if (size == next.length) {
+            int capacity = next.length * 2;
+            coords = Arrays.copyOf(coords, capacity * 3);
+            next = Arrays.copyOf(next, capacity);
+        }
+
+        int index = size++;
+        coords[index * 3] = x;
+        coords[index * 3 + 1] = y;
+        coords[index * 3 + 2] = z;
+
+        int cx = cell(x), cy = cell(y), cz = cell(z);
+        minCellX = Math.min(minCellX, cx);
+        minCellY = Math.min(minCellY, cy);
+        minCellZ = Math.min(minCellZ, cz);
+        maxCellX = Math.max(maxCellX, cx);
+        maxCellY = Math.max(maxCellY, cy);
+        maxCellZ = Math.max(maxCellZ, cz);
+
+        long key = cellKey(cx, cy, cz);
+        int slot = findSlot(key);
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            heads[slot] = -1;
+            cellCount++;
+            if (cellCount * 2 > keys.length) {
+                rehash();
+                slot = findSlot(key);
+            }
+        }
+        next[index] = heads[slot];
+        heads[slot] = index;
+        return index;
+    }
+
+    /**
+     * 查找距离 (x,y,z) 最近的 k 个点（排除 excludeIndex），结果按距离升序写入输出数组
+     *
+     * @return 找到的点数
+     */
+    public int findNearest(float x, float y, float z, int k, int excludeIndex, int[] outIndices, float[] outDistSq) {
+        if (size == 0 || k <= 0) return 0;
+
+        int cx = cell(x), cy = cell(y), cz = cell(z);
+        int found = 0;
+        int maxRing = maxRing(cx, cy, cz);
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            for (int dx = -ring; dx <= ring; dx++) {
+                for (int dy = -ring; dy <= ring; dy++) {
+                    for (int dz = -ring; dz <= ring; dz++) {
+                        // 只访问当前环的外壳
+                        if (Math.abs(dx) != ring && Math.abs(dy) != ring && Math.abs(dz) != ring) continue;
+
+                        int head = headOf(cx + dx, cy + dy, cz + dz);
+                        for (int i = head; i != -1; i = next[i]) {
+                            if (i == excludeIndex) continue;
+                            float distSq = distanceSq(i, x, y, z);
+                            if (found < k) {
+                                found = insertSorted(outIndices, outDistSq, found, i, distSq);
+                            } else if (distSq < outDistSq[k - 1]) {
+                                insertSorted(outIndices, outDistSq, k - 1, i, distSq);
+                            }
+                        }
+                    }
+                }
+            }
+
+            // 环外的点至少相距 ring * cellSize，已找到的足够近时停止
+            if (found == k) {
+                float reach = ring * cellSize;
+                if (outDistSq[k - 1] <= reach * reach) break;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 查找半径内的所有点
+     *
+     * @return 找到的点数（最多 outIndices.length 个）
+     */
+    public int findWithinRadius(float x, float y, float z, float radius, int excludeIndex, int[] outIndices) {
+        float radiusSq = radius * radius;
+        int minX = cell(x - radius), maxX = cell(x + radius);
+        int minY = cell(y - radius), maxY = cell(y + radius);
+        int minZ = cell(z - radius), maxZ = cell(z + radius);
+        int found = 0;
+
+        for (int ix = minX; ix <= maxX; ix++) {
+            for (int iy = minY; iy <= maxY; iy++) {
+                for (int iz = minZ; iz <= maxZ; iz++) {
+                    for (int i = headOf(ix, iy, iz); i != -1; i = next[i]) {
+                        if (i == excludeIndex) continue;
+                        if (distanceSq(i, x, y, z) <= radiusSq) {
+                            if (found == outIndices.length) return found;
+                            outIndices[found++] = i;
+                        }
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    private int maxRing(int cx, int cy, int cz) {
+        // 超过该环数后不会再有新的格子
+        int rx = Math.max(Math.abs(cx - minCellX), Math.abs(maxCellX - cx));
+        int ry = Math.max(Math.abs(cy - minCellY), Math.abs(maxCellY - cy));
+        int rz = Math.max(Math.abs(cz - minCellZ), Math.abs(maxCellZ - cz));
+        return Math.max(rx, Math.max(ry, rz));
+    }
+
+    private static int insertSorted(int[] indices, float[] distSq, int count, int index, float d) {
+        int pos = count;
+        while (pos > 0 && distSq[pos - 1] > d) {
+            indices[pos] = indices[pos - 1];
+            distSq[pos] = distSq[pos - 1];
+            pos--;
+        }
+        indices[pos] = index;
+        distSq[pos] = d;
+        return count + 1;
+    }
+
+    private float distanceSq(int i, float x, float y, float z) {
+        float dx = coords[i * 3] - x;
+        float dy = coords[i * 3 + 1] - y;
+        float dz = coords[i * 3 + 2] - z;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    private int cell(float v) {
+        return (int) Math.floor(v * invCellSize);
+    }
+
+    private static long cellKey(int x, int y, int z) {
+        return ((long) (x & 0x1FFFFF) << 42) | ((long) (y & 0x1FFFFF) << 21) | (z & 0x1FFFFF);
+    }
+
+    private int headOf(int x, int y, int z) {
+        long key = cellKey(x, y, z);
+        int slot = findSlot(key);
+        return keys[slot] == EMPTY ? -1 : heads[slot];
+    }
+
+    private int findSlot(long key) {
+        int mask = keys.length - 1;
+        int slot = (int) (mix(key) & mask);
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldHeads = heads;
+        keys = new long[oldKeys.length * 2];
+        heads = new int[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = findSlot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                heads[slot] = oldHeads[i];
+            }
+        }
+    }
+}
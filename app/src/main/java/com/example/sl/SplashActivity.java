@@ -12,6 +12,10 @@ import androidx.core.view.ViewCompat;
 import androidx.core.view.WindowInsetsCompat;
 
 public class SplashActivity extends AppCompatActivity {
+    // 随 Intent 传递的数据集编号，数据集保存在 PointCloudRepository 中
+    public static final String EXTRA_DATASET = "dataset";
+    public static final String DEFAULT_DATASET = "color_ASCII_a4_231114.pcd";
+
     private ProgressDialog progressDialog;
 
     @Override
@@ -25,6 +29,12 @@ public class SplashActivity extends AppCompatActivity {
             return insets;
         });
 
+        // 数据集仍在仓库中时直接进入列表
+        if (PointCloudRepository.getInstance().contains(PointCloudRepository.datasetKey(DEFAULT_DATASET))) {
+            startList();
+            return;
+        }
+
         // 显示加载对话框
         progressDialog = new ProgressDialog(this);
         progressDialog.setMessage("正在加载点云数据...");
@@ -33,7 +43,7 @@ public class SplashActivity extends AppCompatActivity {
 
         // 在后台线程加载点云
         new Thread(() -> {
-            final PointCloudData pointCloudData = PCDParser.parsePCDFromAssets(SplashActivity.this, "color_ASCII_a4_231114.pcd");
+            final PointCloudData pointCloudData = PCDParser.parsePCDFromAssets(SplashActivity.this, DEFAULT_DATASET);
 
             runOnUiThread(() -> {
                 progressDialog.dismiss();
@@ -41,11 +51,17 @@ public class SplashActivity extends AppCompatActivity {
                     Toast.makeText(SplashActivity.this, "无法加载PCD文件或文件为空", Toast.LENGTH_LONG).show();
                     return;
                 }
-                PointCloudDataHolder.setData(pointCloudData);
-                Intent intent = new Intent(SplashActivity.this, ListActivity.class);
-                startActivity(intent);
-                finish();
+                PointCloudRepository.getInstance().putDataset(DEFAULT_DATASET, pointCloudData,
+                        pointCloudData.estimateBytes());
+                startList();
             });
         }).start();
     }
+
+    private void startList() {
+        Intent intent = new Intent(SplashActivity.this, ListActivity.class);
+        intent.putExtra(EXTRA_DATASET, DEFAULT_DATASET);
+        startActivity(intent);
+        finish();
+    }
 }
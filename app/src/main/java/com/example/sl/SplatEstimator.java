@@ -0,0 +1,106 @@
+package com.example.sl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 面元（splat）属性估计：每个点的法线（K近邻 PCA，见 NormalEstimator）和半径（到第 RADIUS_NEIGHBOR 个近邻的距离），
+ * 半径保证相邻面元互相覆盖，绘制出没有空洞的表面
+ * 空间索引建好后只读，各点的查询互不依赖，按点的区间分给多个线程并行计算，结果与单线程相同
+ */
+public class SplatEstimator {
+    public static final int NORMAL_NEIGHBORS = 16;
+    public static final int RADIUS_NEIGHBOR = 8;
+    // 每个线程至少处理的点数，点少时不值得启动线程
+    private static final int MIN_POINTS_PER_CHUNK = 20000;
+    // 每个面元的浮点数：法线 xyz 和半径
+    public static final int FLOATS_PER_SPLAT = 4;
+
+    private SplatEstimator() {
+    }
+
+    /**
+     * 估计 positions 中前 count 个点的面元属性，按点的顺序返回 FLOATS_PER_SPLAT 个浮点数一组
+     * 法线朝向点云包围盒中心的外侧
+     */
+    public static float[] estimate(float[] positions, int count, int threads) {
+        float[] splats = new float[count * FLOATS_PER_SPLAT];
+        if (count == 0) return splats;
+
+        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, minZ = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE, maxZ = -Float.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            minX = Math.min(minX, positions[i * 3]);
+            minY = Math.min(minY, positions[i * 3 + 1]);
+            minZ = Math.min(minZ, positions[i * 3 + 2]);
+            maxX = Math.max(maxX, positions[i * 3]);
+            maxY = Math.max(maxY, positions[i * 3 + 1]);
+            maxZ = Math.max(maxZ, positions[i * 3 + 2]);
+        }
+        float cellSize = SpatialGrid.suggestCellSize(minX, minY, minZ, maxX, maxY, maxZ, count, 4);
+        SpatialGrid grid = new SpatialGrid(cellSize, count);
+        for (int i = 0; i < count; i++) {
+            grid.add(positions[i * 3], positions[i * 3 + 1], positions[i * 3 + 2]);
+        }
+        float centerX = (minX + maxX) / 2, centerY = (minY + maxY) / 2, centerZ = (minZ + maxZ) / 2;
+
+        int chunkCount = chunkCount(count, threads);
+        if (chunkCount == 1) {
+            estimateRange(grid, 0, count, centerX, centerY, centerZ, splats);
+            return splats;
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(chunkCount);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int c = 0; c < chunkCount; c++) {
+                int begin = (int) ((long) count * c / chunkCount);
+                int end = (int) ((long) count * (c + 1) / chunkCount);
+                futures.add(pool.submit(() -> estimateRange(grid, begin, end, centerX, centerY, centerZ, splats)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new RuntimeException(cause);
+        } finally {
+            pool.shutdownNow();
+        }
+        return splats;
+    }
+
+    /**
+     * 并行计算时的区间数：每个区间至少 MIN_POINTS_PER_CHUNK 个点，不超过线程数
+     */
+    static int chunkCount(int count, int threads) {
+        return Math.max(1, Math.min(threads, count / MIN_POINTS_PER_CHUNK));
+    }
+
+    private static void estimateRange(SpatialGrid grid, int begin, int end, float centerX, float centerY, float centerZ,
+                                      float[] splats) {
+        int[] neighbors = new int[NORMAL_NEIGHBORS];
+        float[] distSq = new float[NORMAL_NEIGHBORS];
+        float[] normal = new float[3];
+        for (int i = begin; i < end; i++) {
+            float x = grid.getX(i), y = grid.getY(i), z = grid.getZ(i);
+            int found = grid.findNearest(x, y, z, NORMAL_NEIGHBORS, i, neighbors, distSq);
+            // 法线指向中心一侧后取反，即朝外
+            NormalEstimator.estimate(grid, i, neighbors, found, centerX, centerY, centerZ, normal);
+            int s = i * FLOATS_PER_SPLAT;
+            splats[s] = -normal[0];
+            splats[s + 1] = -normal[1];
+            splats[s + 2] = -normal[2];
+            splats[s + 3] = found > 0 ? (float) Math.sqrt(distSq[Math.min(found, RADIUS_NEIGHBOR) - 1]) : 0;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.sl;
+
+import android.opengl.GLES30;
+import android.util.Log;
+
+import java.nio.ByteBuffer;
+import java.util.function.IntPredicate;
+
+/**
+ * 流式点云：按点预算遍历磁盘上的八叉树，只有数据已在GPU上的节点参与绘制，
+ * 缺失的节点按投影大小依次从堆缓存上传或交给 OctreeNodeLoader 读取
+ * 节点数据保存在两级 LRU 缓存中：堆缓存保存读入的节点文件，GPU缓存保存每个节点的 VAO/VBO，
+ * 各自按字节预算淘汰本帧未使用的节点；只在GL线程中使用
+ */
+public class StreamingPointCloud {
+    private static final String TAG = "StreamingPointCloud";
+
+    public static final long DEFAULT_HEAP_BUDGET = 64L * 1024 * 1024;
+    public static final long DEFAULT_GPU_BUDGET = 192L * 1024 * 1024;
+
+    /**
+     * 一个节点的GPU资源
+     */
+    static class GpuNode {
+        final int vao;
+        final int vbo;
+        final GpuUploadManager.Upload upload;
+        final int pointCount;
+
+        GpuNode(int vao, int vbo, GpuUploadManager.Upload upload, int pointCount) {
+            this.vao = vao;
+            this.vbo = vbo;
+            this.upload = upload;
+            this.pointCount = pointCount;
+        }
+    }
+
+    private final GlApi gl;
+    private final GpuUploadManager uploadManager;
+    private final OctreeIndex index;
+    private final OctreeNodeLoader loader;
+    private final LruByteCache<ByteBuffer> heapCache;
+    private final LruByteCache<GpuNode> gpuCache;
+    // 读取失败的节点不再重试
+    private final boolean[] failed;
+    private final IntPredicate ready = this::isReady;
+    private final int[] ids = new int[1];
+
+    private int positionHandle = -1;
+    private int colorHandle = -1;
+    private int visibleCount;
+    private int[] visibleNodes = new int[0];
+    private int drawnPoints;
+
+    public StreamingPointCloud(GlApi gl, GpuUploadManager uploadManager, OctreeNodeLoader loader) {
+        this.gl = gl;
+        this.uploadManager = uploadManager;
+        this.loader = loader;
+        this.index = loader.getIndex();
+        failed = new boolean[index.getNodeCount()];
+        heapCache = new LruByteCache<>(DEFAULT_HEAP_BUDGET, (node, data) -> { });
+        gpuCache = new LruByteCache<>(DEFAULT_GPU_BUDGET, (node, gpuNode) -> deleteGpuNode(gpuNode));
+    }
+
+    public OctreeIndex getIndex() {
+        return index;
+    }
+
+    public void setHeapBudget(long bytes) {
+        heapCache.setBudgetBytes(bytes);
+    }
+
+    public void setGpuBudget(long bytes) {
+        gpuCache.setBudgetBytes(bytes);
+    }
+
+    /**
+     * GL上下文（重新）创建后调用：旧上下文中的对象已随上下文释放，只丢弃缓存记录
+     */
+    public void onContextCreated(int positionHandle, int colorHandle) {
+        this.positionHandle = positionHandle;
+        this.colorHandle = colorHandle;
+        gpuCache.clear();
+        visibleCount = 0;
+    }
+
+    /**
+     * 每帧在绘制前调用：取走已加载的节点，遍历八叉树，为缺失节点安排上传或加载，并按预算淘汰
+     */
+    public void update(PointBudgetTraverser traverser) {
+        heapCache.beginFrame();
+        gpuCache.beginFrame();
+        loader.clearPending();
+        loader.drainCompleted(this::onNodeLoaded);
+
+        traverser.traverse(index, ready);
+
+        // 可见节点和缺失节点都标记为本帧使用，不会在本帧被淘汰
+        visibleNodes = traverser.getVisibleNodes();
+        visibleCount = traverser.getVisibleCount();
+        for (int i = 0; i < visibleCount; i++) {
+            gpuCache.get(visibleNodes[i]);
+        }
+        int[] missing = traverser.getMissingNodes();
+        float[] priorities = traverser.getMissingPriorities();
+        for (int i = 0; i < traverser.getMissingCount(); i++) {
+            int node = missing[i];
+            if (failed[node] || gpuCache.get(node) != null) {
+                // 读取失败，或正在上传
+                continue;
+            }
+            ByteBuffer data = heapCache.get(node);
+            if (data != null) {
+                gpuCache.put(node, createGpuNode(node, data), data.capacity());
+            } else {
+                loader.request(node, priorities[i]);
+            }
+        }
+
+        gpuCache.trim();
+        heapCache.trim();
+    }
+
+    private void onNodeLoaded(OctreeNodeLoader.LoadedNode loaded) {
+        if (loaded.data == null) {
+            failed[loaded.node] = true;
+            return;
+        }
+        heapCache.put(loaded.node, loaded.data, loaded.data.capacity());
+    }
+
+    private boolean isReady(int node) {
+        GpuNode gpuNode = gpuCache.peek(node);
+        return gpuNode != null && gpuNode.upload.isComplete();
+    }
+
+    private GpuNode createGpuNode(int node, ByteBuffer data) {
+        gl.glGenVertexArrays(1, ids, 0);
+        int vao = ids[0];
+        gl.glGenBuffers(1, ids, 0);
+        int vbo = ids[0];
+
+        // 节点文件的格式见 OctreeIndex：xyz 三个 float 加 rgba 四个字节
+        gl.glBindVertexArray(vao);
+        gl.glBindBuffer(GLES30.GL_ARRAY_BUFFER, vbo);
+        gl.glEnableVertexAttribArray(positionHandle);
+        gl.glVertexAttribPointer(positionHandle, 3, GLES30.GL_FLOAT, false, OctreeIndex.POINT_BYTES, 0);
+        gl.glEnableVertexAttribArray(colorHandle);
+        gl.glVertexAttribPointer(colorHandle, 4, GLES30.GL_UNSIGNED_BYTE, true, OctreeIndex.POINT_BYTES, 12);
+        gl.glBindBuffer(GLES30.GL_ARRAY_BUFFER, 0);
+        gl.glBindVertexArray(0);
+
+        // 堆缓存中的数据不会被修改，上传使用共享内容的副本
+        GpuUploadManager.Upload upload = uploadManager.upload(vbo, data.duplicate());
+        return new GpuNode(vao, vbo, upload, index.getNodePointCount(node));
+    }
+
+    private void deleteGpuNode(GpuNode gpuNode) {
+        uploadManager.cancel(gpuNode.upload);
+        ids[0] = gpuNode.vao;
+        gl.glDeleteVertexArrays(1, ids, 0);
+        ids[0] = gpuNode.vbo;
+        gl.glDeleteBuffers(1, ids, 0);
+    }
+
+    /**
+     * 绘制本帧选中的节点，每个节点一次绘制调用；调用前着色器程序和 MVP 已设置
+     */
+    public void draw() {
+        drawnPoints = 0;
+        for (int i = 0; i < visibleCount; i++) {
+            GpuNode gpuNode = gpuCache.peek(visibleNodes[i]);
+            if (gpuNode == null) continue;
+            gl.glBindVertexArray(gpuNode.vao);
+            gl.glDrawArrays(GLES30.GL_POINTS, 0, gpuNode.pointCount);
+            drawnPoints += gpuNode.pointCount;
+        }
+        gl.glBindVertexArray(0);
+    }
+
+    /**
+     * 删除所有GPU资源并停止加载
+     */
+    public void release() {
+        Log.i(TAG, "Releasing " + gpuCache.size() + " GPU nodes, " + heapCache.size() + " cached nodes");
+        gpuCache.evictAll();
+        heapCache.clear();
+        loader.release();
+        visibleCount = 0;
+    }
+
+    public int getDrawnPoints() {
+        return drawnPoints;
+    }
+
+    public int getGpuNodeCount() {
+        return gpuCache.size();
+    }
+
+    public long getGpuBytes() {
+        return gpuCache.getBytes();
+    }
+
+    public long getHeapBytes() {
+        return heapCache.getBytes();
+    }
+
+    public int getLoadingCount() {
+        return loader.getLoadingCount() + loader.getPendingCount();
+    }
+
+    LruByteCache<ByteBuffer> getHeapCache() {
+        return heapCache;
+    }
+
+    LruByteCache<GpuNode> getGpuCache() {
+        return gpuCache;
+    }
+}
@@ -1,29 +1,29 @@
 package com.example.sl;
 
 import android.util.Log;
-import java.util.ArrayList;
-import java.util.List;
 
 public class SurfaceReconstructor {
     private static final String TAG = "SurfaceReconstructor";
 
     public static MeshData poissonReconstruction(PointCloudData pointCloud, float resolution) {
+        return poissonReconstruction(pointCloud, resolution, ReconstructionMonitor.NONE);
+    }
+
+    public static MeshData poissonReconstruction(PointCloudData pointCloud, float resolution, ReconstructionMonitor monitor) {
         Log.i(TAG, "Starting Poisson surface reconstruction...");
 
-        List<float[]> vertices = new ArrayList<>();
-        List<float[]> normals = new ArrayList<>();
-        List<int[]> triangles = new ArrayList<>();
+        MeshData.Builder builder = new MeshData.Builder();
 
         // 简化的泊松重建算法（实际项目中建议使用成熟库如PCL）
-        marchingCubes(pointCloud, resolution, vertices, normals, triangles);
+        marchingCubes(pointCloud, resolution, builder, monitor);
 
-        Log.i(TAG, "Surface reconstruction completed: " + vertices.size() + " vertices, " + triangles.size() + " triangles");
+        Log.i(TAG, "Surface reconstruction completed: " + builder.getVertexCount() + " vertices, " + builder.getTriangleCount() + " triangles");
 
-        return new MeshData(vertices, normals, triangles);
+        return builder.build();
     }
 
     private static void marchingCubes(PointCloudData pointCloud, float resolution,
-                                      List<float[]> vertices, List<float[]> normals, List<int[]> triangles) {
+                                      MeshData.Builder builder, ReconstructionMonitor monitor) {
         // 简化的移动立方体算法
         // 实际实现需要更复杂的空间划分和等值面提取
 
@@ -31,21 +31,27 @@ public class SurfaceReconstructor {
         int gridResolution = 32; // 网格分辨率
 
         // 创建空间网格
-        float[][][] grid = createDistanceGrid(pointCloud, gridResolution, gridSize);
+        float[][][] grid = createDistanceGrid(pointCloud, gridResolution, gridSize, monitor);
 
         // 提取等值面（这里简化实现）
-        extractIsoSurface(grid, gridSize, vertices, triangles);
+        monitor.onProgress(ReconstructionStage.TRIANGULATE, 0.0f);
+        extractIsoSurface(grid, gridSize, builder);
 
         // 计算法线
-        calculateNormals(vertices, triangles, normals);
+        monitor.onProgress(ReconstructionStage.NORMALS, 0.0f);
+        calculateNormals(builder);
+        monitor.onProgress(ReconstructionStage.PACK, 0.0f);
     }
 
-    private static float[][][] createDistanceGrid(PointCloudData pointCloud, int resolution, float gridSize) {
+    private static float[][][] createDistanceGrid(PointCloudData pointCloud, int resolution, float gridSize,
+                                                  ReconstructionMonitor monitor) {
         float[][][] grid = new float[resolution][resolution][resolution];
 
         // 初始化网格
         for (int i = 0; i < resolution; i++) {
+            monitor.onProgress(ReconstructionStage.SAMPLE, (float) i / resolution);
             for (int j = 0; j < resolution; j++) {
+                monitor.checkCancelled();
                 for (int k = 0; k < resolution; k++) {
                     grid[i][j][k] = calculateDistanceToSurface(pointCloud, i, j, k, gridSize, resolution);
                 }
@@ -79,16 +85,16 @@ public class SurfaceReconstructor {
     }
 
     private static void extractIsoSurface(float[][][] grid, float gridSize,
-                                          List<float[]> vertices, List<int[]> triangles) {
+                                          MeshData.Builder builder) {
         float isoLevel = gridSize * 0.5f; // 等值面阈值
 
         // 简化的表面提取（实际需要完整的移动立方体算法）
         // 这里只是示意，实际项目建议使用成熟算法库
     }
 
-    private static void calculateNormals(List<float[]> vertices, List<int[]> triangles, List<float[]> normals) {
-        for (int i = 0; i < vertices.size(); i++) {
-            normals.add(new float[]{0, 1, 0}); // 简化法线计算
+    private static void calculateNormals(MeshData.Builder builder) {
+        for (int i = 0; i < builder.getVertexCount(); i++) {
+            builder.setNormal(i, 0, 1, 0); // 简化法线计算
         }
     }
 }
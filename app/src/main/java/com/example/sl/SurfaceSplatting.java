@@ -0,0 +1,275 @@
+package com.example.sl;
+
+import android.opengl.GLES30;
+import android.util.Log;
+
+/**
+ * 面元（splat）绘制：每个点按法线和半径绘制为空间中的圆盘（屏幕上为椭圆），相邻圆盘互相覆盖，表面没有空洞（GL线程）
+ * 两遍绘制到离屏帧缓冲：可见性遍只写深度（向后偏移一个半径），累加遍在该深度附近的面元按权重加法混合，
+ * 最后用一个全屏三角形除以权重和输出到屏幕；帧缓冲不完整（如不支持半浮点颜色缓冲）时单遍绘制不透明面元
+ */
+public class SurfaceSplatting {
+    private static final String TAG = "SurfaceSplatting";
+
+    // 面元属性（法线 xyz、半径）的顶点属性位置，与 shader/splat/vertex_shader.glsl 一致
+    public static final int SPLAT_ATTRIBUTE = 2;
+
+    private static final String VERTEX_SHADER = "shader/splat/vertex_shader.glsl";
+    private static final String FRAGMENT_SHADER = "shader/splat/fragment_shader.glsl";
+
+    private final GlApi gl;
+    private final int[] ids = new int[1];
+    private final SplatProgram visibility = new SplatProgram();
+    private final SplatProgram accumulation = new SplatProgram();
+    private final SplatProgram opaque = new SplatProgram();
+    private int resolveProgram;
+    private int accumulationTextureHandle;
+    private int vao;
+
+    private int framebuffer;
+    private int colorTexture;
+    private int depthTexture;
+    private int width;
+    private int height;
+    private final float[] background = {0, 0, 0, 1};
+    private boolean enabled;
+    private int colorMode = PointCloudRenderer.COLOR_RGB;
+    private float heightMin = -1;
+    private float heightMax = 1;
+
+    /**
+     * 一个面元程序变体及其 uniform 位置
+     */
+    private static class SplatProgram {
+        int program;
+        int modelViewHandle;
+        int projectionHandle;
+        int viewportScaleHandle;
+        int invProjScaleHandle;
+        int viewportSizeHandle;
+        int colorModeHandle;
+        int heightRangeHandle;
+    }
+
+    public SurfaceSplatting(GlApi gl) {
+        this.gl = gl;
+    }
+
+    /**
+     * GL上下文创建后调用：旧上下文中的对象已随上下文失效，重新创建程序和空的顶点数组
+     */
+    public void onContextCreated(ShaderProgramManager programs) {
+        framebuffer = 0;
+        colorTexture = 0;
+        depthTexture = 0;
+        width = 0;
+        height = 0;
+        enabled = false;
+        load(programs, opaque);
+        load(programs, visibility, "VISIBILITY");
+        load(programs, accumulation, "ACCUMULATE");
+        resolveProgram = programs.getProgram("shader/splat/resolve_vertex_shader.glsl",
+                "shader/splat/resolve_fragment_shader.glsl");
+        if (opaque.program == 0) {
+            Log.e(TAG, "Failed to create splat program");
+            return;
+        }
+        if (resolveProgram != 0) {
+            accumulationTextureHandle = gl.glGetUniformLocation(resolveProgram, "uAccumulation");
+        }
+        // 全屏三角形的顶点由 gl_VertexID 生成，顶点数组不绑定任何缓冲区
+        gl.glGenVertexArrays(1, ids, 0);
+        vao = ids[0];
+    }
+
+    private void load(ShaderProgramManager programs, SplatProgram target, String... defines) {
+        int program = programs.getProgram(VERTEX_SHADER, FRAGMENT_SHADER, defines);
+        target.program = program;
+        if (program == 0) return;
+        target.modelViewHandle = gl.glGetUniformLocation(program, "uModelViewMatrix");
+        target.projectionHandle = gl.glGetUniformLocation(program, "uProjectionMatrix");
+        target.viewportScaleHandle = gl.glGetUniformLocation(program, "uViewportScale");
+        target.invProjScaleHandle = gl.glGetUniformLocation(program, "uInvProjScale");
+        target.viewportSizeHandle = gl.glGetUniformLocation(program, "uViewportSize");
+        target.colorModeHandle = gl.glGetUniformLocation(program, "uColorMode");
+        target.heightRangeHandle = gl.glGetUniformLocation(program, "uHeightRange");
+    }
+
+    /**
+     * 屏幕的清除颜色：离屏帧缓冲清除为 0 后恢复为该颜色
+     */
+    public void setBackground(float red, float green, float blue, float alpha) {
+        background[0] = red;
+        background[1] = green;
+        background[2] = blue;
+        background[3] = alpha;
+    }
+
+    /**
+     * 着色方式（PointCloudRenderer.COLOR_*）和高度色带范围，与点程序一致
+     */
+    public void setColoring(int colorMode, float heightMin, float heightMax) {
+        this.colorMode = colorMode;
+        this.heightMin = heightMin;
+        this.heightMax = heightMax;
+    }
+
+    /**
+     * 按视口大小（重新）创建累加颜色和深度纹理
+     */
+    public void resize(int width, int height) {
+        if (opaque.program == 0 || width <= 0 || height <= 0) return;
+        if (width == this.width && height == this.height && enabled) return;
+        deleteTargets();
+        this.width = width;
+        this.height = height;
+        if (visibility.program == 0 || accumulation.program == 0 || resolveProgram == 0) {
+            Log.e(TAG, "Splat pass programs unavailable, drawing opaque splats");
+            return;
+        }
+
+        // 权重和需要超过 1 的范围，使用半浮点颜色缓冲
+        colorTexture = createTexture(GLES30.GL_RGBA16F, GLES30.GL_RGBA, GLES30.GL_HALF_FLOAT);
+        depthTexture = createTexture(GLES30.GL_DEPTH_COMPONENT24, GLES30.GL_DEPTH_COMPONENT, GLES30.GL_UNSIGNED_INT);
+        gl.glBindTexture(GLES30.GL_TEXTURE_2D, 0);
+
+        gl.glGenFramebuffers(1, ids, 0);
+        framebuffer = ids[0];
+        gl.glBindFramebuffer(GLES30.GL_FRAMEBUFFER, framebuffer);
+        gl.glFramebufferTexture2D(GLES30.GL_FRAMEBUFFER, GLES30.GL_COLOR_ATTACHMENT0, GLES30.GL_TEXTURE_2D, colorTexture, 0);
+        gl.glFramebufferTexture2D(GLES30.GL_FRAMEBUFFER, GLES30.GL_DEPTH_ATTACHMENT, GLES30.GL_TEXTURE_2D, depthTexture, 0);
+        int status = gl.glCheckFramebufferStatus(GLES30.GL_FRAMEBUFFER);
+        gl.glBindFramebuffer(GLES30.GL_FRAMEBUFFER, 0);
+
+        enabled = status == GLES30.GL_FRAMEBUFFER_COMPLETE;
+        if (!enabled) {
+            Log.e(TAG, "Splat framebuffer incomplete: 0x" + Integer.toHexString(status) + ", drawing opaque splats");
+            deleteTargets();
+        }
+    }
+
+    private int createTexture(int internalFormat, int format, int type) {
+        gl.glGenTextures(1, ids, 0);
+        int texture = ids[0];
+        gl.glBindTexture(GLES30.GL_TEXTURE_2D, texture);
+        gl.glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_MIN_FILTER, GLES30.GL_NEAREST);
+        gl.glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_MAG_FILTER, GLES30.GL_NEAREST);
+        gl.glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_WRAP_S, GLES30.GL_CLAMP_TO_EDGE);
+        gl.glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_WRAP_T, GLES30.GL_CLAMP_TO_EDGE);
+        gl.glTexImage2D(GLES30.GL_TEXTURE_2D, 0, internalFormat, width, height, 0, format, type, null);
+        return texture;
+    }
+
+    /**
+     * 是否使用两遍混合绘制（否则为单遍不透明面元）
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 绘制面元：drawPoints 发出当前绑定顶点数组的绘制调用，两遍绘制时调用两次
+     * 调用前屏幕已清除，顶点数组已绑定；之后调用方解绑顶点数组并调用 resolve()
+     */
+    public void draw(float[] modelViewMatrix, float[] projectionMatrix, Runnable drawPoints) {
+        if (opaque.program == 0 || width == 0) return;
+        if (!enabled) {
+            use(opaque, modelViewMatrix, projectionMatrix);
+            drawPoints.run();
+            return;
+        }
+
+        gl.glBindFramebuffer(GLES30.GL_FRAMEBUFFER, framebuffer);
+        gl.glClearColor(0, 0, 0, 0);
+        gl.glClear(GLES30.GL_COLOR_BUFFER_BIT | GLES30.GL_DEPTH_BUFFER_BIT);
+        gl.glClearColor(background[0], background[1], background[2], background[3]);
+
+        // 可见性：只写深度
+        use(visibility, modelViewMatrix, projectionMatrix);
+        gl.glColorMask(false, false, false, false);
+        gl.glDisable(GLES30.GL_BLEND);
+        drawPoints.run();
+
+        // 累加：不写深度，通过深度测试的面元加权累加颜色和权重
+        use(accumulation, modelViewMatrix, projectionMatrix);
+        gl.glColorMask(true, true, true, true);
+        gl.glDepthMask(false);
+        gl.glEnable(GLES30.GL_BLEND);
+        gl.glBlendFunc(GLES30.GL_ONE, GLES30.GL_ONE);
+        drawPoints.run();
+        gl.glDepthMask(true);
+        gl.glBlendFunc(GLES30.GL_SRC_ALPHA, GLES30.GL_ONE_MINUS_SRC_ALPHA);
+    }
+
+    /**
+     * 两遍绘制时把累加结果归一化输出到屏幕，之后恢复 sceneProgram 为当前程序
+     */
+    public void resolve(int sceneProgram) {
+        if (opaque.program == 0 || width == 0) return;
+        if (!enabled) {
+            gl.glUseProgram(sceneProgram);
+            return;
+        }
+
+        // 颜色除以权重和，没有面元的像素保留屏幕背景
+        gl.glBindFramebuffer(GLES30.GL_FRAMEBUFFER, 0);
+        gl.glDisable(GLES30.GL_DEPTH_TEST);
+        gl.glUseProgram(resolveProgram);
+        gl.glBindTexture(GLES30.GL_TEXTURE_2D, colorTexture);
+        gl.glUniform1i(accumulationTextureHandle, 0);
+        gl.glBindVertexArray(vao);
+        gl.glDrawArrays(GLES30.GL_TRIANGLES, 0, 3);
+        gl.glBindVertexArray(0);
+        // 下一帧绘制到帧缓冲时该纹理不能被采样
+        gl.glBindTexture(GLES30.GL_TEXTURE_2D, 0);
+        gl.glUseProgram(sceneProgram);
+        gl.glEnable(GLES30.GL_DEPTH_TEST);
+    }
+
+    private void use(SplatProgram splat, float[] modelViewMatrix, float[] projectionMatrix) {
+        gl.glUseProgram(splat.program);
+        gl.glUniformMatrix4fv(splat.modelViewHandle, 1, false, modelViewMatrix, 0);
+        gl.glUniformMatrix4fv(splat.projectionHandle, 1, false, projectionMatrix, 0);
+        // 视空间长度 r 在距离 z 处的像素大小为 r * uViewportScale / z
+        gl.glUniform1f(splat.viewportScaleHandle, projectionMatrix[5] * height / 2.0f);
+        gl.glUniform2f(splat.invProjScaleHandle, 1.0f / projectionMatrix[0], 1.0f / projectionMatrix[5]);
+        gl.glUniform2f(splat.viewportSizeHandle, width, height);
+        gl.glUniform1i(splat.colorModeHandle, colorMode);
+        gl.glUniform2f(splat.heightRangeHandle, heightMin, heightMax);
+    }
+
+    private void deleteTargets() {
+        if (framebuffer != 0) {
+            ids[0] = framebuffer;
+            gl.glDeleteFramebuffers(1, ids, 0);
+            framebuffer = 0;
+        }
+        if (colorTexture != 0) {
+            ids[0] = colorTexture;
+            gl.glDeleteTextures(1, ids, 0);
+            colorTexture = 0;
+        }
+        if (depthTexture != 0) {
+            ids[0] = depthTexture;
+            gl.glDeleteTextures(1, ids, 0);
+            depthTexture = 0;
+        }
+        enabled = false;
+    }
+
+    /**
+     * 删除帧缓冲、纹理和顶点数组，程序由 ShaderProgramManager 释放
+     */
+    public void release() {
+        deleteTargets();
+        if (vao != 0) {
+            ids[0] = vao;
+            gl.glDeleteVertexArrays(1, ids, 0);
+            vao = 0;
+        }
+        visibility.program = 0;
+        accumulation.program = 0;
+        opaque.program = 0;
+        resolveProgram = 0;
+    }
+}
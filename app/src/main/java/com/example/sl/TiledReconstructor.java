@@ -0,0 +1,576 @@
+package com.example.sl;
+
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 分块（out-of-core）表面重建 - 用于无法整体放入内存的点云
+ *
+ * 1. 流式读取两遍点源：第一遍统计包围盒，第二遍按范围最大的两个轴把点写入带重叠区的柱状分块文件
+ * 2. 工作线程池逐块读取，估计法线后做伞形三角化（与 ProgressiveReconstructor 相同），
+ *    三角化不依赖投影方向，悬挑、封闭表面等三维形状不会被压成一层；
+ *    K 近邻可能受分块边界影响的点不作为伞形中心，每个三角形只由重心所在核心区的分块输出
+ * 3. 按分块顺序逐块合并：重叠区内的顶点按坐标焊接，只保留之后的分块还会用到的接缝顶点
+ *
+ * 同一时刻内存中最多只有 workerThreads 个分块（加载中、三角化中或等待合并），峰值内存由分块大小决定；
+ * 输出的网格本身仍然整体保存在内存中
+ */
+public class TiledReconstructor {
+    private static final String TAG = "TiledReconstructor";
+
+    // 自动重叠区宽度：平均点间距的倍数，需要大于 K 近邻半径加上三角形边长
+    private static final float OVERLAP_SPACINGS = 12.0f;
+    private static final int WRITE_BUFFER_SIZE = 16 * 1024;
+
+    private final File workDir;
+    private final int pointsPerTile;
+    private final float overlap;
+    private final int workerThreads;
+
+    // 统计：分块数和同时在内存中的最大分块数
+    private int tileCount;
+    // 按包围盒选择的后处理焊接阈值
+    private float weldEpsilon;
+    private final AtomicInteger tilesInMemory = new AtomicInteger();
+    private final AtomicInteger peakTilesInMemory = new AtomicInteger();
+
+    /**
+     * @param workDir       分块临时文件所在目录
+     * @param pointsPerTile 每块的目标点数，决定峰值内存
+     * @param overlap       重叠区宽度（点云坐标单位），<= 0 时按点密度自动选择
+     * @param workerThreads 并行处理分块的线程数，也是同时在内存中的分块数上限
+     */
+    public TiledReconstructor(File workDir, int pointsPerTile, float overlap, int workerThreads) {
+        this.workDir = workDir;
+        this.pointsPerTile = pointsPerTile;
+        this.overlap = overlap;
+        this.workerThreads = Math.max(1, workerThreads);
+    }
+
+    public MeshData reconstruct(PointSource source, ReconstructionMonitor monitor) {
+        MeshData stitched = stitch(source, monitor);
+        // 接缝已在合并时焊接，再清理伞形三角化留下的重复和非流形三角形，按顶点缓存重排并生成细节层次
+        return MeshPostProcessor.postProcess(stitched, weldEpsilon, true);
+    }
+
+    /**
+     * 分块三角化并合并，不做清理；合并结果与整体三角化的三角形集合相同
+     */
+    MeshData stitch(PointSource source, ReconstructionMonitor monitor) {
+        Log.i(TAG, "Starting tiled surface reconstruction...");
+        long startTime = System.currentTimeMillis();
+        weldEpsilon = 0;
+        tilesInMemory.set(0);
+        peakTilesInMemory.set(0);
+
+        try {
+            TileLayout layout = computeLayout(source, monitor);
+            tileCount = layout.tilesA * layout.tilesB;
+            File[] tileFiles = partition(source, layout, monitor);
+            try {
+                MeshData meshData = triangulateAndStitch(layout, tileFiles, monitor);
+
+                Log.i(TAG, String.format("Tiled reconstruction completed in %d ms: %d tiles (at most %d in memory), "
+                                + "%d vertices, %d triangles",
+                        (System.currentTimeMillis() - startTime), tileCount, peakTilesInMemory.get(),
+                        meshData.getVertexCount(), meshData.getTriangleCount()));
+                return meshData;
+            } finally {
+                for (File file : tileFiles) {
+                    if (file != null && !file.delete()) {
+                        Log.w(TAG, "Failed to delete tile file " + file);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 上一次重建的分块数
+     */
+    public int getTileCount() {
+        return tileCount;
+    }
+
+    /**
+     * 上一次重建中同时在内存中的最大分块数
+     */
+    public int getPeakTilesInMemory() {
+        return peakTilesInMemory.get();
+    }
+
+    /**
+     * 第一遍：统计包围盒并确定分块布局
+     */
+    private TileLayout computeLayout(PointSource source, ReconstructionMonitor monitor) throws IOException {
+        final float[] bounds = {Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE,
+                -Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE};
+        final long[] count = {0};
+
+        source.read((x, y, z, rgb) -> {
+            if ((count[0] & 0xFFFF) == 0) {
+                monitor.checkCancelled();
+            }
+            bounds[0] = Math.min(bounds[0], x);
+            bounds[1] = Math.min(bounds[1], y);
+            bounds[2] = Math.min(bounds[2], z);
+            bounds[3] = Math.max(bounds[3], x);
+            bounds[4] = Math.max(bounds[4], y);
+            bounds[5] = Math.max(bounds[5], z);
+            count[0]++;
+        });
+
+        TileLayout layout = new TileLayout();
+        layout.pointCount = count[0];
+        if (count[0] == 0) {
+            return layout;
+        }
+
+        // 沿范围最大的两个轴 (a, b) 分块，每块是贯穿第三个轴的柱体
+        float[] extent = {bounds[3] - bounds[0], bounds[4] - bounds[1], bounds[5] - bounds[2]};
+        int thin = 0;
+        if (extent[1] < extent[thin]) thin = 1;
+        if (extent[2] < extent[thin]) thin = 2;
+        layout.axisA = (thin + 1) % 3;
+        layout.axisB = (thin + 2) % 3;
+        layout.minA = bounds[layout.axisA];
+        layout.minB = bounds[layout.axisB];
+
+        float extentA = Math.max(extent[layout.axisA], 1e-6f);
+        float extentB = Math.max(extent[layout.axisB], 1e-6f);
+
+        // 法线朝向同一个观察点（沿最薄的轴位于包围盒外侧），各分块的法线方向一致
+        float[] view = {(bounds[0] + bounds[3]) / 2.0f, (bounds[1] + bounds[4]) / 2.0f, (bounds[2] + bounds[5]) / 2.0f};
+        view[thin] = bounds[thin + 3] + Math.max(extentA, extentB);
+        layout.viewX = view[0];
+        layout.viewY = view[1];
+        layout.viewZ = view[2];
+        float spacing = SpatialGrid.suggestCellSize(bounds[0], bounds[1], bounds[2], bounds[3], bounds[4], bounds[5],
+                (int) Math.min(Integer.MAX_VALUE, count[0]), 1.0f);
+        layout.spacing = spacing;
+        weldEpsilon = MeshCleaner.suggestEpsilon(bounds[0], bounds[1], bounds[2], bounds[3], bounds[4], bounds[5]);
+        layout.overlap = overlap > 0 ? overlap : spacing * OVERLAP_SPACINGS;
+
+        // 分块不小于重叠区，否则重叠区的点比核心区还多
+        int tilesPerAxis = (int) Math.ceil(Math.sqrt((double) count[0] / Math.max(1, pointsPerTile)));
+        layout.tilesA = Math.max(1, Math.min(tilesPerAxis, (int) (extentA / layout.overlap)));
+        layout.tilesB = Math.max(1, Math.min(tilesPerAxis, (int) (extentB / layout.overlap)));
+        layout.tileSizeA = extentA / layout.tilesA;
+        layout.tileSizeB = extentB / layout.tilesB;
+
+        Log.i(TAG, String.format("Tile layout: %d x %d tiles, tile size %.4f x %.4f, overlap %.4f, %d points",
+                layout.tilesA, layout.tilesB, layout.tileSizeA, layout.tileSizeB, layout.overlap, count[0]));
+        return layout;
+    }
+
+    /**
+     * 第二遍：把点写入各分块文件，重叠区内的点会写入多个分块
+     */
+    private File[] partition(PointSource source, TileLayout layout, ReconstructionMonitor monitor) throws IOException {
+        int tiles = layout.tilesA * layout.tilesB;
+        File[] files = new File[tiles];
+        DataOutputStream[] outputs = new DataOutputStream[tiles];
+        layout.tilePointCounts = new int[tiles];
+        if (layout.pointCount == 0) {
+            return files;
+        }
+
+        if (!workDir.exists() && !workDir.mkdirs()) {
+            throw new IOException("Cannot create work directory " + workDir);
+        }
+
+        final long[] processed = {0};
+        try {
+            source.read((x, y, z, rgb) -> {
+                if ((processed[0] & 0xFFFF) == 0) {
+                    monitor.checkCancelled();
+                    monitor.onProgress(ReconstructionStage.SAMPLE, (float) processed[0] / layout.pointCount);
+                }
+                processed[0]++;
+
+                float a = component(x, y, z, layout.axisA);
+                float b = component(x, y, z, layout.axisB);
+                int taMax = layout.tileA(a + layout.overlap);
+                int tbMax = layout.tileB(b + layout.overlap);
+                for (int ta = layout.tileA(a - layout.overlap); ta <= taMax; ta++) {
+                    for (int tb = layout.tileB(b - layout.overlap); tb <= tbMax; tb++) {
+                        int tile = ta * layout.tilesB + tb;
+                        try {
+                            if (outputs[tile] == null) {
+                                files[tile] = new File(workDir, "tile_" + ta + "_" + tb + ".bin");
+                                outputs[tile] = new DataOutputStream(new BufferedOutputStream(
+                                        new FileOutputStream(files[tile]), WRITE_BUFFER_SIZE));
+                            }
+                            outputs[tile].writeFloat(x);
+                            outputs[tile].writeFloat(y);
+                            outputs[tile].writeFloat(z);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        layout.tilePointCounts[tile]++;
+                    }
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            for (DataOutputStream output : outputs) {
+                if (output != null) {
+                    output.close();
+                }
+            }
+        }
+        return files;
+    }
+
+    /**
+     * 在线程池中并行三角化各分块，按分块顺序逐块合并
+     * 提交的分块最多比合并进度超前 workerThreads 个，已合并的分块立即释放
+     */
+    private MeshData triangulateAndStitch(TileLayout layout, File[] tileFiles, ReconstructionMonitor monitor)
+            throws IOException {
+        List<Integer> tiles = new ArrayList<>();
+        for (int tile = 0; tile < tileFiles.length; tile++) {
+            if (tileFiles[tile] != null) tiles.add(tile);
+        }
+
+        Stitcher stitcher = new Stitcher();
+        ExecutorService pool = Executors.newFixedThreadPool(workerThreads);
+        Future<?>[] futures = new Future<?>[tiles.size()];
+        try {
+            int submitted = 0;
+            for (int i = 0; i < tiles.size(); i++) {
+                while (submitted < tiles.size() && submitted < i + workerThreads) {
+                    int tile = tiles.get(submitted);
+                    futures[submitted++] = pool.submit(() -> triangulateTile(layout, tile, tileFiles[tile], monitor));
+                }
+
+                TileMesh mesh = (TileMesh) futures[i].get();
+                futures[i] = null;
+                monitor.checkCancelled();
+                stitcher.add(mesh);
+                tilesInMemory.decrementAndGet();
+                monitor.onProgress(ReconstructionStage.TRIANGULATE, (float) (i + 1) / tiles.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof IOException) throw (IOException) cause;
+            throw new RuntimeException(cause);
+        } finally {
+            for (Future<?> future : futures) {
+                if (future != null) future.cancel(true);
+            }
+            pool.shutdownNow();
+        }
+
+        Log.i(TAG, "Welded " + stitcher.welded + " seam vertices, at most "
+                + stitcher.peakSeamVertices + " kept for welding");
+        monitor.onProgress(ReconstructionStage.PACK, 1.0f);
+        return stitcher.builder.build();
+    }
+
+    /**
+     * 读取一个分块，估计法线并做伞形三角化，只保留重心位于该分块核心区的三角形
+     */
+    private TileMesh triangulateTile(TileLayout layout, int tile, File file, ReconstructionMonitor monitor)
+            throws IOException {
+        monitor.checkCancelled();
+        peakTilesInMemory.accumulateAndGet(tilesInMemory.incrementAndGet(), Math::max);
+
+        int ta = tile / layout.tilesB, tb = tile % layout.tilesB;
+        int pointCount = layout.tilePointCounts[tile];
+        SpatialGrid grid = new SpatialGrid(layout.spacing * 2.0f, pointCount);
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file), WRITE_BUFFER_SIZE))) {
+            for (int i = 0; i < pointCount; i++) {
+                if ((i & 0xFFFF) == 0) {
+                    monitor.checkCancelled();
+                }
+                grid.add(input.readFloat(), input.readFloat(), input.readFloat());
+            }
+        }
+
+        // 分块加载范围的边界，位于点云边界上的一侧没有缺失的点
+        float loadA0 = ta == 0 ? -Float.MAX_VALUE : layout.coreA(ta) - layout.overlap;
+        float loadA1 = ta == layout.tilesA - 1 ? Float.MAX_VALUE : layout.coreA(ta + 1) + layout.overlap;
+        float loadB0 = tb == 0 ? -Float.MAX_VALUE : layout.coreB(tb) - layout.overlap;
+        float loadB1 = tb == layout.tilesB - 1 ? Float.MAX_VALUE : layout.coreB(tb + 1) + layout.overlap;
+
+        // 法线；K 近邻都比加载边界近的点，其近邻和法线与整体重建时相同
+        float[] normals = new float[pointCount * 3];
+        boolean[] exact = new boolean[pointCount];
+        int[] neighbors = new int[ProgressiveReconstructor.NORMAL_NEIGHBORS];
+        float[] distSq = new float[ProgressiveReconstructor.NORMAL_NEIGHBORS];
+        float[] normal = new float[3];
+        for (int i = 0; i < pointCount; i++) {
+            if ((i & 0xFF) == 0) {
+                monitor.checkCancelled();
+            }
+            float x = grid.getX(i), y = grid.getY(i), z = grid.getZ(i);
+            int found = grid.findNearest(x, y, z, ProgressiveReconstructor.NORMAL_NEIGHBORS, i, neighbors, distSq);
+            NormalEstimator.estimate(grid, i, neighbors, found, layout.viewX, layout.viewY, layout.viewZ, normal);
+            normals[i * 3] = normal[0];
+            normals[i * 3 + 1] = normal[1];
+            normals[i * 3 + 2] = normal[2];
+
+            float a = component(x, y, z, layout.axisA), b = component(x, y, z, layout.axisB);
+            float margin = Math.min(Math.min(a - loadA0, loadA1 - a), Math.min(b - loadB0, loadB1 - b));
+            float reach = found < ProgressiveReconstructor.NORMAL_NEIGHBORS
+                    ? Float.MAX_VALUE : (float) Math.sqrt(distSq[found - 1]);
+            exact[i] = reach < margin;
+        }
+
+        // 三角化
+        TileMesh mesh = new TileMesh(tile);
+        int[] vertexOfPoint = new int[pointCount];
+        Arrays.fill(vertexOfPoint, -1);
+        Set<Long> emitted = new HashSet<>();
+        int[] umbrellaNeighbors = new int[ProgressiveReconstructor.TRIANGLE_NEIGHBORS];
+        float[] umbrellaDistSq = new float[ProgressiveReconstructor.TRIANGLE_NEIGHBORS];
+        double[] angles = new double[ProgressiveReconstructor.TRIANGLE_NEIGHBORS];
+        int[] pairs = new int[ProgressiveReconstructor.TRIANGLE_NEIGHBORS * 2];
+        for (int i = 0; i < pointCount; i++) {
+            if ((i & 0xFF) == 0) {
+                monitor.checkCancelled();
+            }
+            if (!exact[i]) continue;
+
+            int triangles = ProgressiveReconstructor.umbrella(grid, normals, i,
+                    umbrellaNeighbors, umbrellaDistSq, angles, pairs);
+            for (int t = 0; t < triangles; t++) {
+                int p = pairs[t * 2], q = pairs[t * 2 + 1];
+                if (owner(layout, grid, i, p, q) != tile) continue;
+                if (!emitted.add(ProgressiveReconstructor.triangleKey(i, p, q))) continue;
+                mesh.addTriangle(vertex(mesh, layout, grid, normals, vertexOfPoint, i),
+                        vertex(mesh, layout, grid, normals, vertexOfPoint, p),
+                        vertex(mesh, layout, grid, normals, vertexOfPoint, q));
+            }
+        }
+        return mesh;
+    }
+
+    private static int vertex(TileMesh mesh, TileLayout layout, SpatialGrid grid, float[] normals,
+                              int[] vertexOfPoint, int point) {
+        if (vertexOfPoint[point] < 0) {
+            float x = grid.getX(point), y = grid.getY(point), z = grid.getZ(point);
+            // 与该点同时写入的最后一个分块，之前的分块都可能引用该顶点
+            float a = component(x, y, z, layout.axisA), b = component(x, y, z, layout.axisB);
+            int lastTile = layout.tileA(a + layout.overlap) * layout.tilesB + layout.tileB(b + layout.overlap);
+            int firstTile = layout.tileA(a - layout.overlap) * layout.tilesB + layout.tileB(b - layout.overlap);
+            vertexOfPoint[point] = mesh.addVertex(x, y, z,
+                    normals[point * 3], normals[point * 3 + 1], normals[point * 3 + 2],
+                    firstTile != lastTile ? lastTile : -1);
+        }
+        return vertexOfPoint[point];
+    }
+
+    /**
+     * 三角形重心所在的分块；三个坐标排序后再求和，各分块对同一个三角形的结果完全相同
+     */
+    private static int owner(TileLayout layout, SpatialGrid grid, int i, int p, int q) {
+        double a = sortedSum(component(grid, i, layout.axisA), component(grid, p, layout.axisA),
+                component(grid, q, layout.axisA)) / 3;
+        double b = sortedSum(component(grid, i, layout.axisB), component(grid, p, layout.axisB),
+                component(grid, q, layout.axisB)) / 3;
+        return layout.tileA((float) a) * layout.tilesB + layout.tileB((float) b);
+    }
+
+    private static double sortedSum(float u, float v, float w) {
+        float lo = Math.min(u, v), hi = Math.max(u, v);
+        float mid = Math.max(lo, Math.min(hi, w));
+        return (double) Math.min(lo, w) + mid + Math.max(hi, w);
+    }
+
+    private static float component(SpatialGrid grid, int point, int axis) {
+        return axis == 0 ? grid.getX(point) : (axis == 1 ? grid.getY(point) : grid.getZ(point));
+    }
+
+    private static float component(float x, float y, float z, int axis) {
+        return axis == 0 ? x : (axis == 1 ? y : z);
+    }
+
+    /**
+     * 按分块顺序合并：接缝顶点按坐标焊接，合并完最后一个可能引用它的分块后移除
+     */
+    private static class Stitcher {
+        final MeshData.Builder builder = new MeshData.Builder();
+        // 接缝顶点：坐标 -> 输出的顶点索引
+        final Map<SeamKey, Integer> seamVertices = new HashMap<>();
+        // 合并完该分块后可以移除的接缝顶点
+        final Map<Integer, List<SeamKey>> retireAfter = new HashMap<>();
+        int welded;
+        int peakSeamVertices;
+
+        void add(TileMesh tile) {
+            int[] remap = new int[tile.vertexCount];
+            for (int i = 0; i < tile.vertexCount; i++) {
+                float x = tile.vertices[i * 3], y = tile.vertices[i * 3 + 1], z = tile.vertices[i * 3 + 2];
+                int lastTile = tile.lastTile[i];
+                if (lastTile < 0) {
+                    remap[i] = builder.addVertex(x, y, z,
+                            tile.normals[i * 3], tile.normals[i * 3 + 1], tile.normals[i * 3 + 2]);
+                    continue;
+                }
+
+                SeamKey key = new SeamKey(x, y, z);
+                Integer match = seamVertices.get(key);
+                if (match != null) {
+                    remap[i] = match;
+                    welded++;
+                } else {
+                    remap[i] = builder.addVertex(x, y, z,
+                            tile.normals[i * 3], tile.normals[i * 3 + 1], tile.normals[i * 3 + 2]);
+                    if (lastTile > tile.tile) {
+                        seamVertices.put(key, remap[i]);
+                        retireAfter.computeIfAbsent(lastTile, k -> new ArrayList<>()).add(key);
+                    }
+                }
+            }
+
+            for (int t = 0; t < tile.triangleCount; t++) {
+                int a = remap[tile.triangles[t * 3]], b = remap[tile.triangles[t * 3 + 1]], c = remap[tile.triangles[t * 3 + 2]];
+                if (a != b && b != c && a != c) {
+                    builder.addTriangle(a, b, c);
+                }
+            }
+
+            peakSeamVertices = Math.max(peakSeamVertices, seamVertices.size());
+            List<SeamKey> retired = retireAfter.remove(tile.tile);
+            if (retired != null) {
+                for (SeamKey key : retired) {
+                    seamVertices.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * 接缝顶点的坐标键；同一个点写入各分块文件的坐标完全相同
+     */
+    private static class SeamKey {
+        final int x, y, z;
+
+        SeamKey(float x, float y, float z) {
+            this.x = Float.floatToIntBits(x);
+            this.y = Float.floatToIntBits(y);
+            this.z = Float.floatToIntBits(z);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof SeamKey)) return false;
+            SeamKey other = (SeamKey) o;
+            return x == other.x && y == other.y && z == other.z;
+        }
+
+        @Override
+        public int hashCode() {
+            return (x * 73856093) ^ (y * 19349663) ^ (z * 83492791);
+        }
+    }
+
+    /**
+     * 分块布局：(a, b) 平面上的柱状分块划分
+     */
+    private static class TileLayout {
+        long pointCount;
+        int axisA, axisB;
+        float minA, minB;
+        float viewX, viewY, viewZ;
+        // 平均点间距和重叠区宽度
+        float spacing, overlap;
+        int tilesA, tilesB;
+        float tileSizeA, tileSizeB;
+        int[] tilePointCounts;
+
+        int tileA(float a) {
+            return Math.min(tilesA - 1, Math.max(0, (int) Math.floor((a - minA) / tileSizeA)));
+        }
+
+        int tileB(float b) {
+            return Math.min(tilesB - 1, Math.max(0, (int) Math.floor((b - minB) / tileSizeB)));
+        }
+
+        /**
+         * 第 ta 块核心区的起点
+         */
+        float coreA(int ta) {
+            return minA + ta * tileSizeA;
+        }
+
+        float coreB(int tb) {
+            return minB + tb * tileSizeB;
+        }
+    }
+
+    /**
+     * 单个分块的三角化结果，只包含被本块三角形引用的顶点
+     */
+    private static class TileMesh {
+        final int tile;
+        float[] vertices = new float[3 * 256];
+        float[] normals = new float[3 * 256];
+        // 接缝顶点：同时写入的最后一个分块；只属于本块的顶点为 -1
+        int[] lastTile = new int[256];
+        int vertexCount;
+        int[] triangles = new int[3 * 256];
+        int triangleCount;
+
+        TileMesh(int tile) {
+            this.tile = tile;
+        }
+
+        int addVertex(float x, float y, float z, float nx, float ny, float nz, int last) {
+            if (vertexCount == lastTile.length) {
+                vertices = Arrays.copyOf(vertices, vertices.length * 2);
+                normals = Arrays.copyOf(normals, normals.length * 2);
+                lastTile = Arrays.copyOf(lastTile, lastTile.length * 2);
+            }
+            vertices[vertexCount * 3] = x;
+            vertices[vertexCount * 3 + 1] = y;
+            vertices[vertexCount * 3 + 2] = z;
+            normals[vertexCount * 3] = nx;
+            normals[vertexCount * 3 + 1] = ny;
+            normals[vertexCount * 3 + 2] = nz;
+            lastTile[vertexCount] = last;
+            return vertexCount++;
+        }
+
+        void addTriangle(int a, int b, int c) {
+            if (triangleCount * 3 == triangles.length) {
+                triangles = Arrays.copyOf(triangles, triangles.length * 2);
+            }
+            triangles[triangleCount * 3] = a;
+            triangles[triangleCount * 3 + 1] = b;
+            triangles[triangleCount * 3 + 2] = c;
+            triangleCount++;
+        }
+    }
+}
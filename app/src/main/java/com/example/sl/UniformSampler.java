@@ -10,6 +10,10 @@ public class UniformSampler {
      * 均匀取样 - 使用体素网格滤波实现真正均匀取样
      */
     public static PointCloudData uniformSample(PointCloudData pointCloud, int targetPoints) {
+        return uniformSample(pointCloud, targetPoints, ReconstructionMonitor.NONE);
+    }
+
+    public static PointCloudData uniformSample(PointCloudData pointCloud, int targetPoints, ReconstructionMonitor monitor) {
         if (pointCloud.pointCount <= targetPoints) {
             return pointCloud;
         }
@@ -21,16 +25,17 @@ public class UniformSampler {
         float voxelSize = calculateOptimalVoxelSize(pointCloud, targetPoints);
 
         // 体素网格滤波
-        PointCloudData sampled = voxelGridFilter(pointCloud, voxelSize);
+        PointCloudData sampled = voxelGridFilter(pointCloud, voxelSize, monitor);
 
         // 如果取样后点数还是太多，递归取样
         if (sampled.pointCount > targetPoints * 1.2f) {
-            sampled = uniformSample(sampled, targetPoints);
+            sampled = uniformSample(sampled, targetPoints, monitor);
         }
         // 如果取样后点数太少，使用随机补充
         else if (sampled.pointCount < targetPoints * 0.8f) {
-            sampled = supplementWithRandom(pointCloud, sampled, targetPoints);
+            sampled = supplementWithRandom(pointCloud, sampled, targetPoints, monitor);
         }
+        monitor.onProgress(ReconstructionStage.SAMPLE, 1.0f);
 
         long endTime = System.currentTimeMillis();
         Log.i(TAG, "Uniform sampling completed: " + sampled.pointCount + " points in " + (endTime - startTime) + "ms");
@@ -68,11 +73,16 @@ public class UniformSampler {
     /**
      * 体素网格滤波 - 每个体素保留一个点（质心）
      */
-    private static PointCloudData voxelGridFilter(PointCloudData pointCloud, float voxelSize) {
+    private static PointCloudData voxelGridFilter(PointCloudData pointCloud, float voxelSize, ReconstructionMonitor monitor) {
         Map<String, Voxel> voxelMap = new HashMap<>();
 
         // 将点分配到体素中
-        for (int i = 0; i < pointCloud.points.size(); i++) {
+        int count = pointCloud.points.size();
+        for (int i = 0; i < count; i++) {
+            if ((i & 0xFFF) == 0) {
+                monitor.checkCancelled();
+                monitor.onProgress(ReconstructionStage.SAMPLE, (float) i / count);
+            }
             float[] point = pointCloud.points.get(i);
             float[] color = pointCloud.colors.get(i);
 
@@ -111,7 +121,8 @@ public class UniformSampler {
      */
     private static PointCloudData supplementWithRandom(PointCloudData original,
                                                        PointCloudData sampled,
-                                                       int targetPoints) {
+                                                       int targetPoints,
+                                                       ReconstructionMonitor monitor) {
         if (sampled.pointCount >= targetPoints) {
             return sampled;
         }
@@ -122,6 +133,7 @@ public class UniformSampler {
 
         // 从原始点云中随机选择未使用的点
         while (sampled.pointCount < targetPoints && usedIndices.size() < original.pointCount) {
+            monitor.checkCancelled();
             int randomIndex = random.nextInt(original.pointCount);
 
             if (!usedIndices.contains(randomIndex)) {
@@ -9,17 +9,21 @@ public class UniformSurfaceReconstructor {
      * 均匀取样 + 表面重建
      */
     public static MeshData uniformReconstruct(PointCloudData pointCloud, int targetPoints) {
+        return uniformReconstruct(pointCloud, targetPoints, ReconstructionMonitor.NONE);
+    }
+
+    public static MeshData uniformReconstruct(PointCloudData pointCloud, int targetPoints, ReconstructionMonitor monitor) {
         Log.i(TAG, "Starting uniform surface reconstruction...");
         long startTime = System.currentTimeMillis();
 
         // 1. 均匀取样
-        PointCloudData sampled = UniformSampler.uniformSample(pointCloud, targetPoints);
+        PointCloudData sampled = UniformSampler.uniformSample(pointCloud, targetPoints, monitor);
 
         // 2. 表面重建
-        MeshData meshData = QuickSurfaceReconstructor.quickReconstruct(sampled, sampled.pointCount);
+        MeshData meshData = QuickSurfaceReconstructor.quickReconstruct(sampled, sampled.pointCount, monitor);
 
         long endTime = System.currentTimeMillis();
-        Log.i(TAG, String.format("Uniform reconstruction completed in %d ms: %d vertices, %d triangles", (endTime - startTime), meshData.vertices.size(), meshData.triangles.size()));
+        Log.i(TAG, String.format("Uniform reconstruction completed in %d ms: %d vertices, %d triangles", (endTime - startTime), meshData.getVertexCount(), meshData.getTriangleCount()));
 
         return meshData;
     }
@@ -28,6 +32,10 @@ public class UniformSurfaceReconstructor {
      * 自动选择目标点数的重建
      */
     public static MeshData autoReconstruct(PointCloudData pointCloud) {
+        return autoReconstruct(pointCloud, ReconstructionMonitor.NONE);
+    }
+
+    public static MeshData autoReconstruct(PointCloudData pointCloud, ReconstructionMonitor monitor) {
         // 根据原始点数自动选择目标点数
         int targetPoints;
         if (pointCloud.pointCount > 1000000) {
@@ -40,6 +48,6 @@ public class UniformSurfaceReconstructor {
             targetPoints = pointCloud.pointCount; // 少于1万点，使用全部
         }
 
-        return uniformReconstruct(pointCloud, targetPoints);
+        return uniformReconstruct(pointCloud, targetPoints, monitor);
     }
 }
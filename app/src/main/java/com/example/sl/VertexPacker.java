@@ -0,0 +1,422 @@
+package com.example.sl;
+
+import android.opengl.GLES30;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * 顶点打包 - 把 MeshData 打包成交错、量化的顶点缓冲区
+ *
+ * 位置：float32 或相对包围盒归一化的 int16（着色器中用 uPositionScale / uPositionOffset 还原）
+ * 法线：float32、八面体编码的 2×int16 或 INT_2_10_10_10_REV
+ * 纹理坐标：float32 或 half float
+ * 索引：顶点数不超过 65536 时使用 uint16
+ */
+public class VertexPacker {
+
+    public enum PositionFormat {FLOAT, SHORT}
+
+    public enum NormalFormat {FLOAT, OCTAHEDRAL_SHORT, INT_2_10_10_10}
+
+    public enum TexCoordFormat {FLOAT, HALF}
+
+    /**
+     * 压缩布局：每个顶点 16 字节（全 float 为 32 字节）
+     */
+    public static final VertexPacker COMPACT =
+            new VertexPacker(PositionFormat.SHORT, NormalFormat.OCTAHEDRAL_SHORT, TexCoordFormat.HALF);
+
+    public static final VertexPacker FULL_PRECISION =
+            new VertexPacker(PositionFormat.FLOAT, NormalFormat.FLOAT, TexCoordFormat.FLOAT);
+
+    private static final int MAX_SHORT_INDEX_VERTICES = 65536;
+
+    private final PositionFormat positionFormat;
+    private final NormalFormat normalFormat;
+    private final TexCoordFormat texCoordFormat;
+
+    public VertexPacker(PositionFormat positionFormat, NormalFormat normalFormat, TexCoordFormat texCoordFormat) {
+        this.positionFormat = positionFormat;
+        this.normalFormat = normalFormat;
+        this.texCoordFormat = texCoordFormat;
+    }
+
+    /**
+     * 顶点属性在交错缓冲区中的描述，对应 glVertexAttribPointer 的参数
+     */
+    public static class Attribute {
+        public final int components;
+        public final int glType;
+        public final boolean normalized;
+        public final int offset;
+        final int bytes;
+
+        Attribute(int components, int glType, boolean normalized, int offset, int bytes) {
+            this.components = components;
+            this.glType = glType;
+            this.normalized = normalized;
+            this.offset = offset;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * 打包结果
+     */
+    public static class PackedMesh {
+        public final ByteBuffer vertices;
+        public final int stride;
+        public final int vertexCount;
+        public final Attribute position;
+        public final Attribute normal;
+        public final Attribute texCoord;
+
+        public final Buffer indices;   // ShortBuffer 或 IntBuffer
+        public final ByteBuffer indexBytes;  // indices 底层的字节数据，limit 为索引字节数
+        public final int indexType;    // GL_UNSIGNED_SHORT 或 GL_UNSIGNED_INT
+        public final int indexCount;   // 所有细节层次的索引总数
+        // 第 l 层的索引位于 [lodIndexOffsets[l], lodIndexOffsets[l + 1])
+        public final int[] lodIndexOffsets;
+
+        // 位置还原：p = positionOffset + decoded * positionScale
+        public final float[] positionScale = {1, 1, 1};
+        public final float[] positionOffset = {0, 0, 0};
+        public final boolean octahedralNormals;
+
+        PackedMesh(ByteBuffer vertices, int stride, int vertexCount,
+                   Attribute position, Attribute normal, Attribute texCoord,
+                   Buffer indices, ByteBuffer indexBytes, int indexType, int indexCount, int[] lodIndexOffsets,
+                   boolean octahedralNormals) {
+            this.vertices = vertices;
+            this.stride = stride;
+            this.vertexCount = vertexCount;
+            this.position = position;
+            this.normal = normal;
+            this.texCoord = texCoord;
+            this.indices = indices;
+            this.indexBytes = indexBytes;
+            this.indexType = indexType;
+            this.indexCount = indexCount;
+            this.lodIndexOffsets = lodIndexOffsets;
+            this.octahedralNormals = octahedralNormals;
+        }
+
+        public int getVertexBytes() {
+            return vertexCount * stride;
+        }
+
+        public int getIndexBytes() {
+            return indexCount * (indexType == GLES30.GL_UNSIGNED_SHORT ? 2 : 4);
+        }
+
+        /**
+         * 以下方法在CPU上解码，用于测试和拾取等
+         */
+        public void getPosition(int vertex, float[] out) {
+            int base = vertex * stride + position.offset;
+            for (int k = 0; k < 3; k++) {
+                float v = position.glType == GLES30.GL_FLOAT
+                        ? vertices.getFloat(base + k * 4)
+                        : snorm16(vertices.getShort(base + k * 2));
+                out[k] = positionOffset[k] + v * positionScale[k];
+            }
+        }
+
+        public void getNormal(int vertex, float[] out) {
+            int base = vertex * stride + normal.offset;
+            if (normal.glType == GLES30.GL_FLOAT) {
+                out[0] = vertices.getFloat(base);
+                out[1] = vertices.getFloat(base + 4);
+                out[2] = vertices.getFloat(base + 8);
+            } else if (normal.glType == GLES30.GL_INT_2_10_10_10_REV) {
+                int packed = vertices.getInt(base);
+                out[0] = snorm10(packed);
+                out[1] = snorm10(packed >> 10);
+                out[2] = snorm10(packed >> 20);
+            } else {
+                octDecode(snorm16(vertices.getShort(base)), snorm16(vertices.getShort(base + 2)), out);
+            }
+        }
+
+        public void getTexCoord(int vertex, float[] out) {
+            int base = vertex * stride + texCoord.offset;
+            if (texCoord.glType == GLES30.GL_FLOAT) {
+                out[0] = vertices.getFloat(base);
+                out[1] = vertices.getFloat(base + 4);
+            } else {
+                out[0] = halfToFloat(vertices.getShort(base));
+                out[1] = halfToFloat(vertices.getShort(base + 2));
+            }
+        }
+
+        public int getIndex(int i) {
+            if (indices instanceof ShortBuffer) {
+                return ((ShortBuffer) indices).get(i) & 0xFFFF;
+            }
+            return ((IntBuffer) indices).get(i);
+        }
+    }
+
+    public PackedMesh pack(MeshData mesh) {
+        int vertexCount = mesh.getVertexCount();
+
+        // 各属性按 4 字节对齐
+        int offset = 0;
+        Attribute position = positionFormat == PositionFormat.FLOAT
+                ? new Attribute(3, GLES30.GL_FLOAT, false, offset, 12)
+                : new Attribute(3, GLES30.GL_SHORT, true, offset, 8);
+        offset += position.bytes;
+
+        Attribute normal;
+        switch (normalFormat) {
+            case OCTAHEDRAL_SHORT:
+                normal = new Attribute(2, GLES30.GL_SHORT, true, offset, 4);
+                break;
+            case INT_2_10_10_10:
+                normal = new Attribute(4, GLES30.GL_INT_2_10_10_10_REV, true, offset, 4);
+                break;
+            default:
+                normal = new Attribute(3, GLES30.GL_FLOAT, false, offset, 12);
+                break;
+        }
+        offset += normal.bytes;
+
+        Attribute texCoord = texCoordFormat == TexCoordFormat.FLOAT
+                ? new Attribute(2, GLES30.GL_FLOAT, false, offset, 8)
+                : new Attribute(2, GLES30.GL_HALF_FLOAT, false, offset, 4);
+        offset += texCoord.bytes;
+        int stride = offset;
+
+        ByteBuffer vertices = ByteBuffer.allocateDirect(Math.max(1, vertexCount * stride)).order(ByteOrder.nativeOrder());
+
+        // 索引：各细节层次依次连续存放，切换层次时无需重新上传
+        int lodCount = mesh.getLodCount();
+        int[] lodIndexOffsets = new int[lodCount + 1];
+        for (int l = 0; l < lodCount; l++) {
+            lodIndexOffsets[l + 1] = lodIndexOffsets[l] + mesh.getLodIndexCount(l);
+        }
+        int indexCount = lodIndexOffsets[lodCount];
+        Buffer indices;
+        int indexType;
+        ByteBuffer indexBytes;
+        if (vertexCount <= MAX_SHORT_INDEX_VERTICES) {
+            indexBytes = ByteBuffer.allocateDirect(Math.max(1, indexCount * 2)).order(ByteOrder.nativeOrder());
+            indexBytes.limit(indexCount * 2);
+            ShortBuffer shorts = indexBytes.asShortBuffer();
+            for (int l = 0; l < lodCount; l++) {
+                for (int i = 0; i < mesh.getLodIndexCount(l); i++) {
+                    shorts.put(lodIndexOffsets[l] + i, (short) mesh.getLodIndex(l, i));
+                }
+            }
+            indices = shorts;
+            indexType = GLES30.GL_UNSIGNED_SHORT;
+        } else {
+            indexBytes = ByteBuffer.allocateDirect(Math.max(1, indexCount * 4)).order(ByteOrder.nativeOrder());
+            indexBytes.limit(indexCount * 4);
+            IntBuffer ints = indexBytes.asIntBuffer();
+            for (int l = 0; l < lodCount; l++) {
+                for (int i = 0; i < mesh.getLodIndexCount(l); i++) {
+                    ints.put(lodIndexOffsets[l] + i, mesh.getLodIndex(l, i));
+                }
+            }
+            indices = ints;
+            indexType = GLES30.GL_UNSIGNED_INT;
+        }
+
+        PackedMesh packed = new PackedMesh(vertices, stride, vertexCount, position, normal, texCoord,
+                indices, indexBytes, indexType, indexCount, lodIndexOffsets, normalFormat == NormalFormat.OCTAHEDRAL_SHORT);
+
+        if (positionFormat == PositionFormat.SHORT) {
+            computePositionRange(mesh, packed.positionOffset, packed.positionScale);
+        }
+
+        float[] texCoords = mesh.getTexCoordsArray();
+        float[] octahedral = new float[2];
+        for (int v = 0; v < vertexCount; v++) {
+            int base = v * stride;
+
+            // 位置
+            float x = mesh.getX(v), y = mesh.getY(v), z = mesh.getZ(v);
+            if (positionFormat == PositionFormat.FLOAT) {
+                vertices.putFloat(base, x);
+                vertices.putFloat(base + 4, y);
+                vertices.putFloat(base + 8, z);
+            } else {
+                vertices.putShort(base, toSnorm16((x - packed.positionOffset[0]) / packed.positionScale[0]));
+                vertices.putShort(base + 2, toSnorm16((y - packed.positionOffset[1]) / packed.positionScale[1]));
+                vertices.putShort(base + 4, toSnorm16((z - packed.positionOffset[2]) / packed.positionScale[2]));
+                vertices.putShort(base + 6, (short) 0);
+            }
+
+            // 法线
+            float nx = mesh.getNormalX(v), ny = mesh.getNormalY(v), nz = mesh.getNormalZ(v);
+            int n = base + normal.offset;
+            switch (normalFormat) {
+                case OCTAHEDRAL_SHORT:
+                    octEncode(nx, ny, nz, octahedral);
+                    vertices.putShort(n, toSnorm16(octahedral[0]));
+                    vertices.putShort(n + 2, toSnorm16(octahedral[1]));
+                    break;
+                case INT_2_10_10_10:
+                    vertices.putInt(n, (toSnorm10(nx) & 0x3FF)
+                            | (toSnorm10(ny) & 0x3FF) << 10
+                            | (toSnorm10(nz) & 0x3FF) << 20);
+                    break;
+                default:
+                    vertices.putFloat(n, nx);
+                    vertices.putFloat(n + 4, ny);
+                    vertices.putFloat(n + 8, nz);
+                    break;
+            }
+
+            // 纹理坐标
+            int t = base + texCoord.offset;
+            if (texCoordFormat == TexCoordFormat.FLOAT) {
+                vertices.putFloat(t, texCoords[v * 2]);
+                vertices.putFloat(t + 4, texCoords[v * 2 + 1]);
+            } else {
+                vertices.putShort(t, floatToHalf(texCoords[v * 2]));
+                vertices.putShort(t + 2, floatToHalf(texCoords[v * 2 + 1]));
+            }
+        }
+        return packed;
+    }
+
+    /**
+     * 包围盒中心作为偏移，半边长作为缩放，使量化后的坐标落在 [-1, 1]
+     */
+    private static void computePositionRange(MeshData mesh, float[] offset, float[] scale) {
+        float[] min = {Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE};
+        float[] max = {-Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE};
+        for (int v = 0; v < mesh.getVertexCount(); v++) {
+            float x = mesh.getX(v), y = mesh.getY(v), z = mesh.getZ(v);
+            min[0] = Math.min(min[0], x);
+            min[1] = Math.min(min[1], y);
+            min[2] = Math.min(min[2], z);
+            max[0] = Math.max(max[0], x);
+            max[1] = Math.max(max[1], y);
+            max[2] = Math.max(max[2], z);
+        }
+        for (int k = 0; k < 3; k++) {
+            if (min[k] > max[k]) {
+                offset[k] = 0;
+                scale[k] = 1;
+                continue;
+            }
+            offset[k] = (min[k] + max[k]) * 0.5f;
+            float half = (max[k] - min[k]) * 0.5f;
+            scale[k] = half > 0 ? half : 1;
+        }
+    }
+
+    static short toSnorm16(float v) {
+        return (short) Math.round(Math.max(-1.0f, Math.min(1.0f, v)) * 32767.0f);
+    }
+
+    static float snorm16(short v) {
+        return Math.max(v / 32767.0f, -1.0f);
+    }
+
+    static int toSnorm10(float v) {
+        return Math.round(Math.max(-1.0f, Math.min(1.0f, v)) * 511.0f);
+    }
+
+    /**
+     * 取低 10 位并符号扩展
+     */
+    static float snorm10(int bits) {
+        int v = (bits << 22) >> 22;
+        return Math.max(v / 511.0f, -1.0f);
+    }
+
+    /**
+     * 八面体编码：单位向量投影到八面体再展开到 [-1,1]^2
+     */
+    static void octEncode(float x, float y, float z, float[] out) {
+        float l1 = Math.abs(x) + Math.abs(y) + Math.abs(z);
+        if (l1 == 0) {
+            out[0] = 0;
+            out[1] = 0;
+            return;
+        }
+        float u = x / l1, v = y / l1;
+        if (z < 0) {
+            float fu = (1 - Math.abs(v)) * (u >= 0 ? 1 : -1);
+            float fv = (1 - Math.abs(u)) * (v >= 0 ? 1 : -1);
+            u = fu;
+            v = fv;
+        }
+        out[0] = u;
+        out[1] = v;
+    }
+
+    static void octDecode(float u, float v, float[] out) {
+        float x = u, y = v;
+        float z = 1 - Math.abs(u) - Math.abs(v);
+        if (z < 0) {
+            x = (1 - Math.abs(v)) * (u >= 0 ? 1 : -1);
+            y = (1 - Math.abs(u)) * (v >= 0 ? 1 : -1);
+        }
+        float length = (float) Math.sqrt(x * x + y * y + z * z);
+        out[0] = x / length;
+        out[1] = y / length;
+        out[2] = z / length;
+    }
+
+    /**
+     * float32 -> float16（就近舍入），超出范围时变为无穷大
+     */
+    static short floatToHalf(float f) {
+        int bits = Float.floatToIntBits(f);
+        int sign = (bits >>> 16) & 0x8000;
+        int exponent = ((bits >>> 23) & 0xFF) - 127 + 15;
+        int mantissa = bits & 0x7FFFFF;
+
+        if (((bits >>> 23) & 0xFF) == 0xFF) {
+            // NaN 或无穷大
+            return (short) (sign | 0x7C00 | (mantissa != 0 ? 0x200 : 0));
+        }
+        if (exponent >= 0x1F) {
+            return (short) (sign | 0x7C00);
+        }
+        if (exponent <= 0) {
+            // 非规格化数
+            if (exponent < -10) {
+                return (short) sign;
+            }
+            mantissa |= 0x800000;
+            int shift = 14 - exponent;
+            int half = mantissa >> shift;
+            if (((mantissa >> (shift - 1)) & 1) != 0) {
+                half++;
+            }
+            return (short) (sign | half);
+        }
+
+        int half = sign | (exponent << 10) | (mantissa >> 13);
+        if ((mantissa & 0x1000) != 0) {
+            half++;   // 进位可能进入指数位，结果仍然正确
+        }
+        return (short) half;
+    }
+
+    static float halfToFloat(short h) {
+        int bits = h & 0xFFFF;
+        int sign = (bits & 0x8000) << 16;
+        int exponent = (bits >>> 10) & 0x1F;
+        int mantissa = bits & 0x3FF;
+
+        if (exponent == 0) {
+            float value = mantissa / 1024.0f / 16384.0f;   // 2^-14
+            return sign != 0 ? -value : value;
+        }
+        if (exponent == 0x1F) {
+            return Float.intBitsToFloat(sign | 0x7F800000 | (mantissa << 13));
+        }
+        return Float.intBitsToFloat(sign | ((exponent - 15 + 127) << 23) | (mantissa << 13));
+    }
+}
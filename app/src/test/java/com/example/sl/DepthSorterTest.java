@@ -0,0 +1,130 @@
+package com.example.sl;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class DepthSorterTest {
+
+    private static float[] randomPoints(int count, long seed) {
+        Random random = new Random(seed);
+        float[] positions = new float[count * 3];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = random.nextFloat() * 2 - 1;
+        }
+        return positions;
+    }
+
+    private static float depth(float[] positions, int p, float[] eye, float[] dir) {
+        return (positions[p * 3] - eye[0]) * dir[0] + (positions[p * 3 + 1] - eye[1]) * dir[1]
+                + (positions[p * 3 + 2] - eye[2]) * dir[2];
+    }
+
+    @Test
+    public void sortableBitsPreserveFloatOrder() {
+        float[] values = {Float.NEGATIVE_INFINITY, -1e30f, -2.5f, -1, -Float.MIN_VALUE, 0, Float.MIN_VALUE,
+                1e-20f, 0.5f, 1, 3, 1e30f, Float.POSITIVE_INFINITY};
+        for (int i = 1; i < values.length; i++) {
+            assertTrue(values[i - 1] + " < " + values[i], Integer.compareUnsigned(
+                    DepthSorter.sortableBits(values[i - 1]), DepthSorter.sortableBits(values[i])) < 0);
+        }
+    }
+
+    @Test
+    public void sortsRangesBackToFrontLikeStableSort() {
+        float[] positions = randomPoints(20000, 3);
+        // 重复一些深度，检查相同深度保持原顺序
+        for (int p = 100; p < 200; p++) {
+            positions[p * 3] = positions[3];
+            positions[p * 3 + 1] = positions[4];
+            positions[p * 3 + 2] = positions[5];
+        }
+        int[] firsts = {0, 5000, 12000};
+        int[] counts = {3000, 4000, 8000};
+        float[] eye = {0.3f, 2, 2.5f};
+        float[] dir = {-0.3f, -2, -2.5f};
+        float length = (float) Math.sqrt(dir[0] * dir[0] + dir[1] * dir[1] + dir[2] * dir[2]);
+        for (int i = 0; i < 3; i++) dir[i] /= length;
+
+        DepthSorter sorter = new DepthSorter();
+        int count = sorter.sortBackToFront(positions, firsts, counts, 3, eye[0], eye[1], eye[2], dir[0], dir[1], dir[2]);
+        assertEquals(15000, count);
+
+        Integer[] expected = new Integer[count];
+        int n = 0;
+        for (int r = 0; r < 3; r++) {
+            for (int p = firsts[r]; p < firsts[r] + counts[r]; p++) {
+                expected[n++] = p;
+            }
+        }
+        Arrays.sort(expected, Comparator.comparingDouble((Integer p) -> -depth(positions, p, eye, dir)));
+        for (int i = 0; i < count; i++) {
+            assertEquals(expected[i].intValue(), sorter.getIndices()[i]);
+        }
+
+        // 工作数组复用，更少的点同样正确
+        count = sorter.sortBackToFront(positions, firsts, counts, 1, eye[0], eye[1], eye[2], dir[0], dir[1], dir[2]);
+        assertEquals(3000, count);
+        for (int i = 1; i < count; i++) {
+            assertTrue(depth(positions, sorter.getIndices()[i - 1], eye, dir) >= depth(positions, sorter.getIndices()[i], eye, dir));
+        }
+    }
+
+    @Test
+    public void resortsOnlyWhenCameraMovesPastThreshold() {
+        float[] eye = {0, 0, 3};
+        float[] dir = {0, 0, -1};
+        assertFalse(DepthSorter.cameraMoved(eye, dir, 0, 0.01f, 3, 0, 0, -1));
+        assertTrue(DepthSorter.cameraMoved(eye, dir, 0, 0.1f, 3, 0, 0, -1));
+
+        double small = Math.toRadians(DepthSorter.DEFAULT_RESORT_DEGREES / 2);
+        assertFalse(DepthSorter.cameraMoved(eye, dir, 0, 0, 3, (float) Math.sin(small), 0, (float) -Math.cos(small)));
+        double large = Math.toRadians(DepthSorter.DEFAULT_RESORT_DEGREES * 2);
+        assertTrue(DepthSorter.cameraMoved(eye, dir, 0, 0, 3, (float) Math.sin(large), 0, (float) -Math.cos(large)));
+    }
+
+    @Test
+    public void benchmarkOneMillionPoints() {
+        int count = 1_000_000;
+        float[] positions = randomPoints(count, 7);
+        int[] firsts = {0};
+        int[] counts = {count};
+        DepthSorter sorter = new DepthSorter();
+        for (int i = 0; i < 3; i++) {
+            sorter.sortBackToFront(positions, firsts, counts, 1, 0, 0, 3, 0, 0, -1);
+        }
+
+        int runs = 10;
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            float angle = i * 0.3f;
+            sorter.sortBackToFront(positions, firsts, counts, 1, (float) Math.sin(angle) * 3, 0, (float) Math.cos(angle) * 3,
+                    (float) -Math.sin(angle), 0, (float) -Math.cos(angle));
+        }
+        double radixMs = (System.nanoTime() - start) / 1e6 / runs;
+
+        // 对照：对同样的键做比较排序
+        long[] keys = new long[count];
+        start = System.nanoTime();
+        for (int p = 0; p < count; p++) {
+            keys[p] = (long) ~DepthSorter.sortableBits(positions[p * 3 + 2]) << 32 | p;
+        }
+        Arrays.sort(keys);
+        double comparisonMs = (System.nanoTime() - start) / 1e6;
+
+        System.out.println(String.format("Depth sort: %,d points, radix %.1f ms (Arrays.sort %.1f ms)",
+                count, radixMs, comparisonMs));
+        // 最后一次排序的结果从远到近
+        float angle = (runs - 1) * 0.3f;
+        float[] eye = {(float) Math.sin(angle) * 3, 0, (float) Math.cos(angle) * 3};
+        float[] dir = {(float) -Math.sin(angle), 0, (float) -Math.cos(angle)};
+        int[] indices = sorter.getIndices();
+        for (int i = 1; i < count; i++) {
+            assertTrue(depth(positions, indices[i - 1], eye, dir) >= depth(positions, indices[i], eye, dir));
+        }
+    }
+}
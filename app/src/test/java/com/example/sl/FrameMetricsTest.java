@@ -0,0 +1,138 @@
+package com.example.sl;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class FrameMetricsTest {
+
+    private static final long MS = 1_000_000L;
+
+    private static void frame(FrameMetrics metrics, long start, long updateNanos, long drawNanos, long bytes, int draws) {
+        metrics.beginFrame(start);
+        metrics.markUpdateEnd(start + updateNanos);
+        metrics.endFrame(start + updateNanos + drawNanos, bytes, draws);
+    }
+
+    @Test
+    public void percentilesUseNearestRank() {
+        FrameMetrics metrics = new FrameMetrics(100);
+        // CPU 耗时 1..100 毫秒
+        for (int i = 1; i <= 100; i++) {
+            frame(metrics, i * 1000 * MS, MS, (i - 1) * MS, 1024, 2);
+        }
+        FrameMetrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals(100, snapshot.frames);
+        assertEquals(50, snapshot.cpuP50Ms, 1e-9);
+        assertEquals(95, snapshot.cpuP95Ms, 1e-9);
+        assertEquals(99, snapshot.cpuP99Ms, 1e-9);
+        assertEquals(1, snapshot.updateAvgMs, 1e-9);
+        assertEquals(49.5, snapshot.drawAvgMs, 1e-9);
+        assertEquals(1024, snapshot.uploadBytesAvg);
+        assertEquals(2, snapshot.drawCallsAvg, 1e-9);
+        assertTrue(Double.isNaN(snapshot.gpuP50Ms));
+    }
+
+    @Test
+    public void windowKeepsOnlyRecentFrames() {
+        FrameMetrics metrics = new FrameMetrics(10);
+        for (int i = 0; i < 10; i++) {
+            frame(metrics, 0, 0, 100 * MS, 1 << 20, 1);
+        }
+        for (int i = 0; i < 10; i++) {
+            frame(metrics, 0, 0, 2 * MS, 0, 1);
+        }
+        FrameMetrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals(10, snapshot.frames);
+        assertEquals(20, snapshot.totalFrames);
+        assertEquals(2, snapshot.cpuP99Ms, 1e-9);
+        assertEquals(0, snapshot.uploadBytesMax);
+
+        metrics.recordGpuTime(3 * MS);
+        assertEquals(3, metrics.snapshot().gpuP50Ms, 1e-9);
+        metrics.reset();
+        assertEquals(0, metrics.snapshot().frames);
+    }
+
+    @Test
+    public void gpuTimerIsInertWithoutExtension() {
+        RecordingGlApi gl = new RecordingGlApi();
+        GpuTimer timer = new GpuTimer(gl);
+        timer.init();
+        assertFalse(timer.isSupported());
+        timer.begin();
+        timer.end();
+        timer.poll(nanos -> fail());
+        assertTrue(gl.liveQueries.isEmpty());
+    }
+
+    @Test
+    public void gpuTimerReadsResultsInOrderAndDropsDisjointFrames() {
+        RecordingGlApi gl = new RecordingGlApi();
+        gl.extensions = "GL_OES_foo GL_EXT_disjoint_timer_query GL_EXT_bar";
+        GpuTimer timer = new GpuTimer(gl);
+        timer.init();
+        assertTrue(timer.isSupported());
+        List<Long> results = new ArrayList<>();
+
+        // 结果尚未可用：查询保持在途，全部在途时跳过计时
+        gl.queryResultAvailable = false;
+        for (int i = 0; i < 6; i++) {
+            timer.begin();
+            timer.end();
+            timer.poll(results::add);
+        }
+        assertTrue(results.isEmpty());
+
+        gl.queryResultAvailable = true;
+        gl.queryResult = 5_000_000;
+        timer.poll(results::add);
+        assertEquals(4, results.size());
+        assertEquals(5_000_000L, (long) results.get(0));
+
+        timer.begin();
+        timer.end();
+        gl.gpuDisjoint = true;
+        timer.poll(results::add);
+        assertEquals(4, results.size());
+
+        timer.release();
+        assertTrue(gl.liveQueries.isEmpty());
+    }
+
+    @Test
+    public void rendererRecordsUploadsAndDrawCallsPerFrame() {
+        AssetSource assets = filename -> {
+            if (!filename.endsWith(".glsl")) throw new FileNotFoundException(filename);
+            return new ByteArrayInputStream("void main() {}".getBytes());
+        };
+        RecordingGlApi gl = new RecordingGlApi();
+        GpuUploadManager manager = new GpuUploadManager(gl, Runnable::run, 64 * 1024, 0, () -> 0L);
+        PointCloudData data = new PointCloudData();
+        for (int i = 0; i < 10000; i++) {
+            data.addPoint(i % 13, i % 7, i % 5, 1, 1, 1);
+        }
+        PointCloudRenderer renderer = new PointCloudRenderer(assets, data, "fast", gl, manager);
+        renderer.onSurfaceCreated(null, null);
+        renderer.onSurfaceChanged(null, 1080, 1920);
+        int frames = 0;
+        do {
+            renderer.onDrawFrame(null);
+            frames++;
+        } while (manager.hasPendingWork());
+        renderer.onDrawFrame(null);
+        frames++;
+
+        FrameMetrics.Snapshot snapshot = renderer.getFrameMetrics().snapshot();
+        assertEquals(frames, snapshot.frames);
+        // 位置 12 字节 + 颜色 4 字节，全部计入上传
+        assertEquals(10000L * 16, snapshot.uploadBytesTotal);
+        assertEquals(64 * 1024, snapshot.uploadBytesMax);
+        assertTrue(snapshot.drawCallsAvg > 0);
+    }
+}
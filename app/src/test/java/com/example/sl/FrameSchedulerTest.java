@@ -0,0 +1,152 @@
+package com.example.sl;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+
+import static org.junit.Assert.*;
+
+public class FrameSchedulerTest {
+
+    private static final long MS = 1_000_000L;
+
+    @Test
+    public void requestsBeforeFrameStartAreCoalesced() {
+        int[] requests = new int[1];
+        FrameScheduler scheduler = new FrameScheduler();
+        scheduler.setRequester(() -> requests[0]++);
+
+        assertTrue(scheduler.requestFrame());
+        assertFalse(scheduler.requestFrame());
+        assertFalse(scheduler.requestFrame());
+        assertEquals(1, requests[0]);
+        assertEquals(2, scheduler.getCoalescedCount());
+
+        // 帧开始后的请求（例如绘制期间数据变化）触发下一帧
+        scheduler.onFrameStart();
+        assertTrue(scheduler.isIdle());
+        assertTrue(scheduler.requestFrame());
+        assertEquals(2, requests[0]);
+    }
+
+    @Test
+    public void idlesWhenNothingChangesAndKeepsGoingWhileAnimating() {
+        int[] requests = new int[1];
+        FrameScheduler scheduler = new FrameScheduler();
+        scheduler.setRequester(() -> requests[0]++);
+
+        scheduler.requestFrame();
+        scheduler.onFrameStart();
+        scheduler.onFrameEnd(true);
+        assertEquals(2, requests[0]);
+
+        scheduler.onFrameStart();
+        scheduler.onFrameEnd(false);
+        assertTrue(scheduler.isIdle());
+        assertEquals(2, requests[0]);
+    }
+
+    @Test
+    public void flingDecaysAndStops() {
+        FlingAnimator fling = new FlingAnimator();
+        // 每 16 毫秒向右拖动 16 像素：约 1000 像素/秒
+        for (int i = 0; i <= 10; i++) {
+            fling.addMovement(16, 0, i * 16 * MS);
+        }
+        assertTrue(fling.release(170 * MS));
+
+        float[] delta = new float[2];
+        float travelled = 0;
+        float previous = Float.MAX_VALUE;
+        long time = 170 * MS;
+        int frames = 0;
+        while (fling.isActive()) {
+            time += 16 * MS;
+            fling.step(time, delta);
+            assertTrue(delta[0] > 0 && delta[0] <= previous);
+            assertEquals(0, delta[1], 0);
+            previous = delta[0];
+            travelled += delta[0];
+            frames++;
+            assertTrue(frames < 1000);
+        }
+        // 总位移接近 v0 / FRICTION
+        assertEquals(1000 / FlingAnimator.FRICTION, travelled, 30);
+        assertFalse(fling.step(time + 16 * MS, delta));
+        assertEquals(0, delta[0], 0);
+    }
+
+    @Test
+    public void noFlingAfterPauseOrSlowDrag() {
+        FlingAnimator fling = new FlingAnimator();
+        fling.addMovement(16, 0, 0);
+        fling.addMovement(16, 0, 16 * MS);
+        // 松手前停顿
+        assertFalse(fling.release(16 * MS + FlingAnimator.MAX_RELEASE_DELAY_NANOS + 1));
+
+        fling.addMovement(0, 0, 0);
+        fling.addMovement(0.1f, 0, 16 * MS);
+        assertFalse(fling.release(20 * MS));
+
+        fling.addMovement(16, 0, 0);
+        fling.addMovement(16, 0, 16 * MS);
+        assertTrue(fling.release(20 * MS));
+        fling.cancel();
+        assertFalse(fling.isActive());
+    }
+
+    @Test
+    public void staticPointCloudStopsRequestingFramesAfterUpload() {
+        AssetSource assets = filename -> {
+            if (!filename.endsWith(".glsl")) throw new FileNotFoundException(filename);
+            return new ByteArrayInputStream("void main() {}".getBytes());
+        };
+        RecordingGlApi gl = new RecordingGlApi();
+        GpuUploadManager manager = new GpuUploadManager(gl, Runnable::run, 16 * 1024, 0, () -> 0L);
+        PointCloudData data = new PointCloudData();
+        for (int i = 0; i < 10000; i++) {
+            data.addPoint(i % 13, i % 7, i % 5, 1, 1, 1);
+        }
+        PointCloudRenderer renderer = new PointCloudRenderer(assets, data, "fast", gl, manager);
+        int[] requests = new int[1];
+        renderer.setRenderRequester(() -> requests[0]++);
+        renderer.onSurfaceCreated(null, null);
+        renderer.onSurfaceChanged(null, 1080, 1920);
+
+        // 模拟 RENDERMODE_WHEN_DIRTY：只有被请求时才绘制
+        int frames = 0;
+        while (!renderer.getFrameScheduler().isIdle()) {
+            renderer.onDrawFrame(null);
+            frames++;
+            assertTrue(frames < 100);
+        }
+        assertFalse(manager.hasPendingWork());
+        int requestsAfterUpload = requests[0];
+        assertEquals(frames, requestsAfterUpload);
+
+        // 视角变化请求一帧，多次变化合并
+        renderer.rotate(5, 0);
+        renderer.zoom(1.1f);
+        assertEquals(requestsAfterUpload + 1, requests[0]);
+        renderer.onDrawFrame(null);
+        assertTrue(renderer.getFrameScheduler().isIdle());
+
+        // 快速拖动松手后惯性旋转若干帧（每帧 16 毫秒），然后回到空闲
+        long[] time = {0};
+        renderer.setClock(() -> time[0] += 16 * MS);
+        renderer.startDrag();
+        for (int i = 0; i < 5; i++) {
+            time[0] += 16 * MS;
+            renderer.drag(20, 0, time[0]);
+        }
+        renderer.endDrag(time[0]);
+        frames = 0;
+        while (!renderer.getFrameScheduler().isIdle()) {
+            renderer.onDrawFrame(null);
+            frames++;
+            assertTrue(frames < 1000);
+        }
+        assertTrue(frames > 1);
+    }
+}
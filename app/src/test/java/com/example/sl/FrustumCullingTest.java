@@ -0,0 +1,221 @@
+package com.example.sl;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class FrustumCullingTest {
+
+    /**
+     * 相机在 (0, 0, distance) 看向 -Z 的观察投影矩阵（列主序），cot(fovY / 2) = focal
+     */
+    private static float[] viewProjection(float focal, float distance) {
+        float near = 0.1f, far = 100;
+        float[] m = new float[16];
+        m[0] = focal;
+        m[5] = focal;
+        m[10] = -(far + near) / (far - near);
+        m[11] = -1;
+        // 平移 (0, 0, -distance) 只影响第4列
+        m[14] = -m[10] * distance - 2 * far * near / (far - near);
+        m[15] = distance;
+        return m;
+    }
+
+    private static PointOctree cloud(int count, int grid, int maxLeaf) {
+        Random random = new Random(11);
+        float[] positions = new float[count * 3];
+        float[] colors = new float[count * 4];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = random.nextFloat() * 2 - 1;
+        }
+        return PointOctree.build(positions, colors, count, grid, maxLeaf);
+    }
+
+    private static boolean intersects(Frustum frustum, PointOctree octree, int node) {
+        float x = octree.getNodeMinX(node), y = octree.getNodeMinY(node), z = octree.getNodeMinZ(node);
+        float size = octree.getNodeSize(node);
+        return frustum.intersectsBox(x, y, z, x + size, y + size, z + size);
+    }
+
+    @Test
+    public void drawListMergesAdjacentRanges() {
+        DrawList list = new DrawList(2);
+        list.add(0, 10);
+        list.add(10, 5);
+        list.add(20, 0);
+        list.add(30, 4);
+        list.add(34, 1);
+        list.add(50, 2);
+        assertEquals(3, list.size());
+        assertEquals(0, list.getFirst(0));
+        assertEquals(15, list.getCount(0));
+        assertEquals(30, list.getFirst(1));
+        assertEquals(5, list.getCount(1));
+        assertEquals(50, list.getFirst(2));
+        assertEquals(22, list.getTotalCount());
+        list.reset();
+        assertEquals(0, list.size());
+        assertEquals(0, list.getTotalCount());
+    }
+
+    @Test
+    public void octreeCullingMatchesBruteForce() {
+        PointOctree octree = cloud(50000, 4, 64);
+        float[] mvp = viewProjection(8, 3);
+        Frustum frustum = new Frustum();
+        frustum.setFromMatrix(mvp);
+
+        PointBudgetTraverser traverser = new PointBudgetTraverser();
+        traverser.setMinNodePixels(0);
+        traverser.setCamera(0, 0, 3);
+        traverser.setViewProjection(mvp);
+        traverser.traverse(octree);
+
+        // 节点可见当且仅当它和所有祖先都与视锥相交
+        boolean[] expected = new boolean[octree.getNodeCount()];
+        expected[0] = intersects(frustum, octree, 0);
+        int expectedCount = expected[0] ? 1 : 0;
+        for (int node = 0; node < octree.getNodeCount(); node++) {
+            for (int c = 0; c < octree.getChildCount(node); c++) {
+                int child = octree.getFirstChild(node) + c;
+                expected[child] = expected[node] && intersects(frustum, octree, child);
+                if (expected[child]) expectedCount++;
+            }
+        }
+        assertTrue(expectedCount < octree.getNodeCount() / 2);
+        assertTrue(traverser.getNodesCulled() > 0);
+        assertEquals(expectedCount, traverser.getVisibleCount());
+        for (int i = 0; i < traverser.getVisibleCount(); i++) {
+            assertTrue(expected[traverser.getVisibleNodes()[i]]);
+        }
+
+        // 不设置观察投影矩阵时不剔除
+        traverser.setViewProjection(null);
+        traverser.traverse(octree);
+        assertEquals(octree.getNodeCount(), traverser.getVisibleCount());
+    }
+
+    /**
+     * z = 0 平面上 [-1, 1] 范围内的网格，三角形朝 +Z
+     */
+    private static MeshData grid(int cells) {
+        MeshData.Builder builder = new MeshData.Builder((cells + 1) * (cells + 1), 2 * cells * cells);
+        for (int y = 0; y <= cells; y++) {
+            for (int x = 0; x <= cells; x++) {
+                builder.addVertex(x * 2f / cells - 1, y * 2f / cells - 1, 0);
+            }
+        }
+        for (int y = 0; y < cells; y++) {
+            for (int x = 0; x < cells; x++) {
+                int a = y * (cells + 1) + x, b = a + 1, c = a + cells + 1, d = c + 1;
+                builder.addTriangle(a, b, c);
+                builder.addTriangle(b, d, c);
+            }
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void meshletGroupsCullLikeIndividualMeshlets() {
+        MeshletPartitioner.Result result = MeshletPartitioner.partition(grid(150));
+        MeshletCuller culler = new MeshletCuller(result.meshlets);
+        assertTrue(culler.getGroupCount() > 4);
+        Frustum frustum = new Frustum();
+        frustum.setFromMatrix(viewProjection(10, 1.5f));
+        DrawList list = new DrawList(result.meshlets.length);
+
+        list.add(0, 0);
+        culler.cull(frustum, 0, 0, 1.5f, list);
+        long expected = 0;
+        int expectedRanges = 0;
+        int rangeEnd = -1;
+        for (Meshlet meshlet : result.meshlets) {
+            if (!meshlet.isVisible(frustum, 0, 0, 1.5f)) continue;
+            expected += meshlet.triangleCount * 3;
+            if (meshlet.indexOffset != rangeEnd) expectedRanges++;
+            rangeEnd = meshlet.indexOffset + meshlet.triangleCount * 3;
+        }
+        assertTrue(culler.getCulledGroups() > 0);
+        assertTrue(culler.getCulledMeshlets() > result.meshlets.length / 2);
+        assertEquals(expected, list.getTotalCount());
+        assertEquals(expectedRanges, list.size());
+    }
+
+    @Test
+    public void benchmarkHundredThousandNodes() {
+        // 每个内部节点只保留一个点，得到超过10万个节点的深树
+        PointOctree octree = cloud(150000, 1, 1);
+        assertTrue("nodes: " + octree.getNodeCount(), octree.getNodeCount() >= 100000);
+
+        PointBudgetTraverser traverser = new PointBudgetTraverser();
+        float[] projection = viewProjection(1, 0);
+        traverser.setProjection(projection, 1920);
+        traverser.setMinNodePixels(0);
+        traverser.setPointBudget(Integer.MAX_VALUE);
+        DrawList drawList = new DrawList(octree.getNodeCount());
+        int[] drawNodes = new int[octree.getNodeCount()];
+        float[] mvp = viewProjection(3, 1.5f);
+
+        // 预热后计时：剔除遍历和绘制列表都不应分配内存
+        for (int i = 0; i < 20; i++) {
+            frame(octree, traverser, drawNodes, drawList, mvp);
+        }
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long allocatedBefore = allocatedBytes(threads);
+        int frames = 50;
+        long start = System.nanoTime();
+        for (int i = 0; i < frames; i++) {
+            frame(octree, traverser, drawNodes, drawList, mvp);
+        }
+        double culledMs = (System.nanoTime() - start) / 1e6 / frames;
+        long allocated = allocatedBytes(threads) - allocatedBefore;
+
+        int visible = traverser.getVisibleCount();
+        traverser.setViewProjection(null);
+        start = System.nanoTime();
+        for (int i = 0; i < frames; i++) {
+            traverser.traverse(octree);
+        }
+        double fullMs = (System.nanoTime() - start) / 1e6 / frames;
+
+        System.out.println(String.format("Culling: %d nodes, %d visible, %d ranges, %.3f ms/frame (no culling %.3f ms), %d bytes allocated",
+                octree.getNodeCount(), visible, drawList.size(), culledMs, fullMs, allocated));
+        assertTrue(visible < octree.getNodeCount() / 2);
+        if (allocated >= 0) {
+            assertTrue("allocated " + allocated + " bytes", allocated < 1024);
+        }
+    }
+
+    /**
+     * 与 PointCloudRenderer 相同：遍历、按位置排序、合并为绘制范围
+     */
+    private static void frame(PointOctree octree, PointBudgetTraverser traverser, int[] drawNodes, DrawList drawList,
+                              float[] mvp) {
+        traverser.setCamera(0, 0, 1.5f);
+        traverser.setViewProjection(mvp);
+        traverser.traverse(octree);
+        int count = traverser.getVisibleCount();
+        System.arraycopy(traverser.getVisibleNodes(), 0, drawNodes, 0, count);
+        Arrays.sort(drawNodes, 0, count);
+        drawList.reset();
+        for (int i = 0; i < count; i++) {
+            drawList.add(octree.getNodeOffset(drawNodes[i]), octree.getNodePointCount(drawNodes[i]));
+        }
+    }
+
+    /**
+     * 当前线程累计分配的字节数，JVM 不支持时返回 -1
+     */
+    private static long allocatedBytes(ThreadMXBean threads) {
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.sl;
+
+import android.opengl.GLES30;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+import static org.junit.Assert.*;
+
+public class GpuUploadManagerTest {
+
+    /**
+     * 每次 glBufferSubData 让时钟前进 1 毫秒
+     */
+    private static LongSupplier clock(RecordingGlApi gl) {
+        return () -> gl.subDataRanges.size() * 1_000_000L;
+    }
+
+    private static ByteBuffer bytes(int size, int seed) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(size);
+        for (int i = 0; i < size; i++) {
+            buffer.put(i, (byte) (i * 31 + seed));
+        }
+        return buffer;
+    }
+
+    @Test
+    public void uploadsInBoundedChunksWithinFrameBudget() {
+        RecordingGlApi gl = new RecordingGlApi();
+        // 块大小 100 字节，每帧预算 2.5 毫秒：每帧 3 块
+        GpuUploadManager manager = new GpuUploadManager(gl, Runnable::run, 100, 2_500_000L, clock(gl));
+
+        GpuUploadManager.Upload first = manager.upload(1, bytes(450, 1));
+        GpuUploadManager.Upload second = manager.upload(2, bytes(120, 2));
+
+        assertTrue(manager.processFrame());
+        assertEquals(3, manager.getLastFrameChunks());
+        assertEquals(300, first.getUploadedBytes());
+        assertEquals(0, second.getUploadedBytes());
+
+        assertTrue(manager.processFrame());
+        assertTrue(first.isComplete());
+        assertEquals(100, second.getUploadedBytes());
+
+        assertFalse(manager.processFrame());
+        assertTrue(second.isComplete());
+        assertEquals(0, gl.getBoundBuffer(GLES30.GL_COPY_WRITE_BUFFER));
+
+        // 各块首尾相接、不超过块大小，内容完整
+        int[] expectedOffset = new int[3];
+        for (int[] call : gl.subDataRanges) {
+            assertTrue(call[2] <= 100);
+            assertEquals(expectedOffset[call[0]], call[1]);
+            expectedOffset[call[0]] += call[2];
+        }
+        assertEquals(450, expectedOffset[1]);
+        assertEquals(120, expectedOffset[2]);
+        byte[] data = gl.bufferContents.get(1);
+        for (int i = 0; i < data.length; i++) {
+            assertEquals((byte) (i * 31 + 1), data[i]);
+        }
+    }
+
+    @Test
+    public void alwaysMakesProgressWithZeroBudget() {
+        RecordingGlApi gl = new RecordingGlApi();
+        GpuUploadManager manager = new GpuUploadManager(gl, Runnable::run, 64, 0, clock(gl));
+        GpuUploadManager.Upload upload = manager.upload(1, bytes(200, 0));
+
+        int frames = 0;
+        while (manager.processFrame()) {
+            assertEquals(1, manager.getLastFrameChunks());
+            frames++;
+        }
+        assertEquals(3, frames);
+        assertTrue(upload.isComplete());
+    }
+
+    @Test
+    public void preparedResultsAreDeliveredOnFrameAndDroppedAfterCancel() {
+        RecordingGlApi gl = new RecordingGlApi();
+        List<Runnable> workerQueue = new ArrayList<>();
+        GpuUploadManager manager = new GpuUploadManager(gl, workerQueue::add, 1024, 1_000_000L, clock(gl));
+        int[] notifications = new int[1];
+        manager.setOnWorkAvailable(() -> notifications[0]++);
+
+        List<String> delivered = new ArrayList<>();
+        manager.prepare(() -> "first", delivered::add);
+        manager.prepare(() -> "second", delivered::add);
+
+        // 工作线程执行前不会交付
+        manager.processFrame();
+        assertTrue(delivered.isEmpty());
+
+        workerQueue.remove(0).run();
+        assertEquals(1, notifications[0]);
+        assertTrue(delivered.isEmpty());
+        manager.processFrame();
+        assertEquals("first", delivered.get(0));
+
+        // 取消后，已提交但未交付的结果被丢弃，排队的上传也停止
+        GpuUploadManager.Upload upload = manager.upload(1, bytes(4096, 0));
+        manager.cancelAll();
+        workerQueue.remove(0).run();
+        assertFalse(manager.processFrame());
+        assertEquals(1, delivered.size());
+        assertEquals(0, upload.getUploadedBytes());
+        assertTrue(gl.subDataRanges.isEmpty());
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.sl;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LodSelectorTest {
+
+    /**
+     * 起伏的高度场网格，简化时会产生非零误差
+     */
+    private static MeshData wavyGrid(int n) {
+        MeshData.Builder builder = new MeshData.Builder((n + 1) * (n + 1), 2 * n * n);
+        for (int i = 0; i <= n; i++) {
+            for (int j = 0; j <= n; j++) {
+                float x = -1 + 2f * i / n, z = -1 + 2f * j / n;
+                builder.addVertex(x, 0.1f * (float) (Math.sin(x * 6) * Math.cos(z * 5)), z);
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                int a = i * (n + 1) + j, b = a + 1, c = a + n + 1, d = c + 1;
+                builder.addTriangle(a, b, c);
+                builder.addTriangle(b, d, c);
+            }
+        }
+        builder.computeNormals();
+        return builder.build();
+    }
+
+    /**
+     * 与 MeshRenderer 相同的透视投影：近平面 1，上下边界 ±1
+     */
+    private static float[] projection() {
+        float near = 1, far = 100;
+        float[] m = new float[16];
+        m[0] = 1;
+        m[5] = 1;
+        m[10] = -(far + near) / (far - near);
+        m[11] = -1;
+        m[14] = -2 * far * near / (far - near);
+        return m;
+    }
+
+    @Test
+    public void generatedLevelsShareVerticesAndGrowCoarser() {
+        MeshData mesh = MeshLodGenerator.generate(wavyGrid(60));
+
+        assertTrue("Expected several LOD levels, got " + mesh.getLodCount(), mesh.getLodCount() >= 3);
+        assertEquals(0, mesh.getLodError(0), 0);
+        assertEquals(mesh.getIndexCount(), mesh.getLodIndexCount(0));
+        for (int l = 1; l < mesh.getLodCount(); l++) {
+            assertTrue(mesh.getLodIndexCount(l) < mesh.getLodIndexCount(l - 1));
+            assertTrue(mesh.getLodError(l) >= mesh.getLodError(l - 1));
+            for (int i = 0; i < mesh.getLodIndexCount(l); i++) {
+                int v = mesh.getLodIndex(l, i);
+                assertTrue(v >= 0 && v < mesh.getVertexCount());
+            }
+        }
+        assertTrue(mesh.getLodError(mesh.getLodCount() - 1) > 0);
+
+        // 打包后所有层在同一索引缓冲区中依次存放
+        VertexPacker.PackedMesh packed = VertexPacker.COMPACT.pack(mesh);
+        assertEquals(mesh.getLodCount() + 1, packed.lodIndexOffsets.length);
+        int last = mesh.getLodCount() - 1;
+        assertEquals(packed.indexCount, packed.lodIndexOffsets[last + 1]);
+        for (int i = 0; i < mesh.getLodIndexCount(last); i++) {
+            assertEquals(mesh.getLodIndex(last, i), packed.getIndex(packed.lodIndexOffsets[last] + i));
+        }
+
+        // 按簇重排第0层时保留其余层
+        MeshData partitioned = MeshletPartitioner.partition(mesh).mesh;
+        assertEquals(mesh.getLodCount(), partitioned.getLodCount());
+    }
+
+    @Test
+    public void selectsCoarserLevelsFartherAway() {
+        MeshData mesh = MeshLodGenerator.generate(wavyGrid(60));
+        LodSelector selector = new LodSelector();
+        selector.setProjection(projection(), 1080);
+
+        assertEquals(0, selector.selectLevel(mesh, 1));
+        int previous = 0;
+        for (float distance = 1; distance <= 1000; distance *= 1.5f) {
+            int level = selector.selectLevel(mesh, distance);
+            assertTrue(level >= previous);
+            assertTrue(level == 0 || selector.getProjectedError(mesh.getLodError(level), distance)
+                    <= selector.getPixelThreshold());
+            previous = level;
+        }
+        assertEquals(mesh.getLodCount() - 1, previous);
+
+        // 同一距离下，视口越小可以用越粗的层
+        float distance = 20;
+        int full = selector.selectLevel(mesh, distance);
+        selector.setProjection(projection(), 270);
+        assertTrue(selector.selectLevel(mesh, distance) >= full);
+
+        // 阈值越大越粗
+        selector.setProjection(projection(), 1080);
+        selector.setPixelThreshold(8);
+        assertTrue(selector.selectLevel(mesh, distance) >= full);
+    }
+
+    @Test
+    public void projectedErrorMatchesPerspective() {
+        LodSelector selector = new LodSelector();
+        selector.setProjection(projection(), 1000);
+        // 视角 90 度：距离 10 处可见高度为 20，1000 像素 -> 每单位 50 像素
+        assertEquals(50, selector.getProjectedError(1, 10), 1e-3);
+        assertEquals(5, LodSelector.distanceToBounds(6, 1, 1), 0);
+        assertEquals(1, LodSelector.distanceToBounds(1.5f, 1, 1), 0);
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.sl;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class MatrixMathTest {
+
+    private static float[] transform(float[] m, float x, float y, float z) {
+        float[] out = new float[4];
+        for (int row = 0; row < 4; row++) {
+            out[row] = m[row] * x + m[4 + row] * y + m[8 + row] * z + m[12 + row];
+        }
+        return out;
+    }
+
+    private static float[] randomMatrix(long seed) {
+        Random random = new Random(seed);
+        float[] m = new float[16];
+        for (int i = 0; i < 16; i++) {
+            m[i] = random.nextFloat() * 2 - 1;
+        }
+        return m;
+    }
+
+    @Test
+    public void scaleAndTranslateApplyInModelOrder() {
+        float[] m = new float[16];
+        MatrixMath.setIdentityM(m, 0);
+        MatrixMath.scaleM(m, 0, 2, 2, 2);
+        MatrixMath.translateM(m, 0, -1, -2, -3);
+        // 先平移再缩放：(1, 2, 3) -> (0, 0, 0)，(2, 2, 3) -> (2, 0, 0)
+        assertArrayEquals(new float[]{0, 0, 0, 1}, transform(m, 1, 2, 3), 1e-6f);
+        assertArrayEquals(new float[]{2, 0, 0, 1}, transform(m, 2, 2, 3), 1e-6f);
+    }
+
+    @Test
+    public void frustumMapsNearAndFarPlanesToClipDepthRange() {
+        float[] m = new float[16];
+        MatrixMath.frustumM(m, 0, -0.5f, 0.5f, -1, 1, 0.1f, 100);
+        float[] near = transform(m, 0.5f, 1, -0.1f);
+        assertEquals(-1, near[2] / near[3], 1e-5f);
+        assertEquals(1, near[0] / near[3], 1e-5f);
+        assertEquals(1, near[1] / near[3], 1e-5f);
+        float[] far = transform(m, 0, 0, -100);
+        assertEquals(1, far[2] / far[3], 1e-4f);
+    }
+
+    @Test
+    public void lookAtMovesEyeToOriginLookingDownNegativeZ() {
+        float[] m = new float[16];
+        MatrixMath.setLookAtM(m, 0, 3, 0, 4, 0, 0, 0, 0, 1, 0);
+        assertArrayEquals(new float[]{0, 0, 0, 1}, transform(m, 3, 0, 4), 1e-6f);
+        assertArrayEquals(new float[]{0, 0, -5, 1}, transform(m, 0, 0, 0), 1e-6f);
+        assertEquals(1, transform(m, 0, 1, 0)[1], 1e-6f);
+    }
+
+    @Test
+    public void multiplyAllowsResultToAliasEitherOperand() {
+        float[] a = randomMatrix(1), b = randomMatrix(2);
+        float[] expected = new float[16];
+        MatrixMath.multiplyMM(expected, 0, a, 0, b, 0);
+        // 逐项对照定义
+        for (int col = 0; col < 4; col++) {
+            for (int row = 0; row < 4; row++) {
+                float sum = 0;
+                for (int k = 0; k < 4; k++) sum += a[k * 4 + row] * b[col * 4 + k];
+                assertEquals(sum, expected[col * 4 + row], 1e-6f);
+            }
+        }
+
+        float[] left = a.clone();
+        MatrixMath.multiplyMM(left, 0, left, 0, b, 0);
+        assertArrayEquals(expected, left, 0);
+        float[] right = b.clone();
+        MatrixMath.multiplyMM(right, 0, a, 0, right, 0);
+        assertArrayEquals(expected, right, 0);
+    }
+
+    @Test
+    public void invertGivesIdentityProductAndRejectsSingularMatrices() {
+        float[] m = randomMatrix(3);
+        float[] inverse = new float[16];
+        assertTrue(MatrixMath.invertM(inverse, 0, m, 0));
+        float[] product = new float[16];
+        MatrixMath.multiplyMM(product, 0, m, 0, inverse, 0);
+        float[] identity = new float[16];
+        MatrixMath.setIdentityM(identity, 0);
+        assertArrayEquals(identity, product, 1e-4f);
+
+        float[] singular = new float[16];
+        singular[0] = 1;
+        assertFalse(MatrixMath.invertM(inverse, 0, singular, 0));
+    }
+
+    @Test
+    public void transposeInPlace() {
+        float[] m = randomMatrix(4);
+        float[] original = m.clone();
+        MatrixMath.transposeM(m, 0, m, 0);
+        for (int col = 0; col < 4; col++) {
+            for (int row = 0; row < 4; row++) {
+                assertEquals(original[row * 4 + col], m[col * 4 + row], 0);
+            }
+        }
+    }
+}
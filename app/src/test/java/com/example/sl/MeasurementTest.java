@@ -0,0 +1,35 @@
+package com.example.sl;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MeasurementTest {
+
+    @Test
+    public void distanceIsPolylineLengthAndAreaClosesThePolygon() {
+        Measurement measurement = new Measurement();
+        assertEquals(0, measurement.getDistance(), 0);
+        measurement.add(0, 0, 0);
+        measurement.add(3, 4, 0);
+        assertEquals(5, measurement.getDistance(), 1e-9);
+        assertEquals(0, measurement.getArea(), 0);
+
+        // 倾斜平面上 2 x 1 的矩形
+        measurement.clear();
+        measurement.add(0, 0, 0);
+        measurement.add(2, 0, 0);
+        measurement.add(2, 0.6f, 0.8f);
+        measurement.add(0, 0.6f, 0.8f);
+        assertEquals(4, measurement.getPointCount());
+        assertEquals(2, measurement.getArea(), 1e-6);
+        assertEquals(2 + 1 + 2, measurement.getDistance(), 1e-6);
+
+        measurement.removeLast();
+        assertEquals(1, measurement.getArea(), 1e-6);
+        for (int i = 0; i < 10; i++) {
+            measurement.add(i, 0, 0);
+        }
+        assertEquals(13, measurement.getPointCount());
+    }
+}
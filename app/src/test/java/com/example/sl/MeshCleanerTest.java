@@ -0,0 +1,98 @@
+package com.example.sl;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MeshCleanerTest {
+
+    private static MeshData mesh(float[][] vertices, int[][] triangles) {
+        MeshData.Builder builder = new MeshData.Builder(vertices.length, triangles.length);
+        for (float[] v : vertices) {
+            builder.addVertex(v[0], v[1], v[2], 0, 0, 1);
+        }
+        for (int[] t : triangles) {
+            builder.addTriangle(t[0], t[1], t[2]);
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void weldsNearbyVerticesAndRemovesBadTriangles() {
+        MeshData input = mesh(new float[][]{
+                {0, 0, 0}, {1, 0, 0}, {0, 1, 0}, {1, 1, 0},
+                {1.0000001f, 0, 0},     // 4: 与 1 重合
+                {0.5f, 0.5f, 0},        // 5: 位于 1-2 连线上
+                {5, 5, 5},              // 6: 未被使用
+        }, new int[][]{
+                {0, 1, 2},
+                {1, 3, 2},
+                {2, 1, 0},              // 反向重复
+                {0, 4, 2},              // 焊接后与第一个重复
+                {1, 5, 2},              // 零面积
+                {0, 1, 1},              // 退化
+        });
+
+        MeshCleaner.Report report = new MeshCleaner.Report();
+        MeshData cleaned = MeshCleaner.clean(input, 1e-4f, report);
+
+        assertEquals(2, cleaned.getTriangleCount());
+        assertEquals(4, cleaned.getVertexCount());
+        assertEquals(1, report.weldedVertices);
+        assertEquals(2, report.duplicateTriangles);
+        assertEquals(2, report.degenerateTriangles);
+        assertEquals(0, report.nonManifoldTriangles);
+        assertEquals(4, report.removedTriangles());
+        for (int i = 0; i < cleaned.getVertexCount(); i++) {
+            assertEquals(1, cleaned.getNormalZ(i), 1e-6f);
+        }
+    }
+
+    @Test
+    public void removesNonManifoldFan() {
+        // 三个三角形共用边 0-1
+        MeshData input = mesh(new float[][]{
+                {0, 0, 0}, {1, 0, 0}, {0.5f, 1, 0}, {0.5f, -1, 0}, {0.5f, 0, 1},
+        }, new int[][]{
+                {0, 1, 2},
+                {1, 0, 3},
+                {0, 1, 4},
+        });
+
+        MeshCleaner.Report report = new MeshCleaner.Report();
+        MeshData cleaned = MeshCleaner.clean(input, 1e-4f, report);
+
+        assertEquals(2, cleaned.getTriangleCount());
+        assertEquals(1, report.nonManifoldTriangles);
+        assertEquals(4, cleaned.getVertexCount());
+    }
+
+    @Test
+    public void largeMeshIsFast() {
+        int n = 300;
+        MeshData.Builder builder = new MeshData.Builder((n + 1) * (n + 1), 3 * n * n);
+        for (int i = 0; i <= n; i++) {
+            for (int j = 0; j <= n; j++) {
+                builder.addVertex(i, j, 0, 0, 0, 1);
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                int a = i * (n + 1) + j, b = a + 1, c = a + n + 1, d = c + 1;
+                builder.addTriangle(a, b, c);
+                builder.addTriangle(b, d, c);
+                builder.addTriangle(c, b, a);
+            }
+        }
+        MeshData input = builder.build();
+
+        long start = System.nanoTime();
+        MeshCleaner.Report report = new MeshCleaner.Report();
+        MeshData cleaned = MeshCleaner.clean(input, 1e-3f, report);
+        long elapsedMs = (System.nanoTime() - start) / 1000000;
+
+        System.out.println("MeshCleaner: " + input.getTriangleCount() + " triangles in " + elapsedMs + " ms, " + report);
+        assertEquals(2 * n * n, cleaned.getTriangleCount());
+        assertEquals(n * n, report.duplicateTriangles);
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.sl;
+
+import org.junit.Test;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+import static org.junit.Assert.*;
+
+public class MeshDataTest {
+
+    private static MeshData quad() {
+        MeshData.Builder builder = new MeshData.Builder(1, 1);
+        builder.addVertex(0, 0, 0);
+        builder.addVertex(1, 0, 0);
+        builder.addVertex(1, 1, 0);
+        builder.addVertex(0, 1, 0);
+        builder.addTriangle(0, 1, 2);
+        builder.addTriangle(0, 2, 3);
+        return builder.build();
+    }
+
+    @Test
+    public void builder_growsAndStoresCounts() {
+        MeshData mesh = quad();
+        assertEquals(4, mesh.getVertexCount());
+        assertEquals(2, mesh.getTriangleCount());
+        assertEquals(6, mesh.getIndexCount());
+        assertEquals(1, mesh.getX(2), 0f);
+        assertEquals(1, mesh.getNormalY(3), 0f);
+        assertArrayEquals(new int[]{0, 1, 2, 0, 2, 3}, mesh.getIndicesArray());
+        assertEquals(8, mesh.getTexCoordsArray().length);
+    }
+
+    @Test
+    public void buffers_areCachedReadOnlyDirectViews() {
+        MeshData mesh = quad();
+        FloatBuffer vertices = mesh.getVertexBuffer();
+        IntBuffer indices = mesh.getIndexBuffer();
+
+        assertTrue(vertices.isDirect());
+        assertTrue(vertices.isReadOnly());
+        assertEquals(12, vertices.remaining());
+        assertEquals(6, indices.remaining());
+        assertEquals(3, indices.get(5));
+
+        // 修改一个视图的 position 不影响之后获取的视图
+        vertices.position(6);
+        assertEquals(0, mesh.getVertexBuffer().position());
+        assertEquals(8, mesh.getTexCoordBuffer().remaining());
+        assertEquals(12, mesh.getNormalBuffer().remaining());
+    }
+
+    @Test
+    public void texCoords_normalizeOffOriginMeshToUnitSquare() {
+        // 远离原点、以米以外的单位表示的 40 × 20 网格，x 方向最长
+        MeshData.Builder builder = new MeshData.Builder(1, 1);
+        for (int j = 0; j <= 20; j++) {
+            for (int i = 0; i <= 40; i++) {
+                builder.addVertex(1000 + i, -500 + j, 20 + (i + j) % 3);
+            }
+        }
+        for (int j = 0; j < 20; j++) {
+            for (int i = 0; i < 40; i++) {
+                int v = j * 41 + i;
+                builder.addTriangle(v, v + 1, v + 42);
+                builder.addTriangle(v, v + 42, v + 41);
+            }
+        }
+        MeshData mesh = builder.build();
+        float[] uv = mesh.getTexCoordsArray();
+        for (int v = 0; v < mesh.getVertexCount(); v++) {
+            assertEquals((mesh.getX(v) - 1020) / 40 + 0.5f, uv[v * 2], 1e-5f);
+            assertEquals((mesh.getY(v) + 490) / 40 + 0.5f, uv[v * 2 + 1], 1e-5f);
+        }
+        assertEquals(0, uv[0], 1e-6f);
+        assertEquals(0.25f, uv[1], 1e-6f);
+        assertEquals(1, uv[(mesh.getVertexCount() - 1) * 2], 1e-6f);
+        assertEquals(0.75f, uv[(mesh.getVertexCount() - 1) * 2 + 1], 1e-6f);
+
+        // 半精度存放后相邻顶点（相差 1/40）仍可区分
+        VertexPacker.PackedMesh packed = VertexPacker.COMPACT.pack(mesh);
+        float[] out = new float[2];
+        for (int v = 0; v < mesh.getVertexCount(); v++) {
+            packed.getTexCoord(v, out);
+            assertEquals(uv[v * 2], out[0], 1e-3f);
+            assertEquals(uv[v * 2 + 1], out[1], 1e-3f);
+        }
+    }
+}
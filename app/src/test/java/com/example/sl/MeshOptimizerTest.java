@@ -0,0 +1,89 @@
+package com.example.sl;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class MeshOptimizerTest {
+
+    /**
+     * 三角形顺序被打乱的规则网格，模拟重建算法输出的无序索引
+     */
+    private static MeshData shuffledGrid(int n) {
+        MeshData.Builder builder = new MeshData.Builder((n + 1) * (n + 1), 2 * n * n);
+        for (int i = 0; i <= n; i++) {
+            for (int j = 0; j <= n; j++) {
+                builder.addVertex(i, 0, j);
+            }
+        }
+        int[][] triangles = new int[2 * n * n][];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                int a = i * (n + 1) + j, b = a + 1, c = a + n + 1, d = c + 1;
+                triangles[count++] = new int[]{a, b, c};
+                triangles[count++] = new int[]{b, d, c};
+            }
+        }
+        Random random = new Random(11);
+        for (int i = triangles.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int[] tmp = triangles[i];
+            triangles[i] = triangles[j];
+            triangles[j] = tmp;
+        }
+        for (int[] t : triangles) {
+            builder.addTriangle(t[0], t[1], t[2]);
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void simulateCache_countsMissesWithFifo() {
+        int[] indices = {0, 1, 2, 2, 1, 3, 0, 1, 2};
+        MeshOptimizer.CacheStats stats = MeshOptimizer.simulateCache(indices, 4, 16);
+        assertEquals(4, stats.misses);
+        assertEquals(4, stats.vertices);
+        assertEquals(4f / 3, stats.getAcmr(), 1e-6f);
+        assertEquals(1f, stats.getAtvr(), 1e-6f);
+
+        // 缓存只有 2 个位置时，顶点 0 被挤出
+        stats = MeshOptimizer.simulateCache(new int[]{0, 1, 2, 0, 1, 2}, 3, 2);
+        assertEquals(6, stats.misses);
+    }
+
+    @Test
+    public void optimize_improvesAcmrAndKeepsTriangles() {
+        MeshData mesh = shuffledGrid(60);
+        MeshOptimizer.CacheStats before = MeshOptimizer.simulateCache(mesh.getIndicesArray(), mesh.getVertexCount(),
+                MeshOptimizer.SIMULATED_CACHE_SIZE);
+
+        MeshData optimized = MeshOptimizer.optimize(mesh);
+        MeshOptimizer.CacheStats after = MeshOptimizer.simulateCache(optimized.getIndicesArray(), optimized.getVertexCount(),
+                MeshOptimizer.SIMULATED_CACHE_SIZE);
+
+        System.out.println("MeshOptimizer: before " + before + ", after " + after);
+        assertTrue(before.getAcmr() > 2.0f);
+        assertTrue(after.getAcmr() < 0.9f);
+        assertTrue(after.getAtvr() < 1.6f);
+
+        assertEquals(mesh.getTriangleCount(), optimized.getTriangleCount());
+        assertEquals(mesh.getVertexCount(), optimized.getVertexCount());
+        assertArrayEquals(TestShapes.sortedTrianglePositions(mesh), TestShapes.sortedTrianglePositions(optimized));
+    }
+
+    @Test
+    public void vertexFetch_followsFirstUse() {
+        MeshData mesh = shuffledGrid(10);
+        MeshData fetched = MeshOptimizer.optimizeVertexFetch(mesh, mesh.getIndicesArray());
+        int next = 0;
+        for (int i = 0; i < fetched.getIndexCount(); i++) {
+            int v = fetched.getIndex(i);
+            assertTrue(v <= next);
+            if (v == next) next++;
+        }
+        assertEquals(mesh.getVertexCount(), next);
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.sl;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class MeshSimplifierTest {
+
+    /**
+     * 规则网格曲面 y = height(x, z)，顶点数 (n+1)^2，三角形数 2n^2
+     */
+    private static MeshData grid(int n, float amplitude) {
+        MeshData.Builder builder = new MeshData.Builder((n + 1) * (n + 1), 2 * n * n);
+        for (int i = 0; i <= n; i++) {
+            for (int j = 0; j <= n; j++) {
+                float x = (float) i / n, z = (float) j / n;
+                float y = amplitude * (float) (Math.sin(x * Math.PI * 2) * Math.cos(z * Math.PI * 2));
+                builder.addVertex(x, y, z);
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                int a = i * (n + 1) + j, b = a + 1, c = a + n + 1, d = c + 1;
+                builder.addTriangle(a, b, c);
+                builder.addTriangle(b, d, c);
+            }
+        }
+        return builder.build();
+    }
+
+    private static int countBoundaryEdges(MeshData mesh) {
+        Map<Long, Integer> edgeUse = new HashMap<>();
+        for (int t = 0; t < mesh.getTriangleCount(); t++) {
+            for (int e = 0; e < 3; e++) {
+                int a = mesh.getIndex(t * 3 + e), b = mesh.getIndex(t * 3 + (e + 1) % 3);
+                edgeUse.merge(((long) Math.min(a, b) << 32) | Math.max(a, b), 1, Integer::sum);
+            }
+        }
+        int boundary = 0;
+        for (int use : edgeUse.values()) {
+            assertTrue("non-manifold edge", use <= 2);
+            if (use == 1) boundary++;
+        }
+        return boundary;
+    }
+
+    @Test
+    public void planeSimplifiesToTargetWithoutError() {
+        MeshData mesh = grid(40, 0);
+        MeshData simplified = MeshSimplifier.simplify(mesh, 100, 0);
+
+        assertTrue(simplified.getTriangleCount() <= 100);
+        assertTrue(simplified.getTriangleCount() > 0);
+        assertTrue(simplified.getVertexCount() < mesh.getVertexCount());
+        for (int i = 0; i < simplified.getVertexCount(); i++) {
+            assertEquals(0, simplified.getY(i), 1e-6f);
+        }
+        // 边界约束：四个角点必须保留
+        int corners = 0;
+        for (int i = 0; i < simplified.getVertexCount(); i++) {
+            float x = simplified.getX(i), z = simplified.getZ(i);
+            if ((x == 0 || x == 1) && (z == 0 || z == 1)) corners++;
+        }
+        assertEquals(4, corners);
+    }
+
+    @Test
+    public void errorBoundStopsCollapsing() {
+        MeshData mesh = grid(40, 0.1f);
+        float[] positions = mesh.getVerticesArray();
+        MeshSimplifier.Result loose = MeshSimplifier.simplifyIndices(positions, mesh.getIndicesArray(), 0, 0.05f);
+        MeshSimplifier.Result tight = MeshSimplifier.simplifyIndices(positions, mesh.getIndicesArray(), 0, 0.002f);
+
+        assertTrue(loose.error <= 0.05f);
+        assertTrue(tight.error <= 0.002f);
+        assertTrue(tight.triangleCount > loose.triangleCount);
+        assertTrue(tight.triangleCount < mesh.getTriangleCount());
+    }
+
+    @Test
+    public void simplifiedMeshStaysManifold() {
+        MeshData simplified = MeshSimplifier.simplify(grid(30, 0.1f), 300, 0);
+        countBoundaryEdges(simplified);
+        for (int t = 0; t < simplified.getTriangleCount(); t++) {
+            int a = simplified.getIndex(t * 3), b = simplified.getIndex(t * 3 + 1), c = simplified.getIndex(t * 3 + 2);
+            assertTrue(a != b && b != c && a != c);
+        }
+    }
+
+    @Test
+    public void benchmarkCollapsesPerSecond() {
+        MeshData mesh = grid(200, 0.1f);
+        float[] positions = mesh.getVerticesArray();
+        int[] indices = mesh.getIndicesArray();
+
+        // 预热
+        MeshSimplifier.simplifyIndices(positions, indices, indices.length / 30, 0);
+
+        MeshSimplifier.Result result = MeshSimplifier.simplifyIndices(positions, indices, indices.length / 30, 0);
+        System.out.println(String.format("QEM: %d -> %d triangles, %d collapses in %.1f ms (%.0f collapses/s)",
+                indices.length / 3, result.triangleCount, result.collapses,
+                result.elapsedNanos / 1e6, result.getCollapsesPerSecond()));
+        assertTrue(result.triangleCount <= indices.length / 30);
+        assertTrue(result.collapses > 0);
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.sl;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class MeshletPartitionerTest {
+
+    @Test
+    public void everyTriangleLandsInExactlyOneMeshlet() {
+        MeshData mesh = TestShapes.sphereMesh(150, 150);
+        MeshletPartitioner.Result result = MeshletPartitioner.partition(mesh, 64, 124, 4);
+
+        // 重排后的三角形集合不变（顶点编号和绕序都保持）
+        assertEquals(mesh.getVertexCount(), result.mesh.getVertexCount());
+        assertArrayEquals(TestShapes.sortedTriangleKeys(mesh), TestShapes.sortedTriangleKeys(result.mesh));
+
+        // 各簇的索引范围首尾相接，覆盖整个索引缓冲区
+        int next = 0;
+        for (Meshlet meshlet : result.meshlets) {
+            assertEquals(next, meshlet.indexOffset);
+            assertTrue(meshlet.triangleCount >= 1 && meshlet.triangleCount <= 124);
+            next += meshlet.triangleCount * 3;
+
+            int[] vertices = new int[meshlet.triangleCount * 3];
+            for (int i = 0; i < vertices.length; i++) {
+                vertices[i] = result.mesh.getIndex(meshlet.indexOffset + i);
+            }
+            long distinct = Arrays.stream(vertices).distinct().count();
+            assertEquals(distinct, meshlet.vertexCount);
+            assertTrue(meshlet.vertexCount <= 64);
+        }
+        assertEquals(result.mesh.getIndexCount(), next);
+
+        // 簇应大致填满，而不是退化为零碎的小簇
+        assertTrue("Too many meshlets: " + result.meshlets.length,
+                result.meshlets.length < mesh.getTriangleCount() / 124 * 2);
+    }
+
+    @Test
+    public void boundsContainVerticesAndConesAreConservative() {
+        MeshData mesh = TestShapes.sphereMesh(40, 40);
+        MeshletPartitioner.Result result = MeshletPartitioner.partition(mesh);
+        Random random = new Random(5);
+
+        int culled = 0;
+        for (Meshlet meshlet : result.meshlets) {
+            for (int i = meshlet.indexOffset; i < meshlet.indexOffset + meshlet.triangleCount * 3; i++) {
+                int v = result.mesh.getIndex(i);
+                float dx = result.mesh.getX(v) - meshlet.centerX;
+                float dy = result.mesh.getY(v) - meshlet.centerY;
+                float dz = result.mesh.getZ(v) - meshlet.centerZ;
+                assertTrue(Math.sqrt(dx * dx + dy * dy + dz * dz) <= meshlet.radius);
+            }
+
+            for (int trial = 0; trial < 20; trial++) {
+                float ex = (random.nextFloat() - 0.5f) * 10;
+                float ey = (random.nextFloat() - 0.5f) * 10;
+                float ez = (random.nextFloat() - 0.5f) * 10;
+                if (!meshlet.isBackFacing(ex, ey, ez)) continue;
+                culled++;
+                // 被剔除的簇中每个三角形都必须背向相机
+                for (int t = meshlet.indexOffset / 3; t < meshlet.indexOffset / 3 + meshlet.triangleCount; t++) {
+                    assertTrue(facesAway(result.mesh, t, ex, ey, ez));
+                }
+            }
+        }
+        assertTrue("Cone culling never triggered", culled > 0);
+    }
+
+    private static boolean facesAway(MeshData mesh, int t, float ex, float ey, float ez) {
+        int a = mesh.getIndex(t * 3), b = mesh.getIndex(t * 3 + 1), c = mesh.getIndex(t * 3 + 2);
+        float e1x = mesh.getX(b) - mesh.getX(a), e1y = mesh.getY(b) - mesh.getY(a), e1z = mesh.getZ(b) - mesh.getZ(a);
+        float e2x = mesh.getX(c) - mesh.getX(a), e2y = mesh.getY(c) - mesh.getY(a), e2z = mesh.getZ(c) - mesh.getZ(a);
+        float nx = e1y * e2z - e1z * e2y;
+        float ny = e1z * e2x - e1x * e2z;
+        float nz = e1x * e2y - e1y * e2x;
+        return nx * (mesh.getX(a) - ex) + ny * (mesh.getY(a) - ey) + nz * (mesh.getZ(a) - ez) >= 0;
+    }
+
+    @Test
+    public void frustumRejectsSpheresOutsideView() {
+        // 相机在原点看向 -Z，90度视角，近平面1，远平面100（列主序透视矩阵）
+        float near = 1, far = 100;
+        float[] projection = new float[16];
+        projection[0] = 1;
+        projection[5] = 1;
+        projection[10] = -(far + near) / (far - near);
+        projection[11] = -1;
+        projection[14] = -2 * far * near / (far - near);
+
+        Frustum frustum = new Frustum();
+        frustum.setFromMatrix(projection);
+
+        assertTrue(frustum.intersectsSphere(0, 0, -10, 1));
+        assertFalse(frustum.intersectsSphere(0, 0, 10, 1));       // 相机后方
+        assertFalse(frustum.intersectsSphere(0, 0, -200, 1));     // 远平面之外
+        assertFalse(frustum.intersectsSphere(20, 0, -10, 1));     // 右侧之外
+        assertTrue(frustum.intersectsSphere(10.5f, 0, -10, 1));   // 跨越右侧平面
+
+        assertTrue(frustum.intersectsBox(-1, -1, -11, 1, 1, -9));
+        assertTrue(frustum.containsBox(-1, -1, -11, 1, 1, -9));
+        assertFalse(frustum.containsBox(-1, -1, -11, 12, 1, -9));
+        assertFalse(frustum.intersectsBox(15, -1, -11, 17, 1, -9));
+    }
+}
@@ -0,0 +1,336 @@
+package com.example.sl;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 分层点云的转换、节点加载和缓存策略，全部针对本地目录运行，不需要GPU
+ */
+public class OctreeStreamingTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final AssetSource ASSETS = filename -> {
+        if (!filename.endsWith(".glsl")) throw new FileNotFoundException(filename);
+        return new ByteArrayInputStream("void main() {}".getBytes());
+    };
+
+    /**
+     * 长方体中的随机点，每次读取顺序相同
+     */
+    private static PointSource box(int count, long seed) {
+        return visitor -> {
+            Random random = new Random(seed);
+            float[] rgb = new float[3];
+            for (int i = 0; i < count; i++) {
+                rgb[0] = random.nextFloat();
+                rgb[1] = random.nextFloat();
+                rgb[2] = random.nextFloat();
+                visitor.onPoint(random.nextFloat() * 10, random.nextFloat() * 4 - 2, random.nextFloat() * 6, rgb);
+            }
+        };
+    }
+
+    private static float[] positions(PointSource source, int count) throws IOException {
+        float[] positions = new float[count * 3];
+        int[] n = new int[1];
+        source.read((x, y, z, rgb) -> {
+            positions[n[0] * 3] = x;
+            positions[n[0] * 3 + 1] = y;
+            positions[n[0] * 3 + 2] = z;
+            n[0]++;
+        });
+        return positions;
+    }
+
+    private static float[] readNodePositions(OctreeIndex index, int node) throws IOException {
+        ByteBuffer data = OctreeNodeLoader.readNode(index.getNodeFile(node), index.getNodeBytes(node));
+        float[] positions = new float[index.getNodePointCount(node) * 3];
+        for (int p = 0; p < index.getNodePointCount(node); p++) {
+            positions[p * 3] = data.getFloat(p * OctreeIndex.POINT_BYTES);
+            positions[p * 3 + 1] = data.getFloat(p * OctreeIndex.POINT_BYTES + 4);
+            positions[p * 3 + 2] = data.getFloat(p * OctreeIndex.POINT_BYTES + 8);
+        }
+        return positions;
+    }
+
+    private static long key(float x, float y, float z) {
+        return ((long) Float.floatToIntBits(x) * 31 + Float.floatToIntBits(y)) * 31 + Float.floatToIntBits(z);
+    }
+
+    private OctreeIndex convert(int count, long seed) throws IOException {
+        return new OctreeConverter()
+                .setGridResolution(8)
+                .setMaxLeafPoints(400)
+                .setMaxChunkPoints(5000)
+                .convert(box(count, seed), folder.newFolder());
+    }
+
+    @Test
+    public void converterStoresEveryPointOnceInsideItsNode() throws IOException {
+        int count = 40000;
+        OctreeIndex index = convert(count, 3);
+        assertTrue(index.getNodeCount() > 20);
+        assertEquals(count, index.getTotalPointCount());
+
+        long[] expected = new long[count];
+        float[] source = positions(box(count, 3), count);
+        for (int i = 0; i < count; i++) {
+            expected[i] = key(source[i * 3], source[i * 3 + 1], source[i * 3 + 2]);
+        }
+        long[] stored = new long[count];
+        int total = 0;
+        for (int node = 0; node < index.getNodeCount(); node++) {
+            assertEquals(index.getNodeBytes(node), index.getNodeFile(node).length());
+            assertTrue(index.getNodePointCount(node) > 0);
+            float[] positions = readNodePositions(index, node);
+            float size = index.getNodeSize(node);
+            float epsilon = size * 1e-4f;
+            for (int p = 0; p < positions.length / 3; p++) {
+                assertTrue(positions[p * 3] >= index.getNodeMinX(node) - epsilon
+                        && positions[p * 3] <= index.getNodeMinX(node) + size + epsilon);
+                assertTrue(positions[p * 3 + 1] >= index.getNodeMinY(node) - epsilon
+                        && positions[p * 3 + 1] <= index.getNodeMinY(node) + size + epsilon);
+                assertTrue(positions[p * 3 + 2] >= index.getNodeMinZ(node) - epsilon
+                        && positions[p * 3 + 2] <= index.getNodeMinZ(node) + size + epsilon);
+                stored[total++] = key(positions[p * 3], positions[p * 3 + 1], positions[p * 3 + 2]);
+            }
+            // 子节点连续编号（广度优先），层级加一
+            int first = index.getFirstChild(node);
+            for (int c = 0; c < index.getChildCount(node); c++) {
+                assertTrue(first + c > node);
+                assertEquals(index.getNodeLevel(node) + 1, index.getNodeLevel(first + c));
+                assertEquals(size / 2, index.getNodeSize(first + c), size * 1e-5f);
+            }
+        }
+        assertEquals(count, total);
+        Arrays.sort(expected);
+        Arrays.sort(stored);
+        assertArrayEquals(expected, stored);
+
+        // 索引文件往返
+        OctreeIndex read = OctreeIndex.read(index.getDirectory());
+        assertEquals(index.getNodeCount(), read.getNodeCount());
+        assertEquals(index.getTotalPointCount(), read.getTotalPointCount());
+        for (int node = 0; node < index.getNodeCount(); node++) {
+            assertEquals(index.getNodePointCount(node), read.getNodePointCount(node));
+            assertEquals(index.getFirstChild(node), read.getFirstChild(node));
+            assertEquals(index.getChildCount(node), read.getChildCount(node));
+            assertEquals(index.getNodeMinX(node), read.getNodeMinX(node), 0);
+            assertEquals(index.getNodeSize(node), read.getNodeSize(node), 0);
+        }
+    }
+
+    @Test
+    public void singleChunkMatchesInMemoryOctree() throws IOException {
+        int count = 4000;
+        OctreeIndex index = convert(count, 11);
+        PointOctree octree = PointOctree.build(positions(box(count, 11), count), new float[count * 4], count, 8, 400);
+
+        assertEquals(octree.getNodeCount(), index.getNodeCount());
+        for (int node = 0; node < octree.getNodeCount(); node++) {
+            assertEquals(octree.getNodePointCount(node), index.getNodePointCount(node));
+            assertEquals(octree.getFirstChild(node), index.getFirstChild(node));
+            assertEquals(octree.getNodeMinX(node), index.getNodeMinX(node), 1e-5f);
+            assertEquals(octree.getNodeMinY(node), index.getNodeMinY(node), 1e-5f);
+            assertEquals(octree.getNodeMinZ(node), index.getNodeMinZ(node), 1e-5f);
+
+            float[] stored = readNodePositions(index, node);
+            float[] expected = Arrays.copyOfRange(octree.getPositions(), octree.getNodeOffset(node) * 3,
+                    (octree.getNodeOffset(node) + octree.getNodePointCount(node)) * 3);
+            assertArrayEquals(expected, stored, 0);
+        }
+    }
+
+    @Test
+    public void loaderReadsHighestPriorityFirst() throws IOException {
+        OctreeIndex index = convert(20000, 5);
+        List<Runnable> tasks = new ArrayList<>();
+        OctreeNodeLoader loader = new OctreeNodeLoader(index, tasks::add, 1);
+        int[] notified = new int[1];
+        loader.setOnNodeLoaded(() -> notified[0]++);
+
+        loader.request(1, 1);
+        loader.request(2, 5);
+        loader.request(3, 3);
+        loader.request(1, 4);
+        assertEquals(1, tasks.size());
+        assertEquals(3, loader.getPendingCount());
+
+        tasks.get(0).run();
+        assertEquals(0, loader.getPendingCount());
+        assertEquals(3, loader.getLoadingCount());
+        assertEquals(3, notified[0]);
+
+        List<Integer> order = new ArrayList<>();
+        loader.drainCompleted(loaded -> {
+            order.add(loaded.node);
+            assertNotNull(loaded.data);
+            assertEquals(index.getNodeBytes(loaded.node), loaded.data.remaining());
+        });
+        assertEquals(Arrays.asList(2, 1, 3), order);
+        assertEquals(0, loader.getLoadingCount());
+
+        // 每帧重新提交前丢弃未开始的请求
+        loader.request(4, 1);
+        loader.clearPending();
+        tasks.get(1).run();
+        loader.drainCompleted(loaded -> fail("cleared request was loaded"));
+
+        // 读取失败的节点以空数据交付
+        assertTrue(index.getNodeFile(5).delete());
+        loader.request(5, 1);
+        tasks.get(2).run();
+        loader.drainCompleted(loaded -> {
+            assertEquals(5, loaded.node);
+            assertNull(loaded.data);
+        });
+        loader.release();
+    }
+
+    @Test
+    public void cacheEvictsLeastRecentlyUsedButKeepsCurrentFrame() {
+        List<Integer> evicted = new ArrayList<>();
+        LruByteCache<String> cache = new LruByteCache<>(100, (key, value) -> evicted.add(key));
+
+        cache.beginFrame();
+        cache.put(1, "a", 40);
+        cache.put(2, "b", 40);
+        cache.put(3, "c", 40);
+        cache.trim();
+        // 都在当前帧中使用，暂时超出预算
+        assertTrue(evicted.isEmpty());
+        assertEquals(120, cache.getBytes());
+
+        cache.beginFrame();
+        cache.get(1);
+        cache.put(4, "d", 40);
+        cache.trim();
+        assertEquals(Arrays.asList(2, 3), evicted);
+        assertEquals(80, cache.getBytes());
+
+        // peek 不改变使用顺序
+        cache.beginFrame();
+        assertEquals("a", cache.peek(1));
+        cache.get(4);
+        cache.setBudgetBytes(40);
+        cache.trim();
+        assertEquals(Arrays.asList(2, 3, 1), evicted);
+        assertFalse(cache.contains(1));
+        assertEquals(3, cache.getEvictionCount());
+
+        // 替换时旧值交给回调，移除不调用
+        cache.put(4, "e", 10);
+        assertEquals(Arrays.asList(2, 3, 1, 4), evicted);
+        assertEquals("e", cache.remove(4));
+        assertEquals(0, cache.getBytes());
+        assertEquals(4, evicted.size());
+    }
+
+    private static void frame(RecordingGlApi gl, GpuUploadManager manager, StreamingPointCloud streaming,
+                              PointBudgetTraverser traverser) {
+        gl.beginFrame();
+        manager.processFrame();
+        streaming.update(traverser);
+        streaming.draw();
+    }
+
+    private static int settle(RecordingGlApi gl, GpuUploadManager manager, StreamingPointCloud streaming,
+                              PointBudgetTraverser traverser) {
+        int frames = 0;
+        do {
+            frame(gl, manager, streaming, traverser);
+            frames++;
+            assertTrue("streaming did not settle", frames < 1000);
+        } while (traverser.getMissingCount() > 0 || manager.hasPendingWork());
+        return frames;
+    }
+
+    @Test
+    public void streamingLoadsVisibleNodesAndEvictsColdOnes() throws IOException {
+        OctreeIndex index = convert(60000, 9);
+        RecordingGlApi gl = new RecordingGlApi();
+        GpuUploadManager manager = new GpuUploadManager(gl, Runnable::run, 16 * 1024, 3_500_000L,
+                () -> gl.subDataRanges.size() * 1_000_000L);
+        // 加载在调用线程中同步完成
+        OctreeNodeLoader loader = new OctreeNodeLoader(index, Runnable::run, 1);
+        StreamingPointCloud streaming = new StreamingPointCloud(gl, manager, loader);
+        streaming.onContextCreated(0, 1);
+
+        float[] projection = new float[16];
+        projection[5] = 1;
+        PointBudgetTraverser traverser = new PointBudgetTraverser();
+        traverser.setProjection(projection, 1000);
+        traverser.setCamera(-1, -3, -1);
+
+        int frames = settle(gl, manager, streaming, traverser);
+        assertTrue("nodes should stream over several frames", frames > 2);
+        assertTrue(traverser.getVisibleCount() > 1);
+        assertEquals(traverser.getVisiblePoints(), streaming.getDrawnPoints());
+        assertEquals(traverser.getVisibleCount(), gl.frame.drawCalls);
+        assertEquals(streaming.getGpuNodeCount(), gl.liveBuffers.size());
+        assertEquals(streaming.getGpuNodeCount(), gl.liveVertexArrays.size());
+
+        // 稳定后不再上传或创建对象
+        frame(gl, manager, streaming, traverser);
+        assertEquals(0, gl.frame.uploadedBytes);
+        assertEquals(0, gl.frame.objectsCreated);
+
+        // 预算很小时移远，不再需要的节点被淘汰，GPU上只保留本帧用到的节点
+        streaming.setGpuBudget(index.getNodeBytes(0));
+        streaming.setHeapBudget(0);
+        traverser.setCamera(5, 0, 30);
+        settle(gl, manager, streaming, traverser);
+        assertTrue(streaming.getGpuCache().getEvictionCount() > 0);
+        assertTrue(traverser.getVisibleCount() > 1);
+        assertEquals(traverser.getVisibleCount(), streaming.getGpuNodeCount());
+        assertEquals(streaming.getGpuNodeCount(), gl.liveBuffers.size());
+        assertEquals(0, streaming.getHeapCache().size());
+        assertEquals(traverser.getVisiblePoints(), streaming.getDrawnPoints());
+
+        streaming.release();
+        assertTrue(gl.liveBuffers.isEmpty());
+        assertTrue(gl.liveVertexArrays.isEmpty());
+    }
+
+    @Test
+    public void rendererStreamsOctreeAndReleasesNodes() throws IOException {
+        OctreeIndex index = convert(20000, 13);
+        RecordingGlApi gl = new RecordingGlApi();
+        GpuUploadManager manager = new GpuUploadManager(gl, Runnable::run, 16 * 1024, 3_500_000L,
+                () -> gl.subDataRanges.size() * 1_000_000L);
+        PointCloudRenderer renderer = new PointCloudRenderer(ASSETS, null, "fast", gl, manager);
+        renderer.setOctree(new OctreeNodeLoader(index, Runnable::run, 1));
+        renderer.onSurfaceCreated(null, null);
+        renderer.onSurfaceChanged(null, 1080, 1920);
+
+        int frames = 0;
+        do {
+            gl.beginFrame();
+            renderer.onDrawFrame(null);
+            frames++;
+            assertTrue(frames < 1000);
+        } while (renderer.getTraverser().getMissingCount() > 0 || manager.hasPendingWork());
+        assertEquals(renderer.getTraverser().getVisiblePoints(), renderer.getStreaming().getDrawnPoints());
+        assertTrue(renderer.getStreaming().getDrawnPoints() > 0);
+        assertTrue(renderer.getRenderInfo().startsWith("Points: 20,000"));
+
+        renderer.cleanup();
+        assertTrue(gl.liveBuffers.isEmpty());
+        assertTrue(gl.liveVertexArrays.isEmpty());
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.sl;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PointCloudDataTest {
+
+    @Test
+    public void heightColorsUseFinalBoundsRegardlessOfPointOrder() {
+        PointCloudData data = new PointCloudData();
+        // 第一个点加入时范围只有它自己，按运行中的范围着色会得到错误的颜色
+        data.addPoint(0, 5, 0);
+        data.addPoint(0, 0, 0);
+        data.addPoint(0, 10, 0);
+        assertFalse(data.hasRgb());
+        data.applyHeightColors();
+
+        assertEquals(0.5f, data.colors.get(0)[0], 1e-3f);
+        assertEquals(0.5f, data.colors.get(0)[2], 1e-3f);
+        assertEquals(0f, data.colors.get(1)[0], 1e-3f);
+        assertEquals(1f, data.colors.get(2)[0], 1e-3f);
+    }
+
+    @Test
+    public void explicitColorsAreKept() {
+        PointCloudData data = new PointCloudData();
+        data.addPoint(0, 0, 0, 0.2f, 0.4f, 0.6f);
+        data.addPoint(0, 1, 0, 0.1f, 0.1f, 0.1f);
+        assertTrue(data.hasRgb());
+        data.applyHeightColors();
+        assertEquals(0.2f, data.colors.get(0)[0], 0);
+        assertEquals(0.6f, data.colors.get(0)[2], 0);
+    }
+
+    @Test
+    public void boundsOfAllNegativeCoordinates() {
+        PointCloudData data = new PointCloudData();
+        data.addPoint(-10, -4, -7);
+        data.addPoint(-2, -1, -3);
+        data.addPoint(-6, -3, -5);
+
+        assertEquals(-2, data.maxX, 0);
+        assertEquals(-1, data.maxY, 0);
+        assertEquals(-3, data.maxZ, 0);
+        assertEquals(-6, data.getCenterX(), 0);
+        assertEquals(-2.5f, data.getCenterY(), 0);
+        assertEquals(-5, data.getCenterZ(), 0);
+        assertEquals(4, data.getHalfExtent(), 0);
+    }
+
+    @Test
+    public void streamsIntensityAndLabelColumnsInDeclaredOrder() throws IOException {
+        String pcd = "VERSION .7\n"
+                + "FIELDS intensity x y z label\n"
+                + "POINTS 2\n"
+                + "DATA ascii\n"
+                + "12.5 1 2 3 6\n"
+                + "40 4 5 6 2\n";
+        List<float[]> points = new ArrayList<>();
+        PCDParser.streamPCDWithAttributes(new ByteArrayInputStream(pcd.getBytes()),
+                (x, y, z, rgb, intensity, classification) -> {
+                    assertNull(rgb);
+                    points.add(new float[]{x, y, z, intensity, classification});
+                });
+
+        assertEquals(2, points.size());
+        assertArrayEquals(new float[]{1, 2, 3, 12.5f, 6}, points.get(0), 0);
+        assertArrayEquals(new float[]{4, 5, 6, 40, 2}, points.get(1), 0);
+    }
+
+    @Test
+    public void missingAttributesAreReportedAsAbsent() throws IOException {
+        String pcd = "FIELDS x y z\nPOINTS 1\nDATA ascii\n1 2 3\n";
+        float[] seen = new float[2];
+        PCDParser.streamPCDWithAttributes(new ByteArrayInputStream(pcd.getBytes()),
+                (x, y, z, rgb, intensity, classification) -> {
+                    seen[0] = intensity;
+                    seen[1] = classification;
+                });
+        assertTrue(Float.isNaN(seen[0]));
+        assertEquals(-1, seen[1], 0);
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.sl;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PointCloudRepositoryTest {
+
+    private static PointCloudData cloud() {
+        PointCloudData data = new PointCloudData();
+        data.addPoint(0, 0, 0, 1, 1, 1);
+        return data;
+    }
+
+    @Test
+    public void derivedDataIsCreatedOnceAndShared() {
+        PointCloudRepository repository = new PointCloudRepository(1000);
+        int[] created = new int[1];
+        String key = PointCloudRepository.key("a", "mesh", 1000, 5000);
+        assertEquals("a/mesh:1000:5000", key);
+
+        Object first = repository.acquire(key, () -> {
+            created[0]++;
+            return new Object();
+        }, value -> 100);
+        Object second = repository.acquire(key, () -> {
+            created[0]++;
+            return new Object();
+        }, value -> 100);
+
+        assertSame(first, second);
+        assertEquals(1, created[0]);
+        assertEquals(2, repository.getRefCount(key));
+        repository.release(key);
+        repository.release(key);
+        assertEquals(0, repository.getRefCount(key));
+        // 未引用的条目保留在预算内，再次使用时直接返回
+        assertSame(first, repository.acquire(key));
+    }
+
+    @Test
+    public void budgetEvictsLeastRecentlyUsedUnreferencedDerivedData() {
+        PointCloudRepository repository = new PointCloudRepository(300);
+        List<String> evicted = new ArrayList<>();
+        repository.setEvictionListener((key, value) -> evicted.add(key));
+        repository.putDataset("a", cloud(), 10_000);
+
+        for (String kind : new String[]{"x", "y", "z"}) {
+            repository.acquire(PointCloudRepository.key("a", kind), Object::new, value -> 100);
+        }
+        // 三个派生条目都在使用中，超出预算也不淘汰
+        String w = PointCloudRepository.key("a", "w");
+        repository.acquire(w, Object::new, value -> 100);
+        assertTrue(evicted.isEmpty());
+        assertEquals(400, repository.getDerivedBytes());
+
+        // 释放后超出预算的部分立即淘汰，其余保留
+        repository.release("a/x");
+        assertEquals(List.of("a/x"), evicted);
+        repository.release("a/y");
+        repository.release("a/z");
+        repository.release(w);
+        // 数据集比预算大，但不按预算淘汰
+        assertTrue(repository.contains(PointCloudRepository.datasetKey("a")));
+        assertEquals(300, repository.getDerivedBytes());
+        assertEquals(List.of("a/x"), evicted);
+    }
+
+    @Test
+    public void trimLevelsEvictProgressivelyMoreAndKeepReferencedEntries() {
+        PointCloudRepository repository = new PointCloudRepository(1000);
+        repository.putDataset("a", cloud(), 500);
+        repository.putDataset("b", cloud(), 500);
+        PointCloudData held = repository.acquire(PointCloudRepository.datasetKey("b"));
+        assertNotNull(held);
+        for (int i = 0; i < 10; i++) {
+            repository.acquire(PointCloudRepository.key("a", "level", i), Object::new, value -> 100);
+            repository.release(PointCloudRepository.key("a", "level", i));
+        }
+        String used = PointCloudRepository.key("a", "used");
+        repository.acquire(used, Object::new, value -> 100);
+        assertEquals(1000, repository.getDerivedBytes());
+
+        repository.onTrimMemory(PointCloudRepository.TRIM_MEMORY_RUNNING_MODERATE);
+        assertEquals(700, repository.getDerivedBytes());
+        repository.onTrimMemory(PointCloudRepository.TRIM_MEMORY_UI_HIDDEN);
+        assertEquals(500, repository.getDerivedBytes());
+        // 最早使用的先被淘汰
+        assertFalse(repository.contains(PointCloudRepository.key("a", "level", 5)));
+        assertTrue(repository.contains(PointCloudRepository.key("a", "level", 6)));
+
+        repository.onTrimMemory(PointCloudRepository.TRIM_MEMORY_BACKGROUND);
+        assertEquals(100, repository.getDerivedBytes());
+        assertTrue(repository.contains(PointCloudRepository.datasetKey("a")));
+
+        repository.onTrimMemory(PointCloudRepository.TRIM_MEMORY_COMPLETE);
+        assertFalse(repository.contains(PointCloudRepository.datasetKey("a")));
+        // 使用中的数据集和派生数据保留
+        assertTrue(repository.contains(PointCloudRepository.datasetKey("b")));
+        assertTrue(repository.contains(used));
+        assertEquals(600, repository.getBytes());
+    }
+
+    @Test
+    public void replacingADatasetDropsItsUnreferencedDerivedData() {
+        PointCloudRepository repository = new PointCloudRepository(1000);
+        repository.putDataset("a", cloud(), 500);
+        repository.acquire("a/mesh", Object::new, value -> 100);
+        repository.release("a/mesh");
+        repository.acquire("ab/mesh", Object::new, value -> 100);
+        repository.release("ab/mesh");
+
+        PointCloudData replacement = cloud();
+        repository.putDataset("a", replacement, 400);
+        assertFalse(repository.contains("a/mesh"));
+        assertTrue(repository.contains("ab/mesh"));
+        assertSame(replacement, repository.acquire(PointCloudRepository.datasetKey("a")));
+        assertEquals(500, repository.getBytes());
+    }
+
+    @Test
+    public void releasingUnknownOrUnreferencedKeysIsIgnored() {
+        PointCloudRepository repository = new PointCloudRepository(1000);
+        repository.release("missing/data");
+        repository.putDataset("a", cloud(), 10);
+        repository.release(PointCloudRepository.datasetKey("a"));
+        assertEquals(0, repository.getRefCount(PointCloudRepository.datasetKey("a")));
+        assertNull(repository.acquire("a/other"));
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.sl;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class PointOctreeTest {
+
+    private static final float[] PROJECTION = new float[16];
+
+    static {
+        // cot(fovY / 2) = 1
+        PROJECTION[5] = 1;
+    }
+
+    private static PointOctree cube(int count, int grid, int maxLeaf) {
+        Random random = new Random(7);
+        float[] positions = new float[count * 3];
+        float[] colors = new float[count * 4];
+        for (int i = 0; i < count; i++) {
+            positions[i * 3] = random.nextFloat() * 2 - 1;
+            positions[i * 3 + 1] = random.nextFloat() * 2 - 1;
+            positions[i * 3 + 2] = random.nextFloat() * 2 - 1;
+            // 颜色记录原始编号，用于检查重排
+            colors[i * 4] = i;
+            colors[i * 4 + 3] = 1;
+        }
+        return PointOctree.build(positions, colors, count, grid, maxLeaf);
+    }
+
+    @Test
+    public void everyPointIsStoredOnceInsideItsNode() {
+        PointOctree octree = cube(50000, 8, 500);
+        assertTrue(octree.getNodeCount() > 9);
+        assertTrue(octree.getDepth() > 2);
+
+        Set<Integer> seen = new HashSet<>();
+        float[] positions = octree.getPositions();
+        float[] colors = octree.getColors();
+        int total = 0;
+        for (int node = 0; node < octree.getNodeCount(); node++) {
+            int offset = octree.getNodeOffset(node);
+            assertEquals(total, offset);
+            total += octree.getNodePointCount(node);
+            float size = octree.getNodeSize(node);
+            for (int p = offset; p < offset + octree.getNodePointCount(node); p++) {
+                assertTrue(seen.add((int) colors[p * 4]));
+                assertTrue(positions[p * 3] >= octree.getNodeMinX(node) && positions[p * 3] < octree.getNodeMinX(node) + size);
+                assertTrue(positions[p * 3 + 1] >= octree.getNodeMinY(node) && positions[p * 3 + 1] < octree.getNodeMinY(node) + size);
+                assertTrue(positions[p * 3 + 2] >= octree.getNodeMinZ(node) && positions[p * 3 + 2] < octree.getNodeMinZ(node) + size);
+            }
+        }
+        assertEquals(50000, total);
+        assertEquals(50000, seen.size());
+    }
+
+    @Test
+    public void innerNodesHoldOnePointPerCellAndChildrenAreContiguous() {
+        PointOctree octree = cube(50000, 8, 500);
+        for (int node = 0; node < octree.getNodeCount(); node++) {
+            int first = octree.getFirstChild(node);
+            if (first < 0) {
+                assertEquals(0, octree.getChildCount(node));
+                continue;
+            }
+            // 广度优先：子节点编号在父节点之后且连续，层级加一
+            assertTrue(first > node);
+            for (int c = 0; c < octree.getChildCount(node); c++) {
+                assertEquals(octree.getNodeLevel(node) + 1, octree.getNodeLevel(first + c));
+                assertEquals(octree.getNodeSize(node) * 0.5f, octree.getNodeSize(first + c), 1e-6f);
+            }
+            assertTrue(octree.getNodePointCount(node) <= 8 * 8 * 8);
+
+            Set<Integer> cells = new HashSet<>();
+            float cell = octree.getNodeSize(node) / 8;
+            float[] positions = octree.getPositions();
+            for (int p = octree.getNodeOffset(node); p < octree.getNodeOffset(node) + octree.getNodePointCount(node); p++) {
+                int cx = (int) ((positions[p * 3] - octree.getNodeMinX(node)) / cell);
+                int cy = (int) ((positions[p * 3 + 1] - octree.getNodeMinY(node)) / cell);
+                int cz = (int) ((positions[p * 3 + 2] - octree.getNodeMinZ(node)) / cell);
+                assertTrue(cells.add((cx * 8 + cy) * 8 + cz));
+            }
+        }
+    }
+
+    @Test
+    public void smallCloudIsASingleNode() {
+        PointOctree octree = cube(1000, PointOctree.DEFAULT_GRID_RESOLUTION, PointOctree.DEFAULT_MAX_LEAF_POINTS);
+        assertEquals(1, octree.getNodeCount());
+        assertEquals(1000, octree.getNodePointCount(0));
+        assertEquals(-1, octree.getFirstChild(0));
+    }
+
+    @Test
+    public void traversalRespectsBudgetAndRefinesNearCamera() {
+        PointOctree octree = cube(200000, 8, 500);
+        PointBudgetTraverser traverser = new PointBudgetTraverser();
+        traverser.setProjection(PROJECTION, 1000);
+        traverser.setMinNodePixels(0);
+        traverser.setCamera(3, 0, 0);
+        traverser.setPointBudget(20000);
+        traverser.traverse(octree);
+
+        assertTrue(traverser.getVisiblePoints() <= 20000);
+        assertTrue(traverser.getVisiblePoints() > 20000 - 512);
+        assertEquals(0, traverser.getVisibleNodes()[0]);
+
+        // 选中的节点连通，靠近相机一侧（x 较大）细分得更深
+        Set<Integer> visible = new HashSet<>();
+        int sum = 0;
+        int nearLevels = 0, farLevels = 0;
+        for (int i = 0; i < traverser.getVisibleCount(); i++) {
+            int node = traverser.getVisibleNodes()[i];
+            visible.add(node);
+            sum += octree.getNodePointCount(node);
+            if (octree.getNodeMinX(node) >= 0) nearLevels = Math.max(nearLevels, octree.getNodeLevel(node));
+            else farLevels = Math.max(farLevels, octree.getNodeLevel(node));
+        }
+        assertEquals(traverser.getVisiblePoints(), sum);
+        for (int node = 0; node < octree.getNodeCount(); node++) {
+            int first = octree.getFirstChild(node);
+            for (int c = 0; c < octree.getChildCount(node); c++) {
+                if (visible.contains(first + c)) assertTrue(visible.contains(node));
+            }
+        }
+        assertTrue(nearLevels > farLevels);
+    }
+
+    @Test
+    public void tinyBudgetOrSmallProjectionDrawsOnlyTheRoot() {
+        PointOctree octree = cube(50000, 8, 500);
+        PointBudgetTraverser traverser = new PointBudgetTraverser();
+        traverser.setProjection(PROJECTION, 1000);
+        traverser.setCamera(0, 0, 5);
+        traverser.setPointBudget(1);
+        traverser.traverse(octree);
+        assertEquals(1, traverser.getVisibleCount());
+        assertEquals(octree.getNodePointCount(0), traverser.getVisiblePoints());
+
+        // 远处节点投影小于阈值，不再细分
+        traverser.setPointBudget(PointBudgetTraverser.DEFAULT_POINT_BUDGET);
+        traverser.setMinNodePixels(30);
+        traverser.setCamera(0, 0, 1000);
+        traverser.traverse(octree);
+        assertEquals(1, traverser.getVisibleCount());
+
+        // 没有限制时选中全部节点
+        traverser.setMinNodePixels(0);
+        traverser.traverse(octree);
+        assertEquals(octree.getNodeCount(), traverser.getVisibleCount());
+        assertEquals(50000, traverser.getVisiblePoints());
+        assertEquals(octree.getNodeCount(), traverser.getNodesVisited());
+    }
+}
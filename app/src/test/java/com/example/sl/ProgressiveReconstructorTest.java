@@ -0,0 +1,137 @@
+package com.example.sl;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class ProgressiveReconstructorTest {
+
+    @Test
+    public void defaultLevels_areIncreasingAndCapped() {
+        assertArrayEquals(new int[]{1000, 5000, 20000, 80000}, ProgressiveReconstructor.defaultLevels(1000000));
+        assertArrayEquals(new int[]{1000, 3000}, ProgressiveReconstructor.defaultLevels(3000));
+        assertArrayEquals(new int[]{500}, ProgressiveReconstructor.defaultLevels(500));
+    }
+
+    @Test
+    public void levels_refineAndReuseEarlierPointsAndNormals() {
+        PointCloudData cloud = TestShapes.wavyPlaneCloud(8000);
+        ProgressiveReconstructor reconstructor = new ProgressiveReconstructor(cloud, 500, 2000, 8000);
+        List<MeshData> levels = new ArrayList<>();
+
+        MeshData finest = reconstructor.reconstruct(ReconstructionMonitor.NONE,
+                (level, levelCount, meshData) -> {
+                    assertEquals(levels.size(), level);
+                    assertEquals(3, levelCount);
+                    levels.add(meshData);
+                });
+
+        assertEquals(3, levels.size());
+        assertSame(finest, levels.get(2));
+        // 最精细的一级带有细节层次，渲染器按屏幕空间误差选择；较粗的级别不生成
+        assertTrue(finest.getLodCount() > 1);
+        assertEquals(1, levels.get(0).getLodCount());
+        assertEquals(1, levels.get(1).getLodCount());
+        assertFalse(reconstructor.hasMoreLevels());
+        // 清理后只保留被三角形用到的点
+        int[] sizes = {500, 2000, 8000};
+        for (int l = 0; l < levels.size(); l++) {
+            assertTrue(levels.get(l).getVertexCount() <= sizes[l]);
+            assertTrue(levels.get(l).getVertexCount() > sizes[l] * 0.9);
+        }
+
+        for (int l = 1; l < levels.size(); l++) {
+            MeshData coarse = levels.get(l - 1);
+            MeshData fine = levels.get(l);
+            assertTrue(fine.getTriangleCount() > coarse.getTriangleCount());
+            // 粗糙级别的点和法线在细化后保持不变（清理会重排顶点，按坐标对应）
+            Map<String, Integer> fineVertices = new HashMap<>();
+            for (int v = 0; v < fine.getVertexCount(); v++) {
+                fineVertices.put(fine.getX(v) + "," + fine.getY(v) + "," + fine.getZ(v), v);
+            }
+            int kept = 0;
+            for (int v = 0; v < coarse.getVertexCount(); v++) {
+                Integer f = fineVertices.get(coarse.getX(v) + "," + coarse.getY(v) + "," + coarse.getZ(v));
+                if (f == null) continue;
+                kept++;
+                assertEquals(coarse.getNormalX(v), fine.getNormalX(f), 1e-6f);
+                assertEquals(coarse.getNormalY(v), fine.getNormalY(f), 1e-6f);
+                assertEquals(coarse.getNormalZ(v), fine.getNormalZ(f), 1e-6f);
+            }
+            assertTrue(kept > coarse.getVertexCount() * 0.99);
+        }
+    }
+
+    @Test
+    public void levelsAreCleaned() {
+        MeshData mesh = new ProgressiveReconstructor(TestShapes.wavyPlaneCloud(3000), 3000).refine(ReconstructionMonitor.NONE);
+        // 伞形三角化的重叠部分已删除：没有重复三角形，每条边最多被两个三角形使用
+        Map<Long, Integer> edgeUse = new HashMap<>();
+        Set<Long> triangles = new HashSet<>();
+        for (int t = 0; t < mesh.getTriangleCount(); t++) {
+            int a = mesh.getIndex(t * 3), b = mesh.getIndex(t * 3 + 1), c = mesh.getIndex(t * 3 + 2);
+            assertTrue(triangles.add(ProgressiveReconstructor.triangleKey(a, b, c)));
+            for (int e = 0; e < 3; e++) {
+                int p = mesh.getIndex(t * 3 + e), q = mesh.getIndex(t * 3 + (e + 1) % 3);
+                edgeUse.merge(((long) Math.min(p, q) << 32) | Math.max(p, q), 1, Integer::sum);
+            }
+        }
+        assertTrue(Collections.max(edgeUse.values()) <= 2);
+    }
+
+    @Test
+    public void levelsAreOrderedForTheVertexCache() {
+        MeshData mesh = new ProgressiveReconstructor(TestShapes.wavyPlaneCloud(8000), 8000).refine(ReconstructionMonitor.NONE);
+        MeshOptimizer.CacheStats stats = MeshOptimizer.simulateCache(mesh.getIndicesArray(), mesh.getVertexCount(),
+                MeshOptimizer.SIMULATED_CACHE_SIZE);
+        // 按随机取样顺序三角化时 ACMR 约为 1.76，重排后约为 0.6
+        System.out.println("Progressive level: " + stats);
+        assertTrue(stats.toString(), stats.getAcmr() < 1.0f);
+    }
+
+    @Test
+    public void normals_followSurface() {
+        PointCloudData cloud = TestShapes.wavyPlaneCloud(3000);
+        MeshData mesh = new ProgressiveReconstructor(cloud, 3000).refine(ReconstructionMonitor.NONE);
+
+        int aligned = 0;
+        for (int i = 0; i < mesh.getVertexCount(); i++) {
+            if (mesh.getNormalY(i) > 0.8f) aligned++;
+        }
+        assertTrue(aligned > mesh.getVertexCount() * 0.95);
+
+        // 三角形应覆盖大部分点，且朝向与法线一致
+        int consistent = 0;
+        for (int t = 0; t < mesh.getTriangleCount(); t++) {
+            int a = mesh.getIndex(t * 3), b = mesh.getIndex(t * 3 + 1), c = mesh.getIndex(t * 3 + 2);
+            float ny = (mesh.getZ(b) - mesh.getZ(a)) * (mesh.getX(c) - mesh.getX(a))
+                    - (mesh.getX(b) - mesh.getX(a)) * (mesh.getZ(c) - mesh.getZ(a));
+            if (ny > 0) consistent++;
+        }
+        assertTrue(mesh.getTriangleCount() > 3000);
+        assertTrue(consistent > mesh.getTriangleCount() * 0.95);
+    }
+
+    @Test(expected = java.util.concurrent.CancellationException.class)
+    public void cancelledMonitor_stopsRefinement() {
+        PointCloudData cloud = TestShapes.wavyPlaneCloud(5000);
+        new ProgressiveReconstructor(cloud, 5000).refine(new ReconstructionMonitor() {
+            @Override
+            public void onProgress(ReconstructionStage stage, float fraction) {
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return true;
+            }
+        });
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.sl;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class ReconstructionExecutorTest {
+
+    @Test
+    public void completedJob_deliversMeshOnDeliveryExecutor() throws Exception {
+        ReconstructionExecutor executor = new ReconstructionExecutor(1);
+        PointCloudData cloud = TestShapes.sphereCloud(500);
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicReference<MeshData> result = new AtomicReference<>();
+        List<ReconstructionStage> stages = new ArrayList<>();
+        List<String> deliveryThreads = new ArrayList<>();
+
+        executor.submit(monitor -> QuickSurfaceReconstructor.improvedReconstruct(cloud, 500, 6, monitor),
+                r -> {
+                    deliveryThreads.add("delivery");
+                    r.run();
+                },
+                new ReconstructionCallback() {
+                    @Override
+                    public void onProgress(ReconstructionStage stage, float fraction) {
+                        synchronized (stages) {
+                            if (!stages.contains(stage)) stages.add(stage);
+                        }
+                    }
+
+                    @Override
+                    public void onComplete(MeshData meshData) {
+                        result.set(meshData);
+                        latch.countDown();
+                    }
+                });
+
+        assertTrue(latch.await(30, TimeUnit.SECONDS));
+        assertNotNull(result.get());
+        assertEquals(500, result.get().getVertexCount());
+        assertEquals(1, deliveryThreads.size());
+        assertTrue(stages.contains(ReconstructionStage.NORMALS));
+        assertTrue(stages.contains(ReconstructionStage.TRIANGULATE));
+        assertTrue(stages.contains(ReconstructionStage.PACK));
+        executor.shutdown();
+    }
+
+    @Test
+    public void cancel_stopsCpuWorkPromptly() throws Exception {
+        ReconstructionExecutor executor = new ReconstructionExecutor(1);
+        // 暴力最近邻的重建，20000个点需要很长时间才能完成
+        PointCloudData cloud = TestShapes.sphereCloud(20000);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        AtomicInteger progressAfterCancel = new AtomicInteger();
+        AtomicReference<Boolean> cancelRequested = new AtomicReference<>(false);
+        // 回调中的断言异常会被任务吞掉，只记录结果，在测试线程中断言
+        AtomicInteger completions = new AtomicInteger();
+
+        ReconstructionJob job = executor.submit(
+                monitor -> QuickSurfaceReconstructor.quickReconstruct(cloud, cloud.pointCount, monitor),
+                Runnable::run,
+                new ReconstructionCallback() {
+                    @Override
+                    public void onProgress(ReconstructionStage stage, float fraction) {
+                        if (cancelRequested.get()) {
+                            progressAfterCancel.incrementAndGet();
+                        }
+                        if (stage == ReconstructionStage.NORMALS) {
+                            started.countDown();
+                        }
+                    }
+
+                    @Override
+                    public void onComplete(MeshData meshData) {
+                        completions.incrementAndGet();
+                    }
+
+                    @Override
+                    public void onCancelled() {
+                        cancelled.countDown();
+                    }
+                });
+
+        assertTrue(started.await(30, TimeUnit.SECONDS));
+        long cancelTime = System.nanoTime();
+        cancelRequested.set(true);
+        job.cancel();
+
+        assertTrue("cancellation not observed", cancelled.await(2, TimeUnit.SECONDS));
+        long latencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - cancelTime);
+        assertTrue("cancellation took " + latencyMs + " ms", latencyMs < 500);
+        assertTrue(job.isDone());
+        // 取消后最多还有一次正在进行的进度回调
+        assertTrue(progressAfterCancel.get() <= 1);
+        Thread.sleep(100);
+        assertEquals("cancelled job must not complete", 0, completions.get());
+        assertNull(job.getError());
+        executor.shutdown();
+    }
+
+    @Test
+    public void cancelBeforeStart_neverRunsTask() throws Exception {
+        ReconstructionExecutor executor = new ReconstructionExecutor(1);
+        CountDownLatch blocker = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch cancelled = new CountDownLatch(1);
+
+        // 第一个任务占住唯一的工作线程
+        executor.submit(monitor -> {
+            try {
+                blocker.await();
+            } catch (InterruptedException ignored) {
+            }
+            return null;
+        }, Runnable::run, meshData -> {
+        });
+
+        ReconstructionJob job = executor.submit(monitor -> {
+            runs.incrementAndGet();
+            return null;
+        }, Runnable::run, new ReconstructionCallback() {
+            @Override
+            public void onComplete(MeshData meshData) {
+            }
+
+            @Override
+            public void onCancelled() {
+                cancelled.countDown();
+            }
+        });
+
+        job.cancel();
+        assertTrue(cancelled.await(1, TimeUnit.SECONDS));
+        blocker.countDown();
+        Thread.sleep(100);
+        assertEquals(0, runs.get());
+        executor.shutdown();
+    }
+
+    @Test
+    public void rejectedJob_isDoneWithError() throws Exception {
+        ReconstructionExecutor executor = new ReconstructionExecutor(1);
+        CountDownLatch blocker = new CountDownLatch(1);
+        ReconstructionTask blocking = monitor -> {
+            try {
+                blocker.await();
+            } catch (InterruptedException ignored) {
+            }
+            return null;
+        };
+
+        // 一个任务占住工作线程，其余填满队列
+        for (int i = 0; i <= ReconstructionExecutor.QUEUE_CAPACITY; i++) {
+            executor.submit(blocking, Runnable::run, meshData -> {
+            });
+        }
+        AtomicReference<Throwable> delivered = new AtomicReference<>();
+        ReconstructionJob job = executor.submit(blocking, Runnable::run, new ReconstructionCallback() {
+            @Override
+            public void onComplete(MeshData meshData) {
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                delivered.set(error);
+            }
+        });
+
+        assertTrue(job.isDone());
+        assertTrue(job.getError() instanceof RejectedExecutionException);
+        assertSame(job.getError(), delivered.get());
+        // 被拒绝的任务之后也不会再运行或取消回调
+        job.cancel();
+        assertSame(job.getError(), delivered.get());
+        blocker.countDown();
+        executor.shutdown();
+    }
+}
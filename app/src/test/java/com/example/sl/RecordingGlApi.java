@@ -0,0 +1,711 @@
+package com.example.sl;
+
+import android.graphics.Bitmap;
+import android.opengl.GLES30;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 记录GL调用的假实现：分配对象编号、跟踪绑定状态和缓冲区内容，
+ * 并按帧统计绘制调用、状态切换（含冗余切换）、上传字节数和对象创建/删除，不需要GL上下文
+ */
+class RecordingGlApi implements GlApi {
+
+    static class Counts {
+        int calls;
+        int drawCalls;
+        int stateChanges;
+        int redundantStateChanges;   // 设置的值与当前状态相同
+        int uniformUpdates;
+        int uploadCalls;
+        long uploadedBytes;
+        int objectsCreated;
+        int objectsDeleted;
+
+        void reset() {
+            calls = drawCalls = stateChanges = redundantStateChanges = uniformUpdates = 0;
+            uploadCalls = objectsCreated = objectsDeleted = 0;
+            uploadedBytes = 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("calls=%d draws=%d state=%d (redundant %d) uniforms=%d uploads=%d (%d bytes) created=%d deleted=%d",
+                    calls, drawCalls, stateChanges, redundantStateChanges, uniformUpdates,
+                    uploadCalls, uploadedBytes, objectsCreated, objectsDeleted);
+        }
+    }
+
+    final Counts frame = new Counts();
+    final Counts total = new Counts();
+    final List<String> frameCalls = new ArrayList<>();
+    // 每次 glBufferSubData 的 {缓冲区, 偏移, 字节数}
+    final List<int[]> subDataRanges = new ArrayList<>();
+    // 缓冲区内容（只复制 ByteBuffer 数据）
+    final Map<Integer, byte[]> bufferContents = new HashMap<>();
+    final Set<Integer> liveBuffers = new HashSet<>();
+    final Set<Integer> liveVertexArrays = new HashSet<>();
+    final Set<Integer> liveTextures = new HashSet<>();
+    final Set<Integer> livePrograms = new HashSet<>();
+    final Set<Integer> liveQueries = new HashSet<>();
+    final Set<Integer> liveFramebuffers = new HashSet<>();
+    int lastDrawCount;
+    // 最近一次 glUniformMatrix4fv 上传的矩阵（预先分配，记录时不分配内存）
+    final float[] lastMatrix = new float[16];
+    // 模拟上下文丢失后仍被使用（绑定或删除）的旧上下文对象
+    final List<String> staleUses = new ArrayList<>();
+    private final Set<Integer> deadNames = new HashSet<>();
+
+    // 扩展字符串和计时查询的模拟结果
+    String extensions = "";
+    boolean queryResultAvailable = true;
+    int queryResult;
+    boolean gpuDisjoint;
+    int activeQuery;
+    // 帧缓冲完整性检查的模拟结果
+    int framebufferStatus = GLES30.GL_FRAMEBUFFER_COMPLETE;
+
+    // 着色器编译和程序二进制的模拟：二进制内容为 "BIN:" 加上链接时的着色器源码
+    static final int BINARY_FORMAT = 0x1234;
+    String renderer = "FakeRenderer";
+    boolean acceptProgramBinaries = true;
+    int shaderCompiles;
+    int programBinaryLoads;
+    private final Map<Integer, String> shaderSources = new HashMap<>();
+    private final Map<Integer, StringBuilder> attachedSources = new HashMap<>();
+    private final Map<Integer, byte[]> programBinaries = new HashMap<>();
+    private final Set<Integer> linkedPrograms = new HashSet<>();
+
+    private int nextName = 1;
+    private final Map<String, Integer> locations = new HashMap<>();
+    private int program;
+    private int vertexArray;
+    private int activeTexture = GLES30.GL_TEXTURE0;
+    private final Map<Integer, Integer> boundBuffers = new HashMap<>();
+    private final Map<Long, Integer> boundTextures = new HashMap<>();
+    private final Map<Integer, Integer> boundFramebuffers = new HashMap<>();
+    private final Set<Integer> enabled = new HashSet<>();
+    private final int[] blendFunc = {-1, -1};
+    private int depthFunc = -1;
+    private int cullFace = -1;
+    private boolean depthMask = true;
+    private final boolean[] colorMask = {true, true, true, true};
+    private final int[] viewport = {-1, -1, -1, -1};
+    private final float[] clearColor = {Float.NaN, Float.NaN, Float.NaN, Float.NaN};
+
+    /**
+     * 开始新的一帧，清零本帧统计
+     */
+    void beginFrame() {
+        frame.reset();
+        frameCalls.clear();
+    }
+
+    /**
+     * 模拟 EGL 上下文丢失并创建新上下文（例如未保留上下文时暂停后恢复）：所有对象和绑定状态失效，
+     * 之后对旧对象的绑定或删除记录在 staleUses 中；新对象的编号继续递增，不与旧对象重复
+     */
+    void loseContext() {
+        for (Set<Integer> live : Arrays.asList(liveBuffers, liveVertexArrays, liveTextures, livePrograms,
+                liveQueries, liveFramebuffers)) {
+            deadNames.addAll(live);
+            live.clear();
+        }
+        bufferContents.clear();
+        linkedPrograms.clear();
+        program = 0;
+        vertexArray = 0;
+        activeTexture = GLES30.GL_TEXTURE0;
+        activeQuery = 0;
+        boundBuffers.clear();
+        boundTextures.clear();
+        boundFramebuffers.clear();
+        enabled.clear();
+        Arrays.fill(blendFunc, -1);
+        depthFunc = -1;
+        cullFace = -1;
+        depthMask = true;
+        Arrays.fill(colorMask, true);
+        Arrays.fill(viewport, -1);
+        Arrays.fill(clearColor, Float.NaN);
+    }
+
+    private void checkLive(String name, int object) {
+        // 先判断是否为空，正常情况下不装箱
+        if (!deadNames.isEmpty() && object != 0 && deadNames.contains(object)) {
+            staleUses.add(name + " " + object);
+        }
+    }
+
+    int getBoundBuffer(int target) {
+        return boundBuffers.getOrDefault(target, 0);
+    }
+
+    int getBoundTexture(int unit) {
+        return boundTextures.getOrDefault(((long) unit << 32) | GLES30.GL_TEXTURE_2D, 0);
+    }
+
+    int getProgram() {
+        return program;
+    }
+
+    int getVertexArray() {
+        return vertexArray;
+    }
+
+    // ---- 统计 ----
+
+    private void call(String name) {
+        frameCalls.add(name);
+        frame.calls++;
+        total.calls++;
+    }
+
+    private void state(String name, boolean changed) {
+        call(name);
+        frame.stateChanges++;
+        total.stateChanges++;
+        if (!changed) {
+            frame.redundantStateChanges++;
+            total.redundantStateChanges++;
+        }
+    }
+
+    private void draw(String name, int count) {
+        call(name);
+        frame.drawCalls++;
+        total.drawCalls++;
+        lastDrawCount = count;
+    }
+
+    private void uniform(String name) {
+        call(name);
+        frame.uniformUpdates++;
+        total.uniformUpdates++;
+    }
+
+    private void upload(String name, long bytes) {
+        call(name);
+        frame.uploadCalls++;
+        total.uploadCalls++;
+        frame.uploadedBytes += bytes;
+        total.uploadedBytes += bytes;
+    }
+
+    private void create(String name, int[] names, int offset, int n, Set<Integer> live) {
+        call(name);
+        for (int i = 0; i < n; i++) {
+            names[offset + i] = nextName;
+            live.add(nextName++);
+        }
+        frame.objectsCreated += n;
+        total.objectsCreated += n;
+    }
+
+    private void delete(String name, int[] names, int offset, int n, Set<Integer> live) {
+        call(name);
+        for (int i = 0; i < n; i++) {
+            checkLive(name, names[offset + i]);
+            if (live.remove(names[offset + i])) {
+                frame.objectsDeleted++;
+                total.objectsDeleted++;
+            }
+        }
+    }
+
+    // ---- 状态 ----
+
+    @Override
+    public void glEnable(int cap) {
+        state("glEnable", enabled.add(cap));
+    }
+
+    @Override
+    public void glDisable(int cap) {
+        state("glDisable", enabled.remove(cap));
+    }
+
+    @Override
+    public void glBlendFunc(int sfactor, int dfactor) {
+        boolean changed = blendFunc[0] != sfactor || blendFunc[1] != dfactor;
+        blendFunc[0] = sfactor;
+        blendFunc[1] = dfactor;
+        state("glBlendFunc", changed);
+    }
+
+    @Override
+    public void glDepthFunc(int func) {
+        boolean changed = depthFunc != func;
+        depthFunc = func;
+        state("glDepthFunc", changed);
+    }
+
+    @Override
+    public void glDepthMask(boolean flag) {
+        boolean changed = depthMask != flag;
+        depthMask = flag;
+        state("glDepthMask", changed);
+    }
+
+    @Override
+    public void glColorMask(boolean red, boolean green, boolean blue, boolean alpha) {
+        boolean[] value = {red, green, blue, alpha};
+        boolean changed = !Arrays.equals(colorMask, value);
+        System.arraycopy(value, 0, colorMask, 0, 4);
+        state("glColorMask", changed);
+    }
+
+    @Override
+    public void glCullFace(int mode) {
+        boolean changed = cullFace != mode;
+        cullFace = mode;
+        state("glCullFace", changed);
+    }
+
+    @Override
+    public void glViewport(int x, int y, int width, int height) {
+        int[] value = {x, y, width, height};
+        boolean changed = !Arrays.equals(viewport, value);
+        System.arraycopy(value, 0, viewport, 0, 4);
+        state("glViewport", changed);
+    }
+
+    @Override
+    public void glClearColor(float red, float green, float blue, float alpha) {
+        float[] value = {red, green, blue, alpha};
+        boolean changed = !Arrays.equals(clearColor, value);
+        System.arraycopy(value, 0, clearColor, 0, 4);
+        state("glClearColor", changed);
+    }
+
+    @Override
+    public void glClear(int mask) {
+        call("glClear");
+    }
+
+    @Override
+    public int glGetError() {
+        call("glGetError");
+        return GLES30.GL_NO_ERROR;
+    }
+
+    @Override
+    public String glGetString(int name) {
+        call("glGetString");
+        switch (name) {
+            case GLES30.GL_EXTENSIONS:
+                return extensions;
+            case GLES30.GL_RENDERER:
+                return renderer;
+            case GLES30.GL_VERSION:
+                return "OpenGL ES 3.0 Fake";
+            default:
+                return "";
+        }
+    }
+
+    @Override
+    public void glGetIntegerv(int pname, int[] params, int offset) {
+        call("glGetIntegerv");
+        if (pname == GpuTimer.GL_GPU_DISJOINT_EXT) {
+            // 读取后清除
+            params[offset] = gpuDisjoint ? 1 : 0;
+            gpuDisjoint = false;
+        } else if (pname == GLES30.GL_NUM_PROGRAM_BINARY_FORMATS) {
+            params[offset] = 1;
+        } else {
+            params[offset] = 0;
+        }
+    }
+
+    // ---- 着色器和程序 ----
+
+    @Override
+    public int glCreateShader(int type) {
+        call("glCreateShader");
+        return nextName++;
+    }
+
+    @Override
+    public void glShaderSource(int shader, String source) {
+        call("glShaderSource");
+        shaderSources.put(shader, source);
+    }
+
+    @Override
+    public void glCompileShader(int shader) {
+        call("glCompileShader");
+        shaderCompiles++;
+    }
+
+    @Override
+    public void glGetShaderiv(int shader, int pname, int[] params, int offset) {
+        call("glGetShaderiv");
+        params[offset] = 1;
+    }
+
+    @Override
+    public String glGetShaderInfoLog(int shader) {
+        call("glGetShaderInfoLog");
+        return "";
+    }
+
+    @Override
+    public void glDeleteShader(int shader) {
+        call("glDeleteShader");
+    }
+
+    @Override
+    public int glCreateProgram() {
+        call("glCreateProgram");
+        int name = nextName++;
+        livePrograms.add(name);
+        frame.objectsCreated++;
+        total.objectsCreated++;
+        return name;
+    }
+
+    @Override
+    public void glAttachShader(int program, int shader) {
+        call("glAttachShader");
+        attachedSources.computeIfAbsent(program, p -> new StringBuilder()).append(shaderSources.get(shader)).append('|');
+    }
+
+    @Override
+    public void glLinkProgram(int program) {
+        call("glLinkProgram");
+        linkedPrograms.add(program);
+        StringBuilder sources = attachedSources.get(program);
+        programBinaries.put(program, ("BIN:" + sources).getBytes());
+    }
+
+    @Override
+    public void glGetProgramiv(int program, int pname, int[] params, int offset) {
+        call("glGetProgramiv");
+        if (pname == GLES30.GL_LINK_STATUS) {
+            params[offset] = linkedPrograms.contains(program) ? 1 : 0;
+        } else if (pname == GLES30.GL_PROGRAM_BINARY_LENGTH) {
+            byte[] binary = programBinaries.get(program);
+            params[offset] = binary == null ? 0 : binary.length;
+        } else {
+            params[offset] = 1;
+        }
+    }
+
+    @Override
+    public String glGetProgramInfoLog(int program) {
+        call("glGetProgramInfoLog");
+        return "";
+    }
+
+    @Override
+    public void glDeleteProgram(int program) {
+        delete("glDeleteProgram", new int[]{program}, 0, 1, livePrograms);
+    }
+
+    @Override
+    public void glUseProgram(int program) {
+        checkLive("glUseProgram", program);
+        boolean changed = this.program != program;
+        this.program = program;
+        state("glUseProgram", changed);
+    }
+
+    @Override
+    public void glProgramParameteri(int program, int pname, int value) {
+        call("glProgramParameteri");
+    }
+
+    @Override
+    public void glGetProgramBinary(int program, int bufSize, int[] length, int lengthOffset,
+                                   int[] binaryFormat, int binaryFormatOffset, Buffer binary) {
+        call("glGetProgramBinary");
+        byte[] bytes = programBinaries.get(program);
+        if (bytes == null || bytes.length > bufSize) throw new IllegalStateException("no program binary");
+        ((ByteBuffer) binary).duplicate().put(bytes);
+        length[lengthOffset] = bytes.length;
+        binaryFormat[binaryFormatOffset] = BINARY_FORMAT;
+    }
+
+    @Override
+    public void glProgramBinary(int program, int binaryFormat, Buffer binary, int length) {
+        call("glProgramBinary");
+        programBinaryLoads++;
+        byte[] bytes = new byte[length];
+        ((ByteBuffer) binary).duplicate().get(bytes);
+        boolean valid = acceptProgramBinaries && binaryFormat == BINARY_FORMAT && new String(bytes).startsWith("BIN:");
+        if (valid) {
+            linkedPrograms.add(program);
+            programBinaries.put(program, bytes);
+        } else {
+            linkedPrograms.remove(program);
+        }
+    }
+
+    @Override
+    public int glGetAttribLocation(int program, String name) {
+        call("glGetAttribLocation");
+        return location(program, name);
+    }
+
+    @Override
+    public int glGetUniformLocation(int program, String name) {
+        call("glGetUniformLocation");
+        return location(program, name);
+    }
+
+    private int location(int program, String name) {
+        String key = program + "/" + name;
+        Integer location = locations.get(key);
+        if (location == null) {
+            location = locations.size();
+            locations.put(key, location);
+        }
+        return location;
+    }
+
+    // ---- uniform ----
+
+    @Override
+    public void glUniform1i(int location, int x) {
+        uniform("glUniform1i");
+    }
+
+    @Override
+    public void glUniform1f(int location, float x) {
+        uniform("glUniform1f");
+    }
+
+    @Override
+    public void glUniform2f(int location, float x, float y) {
+        uniform("glUniform2f");
+    }
+
+    @Override
+    public void glUniform3f(int location, float x, float y, float z) {
+        uniform("glUniform3f");
+    }
+
+    @Override
+    public void glUniform3fv(int location, int count, float[] v, int offset) {
+        uniform("glUniform3fv");
+    }
+
+    @Override
+    public void glUniformMatrix4fv(int location, int count, boolean transpose, float[] value, int offset) {
+        uniform("glUniformMatrix4fv");
+        System.arraycopy(value, offset, lastMatrix, 0, 16);
+    }
+
+    // ---- 缓冲区和顶点数组 ----
+
+    @Override
+    public void glGenBuffers(int n, int[] buffers, int offset) {
+        create("glGenBuffers", buffers, offset, n, liveBuffers);
+    }
+
+    @Override
+    public void glDeleteBuffers(int n, int[] buffers, int offset) {
+        for (int i = 0; i < n; i++) {
+            bufferContents.remove(buffers[offset + i]);
+            boundBuffers.values().remove(buffers[offset + i]);
+        }
+        delete("glDeleteBuffers", buffers, offset, n, liveBuffers);
+    }
+
+    @Override
+    public void glBindBuffer(int target, int buffer) {
+        checkLive("glBindBuffer", buffer);
+        Integer previous = boundBuffers.put(target, buffer);
+        state("glBindBuffer", previous == null ? buffer != 0 : previous != buffer);
+    }
+
+    @Override
+    public void glBufferData(int target, int size, Buffer data, int usage) {
+        int buffer = getBoundBuffer(target);
+        if (buffer == 0) throw new IllegalStateException("glBufferData with no buffer bound");
+        byte[] contents = new byte[size];
+        if (data instanceof ByteBuffer) {
+            ((ByteBuffer) data).duplicate().get(contents, 0, size);
+        }
+        bufferContents.put(buffer, contents);
+        if (data != null) {
+            upload("glBufferData", size);
+        } else {
+            call("glBufferData");
+        }
+    }
+
+    @Override
+    public void glBufferSubData(int target, int offset, int size, Buffer data) {
+        int buffer = getBoundBuffer(target);
+        byte[] contents = bufferContents.get(buffer);
+        if (contents == null || offset + size > contents.length) {
+            throw new IllegalStateException("glBufferSubData outside buffer storage");
+        }
+        if (data instanceof ByteBuffer) {
+            ((ByteBuffer) data).duplicate().get(contents, offset, size);
+        }
+        subDataRanges.add(new int[]{buffer, offset, size});
+        upload("glBufferSubData", size);
+    }
+
+    @Override
+    public void glGenVertexArrays(int n, int[] arrays, int offset) {
+        create("glGenVertexArrays", arrays, offset, n, liveVertexArrays);
+    }
+
+    @Override
+    public void glDeleteVertexArrays(int n, int[] arrays, int offset) {
+        delete("glDeleteVertexArrays", arrays, offset, n, liveVertexArrays);
+    }
+
+    @Override
+    public void glBindVertexArray(int array) {
+        checkLive("glBindVertexArray", array);
+        boolean changed = vertexArray != array;
+        vertexArray = array;
+        state("glBindVertexArray", changed);
+    }
+
+    @Override
+    public void glEnableVertexAttribArray(int index) {
+        call("glEnableVertexAttribArray");
+    }
+
+    @Override
+    public void glVertexAttribPointer(int index, int size, int type, boolean normalized, int stride, int offset) {
+        call("glVertexAttribPointer");
+    }
+
+    // ---- 纹理 ----
+
+    @Override
+    public void glGenTextures(int n, int[] textures, int offset) {
+        create("glGenTextures", textures, offset, n, liveTextures);
+    }
+
+    @Override
+    public void glDeleteTextures(int n, int[] textures, int offset) {
+        delete("glDeleteTextures", textures, offset, n, liveTextures);
+    }
+
+    @Override
+    public void glActiveTexture(int texture) {
+        boolean changed = activeTexture != texture;
+        activeTexture = texture;
+        state("glActiveTexture", changed);
+    }
+
+    @Override
+    public void glBindTexture(int target, int texture) {
+        checkLive("glBindTexture", texture);
+        Integer previous = boundTextures.put(((long) activeTexture << 32) | target, texture);
+        state("glBindTexture", previous == null ? texture != 0 : previous != texture);
+    }
+
+    @Override
+    public void glTexParameteri(int target, int pname, int param) {
+        call("glTexParameteri");
+    }
+
+    @Override
+    public void glTexImage2D(int target, int level, int internalformat, int width, int height, int border,
+                             int format, int type, Buffer pixels) {
+        upload("glTexImage2D", pixels == null ? 0 : (long) width * height * 4);
+    }
+
+    @Override
+    public void glGenerateMipmap(int target) {
+        call("glGenerateMipmap");
+    }
+
+    @Override
+    public void texImage2D(int target, int level, Bitmap bitmap, int border) {
+        upload("texImage2D", 0);
+    }
+
+    // ---- 帧缓冲 ----
+
+    @Override
+    public void glGenFramebuffers(int n, int[] framebuffers, int offset) {
+        create("glGenFramebuffers", framebuffers, offset, n, liveFramebuffers);
+    }
+
+    @Override
+    public void glDeleteFramebuffers(int n, int[] framebuffers, int offset) {
+        delete("glDeleteFramebuffers", framebuffers, offset, n, liveFramebuffers);
+    }
+
+    @Override
+    public void glBindFramebuffer(int target, int framebuffer) {
+        checkLive("glBindFramebuffer", framebuffer);
+        Integer previous = boundFramebuffers.put(target, framebuffer);
+        state("glBindFramebuffer", previous == null ? framebuffer != 0 : previous != framebuffer);
+    }
+
+    @Override
+    public void glFramebufferTexture2D(int target, int attachment, int textarget, int texture, int level) {
+        checkLive("glFramebufferTexture2D", texture);
+        call("glFramebufferTexture2D");
+    }
+
+    @Override
+    public int glCheckFramebufferStatus(int target) {
+        call("glCheckFramebufferStatus");
+        return framebufferStatus;
+    }
+
+    // ---- 查询 ----
+
+    @Override
+    public void glGenQueries(int n, int[] ids, int offset) {
+        create("glGenQueries", ids, offset, n, liveQueries);
+    }
+
+    @Override
+    public void glDeleteQueries(int n, int[] ids, int offset) {
+        delete("glDeleteQueries", ids, offset, n, liveQueries);
+    }
+
+    @Override
+    public void glBeginQuery(int target, int id) {
+        checkLive("glBeginQuery", id);
+        call("glBeginQuery");
+        if (activeQuery != 0) throw new IllegalStateException("query already active");
+        activeQuery = id;
+    }
+
+    @Override
+    public void glEndQuery(int target) {
+        call("glEndQuery");
+        if (activeQuery == 0) throw new IllegalStateException("no active query");
+        activeQuery = 0;
+    }
+
+    @Override
+    public void glGetQueryObjectuiv(int id, int pname, int[] params, int offset) {
+        call("glGetQueryObjectuiv");
+        params[offset] = pname == GLES30.GL_QUERY_RESULT_AVAILABLE ? (queryResultAvailable ? 1 : 0) : queryResult;
+    }
+
+    // ---- 绘制 ----
+
+    @Override
+    public void glDrawArrays(int mode, int first, int count) {
+        draw("glDrawArrays", count);
+    }
+
+    @Override
+    public void glDrawElements(int mode, int count, int type, int offset) {
+        draw("glDrawElements", count);
+    }
+}
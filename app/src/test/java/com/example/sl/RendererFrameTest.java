@@ -0,0 +1,517 @@
+package com.example.sl;
+
+import android.opengl.GLES30;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * 用记录GL调用的假实现逐帧驱动渲染器，检查稳定状态下没有重复上传、对象创建和冗余状态切换
+ */
+public class RendererFrameTest {
+
+    /**
+     * 着色器返回占位源码，其它资源（纹理）不存在
+     */
+    private static final AssetSource ASSETS = filename -> {
+        if (!filename.endsWith(".glsl")) throw new FileNotFoundException(filename);
+        return new ByteArrayInputStream("void main() {}".getBytes());
+    };
+
+    private static GpuUploadManager manager(RecordingGlApi gl) {
+        // 工作在调用线程中完成，每帧上传 4 个 16 KB 的块（时钟按上传次数前进）
+        return new GpuUploadManager(gl, Runnable::run, 16 * 1024, 3_500_000L,
+                () -> gl.subDataRanges.size() * 1_000_000L);
+    }
+
+    private static PointCloudData points(int count) {
+        PointCloudData data = new PointCloudData();
+        for (int i = 0; i < count; i++) {
+            data.addPoint(i % 97, i % 89, i % 83, 1, 0.5f, 0);
+        }
+        return data;
+    }
+
+    /**
+     * 绘制直到上传队列清空，返回用掉的帧数
+     */
+    private static int drawUntilUploaded(RecordingGlApi gl, GpuUploadManager manager, Runnable drawFrame) {
+        int frames = 0;
+        do {
+            gl.beginFrame();
+            drawFrame.run();
+            frames++;
+            assertTrue("upload did not finish", frames < 1000);
+        } while (manager.hasPendingWork());
+        return frames;
+    }
+
+    private static void assertSteadyFrame(RecordingGlApi gl) {
+        assertEquals(gl.frame.toString(), 0, gl.frame.uploadedBytes);
+        assertEquals(gl.frame.toString(), 0, gl.frame.uploadCalls);
+        assertEquals(gl.frame.toString(), 0, gl.frame.objectsCreated);
+        assertEquals(gl.frame.toString(), 0, gl.frame.objectsDeleted);
+        assertEquals(gl.frame.toString() + " " + gl.frameCalls, 0, gl.frame.redundantStateChanges);
+    }
+
+    /**
+     * 上传的 MVP 不是全零矩阵（矩阵运算未被空实现替代），并把模型中心投影到裁剪空间内
+     */
+    private static void assertProjectsInside(float[] mvp, float x, float y, float z) {
+        float[] clip = new float[4];
+        for (int row = 0; row < 4; row++) {
+            clip[row] = mvp[row] * x + mvp[4 + row] * y + mvp[8 + row] * z + mvp[12 + row];
+        }
+        assertFalse("MVP is all zero", Arrays.equals(mvp, new float[16]));
+        assertTrue("w = " + clip[3], clip[3] > 0);
+        for (int axis = 0; axis < 3; axis++) {
+            assertTrue(Arrays.toString(clip), Math.abs(clip[axis]) < clip[3]);
+        }
+    }
+
+    @Test
+    public void meshSteadyStateFramesDoNoUploadsOrRedundantState() {
+        RecordingGlApi gl = new RecordingGlApi();
+        GpuUploadManager manager = manager(gl);
+        MeshRenderer renderer = new MeshRenderer(ASSETS, MeshLodGenerator.generate(TestShapes.sphereMesh(80, 80)), gl, manager);
+        renderer.onSurfaceCreated(null, null);
+        renderer.onSurfaceChanged(null, 1080, 1920);
+
+        int frames = drawUntilUploaded(gl, manager, () -> renderer.onDrawFrame(null));
+        assertTrue("mesh should stream over several frames", frames > 2);
+
+        for (int i = 0; i < 3; i++) {
+            gl.beginFrame();
+            renderer.onDrawFrame(null);
+            assertSteadyFrame(gl);
+            assertTrue(gl.frame.drawCalls >= 1);
+            // 每帧只更新 MVP
+            assertEquals(1, gl.frame.uniformUpdates);
+            assertProjectsInside(gl.lastMatrix, 0, 0, 0);
+        }
+    }
+
+    @Test
+    public void meshSteadyStateFramesDoNotAllocate() {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) threadBean;
+        long threadId = Thread.currentThread().getId();
+
+        RecordingGlApi gl = new RecordingGlApi();
+        GpuUploadManager manager = manager(gl);
+        MeshRenderer renderer = new MeshRenderer(ASSETS, MeshLodGenerator.generate(TestShapes.sphereMesh(80, 80)), gl, manager);
+        renderer.onSurfaceCreated(null, null);
+        renderer.onSurfaceChanged(null, 1080, 1920);
+        drawUntilUploaded(gl, manager, () -> renderer.onDrawFrame(null));
+
+        // 预热，排除首次调用和 JIT 的影响
+        for (int i = 0; i < 2000; i++) {
+            gl.beginFrame();
+            renderer.onDrawFrame(null);
+        }
+        long before = bean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 1000; i++) {
+            gl.beginFrame();
+            renderer.onDrawFrame(null);
+        }
+        long allocated = bean.getThreadAllocatedBytes(threadId) - before;
+        // 整个绘制路径（LOD选择、剔除、绘制调用）不分配，允许测量本身的少量开销
+        assertTrue("allocated " + allocated + " bytes in 1000 frames", allocated < 1024);
+    }
+
+    @Test
+    public void recreatedContextReuploadsMeshWithoutTouchingOldObjects() {
+        RecordingGlApi gl = new RecordingGlApi();
+        GpuUploadManager manager = manager(gl);
+        MeshRenderer renderer = new MeshRenderer(ASSETS, TestShapes.sphereMesh(40, 40), gl, manager);
+        renderer.onSurfaceCreated(null, null);
+        renderer.onSurfaceChanged(null, 1080, 1920);
+        drawUntilUploaded(gl, manager, () -> renderer.onDrawFrame(null));
+
+        // 暂停后恢复：旧上下文销毁，渲染器在新上下文中重新创建
+        gl.loseContext();
+        renderer.onSurfaceCreated(null, null);
+        renderer.onSurfaceChanged(null, 1080, 1920);
+        drawUntilUploaded(gl, manager, () -> renderer.onDrawFrame(null));
+
+        gl.beginFrame();
+        renderer.onDrawFrame(null);
+        assertEquals(1, gl.frame.drawCalls);
+        assertSteadyFrame(gl);
+        // 旧上下文的对象既没有被删除也没有被绑定
+        assertEquals(gl.staleUses.toString(), 0, gl.staleUses.size());
+        // 新上下文中只有一份网格缓冲区
+        assertEquals(2, gl.liveBuffers.size());
+        assertEquals(1, gl.liveVertexArrays.size());
+    }
+
+    @Test
+    public void replacingMeshKeepsDrawingAndReleasesOldBuffersOnce() {
+        RecordingGlApi gl = new RecordingGlApi();
+        GpuUploadManager manager = manager(gl);
+        MeshRenderer renderer = new MeshRenderer(ASSETS, TestShapes.sphereMesh(40, 40), gl, manager);
+        renderer.onSurfaceCreated(null, null);
+        renderer.onSurfaceChanged(null, 1080, 1920);
+        drawUntilUploaded(gl, manager, () -> renderer.onDrawFrame(null));
+
+        renderer.setMeshData(TestShapes.sphereMesh(90, 90));
+        long deletedBefore = gl.total.objectsDeleted;
+        int frames = 0;
+        do {
+            gl.beginFrame();
+            renderer.onDrawFrame(null);
+            frames++;
+            // 新网格上传期间旧网格照常绘制
+            assertTrue(gl.frame.drawCalls >= 1);
+        } while (manager.hasPendingWork());
+        assertTrue(frames > 1);
+
+        // 旧网格的 VAO 和两个缓冲区各删除一次，不泄漏
+        assertEquals(3, gl.total.objectsDeleted - deletedBefore);
+        assertEquals(2, gl.liveBuffers.size());
+        assertEquals(1, gl.liveVertexArrays.size());
+
+        gl.beginFrame();
+        renderer.onDrawFrame(null);
+        assertSteadyFrame(gl);
+    }
+
+    @Test
+    public void pointCloudDrawsUploadedPrefixThenSettles() {
+        RecordingGlApi gl = new RecordingGlApi();
+        GpuUploadManager manager = manager(gl);
+        PointCloudRenderer renderer = new PointCloudRenderer(ASSETS, points(20000), "fast", gl, manager);
+        renderer.onSurfaceCreated(null, null);
+        renderer.onSurfaceChanged(null, 1080, 1920);
+
+        int lastCount = 0;
+        do {
+            gl.beginFrame();
+            renderer.onDrawFrame(null);
+            if (gl.frame.drawCalls > 0) {
+                // 已到达的点数单调增加
+                assertTrue(gl.lastDrawCount >= lastCount);
+                lastCount = gl.lastDrawCount;
+            }
+        } while (manager.hasPendingWork());
+        assertEquals(20000, lastCount);
+
+        gl.beginFrame();
+        renderer.onDrawFrame(null);
+        assertSteadyFrame(gl);
+        assertEquals(1, gl.frame.drawCalls);
+        assertEquals(20000, gl.lastDrawCount);
+        PointCloudData data = points(20000);
+        assertProjectsInside(gl.lastMatrix, data.getCenterX(), data.getCenterY(), data.getCenterZ());
+    }
+
+    @Test
+    public void blendedPointsAreDrawnDepthSortedAndResortedOnlyAfterCameraMoves() {
+        RecordingGlApi gl = new RecordingGlApi();
+        GpuUploadManager manager = manager(gl);
+        PointCloudRenderer renderer = new PointCloudRenderer(ASSETS, points(20000), "smooth", gl, manager);
+        renderer.onSurfaceCreated(null, null);
+        renderer.onSurfaceChanged(null, 1080, 1920);
+        drawUntilUploaded(gl, manager, () -> renderer.onDrawFrame(null));
+
+        // 点全部到达后排序最终一次，之后用索引绘制
+        gl.beginFrame();
+        renderer.onDrawFrame(null);
+        assertSteadyFrame(gl);
+        assertEquals(1, gl.frame.drawCalls);
+        assertTrue(gl.frameCalls.contains("glDrawElements"));
+        assertEquals(20000, gl.lastDrawCount);
+
+        // 小于阈值的旋转不重新排序
+        renderer.rotate(0.5f, 0);
+        gl.beginFrame();
+        renderer.onDrawFrame(null);
+        assertFalse(manager.hasPendingWork());
+
+        // 旋转超过阈值后重新排序并上传索引，期间继续绘制旧的顺序
+        renderer.rotate(20, 0);
+        gl.beginFrame();
+        renderer.onDrawFrame(null);
+        assertTrue(manager.hasPendingWork());
+        assertEquals(20000, gl.lastDrawCount);
+        drawUntilUploaded(gl, manager, () -> renderer.onDrawFrame(null));
+        gl.beginFrame();
+        renderer.onDrawFrame(null);
+        assertSteadyFrame(gl);
+        assertEquals(20000, gl.lastDrawCount);
+    }
+
+    @Test
+    public void edlModeDrawsIntoFramebufferThenComposites() {
+        RecordingGlApi gl = new RecordingGlApi();
+        GpuUploadManager manager = manager(gl);
+        PointCloudRenderer renderer = new PointCloudRenderer(ASSETS, points(20000), "edl", gl, manager);
+        renderer.onSurfaceCreated(null, null);
+        renderer.onSurfaceChanged(null, 1080, 1920);
+        assertEquals(1, gl.liveFramebuffers.size());
+        assertEquals(2, gl.liveTextures.size());
+        drawUntilUploaded(gl, manager, () -> renderer.onDrawFrame(null));
+
+        // 点绘制一次、合成一次，稳定后没有上传和冗余状态
+        gl.beginFrame();
+        renderer.onDrawFrame(null);
+        assertSteadyFrame(gl);
+        assertEquals(2, gl.frame.drawCalls);
+        assertEquals(3, gl.lastDrawCount);
+        assertEquals(Arrays.asList(0, 0), Arrays.asList(gl.getBoundTexture(GLES30.GL_TEXTURE0), gl.getBoundTexture(GLES30.GL_TEXTURE1)));
+
+        // 尺寸不变时不重新创建
+        renderer.onSurfaceChanged(null, 1080, 1920);
+        assertEquals(1, gl.liveFramebuffers.size());
+        assertEquals(2, gl.liveTextures.size());
+
+        renderer.cleanup();
+        assertTrue(gl.liveFramebuffers.isEmpty());
+        assertTrue(gl.liveTextures.isEmpty());
+        assertTrue(gl.liveVertexArrays.isEmpty());
+    }
+
+    @Test
+    public void recreatedContextKeepsPostProcessObjectsAndReuploadsPoints() {
+        // edl 和 splat 的全屏VAO，smooth 的深度排序索引缓冲区
+        for (String mode : new String[]{"edl", "splat", "smooth"}) {
+            RecordingGlApi gl = new RecordingGlApi();
+            GpuUploadManager manager = manager(gl);
+            PointCloudRenderer renderer = new PointCloudRenderer(ASSETS, points(20000), mode, gl, manager);
+            renderer.onSurfaceCreated(null, null);
+            renderer.onSurfaceChanged(null, 1080, 1920);
+            drawUntilUploaded(gl, manager, () -> renderer.onDrawFrame(null));
+            gl.beginFrame();
+            renderer.onDrawFrame(null);
+            int drawCalls = gl.frame.drawCalls;
+            int lastDrawCount = gl.lastDrawCount;
+
+            // 暂停后恢复：旧上下文销毁，渲染器在新上下文中重新创建
+            gl.loseContext();
+            renderer.onSurfaceCreated(null, null);
+            renderer.onSurfaceChanged(null, 1080, 1920);
+            drawUntilUploaded(gl, manager, () -> renderer.onDrawFrame(null));
+            for (int i = 0; i < 3; i++) {
+                gl.beginFrame();
+                renderer.onDrawFrame(null);
+            }
+
+            assertEquals(mode + " " + gl.staleUses, 0, gl.staleUses.size());
+            assertEquals(mode, drawCalls, gl.frame.drawCalls);
+            assertEquals(mode, lastDrawCount, gl.lastDrawCount);
+            // 新上下文中创建的对象都还在，全部由 cleanup 释放
+            assertFalse(mode, gl.liveVertexArrays.isEmpty());
+            renderer.cleanup();
+            assertTrue(mode, gl.liveFramebuffers.isEmpty());
+            assertTrue(mode, gl.liveTextures.isEmpty());
+            assertTrue(mode, gl.liveVertexArrays.isEmpty());
+            assertTrue(mode, gl.liveBuffers.isEmpty());
+            assertEquals(mode + " " + gl.staleUses, 0, gl.staleUses.size());
+        }
+    }
+
+    @Test
+    public void edlFallsBackToDirectDrawingWhenFramebufferIsIncomplete() {
+        RecordingGlApi gl = new RecordingGlApi();
+        gl.framebufferStatus = 0;
+        GpuUploadManager manager = manager(gl);
+        PointCloudRenderer renderer = new PointCloudRenderer(ASSETS, points(2000), "edl", gl, manager);
+        renderer.onSurfaceCreated(null, null);
+        renderer.onSurfaceChanged(null, 1080, 1920);
+        assertTrue(gl.liveFramebuffers.isEmpty());
+        assertTrue(gl.liveTextures.isEmpty());
+        drawUntilUploaded(gl, manager, () -> renderer.onDrawFrame(null));
+
+        gl.beginFrame();
+        renderer.onDrawFrame(null);
+        assertEquals(1, gl.frame.drawCalls);
+        assertEquals(2000, gl.lastDrawCount);
+    }
+
+    @Test
+    public void splatModeDrawsVisibilityAndAccumulationPassesThenResolves() {
+        RecordingGlApi gl = new RecordingGlApi();
+        GpuUploadManager manager = manager(gl);
+        PointCloudRenderer renderer = new PointCloudRenderer(ASSETS, points(20000), "splat", gl, manager);
+        renderer.onSurfaceCreated(null, null);
+        renderer.onSurfaceChanged(null, 1080, 1920);
+        assertEquals(1, gl.liveFramebuffers.size());
+        assertEquals(2, gl.liveTextures.size());
+        // 位置、颜色和面元属性三个缓冲区
+        assertEquals(3, gl.liveBuffers.size());
+        drawUntilUploaded(gl, manager, () -> renderer.onDrawFrame(null));
+
+        // 每个绘制范围两遍（可见性、累加），再加一次全屏归一化；稳定后没有上传和冗余状态
+        gl.beginFrame();
+        renderer.onDrawFrame(null);
+        assertSteadyFrame(gl);
+        assertEquals(3, gl.frame.drawCalls);
+        assertEquals(3, gl.lastDrawCount);
+        assertEquals(0, gl.getBoundTexture(GLES30.GL_TEXTURE0));
+        assertTrue(renderer.getRenderInfo().contains("2-pass"));
+
+        renderer.cleanup();
+        assertTrue(gl.liveFramebuffers.isEmpty());
+        assertTrue(gl.liveTextures.isEmpty());
+        assertTrue(gl.liveVertexArrays.isEmpty());
+        assertTrue(gl.liveBuffers.isEmpty());
+    }
+
+    @Test
+    public void splatModeDrawsOpaqueSplatsWhenFramebufferIsIncomplete() {
+        RecordingGlApi gl = new RecordingGlApi();
+        gl.framebufferStatus = 0;
+        GpuUploadManager manager = manager(gl);
+        PointCloudRenderer renderer = new PointCloudRenderer(ASSETS, points(2000), "splat", gl, manager);
+        renderer.onSurfaceCreated(null, null);
+        renderer.onSurfaceChanged(null, 1080, 1920);
+        assertTrue(gl.liveFramebuffers.isEmpty());
+        drawUntilUploaded(gl, manager, () -> renderer.onDrawFrame(null));
+
+        gl.beginFrame();
+        renderer.onDrawFrame(null);
+        assertSteadyFrame(gl);
+        assertEquals(1, gl.frame.drawCalls);
+        assertEquals(2000, gl.lastDrawCount);
+        assertTrue(renderer.getRenderInfo().contains("opaque"));
+    }
+
+    @Test
+    public void pickFindsAPointUnderTheScreenCenterOnceTheIndexIsBuilt() {
+        RecordingGlApi gl = new RecordingGlApi();
+        GpuUploadManager manager = manager(gl);
+        PointCloudRenderer renderer = new PointCloudRenderer(ASSETS, points(20000), "fast", gl, manager);
+        renderer.onSurfaceCreated(null, null);
+        renderer.onSurfaceChanged(null, 1080, 1920);
+        assertNull(renderer.pick(540, 960, 20));
+        drawUntilUploaded(gl, manager, () -> renderer.onDrawFrame(null));
+
+        PointPicker.Hit hit = renderer.pick(540, 960, 20);
+        assertNotNull(hit);
+        // 相机在距中心 3 处，点云归一化到 [-1, 1]；拾取结果为原始坐标（半边长 48）
+        assertTrue("distance " + hit.distance, hit.distance > 1 * 48 && hit.distance < 3 * 48);
+        // 屏幕角落之外没有点
+        assertNull(renderer.pick(0, 0, 2));
+    }
+
+    @Test
+    public void switchingColorModeOnlyUpdatesUniforms() {
+        RecordingGlApi gl = new RecordingGlApi();
+        GpuUploadManager manager = manager(gl);
+        PointCloudData data = points(20000);
+        for (int i = 0; i < data.pointCount; i++) {
+            data.setIntensity(i, i % 100);
+            data.setClassification(i, i % 7);
+        }
+        PointCloudRenderer renderer = new PointCloudRenderer(ASSETS, data, "fast", gl, manager);
+        renderer.onSurfaceCreated(null, null);
+        renderer.onSurfaceChanged(null, 1080, 1920);
+        drawUntilUploaded(gl, manager, () -> renderer.onDrawFrame(null));
+        // 位置、颜色和属性三个缓冲区
+        assertEquals(3, gl.liveBuffers.size());
+        assertEquals(PointCloudRenderer.COLOR_RGB, renderer.getEffectiveColorMode());
+
+        gl.beginFrame();
+        renderer.onDrawFrame(null);
+        assertSteadyFrame(gl);
+        int steadyUniforms = gl.frame.uniformUpdates;
+
+        for (int mode : new int[]{PointCloudRenderer.COLOR_HEIGHT, PointCloudRenderer.COLOR_INTENSITY,
+                PointCloudRenderer.COLOR_CLASSIFICATION}) {
+            renderer.setColorMode(mode);
+            gl.beginFrame();
+            renderer.onDrawFrame(null);
+            assertSteadyFrame(gl);
+            assertEquals(mode, renderer.getEffectiveColorMode());
+            // 着色方式和高度范围两个 uniform
+            assertEquals(steadyUniforms + 2, gl.frame.uniformUpdates);
+        }
+    }
+
+    @Test
+    public void colorlessPointsUploadNoColorBufferAndFallBackToHeight() {
+        RecordingGlApi gl = new RecordingGlApi();
+        GpuUploadManager manager = manager(gl);
+        PointCloudData data = new PointCloudData();
+        for (int i = 0; i < 5000; i++) {
+            data.addPoint(i % 97, i % 89, i % 83);
+        }
+        PointCloudRenderer renderer = new PointCloudRenderer(ASSETS, data, "fast", gl, manager);
+        renderer.onSurfaceCreated(null, null);
+        renderer.onSurfaceChanged(null, 1080, 1920);
+        drawUntilUploaded(gl, manager, () -> renderer.onDrawFrame(null));
+
+        assertEquals(1, gl.liveBuffers.size());
+        assertEquals(5000L * 12, gl.total.uploadedBytes);
+        assertEquals(PointCloudRenderer.COLOR_HEIGHT, renderer.getEffectiveColorMode());
+        renderer.setColorMode(PointCloudRenderer.COLOR_INTENSITY);
+        assertEquals(PointCloudRenderer.COLOR_HEIGHT, renderer.getEffectiveColorMode());
+    }
+
+    @Test
+    public void renderersShareTheSourceDataWithoutModifyingIt() {
+        PointCloudData data = points(5000);
+        float[] before = data.getPointsArray();
+        float minX = data.minX, maxY = data.maxY;
+        for (int i = 0; i < 2; i++) {
+            RecordingGlApi gl = new RecordingGlApi();
+            GpuUploadManager manager = manager(gl);
+            PointCloudRenderer renderer = new PointCloudRenderer(ASSETS, data, "fast", gl, manager);
+            renderer.onSurfaceCreated(null, null);
+            renderer.onSurfaceChanged(null, 1080, 1920);
+            drawUntilUploaded(gl, manager, () -> renderer.onDrawFrame(null));
+            renderer.setPointCloudData(data);
+        }
+
+        // 归一化只在模型矩阵中，点坐标和范围保持原始单位
+        assertArrayEquals(before, data.getPointsArray(), 0);
+        assertEquals(minX, data.minX, 0);
+        assertEquals(maxY, data.maxY, 0);
+        assertEquals(48, data.getHalfExtent(), 0);
+    }
+
+    @Test
+    public void secondRendererOfTheSameDatasetReusesPreparedPointsAndPicker() {
+        PointCloudRepository repository = new PointCloudRepository(PointCloudRepository.DEFAULT_BUDGET_BYTES);
+        PointCloudData data = points(20000);
+        repository.putDataset("a", data, data.estimateBytes());
+        PointCloudRenderer[] renderers = new PointCloudRenderer[2];
+        RecordingGlApi[] gls = new RecordingGlApi[2];
+        for (int i = 0; i < 2; i++) {
+            RecordingGlApi gl = new RecordingGlApi();
+            GpuUploadManager manager = manager(gl);
+            PointCloudRenderer renderer = new PointCloudRenderer(ASSETS, data, "fast", gl, manager);
+            renderer.setRepository(repository, "a");
+            renderer.onSurfaceCreated(null, null);
+            renderer.onSurfaceChanged(null, 1080, 1920);
+            drawUntilUploaded(gl, manager, () -> renderer.onDrawFrame(null));
+            assertNotNull(renderer.pick(540, 960, 20));
+            renderers[i] = renderer;
+            gls[i] = gl;
+        }
+
+        // 每个GL上下文各自上传，准备结果和拾取索引只构建一次
+        assertEquals(gls[0].total.uploadedBytes, gls[1].total.uploadedBytes);
+        assertEquals(3, repository.size());
+        String points = PointCloudRepository.key("a", "points", true, false, false);
+        String picker = PointCloudRepository.key("a", "picker");
+        assertEquals(2, repository.getRefCount(points));
+        assertEquals(2, repository.getRefCount(picker));
+
+        renderers[0].releaseSharedData();
+        renderers[1].releaseSharedData();
+        assertEquals(0, repository.getRefCount(points));
+        repository.onTrimMemory(PointCloudRepository.TRIM_MEMORY_BACKGROUND);
+        assertFalse(repository.contains(points));
+        assertTrue(repository.contains(PointCloudRepository.datasetKey("a")));
+    }
+}
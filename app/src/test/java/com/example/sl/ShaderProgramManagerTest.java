@@ -0,0 +1,130 @@
+package com.example.sl;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class ShaderProgramManagerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final AssetSource ASSETS = filename -> {
+        if (!filename.endsWith(".glsl")) throw new FileNotFoundException(filename);
+        return new ByteArrayInputStream(("#version 300 es\n// " + filename + "\nvoid main() {}\n").getBytes());
+    };
+
+    private ShaderProgramManager manager(RecordingGlApi gl, File cacheDir) {
+        ShaderProgramManager manager = new ShaderProgramManager(gl, ASSETS);
+        manager.setCacheDirectory(cacheDir);
+        manager.onContextCreated();
+        return manager;
+    }
+
+    @Test
+    public void definesAreInjectedAfterVersionKeepingLineNumbers() {
+        String source = "#version 300 es\nprecision mediump float;\nvoid main() {}\n";
+        assertEquals("#version 300 es\n#define ROUND\n#define EDGE_WIDTH 0.2\n#line 2\nprecision mediump float;\nvoid main() {}\n",
+                ShaderUtils.injectDefines(source, "ROUND", "EDGE_WIDTH 0.2"));
+        assertEquals("#define A\n#line 1\nvoid main() {}",
+                ShaderUtils.injectDefines("void main() {}", "A"));
+        assertSame(source, ShaderUtils.injectDefines(source));
+    }
+
+    @Test
+    public void linkedProgramsAreReusedFromDiskAcrossContextsAndProcesses() throws IOException {
+        File cacheDir = new File(folder.getRoot(), "shaders");
+        RecordingGlApi gl = new RecordingGlApi();
+        ShaderProgramManager manager = manager(gl, cacheDir);
+
+        int program = manager.getProgram("v.glsl", "f.glsl", "ROUND");
+        assertNotEquals(0, program);
+        assertEquals(2, gl.shaderCompiles);
+        assertEquals(1, cacheDir.listFiles().length);
+
+        // 同一上下文中直接复用
+        assertEquals(program, manager.getProgram("v.glsl", "f.glsl", "ROUND"));
+        assertEquals(2, gl.shaderCompiles);
+
+        // 上下文重建：从磁盘加载，不编译
+        manager.onContextCreated();
+        assertNotEquals(0, manager.getProgram("v.glsl", "f.glsl", "ROUND"));
+        assertEquals(2, gl.shaderCompiles);
+        assertEquals(1, manager.getBinaryLoadCount());
+
+        // 新进程
+        RecordingGlApi other = new RecordingGlApi();
+        ShaderProgramManager second = manager(other, cacheDir);
+        assertNotEquals(0, second.getProgram("v.glsl", "f.glsl", "ROUND"));
+        assertEquals(0, other.shaderCompiles);
+        assertEquals(0, second.getCompiledCount());
+
+        // 不同变体是不同的程序
+        assertNotEquals(0, second.getProgram("v.glsl", "f.glsl"));
+        assertEquals(2, other.shaderCompiles);
+        assertEquals(2, cacheDir.listFiles().length);
+    }
+
+    @Test
+    public void driverChangeOrRejectedBinaryFallsBackToSource() throws IOException {
+        File cacheDir = new File(folder.getRoot(), "shaders");
+        manager(new RecordingGlApi(), cacheDir).getProgram("v.glsl", "f.glsl");
+
+        // 驱动不同：缓存键不同，重新编译
+        RecordingGlApi updated = new RecordingGlApi();
+        updated.renderer = "FakeRenderer 2";
+        manager(updated, cacheDir).getProgram("v.glsl", "f.glsl");
+        assertEquals(2, updated.shaderCompiles);
+        assertEquals(2, cacheDir.listFiles().length);
+
+        // 驱动拒绝二进制：删除后从源码编译并重新缓存
+        RecordingGlApi rejecting = new RecordingGlApi();
+        rejecting.acceptProgramBinaries = false;
+        ShaderProgramManager manager = manager(rejecting, cacheDir);
+        int program = manager.getProgram("v.glsl", "f.glsl");
+        assertNotEquals(0, program);
+        assertEquals(1, rejecting.programBinaryLoads);
+        assertEquals(2, rejecting.shaderCompiles);
+        assertEquals(1, rejecting.livePrograms.size());
+        assertEquals(2, cacheDir.listFiles().length);
+
+        // 损坏的缓存文件同样回退
+        for (File file : cacheDir.listFiles()) {
+            try (FileOutputStream out = new FileOutputStream(file)) {
+                out.write(new byte[]{1, 2, 3});
+            }
+        }
+        RecordingGlApi fresh = new RecordingGlApi();
+        assertNotEquals(0, manager(fresh, cacheDir).getProgram("v.glsl", "f.glsl"));
+        assertEquals(2, fresh.shaderCompiles);
+        assertEquals(0, fresh.programBinaryLoads);
+    }
+
+    @Test
+    public void worksWithoutCacheDirectory() {
+        RecordingGlApi gl = new RecordingGlApi();
+        ShaderProgramManager manager = manager(gl, null);
+        int program = manager.getProgram("v.glsl", "f.glsl");
+        assertNotEquals(0, program);
+        manager.release();
+        assertTrue(gl.livePrograms.isEmpty());
+    }
+
+    @Test
+    public void everyDisplayModeHasItsOwnVariant() {
+        Set<String> variants = new HashSet<>();
+        for (String mode : new String[]{"normal", "circle", "fast", "light", "smooth", "quality"}) {
+            assertTrue(mode, variants.add(String.join(",", PointCloudRenderer.getShaderDefines(mode))));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.sl;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SplatEstimatorTest {
+
+    private static float[] plane(int side, float spacing) {
+        float[] positions = new float[side * side * 3];
+        for (int y = 0; y < side; y++) {
+            for (int x = 0; x < side; x++) {
+                int p = (y * side + x) * 3;
+                positions[p] = x * spacing;
+                positions[p + 1] = y * spacing;
+                positions[p + 2] = 0;
+            }
+        }
+        return positions;
+    }
+
+    @Test
+    public void planeSplatsFaceAlongItsNormalAndCoverTheGrid() {
+        float spacing = 0.01f;
+        float[] positions = plane(60, spacing);
+        int count = positions.length / 3;
+        float[] splats = SplatEstimator.estimate(positions, count, 1);
+        for (int i = 0; i < count; i++) {
+            int s = i * SplatEstimator.FLOATS_PER_SPLAT;
+            assertTrue("normal " + i, Math.abs(splats[s + 2]) > 0.99f);
+            float radius = splats[s + 3];
+            // 第 8 个近邻在网格内部为对角线距离，边角处更远，至少覆盖相邻点
+            assertTrue("radius " + radius, radius >= spacing * 0.99f && radius <= spacing * 3.01f);
+        }
+    }
+
+    @Test
+    public void sphereNormalsPointOutward() {
+        float[] positions = TestShapes.spherePoints(5000, 1);
+        float[] splats = SplatEstimator.estimate(positions, 5000, 1);
+        for (int i = 0; i < 5000; i++) {
+            int s = i * SplatEstimator.FLOATS_PER_SPLAT;
+            float dot = splats[s] * positions[i * 3] + splats[s + 1] * positions[i * 3 + 1]
+                    + splats[s + 2] * positions[i * 3 + 2];
+            assertTrue("point " + i + " dot " + dot, dot > 0.9f);
+            assertTrue(splats[s + 3] > 0 && splats[s + 3] < 0.2f);
+        }
+    }
+
+    @Test
+    public void parallelEstimateMatchesSingleThreaded() {
+        int count = 60000;
+        float[] positions = TestShapes.spherePoints(count, 2);
+        // 确实走并行路径：分成 3 个区间
+        assertEquals(3, SplatEstimator.chunkCount(count, 4));
+        float[] single = SplatEstimator.estimate(positions, count, 1);
+        float[] parallel = SplatEstimator.estimate(positions, count, 4);
+        assertArrayEquals(single, parallel, 0);
+    }
+
+    @Test
+    public void largeInputsAreSplitAcrossAllThreads() {
+        assertEquals(8, SplatEstimator.chunkCount(1_000_000, 8));
+        assertEquals(1, SplatEstimator.chunkCount(1_000_000, 1));
+        // 点太少时不启动线程
+        assertEquals(1, SplatEstimator.chunkCount(30_000, 8));
+        assertEquals(1, SplatEstimator.chunkCount(0, 8));
+    }
+
+    @Test
+    public void emptyAndTinyInputs() {
+        assertEquals(0, SplatEstimator.estimate(new float[0], 0, 4).length);
+        float[] splats = SplatEstimator.estimate(new float[]{0, 0, 0}, 1, 4);
+        assertEquals(0, splats[3], 0);
+    }
+}
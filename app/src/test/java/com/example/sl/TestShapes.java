@@ -0,0 +1,113 @@
+package com.example.sl;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * 多个测试共用的几何数据和比较工具
+ */
+final class TestShapes {
+
+    private TestShapes() {
+    }
+
+    /**
+     * 单位球面上均匀分布的随机点（xyz 连续存放）
+     */
+    static float[] spherePoints(int count, long seed) {
+        Random random = new Random(seed);
+        float[] positions = new float[count * 3];
+        for (int i = 0; i < count; i++) {
+            double z = random.nextDouble() * 2 - 1;
+            double theta = random.nextDouble() * 2 * Math.PI;
+            double r = Math.sqrt(1 - z * z);
+            positions[i * 3] = (float) (r * Math.cos(theta));
+            positions[i * 3 + 1] = (float) (r * Math.sin(theta));
+            positions[i * 3 + 2] = (float) z;
+        }
+        return positions;
+    }
+
+    /**
+     * 斐波那契单位球面点云（点分布均匀、封闭表面），带白色
+     */
+    static PointCloudData sphereCloud(int count) {
+        PointCloudData data = new PointCloudData();
+        double golden = Math.PI * (3 - Math.sqrt(5));
+        for (int i = 0; i < count; i++) {
+            double y = 1 - (i / (double) (count - 1)) * 2;
+            double r = Math.sqrt(1 - y * y);
+            double theta = golden * i;
+            data.addPoint((float) (Math.cos(theta) * r), (float) y, (float) (Math.sin(theta) * r), 1, 1, 1);
+        }
+        return data;
+    }
+
+    /**
+     * [-1, 1] × [-1, 1] 范围内沿 x 起伏的随机平面点云（y 为高度方向），带白色
+     */
+    static PointCloudData wavyPlaneCloud(int count) {
+        PointCloudData data = new PointCloudData();
+        Random random = new Random(1);
+        for (int i = 0; i < count; i++) {
+            float x = random.nextFloat() * 2 - 1;
+            float z = random.nextFloat() * 2 - 1;
+            float y = 0.05f * (float) Math.sin(x * 3);
+            data.addPoint(x, y, z, 1, 1, 1);
+        }
+        return data;
+    }
+
+    /**
+     * 经纬度单位球面网格，三角形朝外
+     */
+    static MeshData sphereMesh(int rings, int segments) {
+        MeshData.Builder builder = new MeshData.Builder((rings + 1) * (segments + 1), 2 * rings * segments);
+        for (int r = 0; r <= rings; r++) {
+            double phi = Math.PI * r / rings;
+            for (int s = 0; s <= segments; s++) {
+                double theta = 2 * Math.PI * s / segments;
+                builder.addVertex((float) (Math.sin(phi) * Math.cos(theta)), (float) Math.cos(phi),
+                        (float) (Math.sin(phi) * Math.sin(theta)));
+            }
+        }
+        for (int r = 0; r < rings; r++) {
+            for (int s = 0; s < segments; s++) {
+                int a = r * (segments + 1) + s, b = a + 1, c = a + segments + 1, d = c + 1;
+                if (r > 0) builder.addTriangle(a, b, c);
+                if (r < rings - 1) builder.addTriangle(b, d, c);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * 用顶点编号（保持绕序）表示三角形，排序后用于比较共享同一组顶点的两个网格的三角形集合
+     */
+    static long[] sortedTriangleKeys(MeshData mesh) {
+        long[] keys = new long[mesh.getTriangleCount()];
+        for (int t = 0; t < keys.length; t++) {
+            keys[t] = ((long) mesh.getIndex(t * 3) * 1000000 + mesh.getIndex(t * 3 + 1)) * 1000000 + mesh.getIndex(t * 3 + 2);
+        }
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    /**
+     * 用顶点坐标表示三角形（与顶点编号和顶点顺序无关），排序后用于比较顶点被重排的两个网格的三角形集合
+     */
+    static String[] sortedTrianglePositions(MeshData mesh) {
+        String[] triangles = new String[mesh.getTriangleCount()];
+        String[] corners = new String[3];
+        for (int t = 0; t < triangles.length; t++) {
+            for (int c = 0; c < 3; c++) {
+                int v = mesh.getIndex(t * 3 + c);
+                corners[c] = mesh.getX(v) + "," + mesh.getY(v) + "," + mesh.getZ(v);
+            }
+            Arrays.sort(corners);
+            triangles[t] = String.join(" ", corners);
+        }
+        Arrays.sort(triangles);
+        return triangles;
+    }
+}
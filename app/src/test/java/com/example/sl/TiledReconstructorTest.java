@@ -0,0 +1,196 @@
+package com.example.sl;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class TiledReconstructorTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static final int GRID = 120;
+    private static final float SPACING = 0.01f;
+
+    /**
+     * 轻微抖动的规则平面点源 (y 为高度方向)
+     */
+    private static PointSource planeSource() {
+        return visitor -> {
+            Random random = new Random(7);
+            for (int i = 0; i < GRID; i++) {
+                for (int j = 0; j < GRID; j++) {
+                    float x = i * SPACING + (random.nextFloat() - 0.5f) * SPACING * 0.2f;
+                    float z = j * SPACING + (random.nextFloat() - 0.5f) * SPACING * 0.2f;
+                    float y = random.nextFloat() * 0.001f;
+                    visitor.onPoint(x, y, z, null);
+                }
+            }
+        };
+    }
+
+    /**
+     * 斐波那契球面点源（封闭表面），球心不在原点
+     */
+    private static PointSource sphereSource(int count) {
+        return visitor -> {
+            double golden = Math.PI * (3 - Math.sqrt(5));
+            for (int i = 0; i < count; i++) {
+                double y = 1 - (i / (double) (count - 1)) * 2;
+                double r = Math.sqrt(1 - y * y);
+                double theta = golden * i;
+                visitor.onPoint(5 + (float) (Math.cos(theta) * r), -3 + (float) y, 2 + (float) (Math.sin(theta) * r), null);
+            }
+        };
+    }
+
+    /**
+     * 按顶点坐标表示的三角形集合，与顶点编号和绕序无关
+     */
+    private static Set<String> trianglesByPosition(MeshData mesh) {
+        Set<String> triangles = new HashSet<>();
+        String[] corners = new String[3];
+        for (int t = 0; t < mesh.getTriangleCount(); t++) {
+            for (int c = 0; c < 3; c++) {
+                int v = mesh.getIndex(t * 3 + c);
+                corners[c] = mesh.getX(v) + "," + mesh.getY(v) + "," + mesh.getZ(v);
+            }
+            Arrays.sort(corners);
+            assertTrue("duplicate triangle", triangles.add(String.join(" ", corners)));
+        }
+        return triangles;
+    }
+
+    /**
+     * 每条边被多少个三角形使用
+     */
+    private static Map<Long, Integer> edgeUses(MeshData mesh) {
+        Map<Long, Integer> edgeUse = new HashMap<>();
+        for (int t = 0; t < mesh.getTriangleCount(); t++) {
+            for (int e = 0; e < 3; e++) {
+                int a = mesh.getIndex(t * 3 + e), b = mesh.getIndex(t * 3 + (e + 1) % 3);
+                long key = ((long) Math.min(a, b) << 32) | Math.max(a, b);
+                edgeUse.merge(key, 1, Integer::sum);
+            }
+        }
+        return edgeUse;
+    }
+
+    /**
+     * 只被一个三角形使用的边（边界边）的数量
+     */
+    private static int countBoundaryEdges(MeshData mesh) {
+        int boundary = 0;
+        for (int uses : edgeUses(mesh).values()) {
+            if (uses == 1) boundary++;
+        }
+        return boundary;
+    }
+
+    @Test
+    public void tiledPlane_matchesSingleTileWithoutCracks() throws Exception {
+        File workDir = temporaryFolder.newFolder("tiles");
+
+        MeshData single = new TiledReconstructor(workDir, Integer.MAX_VALUE, 0, 1)
+                .stitch(planeSource(), ReconstructionMonitor.NONE);
+        // 约 1600 点一块，会得到 3x3 个分块
+        TiledReconstructor reconstructor = new TiledReconstructor(workDir, 1600, 0, 4);
+        MeshData tiled = reconstructor.stitch(planeSource(), ReconstructionMonitor.NONE);
+
+        assertEquals(9, reconstructor.getTileCount());
+        assertTrue(single.getTriangleCount() > GRID * GRID);
+        // 接缝处的三角形与整体重建完全相同，重叠区的顶点都已焊接，没有新增的裂缝
+        assertEquals(trianglesByPosition(single), trianglesByPosition(tiled));
+        assertEquals(single.getVertexCount(), tiled.getVertexCount());
+        assertEquals(countBoundaryEdges(single), countBoundaryEdges(tiled));
+
+        for (int i = 0; i < tiled.getVertexCount(); i++) {
+            assertTrue(tiled.getNormalY(i) > 0.9f);
+        }
+
+        // 临时分块文件已删除
+        String[] remaining = workDir.list();
+        assertNotNull(remaining);
+        assertEquals(0, remaining.length);
+    }
+
+    @Test
+    public void tiledSphere_keepsBothSidesOfEachColumn() throws Exception {
+        File workDir = temporaryFolder.newFolder("sphere");
+        MeshData single = new TiledReconstructor(workDir, Integer.MAX_VALUE, 0, 1)
+                .stitch(sphereSource(8000), ReconstructionMonitor.NONE);
+        TiledReconstructor reconstructor = new TiledReconstructor(workDir, 1000, 0, 2);
+        MeshData tiled = reconstructor.stitch(sphereSource(8000), ReconstructionMonitor.NONE);
+
+        assertTrue(reconstructor.getTileCount() > 1);
+        assertEquals(trianglesByPosition(single), trianglesByPosition(tiled));
+
+        // 分块柱体贯穿整个球，两侧的表面都要保留，而不是被压成一层
+        int[] sides = new int[2];
+        for (int t = 0; t < tiled.getTriangleCount(); t++) {
+            float x = 0;
+            for (int c = 0; c < 3; c++) {
+                x += tiled.getX(tiled.getIndex(t * 3 + c)) / 3;
+            }
+            if (x > 5.5f) sides[0]++;
+            if (x < 4.5f) sides[1]++;
+        }
+        assertTrue(sides[0] > tiled.getTriangleCount() / 5);
+        assertTrue(sides[1] > tiled.getTriangleCount() / 5);
+    }
+
+    @Test
+    public void reconstructionIsPostProcessedAfterStitching() throws Exception {
+        File workDir = temporaryFolder.newFolder("cleaned");
+        TiledReconstructor reconstructor = new TiledReconstructor(workDir, 1000, 0, 2);
+        MeshData stitched = reconstructor.stitch(sphereSource(8000), ReconstructionMonitor.NONE);
+        MeshData cleaned = reconstructor.reconstruct(sphereSource(8000), ReconstructionMonitor.NONE);
+
+        // 相邻点的伞形互相重叠，合并后有被三个以上三角形共用的边；清理后每条边最多两个三角形，且只删除不新增三角形
+        assertTrue(Collections.max(edgeUses(stitched).values()) > 2);
+        assertTrue(Collections.max(edgeUses(cleaned).values()) <= 2);
+        assertTrue(trianglesByPosition(stitched).containsAll(trianglesByPosition(cleaned)));
+        assertTrue(cleaned.getTriangleCount() > stitched.getTriangleCount() / 3);
+        assertTrue(cleaned.getLodCount() > 1);
+    }
+
+    @Test
+    public void tilesAreStitchedIncrementallyWithBoundedMemory() throws Exception {
+        File workDir = temporaryFolder.newFolder("bounded");
+        int workers = 2;
+        // 约 400 点一块，得到 6x6 个分块
+        TiledReconstructor reconstructor = new TiledReconstructor(workDir, 400, 0, workers);
+        MeshData tiled = reconstructor.reconstruct(planeSource(), ReconstructionMonitor.NONE);
+
+        assertEquals(36, reconstructor.getTileCount());
+        assertTrue(tiled.getTriangleCount() > 0);
+        // 同时在内存中的分块数不超过工作线程数，与分块总数无关
+        assertTrue(reconstructor.getPeakTilesInMemory() >= 1);
+        assertTrue("peak " + reconstructor.getPeakTilesInMemory(), reconstructor.getPeakTilesInMemory() <= workers);
+    }
+    @Test(expected = java.util.concurrent.CancellationException.class)
+    public void cancelledMonitor_abortsTiling() throws Exception {
+        File workDir = temporaryFolder.newFolder("cancelled");
+        new TiledReconstructor(workDir, 1600, 0, 2).reconstruct(planeSource(), new ReconstructionMonitor() {
+            @Override
+            public void onProgress(ReconstructionStage stage, float fraction) {
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return true;
+            }
+        });
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.sl;
+
+import android.opengl.GLES30;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class VertexPackerTest {
+
+    /**
+     * 随机顶点和单位法线组成的网格
+     */
+    private static MeshData randomMesh(int vertexCount, float extent) {
+        Random random = new Random(3);
+        MeshData.Builder builder = new MeshData.Builder(vertexCount, vertexCount);
+        for (int i = 0; i < vertexCount; i++) {
+            float nx = random.nextFloat() * 2 - 1, ny = random.nextFloat() * 2 - 1, nz = random.nextFloat() * 2 - 1;
+            float length = (float) Math.sqrt(nx * nx + ny * ny + nz * nz);
+            builder.addVertex((random.nextFloat() * 2 - 1) * extent, random.nextFloat() * extent, 5 + random.nextFloat(),
+                    nx / length, ny / length, nz / length);
+        }
+        for (int i = 0; i + 2 < vertexCount; i++) {
+            builder.addTriangle(i, i + 1, i + 2);
+        }
+        return builder.build();
+    }
+
+    private static float angleBetween(float[] a, MeshData mesh, int v) {
+        float dot = a[0] * mesh.getNormalX(v) + a[1] * mesh.getNormalY(v) + a[2] * mesh.getNormalZ(v);
+        float length = (float) Math.sqrt(a[0] * a[0] + a[1] * a[1] + a[2] * a[2]);
+        return (float) Math.acos(Math.min(1.0, dot / length));
+    }
+
+    @Test
+    public void compactLayout_isSmallerAndWithinErrorBounds() {
+        MeshData mesh = randomMesh(5000, 10);
+        VertexPacker.PackedMesh full = VertexPacker.FULL_PRECISION.pack(mesh);
+        VertexPacker.PackedMesh compact = VertexPacker.COMPACT.pack(mesh);
+
+        assertEquals(32, full.stride);
+        assertEquals(16, compact.stride);
+        assertEquals(GLES30.GL_UNSIGNED_SHORT, compact.indexType);
+        int fullBytes = mesh.getVertexCount() * 32 + mesh.getIndexCount() * 4;
+        assertTrue(fullBytes >= 2 * (compact.getVertexBytes() + compact.getIndexBytes()));
+
+        // 位置误差不超过半个量化步长
+        float[] extent = {10, 5, 0.5f};
+        float[] out = new float[3];
+        for (int v = 0; v < mesh.getVertexCount(); v++) {
+            compact.getPosition(v, out);
+            assertEquals(mesh.getX(v), out[0], extent[0] / 32767 + 1e-5f);
+            assertEquals(mesh.getY(v), out[1], extent[1] / 32767 + 1e-5f);
+            assertEquals(mesh.getZ(v), out[2], extent[2] / 32767 + 1e-5f);
+
+            compact.getNormal(v, out);
+            assertTrue(angleBetween(out, mesh, v) < 1e-3f);
+        }
+
+        // 全精度布局无损
+        for (int v = 0; v < mesh.getVertexCount(); v++) {
+            full.getPosition(v, out);
+            assertEquals(mesh.getX(v), out[0], 0f);
+            full.getNormal(v, out);
+            assertEquals(mesh.getNormalZ(v), out[2], 0f);
+        }
+        for (int i = 0; i < mesh.getIndexCount(); i++) {
+            assertEquals(mesh.getIndex(i), compact.getIndex(i));
+        }
+    }
+
+    @Test
+    public void packed1010102Normals_withinErrorBound() {
+        MeshData mesh = randomMesh(2000, 1);
+        VertexPacker packer = new VertexPacker(VertexPacker.PositionFormat.FLOAT,
+                VertexPacker.NormalFormat.INT_2_10_10_10, VertexPacker.TexCoordFormat.FLOAT);
+        VertexPacker.PackedMesh packed = packer.pack(mesh);
+
+        assertEquals(GLES30.GL_INT_2_10_10_10_REV, packed.normal.glType);
+        assertEquals(4, packed.normal.components);
+        float[] out = new float[3];
+        for (int v = 0; v < mesh.getVertexCount(); v++) {
+            packed.getNormal(v, out);
+            assertTrue(angleBetween(out, mesh, v) < 5e-3f);
+        }
+    }
+
+    @Test
+    public void halfFloat_roundTrip() {
+        float[] texCoords = new float[]{0, 1, -1, 0.5f, 0.333f, 1e-5f, 65504f, 2.5f, -0.7f};
+        for (float f : texCoords) {
+            float back = VertexPacker.halfToFloat(VertexPacker.floatToHalf(f));
+            // 规格化范围内相对误差不超过 2^-11
+            assertEquals(f, back, Math.max(Math.abs(f) / 2048f, 6e-8f));
+        }
+        assertTrue(Float.isInfinite(VertexPacker.halfToFloat(VertexPacker.floatToHalf(1e6f))));
+
+        MeshData mesh = randomMesh(100, 1);
+        VertexPacker.PackedMesh packed = VertexPacker.COMPACT.pack(mesh);
+        float[] expected = mesh.getTexCoordsArray();
+        float[] out = new float[2];
+        for (int v = 0; v < mesh.getVertexCount(); v++) {
+            packed.getTexCoord(v, out);
+            assertEquals(expected[v * 2], out[0], Math.abs(expected[v * 2]) / 2048f);
+            assertEquals(expected[v * 2 + 1], out[1], Math.abs(expected[v * 2 + 1]) / 2048f);
+        }
+    }
+
+    @Test
+    public void octahedral_coversAllOctants() {
+        float[] encoded = new float[2];
+        float[] decoded = new float[3];
+        float[][] normals = {{0, 0, 1}, {0, 0, -1}, {1, 0, 0}, {-1, 0, 0}, {0, 1, 0}, {0, -1, 0},
+                {0.577f, -0.577f, -0.577f}, {-0.6f, 0.0f, -0.8f}};
+        for (float[] n : normals) {
+            VertexPacker.octEncode(n[0], n[1], n[2], encoded);
+            VertexPacker.octDecode(VertexPacker.snorm16(VertexPacker.toSnorm16(encoded[0])),
+                    VertexPacker.snorm16(VertexPacker.toSnorm16(encoded[1])), decoded);
+            float length = (float) Math.sqrt(n[0] * n[0] + n[1] * n[1] + n[2] * n[2]);
+            assertEquals(n[0] / length, decoded[0], 1e-3f);
+            assertEquals(n[1] / length, decoded[1], 1e-3f);
+            assertEquals(n[2] / length, decoded[2], 1e-3f);
+        }
+    }
+
+    @Test
+    public void largeMesh_usesIntIndices() {
+        MeshData mesh = randomMesh(70000, 1);
+        VertexPacker.PackedMesh packed = VertexPacker.COMPACT.pack(mesh);
+        assertEquals(GLES30.GL_UNSIGNED_INT, packed.indexType);
+        assertEquals(69999, packed.getIndex(mesh.getIndexCount() - 1));
+    }
+}